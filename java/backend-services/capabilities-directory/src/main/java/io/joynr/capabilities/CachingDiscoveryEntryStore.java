@@ -0,0 +1,381 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joynr.arbitration.DiscoveryQos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import joynr.types.DiscoveryEntry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Read-through cache in front of the persisted discovery entry store.<br>
+ * Lookups by domain/interface and by participantId are answered from a size
+ * bounded in-memory cache whose entries expire after
+ * {@link #PROPERTY_CACHE_TTL_MS}. Cached results older than the cacheMaxAge of
+ * a lookup are not used. Adding or removing entries invalidates the affected
+ * cache entries once the backing store has been updated, the backing store
+ * remains the source of truth.
+ * <p>
+ * Updates which bypass the cache, i.e. the last seen date set by
+ * {@link #touch(String)} and entries which are still queued by a write-behind
+ * backing store, become visible at the latest after the cache entry expired.
+ */
+@Singleton
+public class CachingDiscoveryEntryStore implements DiscoveryEntryStore {
+
+    public static final String PROPERTY_CACHE_MAX_SIZE = "joynr.capabilitiesdirectory.cache.maxsize";
+    public static final String PROPERTY_CACHE_TTL_MS = "joynr.capabilitiesdirectory.cache.ttlms";
+    private static final int DEFAULT_CACHE_MAX_SIZE = 1000;
+    private static final long DEFAULT_CACHE_TTL_MS = 60000;
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingDiscoveryEntryStore.class);
+
+    private final DiscoveryEntryStore backingStore;
+    private volatile int maxSize = DEFAULT_CACHE_MAX_SIZE;
+    private volatile long ttlMs = DEFAULT_CACHE_TTL_MS;
+
+    private final ExpiringCache<DomainInterfaceKey, List<DiscoveryEntry>> domainInterfaceCache = new ExpiringCache<>();
+    private final ExpiringCache<String, DiscoveryEntry> participantIdCache = new ExpiringCache<>();
+
+    // incremented on every invalidation; results read from the backing store are only cached if no
+    // invalidation happened in the meantime, otherwise they might already be outdated. The check and
+    // the caching are done under the invalidationLock, so that no invalidation can slip in between.
+    private final AtomicLong generation = new AtomicLong();
+    private final Object invalidationLock = new Object();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @Inject
+    public CachingDiscoveryEntryStore(DiscoveryEntryStorePersisted backingStore) {
+        this((DiscoveryEntryStore) backingStore);
+    }
+
+    CachingDiscoveryEntryStore(DiscoveryEntryStore backingStore) {
+        this.backingStore = backingStore;
+    }
+
+    @Inject(optional = true)
+    void setMaxSize(@Named(PROPERTY_CACHE_MAX_SIZE) int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param ttlMs
+     *            time after which cached lookup results expire. A value of 0
+     *            disables the cache.
+     */
+    @Inject(optional = true)
+    void setTtlMs(@Named(PROPERTY_CACHE_TTL_MS) long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public void add(DiscoveryEntry discoveryEntry) {
+        backingStore.add(discoveryEntry);
+        invalidate(discoveryEntry);
+    }
+
+    @Override
+    public void add(Collection<? extends DiscoveryEntry> entries) {
+        backingStore.add(entries);
+        if (entries != null) {
+            for (DiscoveryEntry discoveryEntry : entries) {
+                invalidate(discoveryEntry);
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(String participantId) {
+        // the domain and interface of the entry are needed for the invalidation after it was removed
+        DiscoveryEntry removedEntry = lookupForInvalidation(participantId);
+        boolean removed = backingStore.remove(participantId);
+        invalidate(participantId, removedEntry);
+        return removed;
+    }
+
+    @Override
+    public void remove(Collection<String> participantIds) {
+        Map<String, DiscoveryEntry> removedEntries = new HashMap<>();
+        for (String participantId : participantIds) {
+            removedEntries.put(participantId, lookupForInvalidation(participantId));
+        }
+        backingStore.remove(participantIds);
+        for (Map.Entry<String, DiscoveryEntry> removedEntry : removedEntries.entrySet()) {
+            invalidate(removedEntry.getKey(), removedEntry.getValue());
+        }
+    }
+
+    @Override
+    public Collection<DiscoveryEntry> lookup(String[] domains, String interfaceName) {
+        return lookup(domains, interfaceName, DiscoveryQos.NO_MAX_AGE);
+    }
+
+    @Override
+    public Collection<DiscoveryEntry> lookup(String[] domains, String interfaceName, long cacheMaxAge) {
+        long lookupGeneration = generation.get();
+        List<DiscoveryEntry> result = new ArrayList<>();
+        Set<String> missingDomains = new LinkedHashSet<>();
+        for (String domain : new LinkedHashSet<>(Arrays.asList(domains))) {
+            List<DiscoveryEntry> cachedEntries = domainInterfaceCache.get(new DomainInterfaceKey(domain, interfaceName),
+                                                                          cacheMaxAge);
+            if (cachedEntries != null) {
+                hitCount.incrementAndGet();
+                result.addAll(cachedEntries);
+            } else {
+                missCount.incrementAndGet();
+                missingDomains.add(domain);
+            }
+        }
+        if (missingDomains.isEmpty()) {
+            return result;
+        }
+
+        Collection<DiscoveryEntry> foundEntries = backingStore.lookup(missingDomains.toArray(new String[missingDomains.size()]),
+                                                                      interfaceName,
+                                                                      cacheMaxAge);
+        Map<String, List<DiscoveryEntry>> foundEntriesByDomain = new HashMap<>();
+        for (String domain : missingDomains) {
+            foundEntriesByDomain.put(domain, new ArrayList<DiscoveryEntry>());
+        }
+        for (DiscoveryEntry discoveryEntry : foundEntries) {
+            List<DiscoveryEntry> entriesOfDomain = foundEntriesByDomain.get(discoveryEntry.getDomain());
+            if (entriesOfDomain != null) {
+                entriesOfDomain.add(discoveryEntry);
+            }
+        }
+        synchronized (invalidationLock) {
+            if (generation.get() == lookupGeneration) {
+                for (Map.Entry<String, List<DiscoveryEntry>> entry : foundEntriesByDomain.entrySet()) {
+                    domainInterfaceCache.put(new DomainInterfaceKey(entry.getKey(), interfaceName),
+                                             Collections.unmodifiableList(entry.getValue()));
+                }
+            }
+        }
+        result.addAll(foundEntries);
+        return result;
+    }
+
+    @Override
+    @CheckForNull
+    public DiscoveryEntry lookup(String participantId, long cacheMaxAge) {
+        long lookupGeneration = generation.get();
+        DiscoveryEntry result = participantIdCache.get(participantId, cacheMaxAge);
+        if (result != null) {
+            hitCount.incrementAndGet();
+            return result;
+        }
+        missCount.incrementAndGet();
+        result = backingStore.lookup(participantId, cacheMaxAge);
+        if (result != null) {
+            synchronized (invalidationLock) {
+                if (generation.get() == lookupGeneration) {
+                    participantIdCache.put(participantId, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<DiscoveryEntry> getAllDiscoveryEntries() {
+        return backingStore.getAllDiscoveryEntries();
+    }
+
+    @Override
+    public boolean hasDiscoveryEntry(@Nonnull DiscoveryEntry discoveryEntry) {
+        return backingStore.hasDiscoveryEntry(discoveryEntry);
+    }
+
+    @Override
+    public void touch(String clusterControllerId) {
+        backingStore.touch(clusterControllerId);
+    }
+
+    /**
+     * @return the number of lookups answered from the cache. A lookup for
+     *         several domains counts once per domain.
+     */
+    public long getCacheHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups which had to be forwarded to the backing
+     *         store. A lookup for several domains counts once per domain.
+     */
+    public long getCacheMissCount() {
+        return missCount.get();
+    }
+
+    private void invalidate(DiscoveryEntry discoveryEntry) {
+        synchronized (invalidationLock) {
+            generation.incrementAndGet();
+            domainInterfaceCache.remove(new DomainInterfaceKey(discoveryEntry.getDomain(),
+                                                               discoveryEntry.getInterfaceName()));
+            // the entry might have been registered for another domain or interface before
+            DiscoveryEntry previousEntry = participantIdCache.remove(discoveryEntry.getParticipantId());
+            if (previousEntry != null) {
+                domainInterfaceCache.remove(new DomainInterfaceKey(previousEntry.getDomain(),
+                                                                   previousEntry.getInterfaceName()));
+            }
+        }
+    }
+
+    @CheckForNull
+    private DiscoveryEntry lookupForInvalidation(String participantId) {
+        DiscoveryEntry discoveryEntry = participantIdCache.get(participantId, DiscoveryQos.NO_MAX_AGE);
+        if (discoveryEntry == null) {
+            discoveryEntry = backingStore.lookup(participantId, DiscoveryQos.NO_MAX_AGE);
+        }
+        return discoveryEntry;
+    }
+
+    private void invalidate(String participantId, @CheckForNull DiscoveryEntry removedEntry) {
+        synchronized (invalidationLock) {
+            generation.incrementAndGet();
+            DiscoveryEntry cachedEntry = participantIdCache.remove(participantId);
+            if (cachedEntry != null) {
+                domainInterfaceCache.remove(new DomainInterfaceKey(cachedEntry.getDomain(),
+                                                                   cachedEntry.getInterfaceName()));
+            }
+            if (removedEntry != null) {
+                domainInterfaceCache.remove(new DomainInterfaceKey(removedEntry.getDomain(),
+                                                                   removedEntry.getInterfaceName()));
+            } else {
+                logger.debug("participantId {} to be removed not found, clearing domain/interface cache",
+                             participantId);
+                domainInterfaceCache.clear();
+            }
+        }
+    }
+
+    /**
+     * LRU cache whose entries expire after ttlMs. Size limit and ttl are read
+     * on every access, so that they can be configured after construction.
+     * Entries older than the maxAgeMs of a get are not returned, but kept for
+     * lookups which accept older results.
+     */
+    private class ExpiringCache<K, V> {
+        private final LinkedHashMap<K, ExpiringValue<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        synchronized V get(K key, long maxAgeMs) {
+            ExpiringValue<V> expiringValue = entries.get(key);
+            if (expiringValue == null) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (expiringValue.expiryDateMs <= now) {
+                entries.remove(key);
+                return null;
+            }
+            if (now - expiringValue.cachedDateMs > maxAgeMs) {
+                return null;
+            }
+            return expiringValue.value;
+        }
+
+        synchronized void put(K key, V value) {
+            if (ttlMs <= 0 || maxSize <= 0) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            entries.put(key, new ExpiringValue<V>(value, now, now + ttlMs));
+            while (entries.size() > maxSize) {
+                K eldestKey = entries.keySet().iterator().next();
+                entries.remove(eldestKey);
+            }
+        }
+
+        synchronized V remove(K key) {
+            ExpiringValue<V> expiringValue = entries.remove(key);
+            return expiringValue == null ? null : expiringValue.value;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+    }
+
+    private static final class ExpiringValue<V> {
+        private final V value;
+        private final long cachedDateMs;
+        private final long expiryDateMs;
+
+        ExpiringValue(V value, long cachedDateMs, long expiryDateMs) {
+            this.value = value;
+            this.cachedDateMs = cachedDateMs;
+            this.expiryDateMs = expiryDateMs;
+        }
+    }
+
+    private static final class DomainInterfaceKey {
+        private final String domain;
+        private final String interfaceName;
+
+        DomainInterfaceKey(String domain, String interfaceName) {
+            this.domain = domain;
+            this.interfaceName = interfaceName;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((domain == null) ? 0 : domain.hashCode());
+            result = prime * result + ((interfaceName == null) ? 0 : interfaceName.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DomainInterfaceKey)) {
+                return false;
+            }
+            DomainInterfaceKey other = (DomainInterfaceKey) obj;
+            return (domain == null ? other.domain == null : domain.equals(other.domain))
+                    && (interfaceName == null ? other.interfaceName == null : interfaceName.equals(other.interfaceName));
+        }
+    }
+}
@@ -22,18 +22,29 @@ package io.joynr.capabilities;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.google.inject.persist.PersistService;
 import io.joynr.arbitration.DiscoveryQos;
 import io.joynr.exceptions.JoynrCommunicationException;
@@ -46,10 +57,31 @@ import org.slf4j.LoggerFactory;
  * they offer.
  * Capability informations are stored in a concurrentHashMap. Using a in memory
  * database could be possible optimization.
+ * <p>
+ * Registrations are written in batches: all entries passed to
+ * {@link #add(Collection)} are upserted in a single transaction, flushing the
+ * persistence context every {@link #PROPERTY_BATCH_SIZE} entries. If
+ * {@link #PROPERTY_WRITE_BEHIND_INTERVAL_MS} is set to a positive value,
+ * registrations are queued instead and written periodically, so that a burst
+ * of cluster controllers re-registering at the same time results in a few
+ * large transactions instead of one transaction per entry. Queued entries are
+ * not returned by domain/interface lookups until they have been written.
+ * <p>
+ * If a batch can't be written in one transaction, its entries are written one
+ * by one. Entries which still fail are reported with a
+ * {@link JoynrCommunicationException}; queued entries are queued again unless
+ * they have been replaced by a newer registration or removed in the meantime.
+ * <p>
+ * The EntityManager is not thread safe, so every access to it, including the
+ * lookups, is serialized on the capsLock.
  */
 @Singleton
 public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
 
+    public static final String PROPERTY_BATCH_SIZE = "joynr.capabilitiesdirectory.persistence.batchsize";
+    public static final String PROPERTY_WRITE_BEHIND_INTERVAL_MS = "joynr.capabilitiesdirectory.persistence.writebehindintervalms";
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
     private static final Logger logger = LoggerFactory.getLogger(DiscoveryEntryStorePersisted.class);
     private EntityManager entityManager;
 
@@ -57,6 +89,13 @@ public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
     // Fixes FindBug warning: DL: Synchronization on Boolean
     private Object capsLock = new Object();
 
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    // registrations waiting to be written by the write-behind task, keyed by participantId so that
+    // repeated registrations of the same provider are only written once
+    private final ConcurrentMap<String, GlobalDiscoveryEntryPersisted> pendingEntries = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService writeBehindScheduler;
+
     @Inject
     public DiscoveryEntryStorePersisted(CapabilitiesProvisioning staticProvisioning,
                                         Provider<EntityManager> entityManagerProvider,
@@ -66,60 +105,218 @@ public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
         logger.debug("creating CapabilitiesStore {} with static provisioning", this);
     }
 
+    @Inject(optional = true)
+    void setBatchSize(@Named(PROPERTY_BATCH_SIZE) int batchSize) {
+        if (batchSize > 0) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    @Inject(optional = true)
+    synchronized void setWriteBehindIntervalMs(@Named(PROPERTY_WRITE_BEHIND_INTERVAL_MS) long writeBehindIntervalMs) {
+        if (writeBehindIntervalMs <= 0 || writeBehindScheduler != null) {
+            return;
+        }
+        writeBehindScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("joynr.capabilities.directory.writebehind-%d")
+                                                                                                    .setDaemon(true)
+                                                                                                    .build());
+        writeBehindScheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    logger.error("error writing queued discovery entries", e);
+                }
+            }
+        }, writeBehindIntervalMs, writeBehindIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("writing discovery entries every {} ms", writeBehindIntervalMs);
+    }
+
     /*
      * (non-Javadoc)
      * @see io.joynr.capabilities.CapabilitiesStore#add(io.joynr.
      * capabilities .DiscoveryEntry)
      */
     @Override
-    public synchronized void add(DiscoveryEntry discoveryEntry) {
-        logger.debug("adding discovery entry: {}", discoveryEntry);
-        if (!(discoveryEntry instanceof GlobalDiscoveryEntryPersisted)) {
+    public void add(DiscoveryEntry discoveryEntry) {
+        add(Collections.singletonList(discoveryEntry));
+    }
+
+    @Override
+    public void add(Collection<? extends DiscoveryEntry> entries) {
+        if (entries == null) {
             return;
         }
-        GlobalDiscoveryEntryPersisted globalDiscoveryEntry = (GlobalDiscoveryEntryPersisted) discoveryEntry;
-        if (globalDiscoveryEntry.getDomain() == null || globalDiscoveryEntry.getInterfaceName() == null
-                || globalDiscoveryEntry.getParticipantId() == null || globalDiscoveryEntry.getAddress() == null) {
-            String message = "discoveryEntry being registered is not complete: " + discoveryEntry;
-            logger.error(message);
-            throw new JoynrCommunicationException(message);
+        Map<String, GlobalDiscoveryEntryPersisted> entriesToAdd = new LinkedHashMap<>();
+        for (DiscoveryEntry discoveryEntry : entries) {
+            logger.debug("adding discovery entry: {}", discoveryEntry);
+            if (!(discoveryEntry instanceof GlobalDiscoveryEntryPersisted)) {
+                continue;
+            }
+            GlobalDiscoveryEntryPersisted globalDiscoveryEntry = (GlobalDiscoveryEntryPersisted) discoveryEntry;
+            if (globalDiscoveryEntry.getDomain() == null || globalDiscoveryEntry.getInterfaceName() == null
+                    || globalDiscoveryEntry.getParticipantId() == null || globalDiscoveryEntry.getAddress() == null) {
+                String message = "discoveryEntry being registered is not complete: " + discoveryEntry;
+                logger.error(message);
+                throw new JoynrCommunicationException(message);
+            }
+            entriesToAdd.put(globalDiscoveryEntry.getParticipantId(), globalDiscoveryEntry);
+        }
+        if (entriesToAdd.isEmpty()) {
+            return;
+        }
+
+        if (writeBehindScheduler != null) {
+            pendingEntries.putAll(entriesToAdd);
+        } else {
+            List<GlobalDiscoveryEntryPersisted> failedEntries;
+            synchronized (capsLock) {
+                failedEntries = upsert(entriesToAdd.values());
+            }
+            if (!failedEntries.isEmpty()) {
+                throw new JoynrCommunicationException("unable to add discoveryEntries: "
+                        + getParticipantIds(failedEntries));
+            }
+        }
+    }
+
+    /**
+     * Writes all queued registrations to the database. Does nothing if
+     * write-behind is disabled.
+     *
+     * @throws JoynrCommunicationException if some of the registrations could
+     *             not be written; they stay queued
+     */
+    public void flush() {
+        if (pendingEntries.isEmpty()) {
+            return;
+        }
+        List<GlobalDiscoveryEntryPersisted> failedEntries;
+        synchronized (capsLock) {
+            List<GlobalDiscoveryEntryPersisted> entriesToWrite = new ArrayList<>(pendingEntries.size());
+            for (GlobalDiscoveryEntryPersisted pendingEntry : pendingEntries.values()) {
+                // only remove the exact instance, a newer registration may have replaced it in the meantime
+                if (pendingEntries.remove(pendingEntry.getParticipantId(), pendingEntry)) {
+                    entriesToWrite.add(pendingEntry);
+                }
+            }
+            logger.debug("writing {} queued discovery entries", entriesToWrite.size());
+            failedEntries = upsert(entriesToWrite);
+            // requeued while holding the capsLock, so that a remove waiting for it drops the requeued entry
+            for (GlobalDiscoveryEntryPersisted failedEntry : failedEntries) {
+                // a newer registration queued in the meantime replaces the failed one
+                pendingEntries.putIfAbsent(failedEntry.getParticipantId(), failedEntry);
+            }
+        }
+        if (!failedEntries.isEmpty()) {
+            throw new JoynrCommunicationException("unable to write queued discoveryEntries, will retry: "
+                    + getParticipantIds(failedEntries));
+        }
+    }
+
+    /**
+     * Stops the write-behind task, if any, and writes all queued
+     * registrations.
+     */
+    public void shutdown() {
+        ScheduledExecutorService scheduler = writeBehindScheduler;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
+        flush();
+    }
 
-        GlobalDiscoveryEntryPersisted discoveryEntryFound = entityManager.find(GlobalDiscoveryEntryPersisted.class,
-                                                                               discoveryEntry.getParticipantId());
+    /**
+     * Writes the entries in one transaction, or one by one if the transaction
+     * fails.
+     *
+     * @return the entries which could not be written
+     */
+    private List<GlobalDiscoveryEntryPersisted> upsert(Collection<GlobalDiscoveryEntryPersisted> entriesToAdd) {
+        try {
+            upsertInTransaction(entriesToAdd);
+            return Collections.emptyList();
+        } catch (RuntimeException e) {
+            if (entriesToAdd.size() == 1) {
+                logger.error("unable to add discoveryEntry: " + entriesToAdd, e);
+                return new ArrayList<>(entriesToAdd);
+            }
+            logger.warn("unable to add {} discoveryEntries in one transaction, adding them one by one",
+                        entriesToAdd.size(),
+                        e);
+        }
+        List<GlobalDiscoveryEntryPersisted> failedEntries = new ArrayList<>();
+        for (GlobalDiscoveryEntryPersisted discoveryEntry : entriesToAdd) {
+            try {
+                upsertInTransaction(Collections.singletonList(discoveryEntry));
+            } catch (RuntimeException e) {
+                logger.error("unable to add discoveryEntry: " + discoveryEntry, e);
+                failedEntries.add(discoveryEntry);
+            }
+        }
+        return failedEntries;
+    }
 
+    private void upsertInTransaction(Collection<GlobalDiscoveryEntryPersisted> entriesToAdd) {
         EntityTransaction transaction = entityManager.getTransaction();
         try {
             transaction.begin();
-            if (discoveryEntryFound != null) {
-                entityManager.merge(discoveryEntry);
-            } else {
-                entityManager.persist(discoveryEntry);
+            Set<String> existingParticipantIds = findExistingParticipantIds(entriesToAdd);
+            int count = 0;
+            for (GlobalDiscoveryEntryPersisted discoveryEntry : entriesToAdd) {
+                if (existingParticipantIds.contains(discoveryEntry.getParticipantId())) {
+                    entityManager.merge(discoveryEntry);
+                } else {
+                    entityManager.persist(discoveryEntry);
+                }
+                if (++count % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
             }
             transaction.commit();
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             if (transaction.isActive()) {
                 transaction.rollback();
             }
-            logger.error("unable to add discoveryEntry: " + discoveryEntry, e);
+            entityManager.clear();
+            throw e;
         }
     }
 
-    @Override
-    public void add(Collection<? extends DiscoveryEntry> entries) {
-        if (entries != null) {
-            for (DiscoveryEntry entry : entries) {
-                add(entry);
-            }
+    private static List<String> getParticipantIds(Collection<GlobalDiscoveryEntryPersisted> discoveryEntries) {
+        List<String> participantIds = new ArrayList<>(discoveryEntries.size());
+        for (GlobalDiscoveryEntryPersisted discoveryEntry : discoveryEntries) {
+            participantIds.add(discoveryEntry.getParticipantId());
         }
+        return participantIds;
+    }
+
+    private Set<String> findExistingParticipantIds(Collection<GlobalDiscoveryEntryPersisted> discoveryEntries) {
+        String query = "select discoveryEntry.participantId from GlobalDiscoveryEntryPersisted discoveryEntry where discoveryEntry.participantId in :participantIds";
+        List<String> participantIds = getParticipantIds(discoveryEntries);
+        Set<String> result = new HashSet<>();
+        for (List<String> participantIdsBatch : Iterables.partition(participantIds, batchSize)) {
+            result.addAll(entityManager.createQuery(query, String.class)
+                                       .setParameter("participantIds", participantIdsBatch)
+                                       .getResultList());
+        }
+        return result;
     }
 
     @Override
     public boolean remove(String participantId) {
-        boolean removedSuccessfully = false;
-
+        boolean removedSuccessfully;
         synchronized (capsLock) {
-            removedSuccessfully = removeCapabilityFromStore(participantId);
+            // removed from the queue while holding the capsLock, so that a failing flush can't requeue it afterwards
+            removedSuccessfully = pendingEntries.remove(participantId) != null;
+            removedSuccessfully = removeCapabilityFromStore(participantId) || removedSuccessfully;
         }
         if (!removedSuccessfully) {
             logger.error("Could not find capability to remove with Id: {}", participantId);
@@ -159,17 +356,17 @@ public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
         return lookup(domains, interfaceName, DiscoveryQos.NO_MAX_AGE);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Collection<DiscoveryEntry> lookup(final String[] domains, final String interfaceName, long cacheMaxAge) {
-        String query = "from GlobalDiscoveryEntryPersisted where domain=:domain and interfaceName=:interfaceName";
         List<DiscoveryEntry> result = new ArrayList<>();
-        for (String domain : domains) {
-            List<DiscoveryEntry> capabilitiesList = entityManager.createQuery(query)
-                                                                 .setParameter("domain", domain)
-                                                                 .setParameter("interfaceName", interfaceName)
-                                                                 .getResultList();
-            result.addAll(capabilitiesList);
+        if (domains.length > 0) {
+            String query = "from GlobalDiscoveryEntryPersisted where domain in :domains and interfaceName=:interfaceName";
+            synchronized (capsLock) {
+                result.addAll(entityManager.createQuery(query, GlobalDiscoveryEntryPersisted.class)
+                                           .setParameter("domains", Arrays.asList(domains))
+                                           .setParameter("interfaceName", interfaceName)
+                                           .getResultList());
+            }
         }
 
         logger.debug("looked up {}, {}, {} and found {}", Arrays.toString(domains), interfaceName, cacheMaxAge, result);
@@ -179,16 +376,24 @@ public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
     @Override
     @CheckForNull
     public DiscoveryEntry lookup(String participantId, long cacheMaxAge) {
-        DiscoveryEntry result = entityManager.find(GlobalDiscoveryEntryPersisted.class, participantId);
+        DiscoveryEntry result = pendingEntries.get(participantId);
+        if (result == null) {
+            synchronized (capsLock) {
+                result = entityManager.find(GlobalDiscoveryEntryPersisted.class, participantId);
+            }
+        }
         logger.debug("looked up {}, {} and found {}", participantId, cacheMaxAge, result);
         return result;
     }
 
     @Override
     public Set<DiscoveryEntry> getAllDiscoveryEntries() {
-        List<GlobalDiscoveryEntryPersisted> allCapabilityEntries = entityManager.createQuery("Select discoveryEntry from GlobalDiscoveryEntryPersisted discoveryEntry",
-                                                                                             GlobalDiscoveryEntryPersisted.class)
-                                                                                .getResultList();
+        List<GlobalDiscoveryEntryPersisted> allCapabilityEntries;
+        synchronized (capsLock) {
+            allCapabilityEntries = entityManager.createQuery("Select discoveryEntry from GlobalDiscoveryEntryPersisted discoveryEntry",
+                                                             GlobalDiscoveryEntryPersisted.class)
+                                                .getResultList();
+        }
         Set<DiscoveryEntry> result = new HashSet<DiscoveryEntry>(allCapabilityEntries);
         logger.debug("Retrieved all discovery entries: {}", result);
         return result;
@@ -198,8 +403,11 @@ public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
     public boolean hasDiscoveryEntry(@Nonnull DiscoveryEntry discoveryEntry) {
         if (discoveryEntry instanceof GlobalDiscoveryEntryPersisted) {
             GlobalDiscoveryEntryPersisted searchingForDiscoveryEntry = (GlobalDiscoveryEntryPersisted) discoveryEntry;
-            GlobalDiscoveryEntryPersisted foundCapability = entityManager.find(GlobalDiscoveryEntryPersisted.class,
-                                                                               searchingForDiscoveryEntry.getParticipantId());
+            GlobalDiscoveryEntryPersisted foundCapability;
+            synchronized (capsLock) {
+                foundCapability = entityManager.find(GlobalDiscoveryEntryPersisted.class,
+                                                     searchingForDiscoveryEntry.getParticipantId());
+            }
             return discoveryEntry.equals(foundCapability);
         } else {
             return false;
@@ -208,31 +416,33 @@ public class DiscoveryEntryStorePersisted implements DiscoveryEntryStore {
 
     @Override
     public void touch(String clusterControllerId) {
-        String query = "from GlobalDiscoveryEntryPersisted where clusterControllerId=:clusterControllerId";
-        EntityTransaction transaction = entityManager.getTransaction();
-        try {
-            transaction.begin();
-            @SuppressWarnings("unchecked")
-            List<DiscoveryEntry> capabilitiesList = entityManager.createQuery(query)
-                                                                 .setParameter("clusterControllerId",
-                                                                               clusterControllerId)
-                                                                 .getResultList();
-            for (DiscoveryEntry discoveryEntry : capabilitiesList) {
-                logger.trace("  --> BEFORE entry {} last seen {}",
-                             discoveryEntry.getParticipantId(),
-                             discoveryEntry.getLastSeenDateMs());
-                ((GlobalDiscoveryEntryPersisted) discoveryEntry).setLastSeenDateMs(System.currentTimeMillis());
-                logger.trace("  --> AFTER  entry {} last seen {}",
-                             discoveryEntry.getParticipantId(),
-                             discoveryEntry.getLastSeenDateMs());
+        String query = "update GlobalDiscoveryEntryPersisted set lastSeenDateMs=:lastSeenDateMs where clusterControllerId=:clusterControllerId";
+        long lastSeenDateMs = System.currentTimeMillis();
+        for (GlobalDiscoveryEntryPersisted pendingEntry : pendingEntries.values()) {
+            if (clusterControllerId.equals(pendingEntry.getClusterControllerId())) {
+                pendingEntry.setLastSeenDateMs(lastSeenDateMs);
             }
-            transaction.commit();
-        } catch (RuntimeException e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
+        }
+        synchronized (capsLock) {
+            EntityTransaction transaction = entityManager.getTransaction();
+            try {
+                transaction.begin();
+                int updatedEntries = entityManager.createQuery(query)
+                                                  .setParameter("lastSeenDateMs", lastSeenDateMs)
+                                                  .setParameter("clusterControllerId", clusterControllerId)
+                                                  .executeUpdate();
+                transaction.commit();
+                logger.trace("updated last seen date of {} entries of cluster controller {}",
+                             updatedEntries,
+                             clusterControllerId);
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("Error updating last seen date for cluster controller with ID {}", clusterControllerId, e);
             }
-            logger.error("Error updating last seen date for cluster controller with ID {}", clusterControllerId, e);
+            // bulk updates bypass the persistence context, make sure that subsequent lookups see the new values
+            entityManager.clear();
         }
-
     }
 }
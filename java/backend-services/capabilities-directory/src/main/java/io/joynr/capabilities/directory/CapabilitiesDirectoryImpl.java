@@ -23,11 +23,13 @@ import io.joynr.arbitration.DiscoveryQos;
 import io.joynr.capabilities.CapabilityUtils;
 import io.joynr.capabilities.DiscoveryEntryStore;
 import io.joynr.capabilities.GlobalDiscoveryEntryPersisted;
+import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.provider.DeferredVoid;
 import io.joynr.provider.Promise;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import joynr.exceptions.ProviderRuntimeException;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryAbstractProvider;
@@ -35,6 +37,7 @@ import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.ChannelAddress;
 import joynr.system.RoutingTypes.MqttAddress;
 import joynr.types.DiscoveryEntry;
+import joynr.types.DiscoveryEntryChangeType;
 import joynr.types.GlobalDiscoveryEntry;
 
 import org.slf4j.Logger;
@@ -46,6 +49,8 @@ import com.google.inject.Singleton;
 /**
  * The capabilities directory implementation for server-side capabilities querying.
  * Capability informations are stored in a concurrentHashMap. Using a in memory database could be possible optimization.
+ * Every registration and removal is published with the globalDiscoveryEntryChanged broadcast, so that cluster
+ * controllers can keep their cached entries for the domains and interfaces they are interested in up to date.
  */
 
 @Singleton
@@ -57,45 +62,71 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
     @Inject
     public CapabilitiesDirectoryImpl(@Persisted DiscoveryEntryStore discoveryEntryStore) {
         this.discoveryEntryStore = discoveryEntryStore;
+        addBroadcastFilter(new GlobalDiscoveryEntryChangedFilter());
     }
 
     @Override
     public Promise<DeferredVoid> add(GlobalDiscoveryEntry globalDiscoveryEntry) {
-        DeferredVoid deferred = new DeferredVoid();
-        Promise<DeferredVoid> promise = new Promise<DeferredVoid>(deferred);
-        Address address = CapabilityUtils.getAddressFromGlobalDiscoveryEntry(globalDiscoveryEntry);
-        String clusterControllerId;
-        if (address instanceof MqttAddress) {
-            clusterControllerId = ((MqttAddress) address).getTopic();
-        } else if (address instanceof ChannelAddress) {
-            clusterControllerId = ((ChannelAddress) address).getChannelId();
-        } else {
-            deferred.reject(new ProviderRuntimeException(""));
-            return promise;
-        }
-        GlobalDiscoveryEntryPersisted discoveryEntry = new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry,
-                                                                                         clusterControllerId);
-        logger.debug("registered discovery entry: {}", discoveryEntry);
-        discoveryEntryStore.add(discoveryEntry);
-        deferred.resolve();
-        return promise;
+        return add(new GlobalDiscoveryEntry[]{ globalDiscoveryEntry });
     }
 
+    /**
+     * Writes all entries with a single call of the discovery entry store, so that they are persisted in one batch.
+     * Entries with an unsupported address are not registered, the promise is rejected in this case.
+     */
     @Override
     public Promise<DeferredVoid> add(GlobalDiscoveryEntry[] globalDiscoveryEntries) {
         DeferredVoid deferred = new DeferredVoid();
+        Promise<DeferredVoid> promise = new Promise<DeferredVoid>(deferred);
+        List<GlobalDiscoveryEntryPersisted> discoveryEntries = new ArrayList<GlobalDiscoveryEntryPersisted>(globalDiscoveryEntries.length);
+        List<GlobalDiscoveryEntry> addedEntries = new ArrayList<GlobalDiscoveryEntry>(globalDiscoveryEntries.length);
+        boolean unsupportedAddress = false;
         for (GlobalDiscoveryEntry globalDiscoveryEntry : globalDiscoveryEntries) {
-            add(globalDiscoveryEntry);
+            Address address = CapabilityUtils.getAddressFromGlobalDiscoveryEntry(globalDiscoveryEntry);
+            String clusterControllerId;
+            if (address instanceof MqttAddress) {
+                clusterControllerId = ((MqttAddress) address).getTopic();
+            } else if (address instanceof ChannelAddress) {
+                clusterControllerId = ((ChannelAddress) address).getChannelId();
+            } else {
+                unsupportedAddress = true;
+                continue;
+            }
+            GlobalDiscoveryEntryPersisted discoveryEntry = new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry,
+                                                                                             clusterControllerId);
+            logger.debug("registered discovery entry: {}", discoveryEntry);
+            discoveryEntries.add(discoveryEntry);
+            addedEntries.add(globalDiscoveryEntry);
         }
-        deferred.resolve();
-        return new Promise<DeferredVoid>(deferred);
+        if (!discoveryEntries.isEmpty()) {
+            try {
+                discoveryEntryStore.add(discoveryEntries);
+            } catch (JoynrRuntimeException e) {
+                deferred.reject(new ProviderRuntimeException(e.getMessage()));
+                return promise;
+            }
+        }
+        for (GlobalDiscoveryEntry addedEntry : addedEntries) {
+            fireGlobalDiscoveryEntryChanged(DiscoveryEntryChangeType.ADD_OR_UPDATE, new GlobalDiscoveryEntry(addedEntry));
+        }
+        if (unsupportedAddress) {
+            deferred.reject(new ProviderRuntimeException(""));
+        } else {
+            deferred.resolve();
+        }
+        return promise;
     }
 
     @Override
     public Promise<DeferredVoid> remove(String participantId) {
         DeferredVoid deferred = new DeferredVoid();
         logger.debug("removed discovery entry with participantId: {}", participantId);
+        DiscoveryEntry removedEntry = discoveryEntryStore.lookup(participantId,
+                                                                 DiscoveryQos.NO_FILTER.getCacheMaxAgeMs());
         discoveryEntryStore.remove(participantId);
+        if (removedEntry != null) {
+            fireRemoved(removedEntry);
+        }
         deferred.resolve();
         return new Promise<DeferredVoid>(deferred);
     }
@@ -103,11 +134,31 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
     @Override
     public Promise<DeferredVoid> remove(String[] participantIds) {
         DeferredVoid deferred = new DeferredVoid();
-        discoveryEntryStore.remove(Arrays.asList(participantIds));
+        List<String> participantIdList = new ArrayList<String>(participantIds.length);
+        List<DiscoveryEntry> removedEntries = new ArrayList<DiscoveryEntry>(participantIds.length);
+        for (String participantId : participantIds) {
+            participantIdList.add(participantId);
+            DiscoveryEntry removedEntry = discoveryEntryStore.lookup(participantId,
+                                                                     DiscoveryQos.NO_FILTER.getCacheMaxAgeMs());
+            if (removedEntry != null) {
+                removedEntries.add(removedEntry);
+            }
+        }
+        discoveryEntryStore.remove(participantIdList);
+        for (DiscoveryEntry removedEntry : removedEntries) {
+            fireRemoved(removedEntry);
+        }
         deferred.resolve();
         return new Promise<DeferredVoid>(deferred);
     }
 
+    private void fireRemoved(DiscoveryEntry removedEntry) {
+        // entries from persisted store are of type GlobalDiscoveryEntryPersisted.
+        // Copy required or else _typeName will be incorrect
+        fireGlobalDiscoveryEntryChanged(DiscoveryEntryChangeType.REMOVE,
+                                        new GlobalDiscoveryEntry((GlobalDiscoveryEntry) removedEntry));
+    }
+
     @Override
     public Promise<Lookup1Deferred> lookup(final String[] domains, final String interfaceName) {
         Lookup1Deferred deferred = new Lookup1Deferred();
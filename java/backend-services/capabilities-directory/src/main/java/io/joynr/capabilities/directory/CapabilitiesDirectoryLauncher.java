@@ -19,6 +19,7 @@ package io.joynr.capabilities.directory;
  * #L%
  */
 
+import io.joynr.capabilities.DiscoveryEntryStorePersisted;
 import io.joynr.runtime.AbstractJoynrApplication;
 import io.joynr.runtime.CCInProcessRuntimeModule;
 import io.joynr.runtime.JoynrApplication;
@@ -46,6 +47,8 @@ public class CapabilitiesDirectoryLauncher extends AbstractJoynrApplication {
 
     private PersistService persistService;
 
+    private DiscoveryEntryStorePersisted discoveryEntryStore;
+
     public static void main(String[] args) {
 
         start(new Properties());
@@ -69,8 +72,10 @@ public class CapabilitiesDirectoryLauncher extends AbstractJoynrApplication {
     }
 
     @Inject
-    public CapabilitiesDirectoryLauncher(PersistService persistService) {
+    public CapabilitiesDirectoryLauncher(PersistService persistService,
+                                         DiscoveryEntryStorePersisted discoveryEntryStore) {
         this.persistService = persistService;
+        this.discoveryEntryStore = discoveryEntryStore;
     }
 
     @Override
@@ -82,6 +87,7 @@ public class CapabilitiesDirectoryLauncher extends AbstractJoynrApplication {
 
     @Override
     public void shutdown() {
+        discoveryEntryStore.shutdown();
         persistService.stop();
         runtime.shutdown(true);
     }
@@ -19,9 +19,9 @@ package io.joynr.capabilities.directory;
  * #L%
  */
 
+import io.joynr.capabilities.CachingDiscoveryEntryStore;
 import io.joynr.capabilities.CustomParameterPersisted;
 import io.joynr.capabilities.DiscoveryEntryStore;
-import io.joynr.capabilities.DiscoveryEntryStorePersisted;
 import io.joynr.capabilities.ProviderQosPersisted;
 import io.joynr.endpoints.AddressPersisted;
 import io.joynr.messaging.ConfigurableMessagingSettings;
@@ -42,7 +42,7 @@ public class CapabilitiesDirectoryModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(GlobalCapabilitiesDirectoryAbstractProvider.class).to(CapabilitiesDirectoryImpl.class);
-        bind(DiscoveryEntryStore.class).annotatedWith(Persisted.class).to(DiscoveryEntryStorePersisted.class);
+        bind(DiscoveryEntryStore.class).annotatedWith(Persisted.class).to(CachingDiscoveryEntryStore.class);
         bind(CustomParameter.class).to(CustomParameterPersisted.class);
         bind(ProviderQos.class).to(ProviderQosPersisted.class);
         bind(Address.class).to(AddressPersisted.class);
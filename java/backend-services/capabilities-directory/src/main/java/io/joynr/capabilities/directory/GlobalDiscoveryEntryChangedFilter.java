@@ -0,0 +1,44 @@
+package io.joynr.capabilities.directory;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastFilterParameters;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryGlobalDiscoveryEntryChangedBroadcastFilter;
+import joynr.types.DiscoveryEntryChangeType;
+import joynr.types.GlobalDiscoveryEntry;
+
+/**
+ * Delivers a changed global discovery entry only to those subscribers which are interested in the entry's domain and
+ * interface. A filter parameter which is not set matches all entries.
+ */
+public class GlobalDiscoveryEntryChangedFilter extends GlobalCapabilitiesDirectoryGlobalDiscoveryEntryChangedBroadcastFilter {
+
+    @Override
+    public boolean filter(DiscoveryEntryChangeType typeOfChange,
+                          GlobalDiscoveryEntry changedGlobalDiscoveryEntry,
+                          GlobalDiscoveryEntryChangedBroadcastFilterParameters filterParameters) {
+        return matches(filterParameters.getDomainOfInterest(), changedGlobalDiscoveryEntry.getDomain())
+                && matches(filterParameters.getInterfaceOfInterest(), changedGlobalDiscoveryEntry.getInterfaceName());
+    }
+
+    private boolean matches(String valueOfInterest, String value) {
+        return valueOfInterest == null || valueOfInterest.isEmpty() || valueOfInterest.equals(value);
+    }
+}
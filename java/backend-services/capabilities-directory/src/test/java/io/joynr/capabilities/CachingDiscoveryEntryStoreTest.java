@@ -0,0 +1,234 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import com.google.inject.persist.PersistService;
+import com.google.inject.persist.jpa.JpaPersistModule;
+
+import joynr.system.RoutingTypes.MqttAddress;
+import joynr.types.DiscoveryEntry;
+import joynr.types.ProviderQos;
+import joynr.types.Version;
+
+public class CachingDiscoveryEntryStoreTest {
+
+    private static final int CACHE_MAX_AGE = 10000;
+    private static final String DOMAIN = "domain";
+    private static final String INTERFACE_NAME = "interfaceName";
+
+    private PersistService service;
+    private CachingDiscoveryEntryStore store;
+    private EntityManager entityManager;
+
+    @Before
+    public void setUp() {
+        createStore(new AbstractModule() {
+            @Override
+            protected void configure() {
+            }
+        });
+    }
+
+    private void createStore(Module additionalModule) {
+        Injector injector = Guice.createInjector(new JpaPersistModule("CapabilitiesDirectory"), new AbstractModule() {
+
+            @Override
+            protected void configure() {
+                bind(CapabilitiesProvisioning.class).to(DefaultCapabilitiesProvisioning.class);
+            }
+        }, additionalModule);
+        service = injector.getInstance(PersistService.class);
+        store = injector.getInstance(CachingDiscoveryEntryStore.class);
+        entityManager = injector.getInstance(EntityManager.class);
+    }
+
+    @After
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    public void repeatedLookupIsAnsweredFromCache() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry(DOMAIN, "participantId");
+        store.add(discoveryEntry);
+        entityManager.clear();
+
+        Collection<DiscoveryEntry> firstResult = store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+        Collection<DiscoveryEntry> secondResult = store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+
+        assertEquals(1, firstResult.size());
+        assertEquals(firstResult, secondResult);
+        assertEquals(1, store.getCacheMissCount());
+        assertEquals(1, store.getCacheHitCount());
+
+        assertEquals(discoveryEntry, store.lookup(discoveryEntry.getParticipantId(), CACHE_MAX_AGE));
+        assertEquals(discoveryEntry, store.lookup(discoveryEntry.getParticipantId(), CACHE_MAX_AGE));
+        assertEquals(2, store.getCacheMissCount());
+        assertEquals(2, store.getCacheHitCount());
+    }
+
+    @Test
+    public void onlyMissingDomainsAreLookedUpInBackingStore() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain1", "participantId1");
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain2", "participantId2");
+        store.add(Arrays.asList(discoveryEntry1, discoveryEntry2));
+        entityManager.clear();
+
+        store.lookup(new String[]{ "domain1" }, INTERFACE_NAME, CACHE_MAX_AGE);
+        Collection<DiscoveryEntry> result = store.lookup(new String[]{ "domain1", "domain2" },
+                                                         INTERFACE_NAME,
+                                                         CACHE_MAX_AGE);
+
+        assertEquals(2, result.size());
+        assertTrue(result.contains(discoveryEntry1));
+        assertTrue(result.contains(discoveryEntry2));
+        assertEquals(2, store.getCacheMissCount());
+        assertEquals(1, store.getCacheHitCount());
+    }
+
+    @Test
+    public void addInvalidatesCachedLookup() throws Exception {
+        assertTrue(store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE).isEmpty());
+
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry(DOMAIN, "participantId");
+        store.add(discoveryEntry);
+        entityManager.clear();
+
+        Collection<DiscoveryEntry> result = store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+        assertTrue(result.contains(discoveryEntry));
+        assertEquals(0, store.getCacheHitCount());
+    }
+
+    @Test
+    public void removeInvalidatesCachedLookups() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry(DOMAIN, "participantId");
+        store.add(discoveryEntry);
+        entityManager.clear();
+        assertTrue(store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE).contains(discoveryEntry));
+        assertEquals(discoveryEntry, store.lookup(discoveryEntry.getParticipantId(), CACHE_MAX_AGE));
+
+        store.remove(discoveryEntry.getParticipantId());
+        entityManager.clear();
+
+        assertFalse(store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE).contains(discoveryEntry));
+        assertNull(store.lookup(discoveryEntry.getParticipantId(), CACHE_MAX_AGE));
+    }
+
+    @Test
+    public void lookupDuringAddIsNotCached() throws Exception {
+        final GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry(DOMAIN, "participantId");
+        DiscoveryEntryStoreInMemory backingStore = new DiscoveryEntryStoreInMemory(new DefaultCapabilitiesProvisioning()) {
+            @Override
+            public void add(Collection<? extends DiscoveryEntry> entries) {
+                // a concurrent lookup which is answered before the backing store has been updated
+                assertTrue(store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE).isEmpty());
+                super.add(entries);
+            }
+        };
+        store = new CachingDiscoveryEntryStore(backingStore);
+
+        store.add(discoveryEntry);
+
+        assertTrue(store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE).contains(discoveryEntry));
+        assertEquals(0, store.getCacheHitCount());
+    }
+
+    @Test
+    public void cachedLookupOlderThanCacheMaxAgeIsNotUsed() throws Exception {
+        store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+        Thread.sleep(20);
+
+        store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, 10);
+        store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+
+        assertEquals(2, store.getCacheMissCount());
+        assertEquals(1, store.getCacheHitCount());
+    }
+
+    @Test
+    public void cachedLookupsExpireAfterTtl() throws Exception {
+        service.stop();
+        createStore(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named(CachingDiscoveryEntryStore.PROPERTY_CACHE_TTL_MS)).to(50L);
+            }
+        });
+
+        store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+        Thread.sleep(100);
+        store.lookup(new String[]{ DOMAIN }, INTERFACE_NAME, CACHE_MAX_AGE);
+
+        assertEquals(2, store.getCacheMissCount());
+        assertEquals(0, store.getCacheHitCount());
+    }
+
+    @Test
+    public void cacheIsBoundedByMaxSize() throws Exception {
+        service.stop();
+        createStore(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named(CachingDiscoveryEntryStore.PROPERTY_CACHE_MAX_SIZE)).to(1);
+            }
+        });
+
+        store.lookup(new String[]{ "domain1" }, INTERFACE_NAME, CACHE_MAX_AGE);
+        store.lookup(new String[]{ "domain2" }, INTERFACE_NAME, CACHE_MAX_AGE);
+        store.lookup(new String[]{ "domain1" }, INTERFACE_NAME, CACHE_MAX_AGE);
+
+        assertEquals(3, store.getCacheMissCount());
+        assertEquals(0, store.getCacheHitCount());
+    }
+
+    private GlobalDiscoveryEntryPersisted createDiscoveryEntry(String domain, String participantId) throws Exception {
+        String addressSerialized = new ObjectMapper().writeValueAsString(new MqttAddress("brokerUri", "topic"));
+        return new GlobalDiscoveryEntryPersisted(new Version(47, 11),
+                                                 domain,
+                                                 INTERFACE_NAME,
+                                                 participantId,
+                                                 new ProviderQos(),
+                                                 123L,
+                                                 Long.MAX_VALUE,
+                                                 "publicKeyId",
+                                                 addressSerialized,
+                                                 "clusterControllerId");
+    }
+}
@@ -24,18 +24,31 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
-
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,9 +56,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.jpa.JpaPersistModule;
 
+import io.joynr.exceptions.JoynrCommunicationException;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
 import joynr.types.DiscoveryEntry;
@@ -63,7 +80,14 @@ public class DiscoveryEntryStorePersistedTest {
 
     @Before
     public void setUp() throws Exception {
+        createStore(new AbstractModule() {
+            @Override
+            protected void configure() {
+            }
+        });
+    }
 
+    private void createStore(Module additionalModule) {
         Injector injector = Guice.createInjector(new JpaPersistModule("CapabilitiesDirectory"), new AbstractModule() {
 
             @Override
@@ -72,7 +96,7 @@ public class DiscoveryEntryStorePersistedTest {
                 bind(DiscoveryEntry.class).to(GlobalDiscoveryEntryPersisted.class);
                 bind(CapabilitiesProvisioning.class).to(DefaultCapabilitiesProvisioning.class);
             }
-        });
+        }, additionalModule);
         service = injector.getInstance(PersistService.class);
         store = injector.getInstance(DiscoveryEntryStore.class);
         entityManager = injector.getInstance(EntityManager.class);
@@ -132,6 +156,154 @@ public class DiscoveryEntryStorePersistedTest {
         assertContains(discoveryEntry1, discoveryEntry2);
     }
 
+    @Test
+    public void testAddCollectionUpdatesExistingEntries() throws Exception {
+        GlobalDiscoveryEntryPersisted existingEntry = createDiscoveryEntry("domain", "interfaceName", "participantId1");
+        store.add(existingEntry);
+        entityManager.clear();
+
+        GlobalDiscoveryEntryPersisted updatedEntry = createDiscoveryEntry("domain", "interfaceName", "participantId1");
+        updatedEntry.setLastSeenDateMs(456L);
+        GlobalDiscoveryEntryPersisted newEntry = createDiscoveryEntry("domain", "interfaceName", "participantId2");
+        store.add(Arrays.asList(updatedEntry, newEntry));
+        entityManager.clear();
+
+        Collection<DiscoveryEntry> returnedEntries = store.lookup(new String[]{ "domain" },
+                                                                  "interfaceName",
+                                                                  CACHE_MAX_AGE);
+        assertEquals(2, returnedEntries.size());
+        assertTrue(returnedEntries.contains(updatedEntry));
+        assertTrue(returnedEntries.contains(newEntry));
+        assertFalse(returnedEntries.contains(existingEntry));
+    }
+
+    @Test
+    public void testAddLargeCollectionOfDiscoveryEntries() throws Exception {
+        List<GlobalDiscoveryEntryPersisted> discoveryEntries = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            discoveryEntries.add(createDiscoveryEntry("domain", "interfaceName", "participantId" + i));
+        }
+        store.add(discoveryEntries);
+        entityManager.clear();
+
+        Collection<DiscoveryEntry> returnedEntries = store.lookup(new String[]{ "domain" },
+                                                                  "interfaceName",
+                                                                  CACHE_MAX_AGE);
+        assertEquals(discoveryEntries.size(), returnedEntries.size());
+        assertTrue(returnedEntries.containsAll(discoveryEntries));
+    }
+
+    @Test
+    public void testLookupMultipleDomains() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain1", "interfaceName", "participantId1");
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain2", "interfaceName", "participantId2");
+        GlobalDiscoveryEntryPersisted discoveryEntry3 = createDiscoveryEntry("domain3", "interfaceName", "participantId3");
+        GlobalDiscoveryEntryPersisted otherInterfaceEntry = createDiscoveryEntry("domain1",
+                                                                                 "otherInterfaceName",
+                                                                                 "participantId4");
+        store.add(Arrays.asList(discoveryEntry1, discoveryEntry2, discoveryEntry3, otherInterfaceEntry));
+        entityManager.clear();
+
+        Collection<DiscoveryEntry> returnedEntries = store.lookup(new String[]{ "domain1", "domain2" },
+                                                                  "interfaceName",
+                                                                  CACHE_MAX_AGE);
+        assertEquals(2, returnedEntries.size());
+        assertTrue(returnedEntries.contains(discoveryEntry1));
+        assertTrue(returnedEntries.contains(discoveryEntry2));
+
+        assertTrue(store.lookup(new String[0], "interfaceName", CACHE_MAX_AGE).isEmpty());
+    }
+
+    @Test
+    public void testWriteBehindQueuesEntriesUntilFlushed() throws Exception {
+        service.stop();
+        createStore(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named(DiscoveryEntryStorePersisted.PROPERTY_WRITE_BEHIND_INTERVAL_MS))
+                              .to(Long.MAX_VALUE);
+            }
+        });
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+
+        store.add(discoveryEntry);
+        assertNotContains(discoveryEntry);
+        assertEquals(discoveryEntry, store.lookup(discoveryEntry.getParticipantId(), CACHE_MAX_AGE));
+
+        ((DiscoveryEntryStorePersisted) store).shutdown();
+        entityManager.clear();
+        assertContains(discoveryEntry);
+    }
+
+    @Test
+    public void testWriteBehindDoesNotWriteRemovedEntries() throws Exception {
+        service.stop();
+        createStore(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named(DiscoveryEntryStorePersisted.PROPERTY_WRITE_BEHIND_INTERVAL_MS))
+                              .to(Long.MAX_VALUE);
+            }
+        });
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+
+        store.add(discoveryEntry);
+        assertTrue(store.remove(discoveryEntry.getParticipantId()));
+
+        ((DiscoveryEntryStorePersisted) store).shutdown();
+        entityManager.clear();
+        assertNotContains(discoveryEntry);
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteBehindDoesNotRequeueEntryRemovedDuringFailingFlush() throws Exception {
+        final EntityManager failingEntityManager = mock(EntityManager.class);
+        when(failingEntityManager.getTransaction()).thenReturn(mock(EntityTransaction.class));
+        final DiscoveryEntryStorePersisted writeBehindStore = new DiscoveryEntryStorePersisted(mock(CapabilitiesProvisioning.class),
+                                                                                               new Provider<EntityManager>() {
+                                                                                                   @Override
+                                                                                                   public EntityManager get() {
+                                                                                                       return failingEntityManager;
+                                                                                                   }
+                                                                                               },
+                                                                                               mock(PersistService.class));
+        writeBehindStore.setWriteBehindIntervalMs(Long.MAX_VALUE);
+        final GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain",
+                                                                                  "interfaceName",
+                                                                                  "participantId");
+        writeBehindStore.add(discoveryEntry);
+
+        final Thread removeThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBehindStore.remove(discoveryEntry.getParticipantId());
+            }
+        });
+        // the flush fails after the entry has been removed concurrently
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                removeThread.start();
+                while (removeThread.getState() != Thread.State.BLOCKED) {
+                    Thread.sleep(1);
+                }
+                throw new PersistenceException("write failed");
+            }
+        }).when(failingEntityManager).createQuery(anyString(), eq(String.class));
+
+        try {
+            writeBehindStore.flush();
+            fail("expected JoynrCommunicationException");
+        } catch (JoynrCommunicationException e) {
+            // expected
+        }
+        removeThread.join();
+
+        assertNull(writeBehindStore.lookup(discoveryEntry.getParticipantId(), CACHE_MAX_AGE));
+        writeBehindStore.shutdown();
+        verify(failingEntityManager, times(1)).createQuery(anyString(), eq(String.class));
+    }
+
     @Test
     public void testRemoveByParticipantId() throws Exception {
         GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
@@ -0,0 +1,66 @@
+package io.joynr.capabilities.directory;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastFilterParameters;
+import joynr.types.DiscoveryEntryChangeType;
+import joynr.types.GlobalDiscoveryEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GlobalDiscoveryEntryChangedFilterTest {
+
+    private GlobalDiscoveryEntryChangedFilter filter = new GlobalDiscoveryEntryChangedFilter();
+    private GlobalDiscoveryEntry changedEntry;
+
+    @Before
+    public void setUp() {
+        changedEntry = new GlobalDiscoveryEntry();
+        changedEntry.setDomain("domain");
+        changedEntry.setInterfaceName("interfaceName");
+        changedEntry.setParticipantId("participantId");
+    }
+
+    @Test
+    public void matchesDomainAndInterfaceOfInterest() {
+        assertTrue(filter.filter(DiscoveryEntryChangeType.ADD_OR_UPDATE,
+                                 changedEntry,
+                                 new GlobalDiscoveryEntryChangedBroadcastFilterParameters("domain", "interfaceName")));
+        assertFalse(filter.filter(DiscoveryEntryChangeType.ADD_OR_UPDATE,
+                                  changedEntry,
+                                  new GlobalDiscoveryEntryChangedBroadcastFilterParameters("otherDomain",
+                                                                                           "interfaceName")));
+        assertFalse(filter.filter(DiscoveryEntryChangeType.REMOVE,
+                                  changedEntry,
+                                  new GlobalDiscoveryEntryChangedBroadcastFilterParameters("domain",
+                                                                                           "otherInterfaceName")));
+    }
+
+    @Test
+    public void missingFilterParametersMatchAllEntries() {
+        assertTrue(filter.filter(DiscoveryEntryChangeType.REMOVE,
+                                 changedEntry,
+                                 new GlobalDiscoveryEntryChangedBroadcastFilterParameters()));
+    }
+}
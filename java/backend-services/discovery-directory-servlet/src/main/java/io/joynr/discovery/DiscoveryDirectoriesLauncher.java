@@ -19,6 +19,7 @@ package io.joynr.discovery;
  * #L%
  */
 
+import io.joynr.capabilities.DiscoveryEntryStorePersisted;
 import io.joynr.runtime.AbstractJoynrApplication;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryAbstractProvider;
 import joynr.types.ProviderQos;
@@ -33,9 +34,12 @@ public class DiscoveryDirectoriesLauncher extends AbstractJoynrApplication {
 
     private PersistService persistService;
 
+    private DiscoveryEntryStorePersisted discoveryEntryStore;
+
     @Inject
-    public DiscoveryDirectoriesLauncher(PersistService persistService) {
+    public DiscoveryDirectoriesLauncher(PersistService persistService, DiscoveryEntryStorePersisted discoveryEntryStore) {
         this.persistService = persistService;
+        this.discoveryEntryStore = discoveryEntryStore;
     }
 
     @Override
@@ -47,6 +51,8 @@ public class DiscoveryDirectoriesLauncher extends AbstractJoynrApplication {
     @Override
     public void shutdown() {
         super.shutdown();
+        // queued registrations must be written while the persistence service is still running
+        discoveryEntryStore.shutdown();
         persistService.stop();
     }
 }
@@ -21,10 +21,13 @@ package io.joynr.capabilities;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -36,23 +39,27 @@ import com.google.inject.Inject;
 
 import io.joynr.arbitration.DiscoveryQos;
 import io.joynr.exceptions.JoynrCommunicationException;
-import joynr.system.RoutingTypes.Address;
 import joynr.types.DiscoveryEntry;
 import joynr.types.GlobalDiscoveryEntry;
 
 /**
  * The DiscoveryEntryStore stores a list of providers and the interfaces
  * they offer.
+ *
+ * The entries are indexed in concurrent maps by participantId and by (domain,
+ * interfaceName). The lists of the (domain, interfaceName) index are never
+ * modified after they have been published; writers copy the lists they touch,
+ * apply their changes and publish the copies. Lookups therefore read without
+ * locking, so concurrent arbitrations never wait for each other or for a
+ * registration in progress. Modifications are serialized on the storeLock; bulk
+ * add and remove copy each touched list only once.
  */
 public class DiscoveryEntryStoreInMemory implements DiscoveryEntryStore {
 
     private static final Logger logger = LoggerFactory.getLogger(DiscoveryEntryStoreInMemory.class);
 
-    Map<String, Long> registeredCapabilitiesTime = new HashMap<String, Long>();
-    Map<String, List<String>> interfaceAddressToCapabilityMapping = new HashMap<String, List<String>>();
-    Map<String, String> participantIdToCapabilityMapping = new HashMap<String, String>();
-    Map<String, DiscoveryEntry> capabilityKeyToCapabilityMapping = new HashMap<String, DiscoveryEntry>();
-    Map<Address, List<String>> endPointAddressToCapabilityMapping = new HashMap<Address, List<String>>();
+    private final ConcurrentMap<String, StoredEntry> entriesByParticipantId = new ConcurrentHashMap<String, StoredEntry>();
+    private final ConcurrentMap<DomainInterfaceKey, List<StoredEntry>> entriesByDomainInterface = new ConcurrentHashMap<DomainInterfaceKey, List<StoredEntry>>();
 
     // Do not sychronize on a Boolean
     // Fixes FindBug warning: DL: Synchronization on Boolean
@@ -70,65 +77,48 @@ public class DiscoveryEntryStoreInMemory implements DiscoveryEntryStore {
      * capabilities .DiscoveryEntry)
      */
     @Override
-    public synchronized void add(DiscoveryEntry discoveryEntry) {
-        if (discoveryEntry.getDomain() == null || discoveryEntry.getInterfaceName() == null
-                || discoveryEntry.getParticipantId() == null) {
-            String message = "discoveryEntry being registered is not complete: " + discoveryEntry;
-            logger.error(message);
-            throw new JoynrCommunicationException(message);
-        }
-
-        synchronized (storeLock) {
-            String discoveryEntryId = domainInterfaceParticipantIdKey(discoveryEntry.getDomain(),
-                                                                      discoveryEntry.getInterfaceName(),
-                                                                      discoveryEntry.getParticipantId());
-            DiscoveryEntry entry = capabilityKeyToCapabilityMapping.get(discoveryEntryId);
-            // check if a DiscoveryEntry with the same Id already exists
-            if (entry != null) {
-                remove(discoveryEntry.getParticipantId());
-            }
-
-            // update participantId to capability mapping
-            capabilityKeyToCapabilityMapping.put(discoveryEntryId, discoveryEntry);
-
-            // update time mapping
-            registeredCapabilitiesTime.put(discoveryEntryId, System.currentTimeMillis());
-
-            // update interfaceDomain to capability mapping
-            String domainInterfaceId = domainInterfaceKey(discoveryEntry.getDomain(), discoveryEntry.getInterfaceName());
-
-            // if domainInterfaceId not in the mapping, map it to an empty map,
-            // otherwise use the mapping that is  already there
-            List<String> newMapping = new ArrayList<String>();
-            List<String> mapping = interfaceAddressToCapabilityMapping.putIfAbsent(domainInterfaceId, newMapping);
-            if (mapping == null) {
-                mapping = newMapping;
-            }
-
-            mapping.add(discoveryEntryId);
-
-            // update participantId to capability mapping
-            String participantId = discoveryEntry.getParticipantId();
-
-            participantIdToCapabilityMapping.put(participantId, discoveryEntryId);
-        }
+    public void add(DiscoveryEntry discoveryEntry) {
+        add(Collections.singletonList(discoveryEntry));
     }
 
     @Override
     public void add(Collection<? extends DiscoveryEntry> entries) {
-        if (entries != null) {
-            for (DiscoveryEntry entry : entries) {
-                add(entry);
+        if (entries == null) {
+            return;
+        }
+        for (DiscoveryEntry discoveryEntry : entries) {
+            if (discoveryEntry.getDomain() == null || discoveryEntry.getInterfaceName() == null
+                    || discoveryEntry.getParticipantId() == null) {
+                String message = "discoveryEntry being registered is not complete: " + discoveryEntry;
+                logger.error(message);
+                throw new JoynrCommunicationException(message);
+            }
+        }
+
+        synchronized (storeLock) {
+            Map<DomainInterfaceKey, List<StoredEntry>> changedMappings = new HashMap<DomainInterfaceKey, List<StoredEntry>>();
+            long now = System.currentTimeMillis();
+            for (DiscoveryEntry discoveryEntry : entries) {
+                StoredEntry storedEntry = new StoredEntry(discoveryEntry, now);
+                // an existing entry of the same participant is replaced
+                StoredEntry previousEntry = entriesByParticipantId.put(discoveryEntry.getParticipantId(), storedEntry);
+                if (previousEntry != null) {
+                    getChangedMapping(changedMappings, previousEntry.domainInterfaceKey).remove(previousEntry);
+                }
+                getChangedMapping(changedMappings, storedEntry.domainInterfaceKey).add(storedEntry);
             }
+            publish(changedMappings);
         }
     }
 
     @Override
     public boolean remove(String participantId) {
-        boolean removedSuccessfully = false;
+        boolean removedSuccessfully;
 
         synchronized (storeLock) {
-            removedSuccessfully = removeDiscoveryEntryFromStore(participantId);
+            Map<DomainInterfaceKey, List<StoredEntry>> changedMappings = new HashMap<DomainInterfaceKey, List<StoredEntry>>();
+            removedSuccessfully = remove(participantId, changedMappings);
+            publish(changedMappings);
         }
         if (!removedSuccessfully) {
             logger.error("Could not find discoveryEntry to remove with Id: {}", participantId);
@@ -136,56 +126,21 @@ public class DiscoveryEntryStoreInMemory implements DiscoveryEntryStore {
         return removedSuccessfully;
     }
 
-    private boolean removeDiscoveryEntryFromStore(String participantId) {
-        String discoveryEntryId = participantIdToCapabilityMapping.get(participantId);
-        if (discoveryEntryId == null) {
-            return false;
-        }
-        DiscoveryEntry capability = capabilityKeyToCapabilityMapping.get(discoveryEntryId);
-
-        if (capability == null) {
-            return false;
-        }
-
-        String domainInterfaceId = domainInterfaceKey(capability.getDomain(), capability.getInterfaceName());
-        DiscoveryEntry entry = capabilityKeyToCapabilityMapping.remove(discoveryEntryId);
-        // check if a discoveryEntry with the same ID already exists
-        if (entry == null) {
-            return false;
-        }
-
-        // update time mapping
-        registeredCapabilitiesTime.remove(discoveryEntryId);
+    @Override
+    public void remove(Collection<String> participantIds) {
+        List<String> notFound = new ArrayList<String>();
 
-        // update interfaceDomain to capability mapping
-        List<String> mapping = interfaceAddressToCapabilityMapping.get(domainInterfaceId);
-        if (mapping != null) {
-            if (!mapping.remove(discoveryEntryId)) {
-                logger.error("Could not find capability to remove from interfaceDomainToCapabilityMapping: {}",
-                             discoveryEntryId);
-            }
-            if (mapping.isEmpty()) {
-                interfaceAddressToCapabilityMapping.remove(domainInterfaceId);
+        synchronized (storeLock) {
+            Map<DomainInterfaceKey, List<StoredEntry>> changedMappings = new HashMap<DomainInterfaceKey, List<StoredEntry>>();
+            for (String participantId : participantIds) {
+                if (!remove(participantId, changedMappings)) {
+                    notFound.add(participantId);
+                }
             }
-        } else {
-            logger.error("Could not find capability to remove from interfaceDomainToCapabilityMapping: {}",
-                         discoveryEntryId);
-        }
-
-        // update participantId to capability mapping
-        if (participantIdToCapabilityMapping.remove(participantId) == null) {
-            logger.error("Could not find capability to remove from participantIdToCapabilityMapping: {}",
-                         discoveryEntryId);
+            publish(changedMappings);
         }
-
-        return true;
-
-    }
-
-    @Override
-    public void remove(Collection<String> participantIds) {
-        for (String participantId : participantIds) {
-            remove(participantId);
+        for (String participantId : notFound) {
+            logger.error("Could not find discoveryEntry to remove with Id: {}", participantId);
         }
     }
 
@@ -198,50 +153,41 @@ public class DiscoveryEntryStoreInMemory implements DiscoveryEntryStore {
     public Collection<DiscoveryEntry> lookup(final String[] domains, final String interfaceName, long cacheMaxAge) {
         ArrayList<DiscoveryEntry> capabilitiesList = new ArrayList<DiscoveryEntry>();
 
-        synchronized (storeLock) {
-            for (String domain : domains) {
-                String domainInterfacekey = domainInterfaceKey(domain, interfaceName);
-                List<String> matchingDiscoveryEntries = interfaceAddressToCapabilityMapping.get(domainInterfacekey);
-                if (matchingDiscoveryEntries != null) {
-                    // check that sure cache age is OK
-                    for (String capId : matchingDiscoveryEntries) {
-                        DiscoveryEntry discoveryEntry = capabilityKeyToCapabilityMapping.get(capId);
-
-                        if (discoveryEntry instanceof GlobalDiscoveryEntry
-                                && !checkAge(registeredCapabilitiesTime.get(capId), cacheMaxAge)) {
-                            continue;
-                        }
-
-                        capabilitiesList.add(discoveryEntry);
+        for (String domain : domains) {
+            List<StoredEntry> matchingDiscoveryEntries = entriesByDomainInterface.get(new DomainInterfaceKey(domain,
+                                                                                                         interfaceName));
+            if (matchingDiscoveryEntries != null) {
+                // check that sure cache age is OK
+                for (StoredEntry storedEntry : matchingDiscoveryEntries) {
+                    if (storedEntry.discoveryEntry instanceof GlobalDiscoveryEntry
+                            && !checkAge(storedEntry.registeredTime, cacheMaxAge)) {
+                        continue;
                     }
+
+                    capabilitiesList.add(storedEntry.discoveryEntry);
                 }
             }
         }
 
-        logger.debug("Capabilities found: {}", capabilitiesList.toString());
+        logger.debug("Capabilities found: {}", capabilitiesList);
         return capabilitiesList;
     }
 
     @Override
     @CheckForNull
     public DiscoveryEntry lookup(String participantId, long cacheMaxAge) {
+        StoredEntry storedEntry = entriesByParticipantId.get(participantId);
+        if (storedEntry == null) {
+            return null;
+        }
 
-        synchronized (storeLock) {
-            String discoveryEntryId = participantIdToCapabilityMapping.get(participantId);
-            if (discoveryEntryId == null) {
-                return null;
-            }
-
-            DiscoveryEntry discoveryEntry = capabilityKeyToCapabilityMapping.get(discoveryEntryId);
-
-            logger.debug("Capability for participantId {} found: {}", participantId, discoveryEntry);
-            if (discoveryEntry instanceof GlobalDiscoveryEntry
-                    && !checkAge(registeredCapabilitiesTime.get(discoveryEntryId), cacheMaxAge)) {
-                return null;
-            }
-
-            return discoveryEntry;
+        logger.debug("Capability for participantId {} found: {}", participantId, storedEntry.discoveryEntry);
+        if (storedEntry.discoveryEntry instanceof GlobalDiscoveryEntry
+                && !checkAge(storedEntry.registeredTime, cacheMaxAge)) {
+            return null;
         }
+
+        return storedEntry.discoveryEntry;
     }
 
     @Override
@@ -254,28 +200,105 @@ public class DiscoveryEntryStoreInMemory implements DiscoveryEntryStore {
 
     @Override
     public boolean hasDiscoveryEntry(@Nonnull DiscoveryEntry discoveryEntry) {
-        synchronized (storeLock) {
-            String discoveryEntryId = domainInterfaceParticipantIdKey(discoveryEntry.getDomain(),
-                                                                      discoveryEntry.getInterfaceName(),
-                                                                      discoveryEntry.getParticipantId());
-            return registeredCapabilitiesTime.containsKey(discoveryEntryId);
+        StoredEntry storedEntry = entriesByParticipantId.get(discoveryEntry.getParticipantId());
+        return storedEntry != null
+                && storedEntry.domainInterfaceKey.equals(new DomainInterfaceKey(discoveryEntry.getDomain(),
+                                                                                discoveryEntry.getInterfaceName()));
+    }
+
+    /**
+     * Removes the entry from the participantId index and from its copy of the
+     * (domain, interfaceName) list. Must be called while holding the storeLock.
+     */
+    private boolean remove(String participantId, Map<DomainInterfaceKey, List<StoredEntry>> changedMappings) {
+        StoredEntry storedEntry = entriesByParticipantId.remove(participantId);
+        if (storedEntry == null) {
+            return false;
         }
+        getChangedMapping(changedMappings, storedEntry.domainInterfaceKey).remove(storedEntry);
+        return true;
     }
 
-    String domainInterfaceParticipantIdKey(String domain, String interfaceName, String participantId) {
-        return (domainInterfaceKey(domain, interfaceName) + "|" + participantId).toLowerCase();
+    /**
+     * @return the copy of the (domain, interfaceName) list which collects the
+     *         changes of the current modification. The published list is
+     *         copied on first access.
+     */
+    private List<StoredEntry> getChangedMapping(Map<DomainInterfaceKey, List<StoredEntry>> changedMappings,
+                                                DomainInterfaceKey domainInterfaceKey) {
+        List<StoredEntry> changedMapping = changedMappings.get(domainInterfaceKey);
+        if (changedMapping == null) {
+            List<StoredEntry> mapping = entriesByDomainInterface.get(domainInterfaceKey);
+            changedMapping = mapping == null ? new ArrayList<StoredEntry>(1) : new ArrayList<StoredEntry>(mapping);
+            changedMappings.put(domainInterfaceKey, changedMapping);
+        }
+        return changedMapping;
     }
 
-    String domainInterfaceKey(String domain, String interfaceName) {
-        return (domain + "|" + interfaceName).toLowerCase();
+    private void publish(Map<DomainInterfaceKey, List<StoredEntry>> changedMappings) {
+        for (Map.Entry<DomainInterfaceKey, List<StoredEntry>> changedMapping : changedMappings.entrySet()) {
+            if (changedMapping.getValue().isEmpty()) {
+                entriesByDomainInterface.remove(changedMapping.getKey());
+            } else {
+                entriesByDomainInterface.put(changedMapping.getKey(),
+                                             Collections.unmodifiableList(changedMapping.getValue()));
+            }
+        }
     }
 
-    private boolean checkAge(Long timeStamp, long maxAcceptedAge) {
-        return timeStamp != null && ((System.currentTimeMillis() - timeStamp) <= maxAcceptedAge);
+    private boolean checkAge(long timeStamp, long maxAcceptedAge) {
+        return (System.currentTimeMillis() - timeStamp) <= maxAcceptedAge;
     }
 
     @Override
     public void touch(String clusterControllerId) {
         // TODO Auto-generated method stub
     }
+
+    /**
+     * Case insensitive (domain, interfaceName) key. The lower case form and the hash code
+     * are computed once.
+     */
+    private static final class DomainInterfaceKey {
+        private final String domain;
+        private final String interfaceName;
+        private final int hashCode;
+
+        DomainInterfaceKey(String domain, String interfaceName) {
+            this.domain = domain.toLowerCase();
+            this.interfaceName = interfaceName.toLowerCase();
+            this.hashCode = 31 * this.domain.hashCode() + this.interfaceName.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DomainInterfaceKey)) {
+                return false;
+            }
+            DomainInterfaceKey other = (DomainInterfaceKey) obj;
+            return hashCode == other.hashCode && domain.equals(other.domain)
+                    && interfaceName.equals(other.interfaceName);
+        }
+    }
+
+    private static final class StoredEntry {
+        private final DiscoveryEntry discoveryEntry;
+        private final DomainInterfaceKey domainInterfaceKey;
+        private final long registeredTime;
+
+        StoredEntry(DiscoveryEntry discoveryEntry, long registeredTime) {
+            this.discoveryEntry = discoveryEntry;
+            this.domainInterfaceKey = new DomainInterfaceKey(discoveryEntry.getDomain(),
+                                                             discoveryEntry.getInterfaceName());
+            this.registeredTime = registeredTime;
+        }
+    }
 }
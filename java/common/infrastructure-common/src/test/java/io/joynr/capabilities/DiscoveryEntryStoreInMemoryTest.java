@@ -0,0 +1,163 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import joynr.types.DiscoveryEntry;
+import joynr.types.GlobalDiscoveryEntry;
+import joynr.types.ProviderQos;
+import joynr.types.Version;
+
+public class DiscoveryEntryStoreInMemoryTest {
+
+    private static final String INTERFACE_NAME = "interfaceName";
+    private static final long CACHE_MAX_AGE = 10000;
+
+    private DiscoveryEntryStoreInMemory store;
+
+    @Before
+    public void setUp() {
+        store = new DiscoveryEntryStoreInMemory(null);
+    }
+
+    @Test
+    public void lookupByDomainAndInterfaceIsCaseInsensitive() {
+        DiscoveryEntry discoveryEntry = createDiscoveryEntry("Domain", INTERFACE_NAME, "participantId");
+        store.add(discoveryEntry);
+
+        Collection<DiscoveryEntry> result = store.lookup(new String[]{ "domain" }, INTERFACE_NAME.toUpperCase());
+        assertEquals(Arrays.asList(discoveryEntry), new ArrayList<DiscoveryEntry>(result));
+        assertTrue(store.hasDiscoveryEntry(discoveryEntry));
+    }
+
+    @Test
+    public void addReplacesEntryWithSameParticipantId() {
+        DiscoveryEntry oldEntry = createDiscoveryEntry("oldDomain", INTERFACE_NAME, "participantId");
+        DiscoveryEntry newEntry = createDiscoveryEntry("newDomain", INTERFACE_NAME, "participantId");
+        store.add(oldEntry);
+        store.add(newEntry);
+
+        assertTrue(store.lookup(new String[]{ "oldDomain" }, INTERFACE_NAME).isEmpty());
+        assertEquals(1, store.lookup(new String[]{ "newDomain" }, INTERFACE_NAME).size());
+        assertEquals(newEntry, store.lookup("participantId", CACHE_MAX_AGE));
+        assertFalse(store.hasDiscoveryEntry(oldEntry));
+    }
+
+    @Test
+    public void removeCollection() {
+        store.add(Arrays.asList(createDiscoveryEntry("domain", INTERFACE_NAME, "participantId1"),
+                                createDiscoveryEntry("domain", INTERFACE_NAME, "participantId2"),
+                                createDiscoveryEntry("domain", INTERFACE_NAME, "participantId3")));
+
+        store.remove(Arrays.asList("participantId1", "participantId3", "unknownParticipantId"));
+
+        Collection<DiscoveryEntry> result = store.lookup(new String[]{ "domain" }, INTERFACE_NAME);
+        assertEquals(1, result.size());
+        assertEquals("participantId2", result.iterator().next().getParticipantId());
+        assertNull(store.lookup("participantId1", CACHE_MAX_AGE));
+        assertFalse(store.remove("participantId1"));
+    }
+
+    @Test
+    public void expiredGlobalEntriesAreNotReturned() throws Exception {
+        GlobalDiscoveryEntry globalEntry = new GlobalDiscoveryEntry(new Version(47, 11),
+                                                                    "domain",
+                                                                    INTERFACE_NAME,
+                                                                    "globalParticipantId",
+                                                                    new ProviderQos(),
+                                                                    System.currentTimeMillis(),
+                                                                    Long.MAX_VALUE,
+                                                                    "publicKeyId",
+                                                                    "address");
+        store.add(globalEntry);
+        Thread.sleep(10);
+
+        assertTrue(store.lookup(new String[]{ "domain" }, INTERFACE_NAME, 0).isEmpty());
+        assertNull(store.lookup("globalParticipantId", 0));
+        assertEquals(1, store.lookup(new String[]{ "domain" }, INTERFACE_NAME, CACHE_MAX_AGE).size());
+    }
+
+    @Test(timeout = 10000)
+    public void bulkAddIsVisibleAtomicallyToConcurrentLookups() throws Exception {
+        final int entriesPerBatch = 50;
+        final int batches = 100;
+        final CountDownLatch writerDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<Boolean> reader = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                while (writerDone.getCount() > 0) {
+                    int found = store.lookup(new String[]{ "domain" }, INTERFACE_NAME).size();
+                    if (found % entriesPerBatch != 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                for (int batch = 0; batch < batches; batch++) {
+                    List<DiscoveryEntry> entries = new ArrayList<DiscoveryEntry>();
+                    for (int i = 0; i < entriesPerBatch; i++) {
+                        entries.add(createDiscoveryEntry("domain", INTERFACE_NAME, "participantId" + batch + "_" + i));
+                    }
+                    store.add(entries);
+                }
+                writerDone.countDown();
+            }
+        });
+
+        assertTrue(reader.get(10, TimeUnit.SECONDS));
+        assertEquals(entriesPerBatch * batches, store.lookup(new String[]{ "domain" }, INTERFACE_NAME).size());
+        executor.shutdown();
+    }
+
+    private DiscoveryEntry createDiscoveryEntry(String domain, String interfaceName, String participantId) {
+        return new DiscoveryEntry(new Version(47, 11),
+                                  domain,
+                                  interfaceName,
+                                  participantId,
+                                  new ProviderQos(),
+                                  System.currentTimeMillis(),
+                                  Long.MAX_VALUE,
+                                  "publicKeyId");
+    }
+}
@@ -27,8 +27,9 @@ import io.joynr.capabilities.LocalCapabilitiesDirectory;
 
 import java.io.IOException;
 
+import javax.annotation.CheckForNull;
+
 import joynr.JoynrMessage;
-import joynr.Request;
 import joynr.infrastructure.DacTypes.Permission;
 import joynr.infrastructure.DacTypes.TrustLevel;
 
@@ -36,6 +37,8 @@ import joynr.types.DiscoveryEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 
@@ -45,14 +48,17 @@ public class AccessControllerImpl implements AccessController {
     private final LocalCapabilitiesDirectory localCapabilitiesDirectory;
     private final LocalDomainAccessController localDomainAccessController;
     private final ObjectMapper objectMapper;
+    private final ConsumerPermissionCache consumerPermissionCache;
 
     @Inject
     AccessControllerImpl(LocalCapabilitiesDirectory localCapabilitiesDirectory,
                          LocalDomainAccessController localDomainAccessController,
-                         ObjectMapper objectMapper) {
+                         ObjectMapper objectMapper,
+                         ConsumerPermissionCache consumerPermissionCache) {
         this.localCapabilitiesDirectory = localCapabilitiesDirectory;
         this.localDomainAccessController = localDomainAccessController;
         this.objectMapper = objectMapper;
+        this.consumerPermissionCache = consumerPermissionCache;
 
         defineAndRegisterCapabilityListener();
     }
@@ -62,54 +68,84 @@ public class AccessControllerImpl implements AccessController {
 
             @Override
             public void capabilityRemoved(DiscoveryEntry removedCapability) {
+                consumerPermissionCache.invalidateParticipant(removedCapability.getParticipantId());
                 localDomainAccessController.unsubscribeFromAceChanges(removedCapability.getDomain(),
                                                                       removedCapability.getInterfaceName());
             }
 
             @Override
             public void capabilityAdded(DiscoveryEntry addedCapability) {
-                // NOOP
+                // a re-registered participantId might belong to another domain or interface now
+                consumerPermissionCache.invalidateParticipant(addedCapability.getParticipantId());
             }
         });
     }
 
     @Override
     public boolean hasConsumerPermission(final JoynrMessage message) {
-        // Check permission at the interface level
-        // First get the domain and interface that is being called from appropriate capability entry
-        DiscoveryEntry discoveryEntry = getCapabilityEntry(message);
-        if (discoveryEntry == null) {
-            logger.error("Failed to get capability for participant id {} for acl check", message.getTo());
-            return false;
-        }
+        String msgCreatorUid = message.getHeaderValue(JoynrMessage.HEADER_NAME_CREATOR_USER_ID);
+        String participantId = message.getTo();
+        long cacheGeneration = consumerPermissionCache.getGeneration();
 
-        String domain = discoveryEntry.getDomain();
-        String interfaceName = discoveryEntry.getInterfaceName();
+        // Check permission at the interface level
+        ConsumerPermissionCache.Decision decision = consumerPermissionCache.get(msgCreatorUid, participantId, null);
+        String domain;
+        String interfaceName;
+        Permission permission;
+        if (decision != null) {
+            domain = decision.getDomain();
+            interfaceName = decision.getInterfaceName();
+            permission = decision.getPermission();
+        } else {
+            // First get the domain and interface that is being called from appropriate capability entry
+            DiscoveryEntry discoveryEntry = getCapabilityEntry(message);
+            if (discoveryEntry == null) {
+                logger.error("Failed to get capability for participant id {} for acl check", participantId);
+                return false;
+            }
 
-        // try determine permission without expensive message deserialization
-        // since obtaining trust level from message header is still not supported use TrustLevel.HIGH
-        String msgCreatorUid = message.getHeaderValue(JoynrMessage.HEADER_NAME_CREATOR_USER_ID);
-        Permission permission = localDomainAccessController.getConsumerPermission(msgCreatorUid,
-                                                                                  domain,
-                                                                                  interfaceName,
-                                                                                  TrustLevel.HIGH);
+            domain = discoveryEntry.getDomain();
+            interfaceName = discoveryEntry.getInterfaceName();
+
+            // try determine permission without expensive message deserialization
+            // since obtaining trust level from message header is still not supported use TrustLevel.HIGH
+            permission = localDomainAccessController.getConsumerPermission(msgCreatorUid,
+                                                                           domain,
+                                                                           interfaceName,
+                                                                           TrustLevel.HIGH);
+            consumerPermissionCache.put(cacheGeneration,
+                                        msgCreatorUid,
+                                        participantId,
+                                        null,
+                                        domain,
+                                        interfaceName,
+                                        permission);
+        }
 
-        // if permission still not defined, have to deserialize message and try again
+        // if permission still not defined, have to look at the requested operation
         if (permission == null) {
-            try {
-                // Deserialize the request from message and take operation value
-                Request request = objectMapper.readValue(message.getPayload(), Request.class);
-                String operation = request.getMethodName();
-
-                // Get the permission for the requested operation
-                permission = localDomainAccessController.getConsumerPermission(msgCreatorUid,
-                                                                               domain,
-                                                                               interfaceName,
-                                                                               operation,
-                                                                               TrustLevel.HIGH);
-            } catch (IOException e) {
-                logger.error("Cannot deserialize message", e);
+            String operation = getOperation(message);
+            if (operation == null) {
                 permission = Permission.NO;
+            } else {
+                decision = consumerPermissionCache.get(msgCreatorUid, participantId, operation);
+                if (decision != null && decision.getPermission() != null) {
+                    permission = decision.getPermission();
+                } else {
+                    // Get the permission for the requested operation
+                    permission = localDomainAccessController.getConsumerPermission(msgCreatorUid,
+                                                                                   domain,
+                                                                                   interfaceName,
+                                                                                   operation,
+                                                                                   TrustLevel.HIGH);
+                    consumerPermissionCache.put(cacheGeneration,
+                                                msgCreatorUid,
+                                                participantId,
+                                                operation,
+                                                domain,
+                                                interfaceName,
+                                                permission);
+                }
             }
         }
 
@@ -121,11 +157,39 @@ public class AccessControllerImpl implements AccessController {
             return true;
         default:
             logger.warn("Message {} to domain {}, interface {} failed AccessControl check", new Object[]{
-                    message.getId(), discoveryEntry.getDomain(), discoveryEntry.getInterfaceName() });
+                    message.getId(), domain, interfaceName });
             return false;
         }
     }
 
+    /**
+     * Reads the method name of the request in the message payload. Only the top level fields
+     * of the payload are scanned, the request itself (e.g. its parameters) is not deserialized.
+     *
+     * @return the method name, or null if the payload is not a valid request
+     */
+    @CheckForNull
+    private String getOperation(JoynrMessage message) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(message.getPayload())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                logger.error("Cannot read operation from message {}: payload is not a request", message.getId());
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("methodName".equals(fieldName) && value == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+            logger.error("Cannot read operation from message {}: no method name in payload", message.getId());
+        } catch (IOException e) {
+            logger.error("Cannot deserialize message", e);
+        }
+        return null;
+    }
+
     @Override
     public boolean hasProviderPermission(String userId, TrustLevel trustLevel, String domain, String interfaceName) {
         assert false : "Not yet implemented";
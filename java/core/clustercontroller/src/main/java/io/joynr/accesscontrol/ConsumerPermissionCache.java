@@ -0,0 +1,182 @@
+package io.joynr.accesscontrol;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.CheckForNull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Singleton;
+
+import joynr.infrastructure.DacTypes.Permission;
+
+/**
+ * Caches consumer permission decisions of the {@link AccessControllerImpl} per
+ * (creator user id, provider participantId, operation). Interface level decisions
+ * are stored with a null operation. A decision which is undecided at interface
+ * level is cached as well, so that the caller directly continues with the
+ * operation level check.
+ *
+ * Entries are invalidated when ACEs of their domain and interface change, when a
+ * domain role changes and when the provider capability is added or removed.
+ * Decisions computed concurrently to an invalidation are not stored.
+ */
+@Singleton
+public class ConsumerPermissionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerPermissionCache.class);
+
+    static final int MAX_ENTRIES = 10000;
+
+    private final ConcurrentMap<DecisionKey, Decision> decisions = new ConcurrentHashMap<DecisionKey, Decision>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * A cached permission decision. The permission is null if the decision is
+     * undecided at interface level and the operation has to be checked.
+     */
+    public static final class Decision {
+        private final Permission permission;
+        private final String domain;
+        private final String interfaceName;
+
+        Decision(Permission permission, String domain, String interfaceName) {
+            this.permission = permission;
+            this.domain = domain;
+            this.interfaceName = interfaceName;
+        }
+
+        @CheckForNull
+        public Permission getPermission() {
+            return permission;
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+
+        public String getInterfaceName() {
+            return interfaceName;
+        }
+    }
+
+    /**
+     * @return the current generation; it must be passed to
+     * {@link #put(long, String, String, String, String, String, Permission)} in order to
+     * detect invalidations which happened while the decision was computed.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @CheckForNull
+    public Decision get(String userId, String participantId, @CheckForNull String operation) {
+        return decisions.get(new DecisionKey(userId, participantId, operation));
+    }
+
+    public void put(long generationAtStart,
+                    String userId,
+                    String participantId,
+                    @CheckForNull String operation,
+                    String domain,
+                    String interfaceName,
+                    @CheckForNull Permission permission) {
+        if (decisions.size() >= MAX_ENTRIES) {
+            logger.debug("consumer permission cache is full, dropping all {} entries", decisions.size());
+            decisions.clear();
+        }
+        DecisionKey key = new DecisionKey(userId, participantId, operation);
+        decisions.put(key, new Decision(permission, domain, interfaceName));
+        // an invalidation might have missed the new entry
+        if (generation.get() != generationAtStart) {
+            decisions.remove(key);
+        }
+    }
+
+    public void invalidate(String domain, String interfaceName) {
+        generation.incrementAndGet();
+        Iterator<Decision> iterator = decisions.values().iterator();
+        while (iterator.hasNext()) {
+            Decision decision = iterator.next();
+            if (isEqual(domain, decision.domain) && isEqual(interfaceName, decision.interfaceName)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void invalidateParticipant(String participantId) {
+        generation.incrementAndGet();
+        Iterator<DecisionKey> iterator = decisions.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().participantId.equals(participantId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        decisions.clear();
+    }
+
+    private static boolean isEqual(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static final class DecisionKey {
+        private final String userId;
+        private final String participantId;
+        private final String operation;
+        private final int hashCode;
+
+        DecisionKey(String userId, String participantId, String operation) {
+            this.userId = userId;
+            this.participantId = participantId;
+            this.operation = operation;
+            int result = userId == null ? 0 : userId.hashCode();
+            result = 31 * result + participantId.hashCode();
+            result = 31 * result + (operation == null ? 0 : operation.hashCode());
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DecisionKey)) {
+                return false;
+            }
+            DecisionKey other = (DecisionKey) obj;
+            return hashCode == other.hashCode && isEqual(userId, other.userId)
+                    && participantId.equals(other.participantId) && isEqual(operation, other.operation);
+        }
+    }
+}
@@ -83,6 +83,7 @@ public class LocalDomainAccessControllerImpl implements LocalDomainAccessControl
 
     private DomainAccessControlStore localDomainAccessStore;
     private String systemServicesDomain;
+    private ConsumerPermissionCache consumerPermissionCache;
 
     // Class that holds subscription ids.
     static class AceSubscription {
@@ -118,9 +119,11 @@ public class LocalDomainAccessControllerImpl implements LocalDomainAccessControl
     public LocalDomainAccessControllerImpl(@Named(MessagingPropertyKeys.CAPABILITIES_DIRECTORY_DISCOVERY_ENTRY) GlobalDiscoveryEntry capabilitiesDirectoryEntry,
                                            DomainAccessControlStore localDomainAccessStore,
                                            ProxyBuilderFactory proxyBuilderFactory,
-                                           @Named(SystemServicesSettings.PROPERTY_SYSTEM_SERVICES_DOMAIN) String systemServicesDomain) {
+                                           @Named(SystemServicesSettings.PROPERTY_SYSTEM_SERVICES_DOMAIN) String systemServicesDomain,
+                                           ConsumerPermissionCache consumerPermissionCache) {
         this.discoveryDirectoriesDomain = capabilitiesDirectoryEntry.getDomain();
         this.localDomainAccessStore = localDomainAccessStore;
+        this.consumerPermissionCache = consumerPermissionCache;
         this.systemServicesDomain = systemServicesDomain;
         globalDomainAccessControllerClient = new GlobalDomainAccessControllerClient(discoveryDirectoriesDomain,
                                                                                     proxyBuilderFactory);
@@ -510,7 +513,9 @@ public class LocalDomainAccessControllerImpl implements LocalDomainAccessControl
                                 .setPublicationTtlMs(QOS_PUBLICATION_TTL_MS);
         DomainRoleEntryChangedBroadcastFilterParameters domainRoleFilterParameters = new DomainRoleEntryChangedBroadcastFilterParameters();
         domainRoleFilterParameters.setUserIdOfInterest(userId);
-        globalDomainAccessControllerClient.subscribeToDomainRoleEntryChangedBroadcast(new LdacDomainRoleEntryChangedBroadcastListener(localDomainAccessStore),
+        LdacDomainRoleEntryChangedBroadcastListener dreChangedListener = new LdacDomainRoleEntryChangedBroadcastListener(localDomainAccessStore,
+                                                                                                                         consumerPermissionCache);
+        globalDomainAccessControllerClient.subscribeToDomainRoleEntryChangedBroadcast(dreChangedListener,
                                                                                       broadcastSubscriptionQos,
                                                                                       domainRoleFilterParameters);
     }
@@ -524,21 +529,27 @@ public class LocalDomainAccessControllerImpl implements LocalDomainAccessControl
         MasterAccessControlEntryChangedBroadcastFilterParameters masterAcefilterParameters = new MasterAccessControlEntryChangedBroadcastFilterParameters();
         masterAcefilterParameters.setDomainOfInterest(domain);
         masterAcefilterParameters.setInterfaceOfInterest(interfaceName);
-        Future<String> mastersubscriptionId = globalDomainAccessControllerClient.subscribeToMasterAccessControlEntryChangedBroadcast(new LdacMasterAccessControlEntryChangedBroadcastListener(localDomainAccessStore),
+        LdacMasterAccessControlEntryChangedBroadcastListener masterAceChangedListener = new LdacMasterAccessControlEntryChangedBroadcastListener(localDomainAccessStore,
+                                                                                                                                                 consumerPermissionCache);
+        Future<String> mastersubscriptionId = globalDomainAccessControllerClient.subscribeToMasterAccessControlEntryChangedBroadcast(masterAceChangedListener,
                                                                                                                                      broadcastSubscriptionQos,
                                                                                                                                      masterAcefilterParameters);
 
         MediatorAccessControlEntryChangedBroadcastFilterParameters mediatorAceFilterParameters = new MediatorAccessControlEntryChangedBroadcastFilterParameters();
         mediatorAceFilterParameters.setDomainOfInterest(domain);
         mediatorAceFilterParameters.setInterfaceOfInterest(interfaceName);
-        Future<String> mediatorsubscriptionId = globalDomainAccessControllerClient.subscribeToMediatorAccessControlEntryChangedBroadcast(new LdacMediatorAccessControlEntryChangedBroadcastListener(localDomainAccessStore),
+        LdacMediatorAccessControlEntryChangedBroadcastListener mediatorAceChangedListener = new LdacMediatorAccessControlEntryChangedBroadcastListener(localDomainAccessStore,
+                                                                                                                                                       consumerPermissionCache);
+        Future<String> mediatorsubscriptionId = globalDomainAccessControllerClient.subscribeToMediatorAccessControlEntryChangedBroadcast(mediatorAceChangedListener,
                                                                                                                                          broadcastSubscriptionQos,
                                                                                                                                          mediatorAceFilterParameters);
 
         OwnerAccessControlEntryChangedBroadcastFilterParameters ownerAceFilterParameters = new OwnerAccessControlEntryChangedBroadcastFilterParameters();
         ownerAceFilterParameters.setDomainOfInterest(domain);
         ownerAceFilterParameters.setInterfaceOfInterest(interfaceName);
-        Future<String> ownersubscriptionId = globalDomainAccessControllerClient.subscribeToOwnerAccessControlEntryChangedBroadcast(new LdacOwnerAccessControlEntryChangedBroadcastListener(localDomainAccessStore),
+        LdacOwnerAccessControlEntryChangedBroadcastListener ownerAceChangedListener = new LdacOwnerAccessControlEntryChangedBroadcastListener(localDomainAccessStore,
+                                                                                                                                              consumerPermissionCache);
+        Future<String> ownersubscriptionId = globalDomainAccessControllerClient.subscribeToOwnerAccessControlEntryChangedBroadcast(ownerAceChangedListener,
                                                                                                                                    broadcastSubscriptionQos,
                                                                                                                                    ownerAceFilterParameters);
 
@@ -19,6 +19,7 @@ package io.joynr.accesscontrol.broadcastlistener;
  * #L%
  */
 
+import io.joynr.accesscontrol.ConsumerPermissionCache;
 import io.joynr.accesscontrol.DomainAccessControlStore;
 import io.joynr.exceptions.SubscriptionException;
 import joynr.infrastructure.GlobalDomainAccessControllerBroadcastInterface.DomainRoleEntryChangedBroadcastAdapter;
@@ -31,9 +32,12 @@ import org.slf4j.LoggerFactory;
 public class LdacDomainRoleEntryChangedBroadcastListener extends DomainRoleEntryChangedBroadcastAdapter {
     private static final Logger LOG = LoggerFactory.getLogger(LdacDomainRoleEntryChangedBroadcastListener.class);
     private final DomainAccessControlStore localDomainAccessStore;
+    private final ConsumerPermissionCache consumerPermissionCache;
 
-    public LdacDomainRoleEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore) {
+    public LdacDomainRoleEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore,
+                                                       ConsumerPermissionCache consumerPermissionCache) {
         this.localDomainAccessStore = domainAccessControlStore;
+        this.consumerPermissionCache = consumerPermissionCache;
     }
 
     @Override
@@ -46,6 +50,7 @@ public class LdacDomainRoleEntryChangedBroadcastListener extends DomainRoleEntry
             localDomainAccessStore.removeDomainRole(newDomainRoleEntry.getUid(), newDomainRoleEntry.getRole());
             LOG.debug("Removed DRE: {}", newDomainRoleEntry.toString());
         }
+        consumerPermissionCache.invalidateAll();
     }
 
     @Override
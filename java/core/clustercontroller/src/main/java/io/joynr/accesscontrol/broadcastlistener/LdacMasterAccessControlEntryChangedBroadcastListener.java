@@ -19,6 +19,7 @@ package io.joynr.accesscontrol.broadcastlistener;
  * #L%
  */
 
+import io.joynr.accesscontrol.ConsumerPermissionCache;
 import io.joynr.accesscontrol.DomainAccessControlStore;
 import io.joynr.exceptions.SubscriptionException;
 import joynr.infrastructure.GlobalDomainAccessControllerBroadcastInterface.MasterAccessControlEntryChangedBroadcastAdapter;
@@ -33,9 +34,12 @@ public class LdacMasterAccessControlEntryChangedBroadcastListener extends
     private static final Logger LOG = LoggerFactory.getLogger(LdacMasterAccessControlEntryChangedBroadcastListener.class);
 
     private DomainAccessControlStore localDomainAccessStore;
+    private final ConsumerPermissionCache consumerPermissionCache;
 
-    public LdacMasterAccessControlEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore) {
+    public LdacMasterAccessControlEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore,
+                                                                ConsumerPermissionCache consumerPermissionCache) {
         this.localDomainAccessStore = domainAccessControlStore;
+        this.consumerPermissionCache = consumerPermissionCache;
     }
 
     @Override
@@ -51,6 +55,7 @@ public class LdacMasterAccessControlEntryChangedBroadcastListener extends
                                                                   newMasterAce.getOperation());
             LOG.debug("Removed master ACE: {}", newMasterAce.toString());
         }
+        consumerPermissionCache.invalidate(newMasterAce.getDomain(), newMasterAce.getInterfaceName());
     }
 
     @Override
@@ -19,6 +19,7 @@ package io.joynr.accesscontrol.broadcastlistener;
  * #L%
  */
 
+import io.joynr.accesscontrol.ConsumerPermissionCache;
 import io.joynr.accesscontrol.DomainAccessControlStore;
 import io.joynr.exceptions.SubscriptionException;
 import joynr.infrastructure.GlobalDomainAccessControllerBroadcastInterface.MediatorAccessControlEntryChangedBroadcastAdapter;
@@ -33,9 +34,12 @@ public class LdacMediatorAccessControlEntryChangedBroadcastListener extends
     private static final Logger LOG = LoggerFactory.getLogger(LdacMediatorAccessControlEntryChangedBroadcastListener.class);
 
     private DomainAccessControlStore localDomainAccessStore;
+    private final ConsumerPermissionCache consumerPermissionCache;
 
-    public LdacMediatorAccessControlEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore) {
+    public LdacMediatorAccessControlEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore,
+                                                                  ConsumerPermissionCache consumerPermissionCache) {
         this.localDomainAccessStore = domainAccessControlStore;
+        this.consumerPermissionCache = consumerPermissionCache;
     }
 
     @Override
@@ -51,6 +55,7 @@ public class LdacMediatorAccessControlEntryChangedBroadcastListener extends
                                                                     newMediatorAce.getOperation());
             LOG.debug("Removed mediator ACE: {}", newMediatorAce.toString());
         }
+        consumerPermissionCache.invalidate(newMediatorAce.getDomain(), newMediatorAce.getInterfaceName());
     }
 
     @Override
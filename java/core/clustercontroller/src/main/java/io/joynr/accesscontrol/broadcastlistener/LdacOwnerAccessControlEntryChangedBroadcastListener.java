@@ -19,6 +19,7 @@ package io.joynr.accesscontrol.broadcastlistener;
  * #L%
  */
 
+import io.joynr.accesscontrol.ConsumerPermissionCache;
 import io.joynr.accesscontrol.DomainAccessControlStore;
 import io.joynr.exceptions.SubscriptionException;
 import joynr.infrastructure.GlobalDomainAccessControllerBroadcastInterface.OwnerAccessControlEntryChangedBroadcastAdapter;
@@ -32,9 +33,12 @@ public class LdacOwnerAccessControlEntryChangedBroadcastListener extends OwnerAc
     private static final Logger LOG = LoggerFactory.getLogger(LdacOwnerAccessControlEntryChangedBroadcastListener.class);
 
     private DomainAccessControlStore localDomainAccessStore;
+    private final ConsumerPermissionCache consumerPermissionCache;
 
-    public LdacOwnerAccessControlEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore) {
+    public LdacOwnerAccessControlEntryChangedBroadcastListener(DomainAccessControlStore domainAccessControlStore,
+                                                               ConsumerPermissionCache consumerPermissionCache) {
         this.localDomainAccessStore = domainAccessControlStore;
+        this.consumerPermissionCache = consumerPermissionCache;
     }
 
     public void onReceive(ChangeType typeOfChange, OwnerAccessControlEntry newOwnerAce) {
@@ -49,6 +53,7 @@ public class LdacOwnerAccessControlEntryChangedBroadcastListener extends OwnerAc
                                                                  newOwnerAce.getOperation());
             LOG.debug("Removed owner ACE: {}", newOwnerAce.toString());
         }
+        consumerPermissionCache.invalidate(newOwnerAce.getDomain(), newOwnerAce.getInterfaceName());
     }
 
     public void onError(SubscriptionException error) {
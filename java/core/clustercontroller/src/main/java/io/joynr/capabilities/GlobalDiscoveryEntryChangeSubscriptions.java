@@ -0,0 +1,299 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.exceptions.SubscriptionException;
+import joynr.OnChangeSubscriptionQos;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastAdapter;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastFilterParameters;
+import joynr.types.DiscoveryEntryChangeType;
+import joynr.types.GlobalDiscoveryEntry;
+
+/**
+ * Subscribes to the globalDiscoveryEntryChanged broadcast of the global capabilities directory for every domain and
+ * interface which was looked up globally, and hands each received change to the {@link ChangeAction}.
+ * <p>
+ * There is at most one subscription per domain and interface. A subscription which fails is forgotten, so that the
+ * next global lookup for the same domain and interface subscribes again.
+ * </p>
+ * <p>
+ * Subscriptions expire after {@link #QOS_DURATION_MS}. A global lookup after half of this duration replaces the
+ * subscription by a fresh one, so subscriptions of domains and interfaces which are still looked up stay alive while
+ * the others are left to expire. At most {@link #MAX_SUBSCRIPTIONS} subscriptions are held; if another one is needed,
+ * expired subscriptions are dropped first and then the least recently used one is unsubscribed.
+ * </p>
+ */
+class GlobalDiscoveryEntryChangeSubscriptions {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalDiscoveryEntryChangeSubscriptions.class);
+
+    // every change has to be delivered, consecutive changes must not be dropped by a min interval
+    private static final long QOS_MIN_INTERVAL_MS = 0L;
+    static final long QOS_DURATION_MS = 60 * 60 * 1000L; // 1 hour
+    private static final long QOS_PUBLICATION_TTL_MS = 5 * 1000L;
+    static final int MAX_SUBSCRIPTIONS = 256;
+
+    /**
+     * Called for every change of a global discovery entry which matches one of the subscribed domains and interfaces.
+     */
+    static interface ChangeAction {
+        void globalDiscoveryEntryAddedOrUpdated(GlobalDiscoveryEntry globalDiscoveryEntry);
+
+        void globalDiscoveryEntryRemoved(GlobalDiscoveryEntry globalDiscoveryEntry);
+    }
+
+    private final GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient;
+    private final ChangeAction changeAction;
+    private final long subscriptionDurationMs;
+    private final int maxSubscriptions;
+
+    private final ConcurrentMap<SubscriptionKey, Subscription> subscriptions = new ConcurrentHashMap<>();
+    // orders the uses of the subscriptions, see Subscription.lastUse
+    private final AtomicLong useCounter = new AtomicLong();
+    private volatile boolean shutDown = false;
+
+    GlobalDiscoveryEntryChangeSubscriptions(GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient,
+                                            ChangeAction changeAction) {
+        this(globalCapabilitiesDirectoryClient, changeAction, QOS_DURATION_MS, MAX_SUBSCRIPTIONS);
+    }
+
+    GlobalDiscoveryEntryChangeSubscriptions(GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient,
+                                            ChangeAction changeAction,
+                                            long subscriptionDurationMs,
+                                            int maxSubscriptions) {
+        this.globalCapabilitiesDirectoryClient = globalCapabilitiesDirectoryClient;
+        this.changeAction = changeAction;
+        this.subscriptionDurationMs = subscriptionDurationMs;
+        this.maxSubscriptions = maxSubscriptions;
+    }
+
+    /**
+     * Subscribes to the changes of the given domains and interface, unless already subscribed. A subscription which
+     * has passed half of its duration is renewed.
+     */
+    void subscribe(String[] domains, String interfaceName) {
+        if (shutDown) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (String domain : domains) {
+            SubscriptionKey key = new SubscriptionKey(domain, interfaceName);
+            Subscription existingSubscription = subscriptions.get(key);
+            if (existingSubscription == null) {
+                Subscription subscription = new Subscription(key, now + subscriptionDurationMs, useCounter.incrementAndGet());
+                makeRoomForSubscription(now);
+                if (subscriptions.putIfAbsent(key, subscription) == null) {
+                    sendSubscription(subscription);
+                }
+            } else if (existingSubscription.expiryDateMs - now <= subscriptionDurationMs / 2) {
+                Subscription subscription = new Subscription(key, now + subscriptionDurationMs, useCounter.incrementAndGet());
+                if (subscriptions.replace(key, existingSubscription, subscription)) {
+                    release(existingSubscription);
+                    sendSubscription(subscription);
+                }
+            } else {
+                existingSubscription.lastUse = useCounter.incrementAndGet();
+            }
+        }
+    }
+
+    boolean isSubscribed(String domain, String interfaceName) {
+        return subscriptions.containsKey(new SubscriptionKey(domain, interfaceName));
+    }
+
+    /**
+     * Unsubscribes from all changes. Subsequent calls of {@link #subscribe(String[], String)} are ignored.
+     */
+    void unsubscribeAll() {
+        shutDown = true;
+        for (Subscription subscription : subscriptions.values()) {
+            release(subscription);
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * Drops the expired subscriptions if the maximum number of subscriptions is reached, and unsubscribes the least
+     * recently used subscription if this is not sufficient.
+     */
+    private void makeRoomForSubscription(long now) {
+        if (subscriptions.size() < maxSubscriptions) {
+            return;
+        }
+        Subscription leastRecentlyUsed = null;
+        for (Subscription subscription : subscriptions.values()) {
+            if (subscription.expiryDateMs <= now) {
+                // the subscription has already ended at the provider, there is nothing to unsubscribe
+                subscriptions.remove(subscription.key, subscription);
+            } else if (leastRecentlyUsed == null || subscription.lastUse < leastRecentlyUsed.lastUse) {
+                leastRecentlyUsed = subscription;
+            }
+        }
+        if (subscriptions.size() >= maxSubscriptions && leastRecentlyUsed != null
+                && subscriptions.remove(leastRecentlyUsed.key, leastRecentlyUsed)) {
+            logger.debug("maximum number of global discovery entry change subscriptions reached, unsubscribing {}",
+                         leastRecentlyUsed.key);
+            release(leastRecentlyUsed);
+        }
+    }
+
+    /**
+     * Unsubscribes a subscription which has been removed from {@link #subscriptions}. If the subscription is not yet
+     * confirmed, it is unsubscribed as soon as its subscription id is known.
+     */
+    private void release(Subscription subscription) {
+        subscription.released = true;
+        String subscriptionId = subscription.subscriptionId;
+        if (subscriptionId != null) {
+            unsubscribe(subscription.key, subscriptionId);
+        }
+    }
+
+    private void unsubscribe(SubscriptionKey key, String subscriptionId) {
+        try {
+            globalCapabilitiesDirectoryClient.unsubscribeFromGlobalDiscoveryEntryChangedBroadcast(subscriptionId);
+        } catch (JoynrRuntimeException e) {
+            logger.debug("error unsubscribing from global discovery entry changes for {}", key, e);
+        }
+    }
+
+    private void sendSubscription(Subscription subscription) {
+        OnChangeSubscriptionQos subscriptionQos = new OnChangeSubscriptionQos();
+        subscriptionQos.setMinIntervalMs(QOS_MIN_INTERVAL_MS)
+                       .setExpiryDateMs(subscription.expiryDateMs)
+                       .setPublicationTtlMs(QOS_PUBLICATION_TTL_MS);
+        GlobalDiscoveryEntryChangedBroadcastFilterParameters filterParameters = new GlobalDiscoveryEntryChangedBroadcastFilterParameters();
+        filterParameters.setDomainOfInterest(subscription.key.domain);
+        filterParameters.setInterfaceOfInterest(subscription.key.interfaceName);
+        logger.debug("subscribing to global discovery entry changes for {}", subscription.key);
+        try {
+            globalCapabilitiesDirectoryClient.subscribeToGlobalDiscoveryEntryChangedBroadcast(new ChangeListener(subscription),
+                                                                                             subscriptionQos,
+                                                                                             filterParameters);
+        } catch (JoynrRuntimeException e) {
+            logger.error("error subscribing to global discovery entry changes for {}", subscription.key, e);
+            subscriptions.remove(subscription.key, subscription);
+        }
+    }
+
+    private class ChangeListener extends GlobalDiscoveryEntryChangedBroadcastAdapter {
+        private final Subscription subscription;
+
+        ChangeListener(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onSubscribed(String subscriptionId) {
+            subscription.subscriptionId = subscriptionId;
+            if (subscription.released) {
+                unsubscribe(subscription.key, subscriptionId);
+            }
+        }
+
+        @Override
+        public void onReceive(DiscoveryEntryChangeType typeOfChange, GlobalDiscoveryEntry changedGlobalDiscoveryEntry) {
+            logger.debug("global discovery entry changed ({}): {}", typeOfChange, changedGlobalDiscoveryEntry);
+            if (typeOfChange == DiscoveryEntryChangeType.REMOVE) {
+                changeAction.globalDiscoveryEntryRemoved(changedGlobalDiscoveryEntry);
+            } else {
+                changeAction.globalDiscoveryEntryAddedOrUpdated(changedGlobalDiscoveryEntry);
+            }
+        }
+
+        @Override
+        public void onError(SubscriptionException error) {
+            logger.error("subscription to global discovery entry changes for {} failed! SubscriptionId: {}, error: {}",
+                         subscription.key,
+                         error.getSubscriptionId(),
+                         error.getMessage());
+            subscriptions.remove(subscription.key, subscription);
+        }
+    }
+
+    private static class Subscription {
+        private final SubscriptionKey key;
+        private final long expiryDateMs;
+        private volatile long lastUse;
+        private volatile String subscriptionId;
+        private volatile boolean released = false;
+
+        Subscription(SubscriptionKey key, long expiryDateMs, long lastUse) {
+            this.key = key;
+            this.expiryDateMs = expiryDateMs;
+            this.lastUse = lastUse;
+        }
+    }
+
+    private static class SubscriptionKey {
+        private final String domain;
+        private final String interfaceName;
+
+        SubscriptionKey(String domain, String interfaceName) {
+            this.domain = domain;
+            this.interfaceName = interfaceName;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((domain == null) ? 0 : domain.hashCode());
+            result = prime * result + ((interfaceName == null) ? 0 : interfaceName.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            SubscriptionKey other = (SubscriptionKey) obj;
+            if (domain == null) {
+                if (other.domain != null) {
+                    return false;
+                }
+            } else if (!domain.equals(other.domain)) {
+                return false;
+            }
+            if (interfaceName == null) {
+                return other.interfaceName == null;
+            }
+            return interfaceName.equals(other.interfaceName);
+        }
+
+        @Override
+        public String toString() {
+            return "domain: " + domain + ", interface: " + interfaceName;
+        }
+    }
+}
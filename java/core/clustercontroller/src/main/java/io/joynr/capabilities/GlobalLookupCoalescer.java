@@ -0,0 +1,379 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.CheckForNull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.exceptions.JoynrTimeoutException;
+import io.joynr.proxy.Callback;
+import joynr.types.GlobalDiscoveryEntry;
+
+/**
+ * Merges concurrent global lookups for the same domains and interface into a single call of the
+ * {@link GlobalCapabilitiesDirectoryClient}, and hands the result to every caller which was waiting for it.
+ * <p>
+ * A lookup which arrives while an identical lookup is in flight is not sent to the global capabilities directory
+ * again. It waits for the in-flight lookup, but at most for its own discovery timeout. The in-flight lookup itself is
+ * dropped from the table when its discovery timeout expires, so that a lost reply can't block later lookups for the
+ * same key. Only the callers whose discovery timeout has expired by then are failed; for callers which are willing to
+ * wait longer, the lookup is sent again with the remaining time of the longest waiting caller.
+ * </p>
+ */
+class GlobalLookupCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalLookupCoalescer.class);
+
+    /**
+     * Called once for each result received from the global capabilities directory, before the result is handed to
+     * the waiting callers.
+     */
+    static interface ResultAction {
+        void globalDiscoveryEntriesReceived(List<GlobalDiscoveryEntry> globalDiscoveryEntries);
+    }
+
+    private final GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final ResultAction resultAction;
+
+    private final Object inFlightLookupsLock = new Object();
+    private final Map<LookupKey, InFlightLookup> inFlightLookups = new HashMap<>();
+
+    private final AtomicLong remoteLookupCount = new AtomicLong();
+    private final AtomicLong mergedLookupCount = new AtomicLong();
+
+    GlobalLookupCoalescer(GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient,
+                          ScheduledExecutorService timeoutScheduler,
+                          ResultAction resultAction) {
+        this.globalCapabilitiesDirectoryClient = globalCapabilitiesDirectoryClient;
+        this.timeoutScheduler = timeoutScheduler;
+        this.resultAction = resultAction;
+    }
+
+    /**
+     * Looks up the global discovery entries of the given domains and interface. The result list is shared between
+     * all callers of a merged lookup and must not be modified.
+     */
+    void lookup(String[] domains,
+                String interfaceName,
+                long discoveryTimeoutMs,
+                Callback<List<GlobalDiscoveryEntry>> callback) {
+        LookupKey key = new LookupKey(domains, interfaceName);
+        long deadline = System.currentTimeMillis() + discoveryTimeoutMs;
+        Waiter waiter = new Waiter(callback, deadline);
+        InFlightLookup inFlightLookup;
+        boolean merged;
+        synchronized (inFlightLookupsLock) {
+            inFlightLookup = inFlightLookups.get(key);
+            merged = inFlightLookup != null;
+            if (!merged) {
+                inFlightLookup = new InFlightLookup(key, domains, interfaceName, deadline);
+                inFlightLookups.put(key, inFlightLookup);
+            }
+            inFlightLookup.waiters.add(waiter);
+        }
+
+        if (merged) {
+            mergedLookupCount.incrementAndGet();
+            logger.debug("merged global lookup for {} into in-flight lookup", key);
+            if (deadline < inFlightLookup.deadline) {
+                waiter.timeout = schedule(new WaiterTimeout(inFlightLookup, waiter, deadline), deadline);
+            }
+            return;
+        }
+
+        send(inFlightLookup, discoveryTimeoutMs);
+    }
+
+    /**
+     * @return the number of lookups which were sent to the global capabilities directory
+     */
+    long getRemoteLookupCount() {
+        return remoteLookupCount.get();
+    }
+
+    /**
+     * @return the number of lookups which were merged into a lookup that was already in flight
+     */
+    long getMergedLookupCount() {
+        return mergedLookupCount.get();
+    }
+
+    private void send(final InFlightLookup inFlightLookup, long discoveryTimeoutMs) {
+        remoteLookupCount.incrementAndGet();
+        inFlightLookup.timeout = schedule(new InFlightLookupTimeout(inFlightLookup), inFlightLookup.deadline);
+        try {
+            globalCapabilitiesDirectoryClient.lookup(new Callback<List<GlobalDiscoveryEntry>>() {
+                @Override
+                public void onSuccess(@CheckForNull List<GlobalDiscoveryEntry> globalDiscoveryEntries) {
+                    complete(inFlightLookup, globalDiscoveryEntries, null);
+                }
+
+                @Override
+                public void onFailure(JoynrRuntimeException error) {
+                    complete(inFlightLookup, null, error);
+                }
+            }, inFlightLookup.domains, inFlightLookup.interfaceName, discoveryTimeoutMs);
+        } catch (JoynrRuntimeException e) {
+            complete(inFlightLookup, null, e);
+        }
+    }
+
+    private void complete(InFlightLookup inFlightLookup,
+                          List<GlobalDiscoveryEntry> globalDiscoveryEntries,
+                          JoynrRuntimeException error) {
+        List<Waiter> waiters = removeInFlightLookup(inFlightLookup);
+        if (waiters == null) {
+            // already timed out, the waiters have been informed
+            return;
+        }
+        cancel(inFlightLookup.timeout);
+        if (error == null && globalDiscoveryEntries != null) {
+            resultAction.globalDiscoveryEntriesReceived(globalDiscoveryEntries);
+        }
+        for (Waiter waiter : waiters) {
+            if (error == null) {
+                waiter.succeed(globalDiscoveryEntries);
+            } else {
+                waiter.fail(error);
+            }
+        }
+    }
+
+    /**
+     * Removes the lookup from the table, so that subsequent lookups for its key are sent again.
+     *
+     * @return the callers waiting for the lookup, or null if the lookup was already removed
+     */
+    private List<Waiter> removeInFlightLookup(InFlightLookup inFlightLookup) {
+        synchronized (inFlightLookupsLock) {
+            if (inFlightLookup.done) {
+                return null;
+            }
+            inFlightLookup.done = true;
+            if (inFlightLookups.get(inFlightLookup.key) == inFlightLookup) {
+                inFlightLookups.remove(inFlightLookup.key);
+            }
+            return new ArrayList<>(inFlightLookup.waiters);
+        }
+    }
+
+    @CheckForNull
+    private ScheduledFuture<?> schedule(Runnable timeoutTask, long deadline) {
+        try {
+            return timeoutScheduler.schedule(timeoutTask,
+                                             Math.max(0, deadline - System.currentTimeMillis()),
+                                             TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down, the lookup is then ended by the reply or by the failure of the global lookup
+            logger.debug("unable to schedule timeout of global lookup", e);
+            return null;
+        }
+    }
+
+    private static void cancel(@CheckForNull ScheduledFuture<?> timeout) {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+
+    private class InFlightLookupTimeout implements Runnable {
+        private final InFlightLookup inFlightLookup;
+
+        InFlightLookupTimeout(InFlightLookup inFlightLookup) {
+            this.inFlightLookup = inFlightLookup;
+        }
+
+        @Override
+        public void run() {
+            List<Waiter> expiredWaiters = new ArrayList<>();
+            List<Waiter> remainingWaiters = new ArrayList<>();
+            InFlightLookup reissuedLookup = null;
+            synchronized (inFlightLookupsLock) {
+                if (inFlightLookup.done) {
+                    return;
+                }
+                inFlightLookup.done = true;
+                long reissuedDeadline = inFlightLookup.deadline;
+                for (Waiter waiter : inFlightLookup.waiters) {
+                    if (waiter.deadline <= inFlightLookup.deadline) {
+                        expiredWaiters.add(waiter);
+                    } else {
+                        remainingWaiters.add(waiter);
+                        reissuedDeadline = Math.max(reissuedDeadline, waiter.deadline);
+                    }
+                }
+                if (remainingWaiters.isEmpty()) {
+                    if (inFlightLookups.get(inFlightLookup.key) == inFlightLookup) {
+                        inFlightLookups.remove(inFlightLookup.key);
+                    }
+                } else {
+                    reissuedLookup = new InFlightLookup(inFlightLookup.key,
+                                                        inFlightLookup.domains,
+                                                        inFlightLookup.interfaceName,
+                                                        reissuedDeadline);
+                    reissuedLookup.waiters.addAll(remainingWaiters);
+                    inFlightLookups.put(inFlightLookup.key, reissuedLookup);
+                }
+            }
+            logger.debug("global lookup for {} timed out, informing {} waiting callers, {} callers wait longer",
+                         inFlightLookup.key,
+                         expiredWaiters.size(),
+                         remainingWaiters.size());
+            for (Waiter waiter : expiredWaiters) {
+                waiter.fail(new JoynrTimeoutException(waiter.deadline));
+            }
+            if (reissuedLookup != null) {
+                for (Waiter waiter : remainingWaiters) {
+                    if (waiter.deadline < reissuedLookup.deadline) {
+                        waiter.timeout = schedule(new WaiterTimeout(reissuedLookup, waiter, waiter.deadline),
+                                                  waiter.deadline);
+                    }
+                }
+                send(reissuedLookup, Math.max(0, reissuedLookup.deadline - System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private class WaiterTimeout implements Runnable {
+        private final InFlightLookup inFlightLookup;
+        private final Waiter waiter;
+        private final long deadline;
+
+        WaiterTimeout(InFlightLookup inFlightLookup, Waiter waiter, long deadline) {
+            this.inFlightLookup = inFlightLookup;
+            this.waiter = waiter;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            synchronized (inFlightLookupsLock) {
+                inFlightLookup.waiters.remove(waiter);
+            }
+            waiter.fail(new JoynrTimeoutException(deadline));
+        }
+    }
+
+    private static class InFlightLookup {
+        private final LookupKey key;
+        private final String[] domains;
+        private final String interfaceName;
+        private final long deadline;
+        // guarded by inFlightLookupsLock
+        private final List<Waiter> waiters = new ArrayList<>();
+        private boolean done = false;
+        private volatile ScheduledFuture<?> timeout;
+
+        InFlightLookup(LookupKey key, String[] domains, String interfaceName, long deadline) {
+            this.key = key;
+            this.domains = domains;
+            this.interfaceName = interfaceName;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class Waiter {
+        private final Callback<List<GlobalDiscoveryEntry>> callback;
+        private final long deadline;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> timeout;
+
+        Waiter(Callback<List<GlobalDiscoveryEntry>> callback, long deadline) {
+            this.callback = callback;
+            this.deadline = deadline;
+        }
+
+        void succeed(List<GlobalDiscoveryEntry> globalDiscoveryEntries) {
+            if (finished.compareAndSet(false, true)) {
+                cancel(timeout);
+                callback.onSuccess(globalDiscoveryEntries);
+            }
+        }
+
+        void fail(JoynrRuntimeException error) {
+            if (finished.compareAndSet(false, true)) {
+                cancel(timeout);
+                callback.onFailure(error);
+            }
+        }
+    }
+
+    private static class LookupKey {
+        private final Set<String> domains;
+        private final String interfaceName;
+
+        LookupKey(String[] domains, String interfaceName) {
+            this.domains = new HashSet<>(Arrays.asList(domains));
+            this.interfaceName = interfaceName;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + domains.hashCode();
+            result = prime * result + ((interfaceName == null) ? 0 : interfaceName.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            LookupKey other = (LookupKey) obj;
+            if (interfaceName == null) {
+                if (other.interfaceName != null) {
+                    return false;
+                }
+            } else if (!interfaceName.equals(other.interfaceName)) {
+                return false;
+            }
+            return domains.equals(other.domains);
+        }
+
+        @Override
+        public String toString() {
+            return "domains: " + domains + ", interface: " + interfaceName;
+        }
+    }
+}
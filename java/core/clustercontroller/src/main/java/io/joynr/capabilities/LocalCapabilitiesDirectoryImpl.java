@@ -88,6 +88,8 @@ TransportReadyListener {
     private DiscoveryEntryStore localDiscoveryEntryStore;
     private GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient;
     private DiscoveryEntryStore globalDiscoveryEntryCache;
+    private GlobalLookupCoalescer globalLookupCoalescer;
+    private GlobalDiscoveryEntryChangeSubscriptions globalDiscoveryEntryChangeSubscriptions;
     private static final long DEFAULT_DISCOVERYTIMEOUT = 30000;
 
     private MessageRouter messageRouter;
@@ -134,6 +136,28 @@ TransportReadyListener {
         this.localDiscoveryEntryStore = localDiscoveryEntryStore;
         this.globalDiscoveryEntryCache = globalDiscoveryEntryCache;
         this.globalCapabilitiesDirectoryClient = globalCapabilitiesDirectoryClient;
+        this.globalLookupCoalescer = new GlobalLookupCoalescer(globalCapabilitiesDirectoryClient,
+                                                               freshnessUpdateScheduler,
+                                                               new GlobalLookupCoalescer.ResultAction() {
+                                                                   @Override
+                                                                   public void globalDiscoveryEntriesReceived(List<GlobalDiscoveryEntry> globalDiscoveryEntries) {
+                                                                       registerIncomingEndpoints(globalDiscoveryEntries);
+                                                                       globalDiscoveryEntryCache.add(globalDiscoveryEntries);
+                                                                   }
+                                                               });
+        this.globalDiscoveryEntryChangeSubscriptions = new GlobalDiscoveryEntryChangeSubscriptions(globalCapabilitiesDirectoryClient,
+                                                                                                   new GlobalDiscoveryEntryChangeSubscriptions.ChangeAction() {
+                                                                                                       @Override
+                                                                                                       public void globalDiscoveryEntryAddedOrUpdated(GlobalDiscoveryEntry globalDiscoveryEntry) {
+                                                                                                           registerIncomingEndpoints(Lists.newArrayList(globalDiscoveryEntry));
+                                                                                                           globalDiscoveryEntryCache.add(globalDiscoveryEntry);
+                                                                                                       }
+
+                                                                                                       @Override
+                                                                                                       public void globalDiscoveryEntryRemoved(GlobalDiscoveryEntry globalDiscoveryEntry) {
+                                                                                                           globalDiscoveryEntryCache.remove(globalDiscoveryEntry.getParticipantId());
+                                                                                                       }
+                                                                                                   });
         this.globalDiscoveryEntryCache.add(capabilitiesProvisioning.getDiscoveryEntries());
         expiredDiscoveryEntryCacheCleaner.scheduleCleanUpForCaches(
             new ExpiredDiscoveryEntryCacheCleaner.CleanupAction() {
@@ -496,7 +520,10 @@ TransportReadyListener {
     }
 
     /**
-     * mixes in the localDiscoveryEntries to global capabilities found by participantId
+     * mixes in the localDiscoveryEntries to global capabilities found by domains and interface. Concurrent lookups
+     * for the same domains and interface are merged into one call of the global capabilities directory. Once looked
+     * up, the cached entries of the domains and interface are kept up to date by change notifications of the global
+     * capabilities directory.
      */
     private void asyncGetGlobalCapabilitities(final String[] domains,
                                               final String interfaceName,
@@ -507,13 +534,12 @@ TransportReadyListener {
         final Collection<DiscoveryEntry> localDiscoveryEntries = localDiscoveryEntries2 == null ? new LinkedList<DiscoveryEntry>()
                 : localDiscoveryEntries2;
 
-        globalCapabilitiesDirectoryClient.lookup(new Callback<List<GlobalDiscoveryEntry>>() {
+        globalDiscoveryEntryChangeSubscriptions.subscribe(domains, interfaceName);
+        globalLookupCoalescer.lookup(domains, interfaceName, discoveryTimeout, new Callback<List<GlobalDiscoveryEntry>>() {
 
             @Override
             public void onSuccess(List<GlobalDiscoveryEntry> globalDiscoverEntries) {
                 if (globalDiscoverEntries != null) {
-                    registerIncomingEndpoints(globalDiscoverEntries);
-                    globalDiscoveryEntryCache.add(globalDiscoverEntries);
                     Collection<DiscoveryEntry> allDisoveryEntries = new ArrayList<DiscoveryEntry>(globalDiscoverEntries.size()
                             + localDiscoveryEntries.size());
                     allDisoveryEntries.addAll(globalDiscoverEntries);
@@ -528,15 +554,13 @@ TransportReadyListener {
             public void onFailure(JoynrRuntimeException exception) {
                 capabilitiesCallback.onError(exception);
             }
-        },
-                                                 domains,
-                                                 interfaceName,
-                                                 discoveryTimeout);
+        });
     }
 
     @Override
     public void shutdown(boolean unregisterAllRegisteredCapabilities) {
         freshnessUpdateScheduler.shutdownNow();
+        globalDiscoveryEntryChangeSubscriptions.unsubscribeAll();
         if (unregisterAllRegisteredCapabilities) {
             Set<DiscoveryEntry> allDiscoveryEntries = localDiscoveryEntryStore.getAllDiscoveryEntries();
 
@@ -19,6 +19,8 @@ package io.joynr.messaging.channel;
  * #L%
  */
 
+import java.util.List;
+
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.messaging.FailureAction;
@@ -62,6 +64,18 @@ public class ChannelMessagingSkeleton implements IMessagingSkeleton {
         }
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                transmit(messages.get(i), failureActions.get(i));
+            } catch (RuntimeException error) {
+                // a failing message must neither stop the batch nor fail the messages sent before it
+                failureActions.get(i).execute(error);
+            }
+        }
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         // TODO Auto-generated method stub
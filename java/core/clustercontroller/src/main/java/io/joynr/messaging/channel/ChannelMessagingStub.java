@@ -23,6 +23,8 @@ import static joynr.JoynrMessage.MESSAGE_TYPE_BROADCAST_SUBSCRIPTION_REQUEST;
 import static joynr.JoynrMessage.MESSAGE_TYPE_REQUEST;
 import static joynr.JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REQUEST;
 
+import java.util.List;
+
 import io.joynr.messaging.FailureAction;
 import io.joynr.messaging.IMessaging;
 import io.joynr.messaging.JoynrMessageSerializer;
@@ -50,11 +52,30 @@ public class ChannelMessagingStub implements IMessaging {
 
     @Override
     public void transmit(JoynrMessage message, FailureAction failureAction) {
-        setReplyTo(message);
-        String serializedMessage = messageSerializer.serialize(message);
+        String serializedMessage;
+        try {
+            setReplyTo(message);
+            serializedMessage = messageSerializer.serialize(message);
+        } catch (RuntimeException error) {
+            failureAction.execute(error);
+            return;
+        }
         transmit(serializedMessage, failureAction);
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        // the bounce proxy accepts a single message per post; the http client reuses the connection
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                transmit(messages.get(i), failureActions.get(i));
+            } catch (RuntimeException error) {
+                // a failing message must neither stop the batch nor fail the messages sent before it
+                failureActions.get(i).execute(error);
+            }
+        }
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         httpMessageSender.sendMessage(address, serializedMessage, failureAction);
@@ -26,19 +26,19 @@ import io.joynr.messaging.MessageArrivedListener;
 import io.joynr.messaging.MessagingSettings;
 import io.joynr.messaging.datatypes.JoynrMessagingError;
 import io.joynr.messaging.datatypes.JoynrMessagingErrorCode;
-import io.joynr.messaging.util.Utilities;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.text.SimpleDateFormat;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import javax.annotation.CheckForNull;
+
 import joynr.JoynrMessage;
 
 import org.apache.http.HttpEntity;
@@ -52,8 +52,11 @@ import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Callable to keep a long polling channel alive and to process incoming messages.
@@ -84,7 +87,7 @@ public class LongPollChannel {
     private String statusText;
     private RequestConfig defaultRequestConfig;
     private HttpRequestFactory httpRequestFactory;
-    private ExecutorService messageReceiverExecutor;
+    private final ExecutorService messageReceiverExecutor;
 
     // CHECKSTYLE:OFF
     public LongPollChannel(CloseableHttpClient httpclient,
@@ -96,7 +99,8 @@ public class LongPollChannel {
                            HttpConstants httpConstants,
                            String channelId,
                            String receiverId,
-                           HttpRequestFactory httpRequestFactory) {
+                           HttpRequestFactory httpRequestFactory,
+                           ExecutorService messageReceiverExecutor) {
         // CHECKSTYLE:ON
         this.httpclient = httpclient;
         this.defaultRequestConfig = defaultRequestConfig;
@@ -107,8 +111,7 @@ public class LongPollChannel {
         this.httpConstants = httpConstants;
         this.receiverId = receiverId;
         this.httpRequestFactory = httpRequestFactory;
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("joynr.LongPollChannel-%d").build();
-        messageReceiverExecutor = Executors.newCachedThreadPool(namedThreadFactory);
+        this.messageReceiverExecutor = messageReceiverExecutor;
     }
 
     /**
@@ -171,11 +174,24 @@ public class LongPollChannel {
                 @Override
                 public String handleResponse(HttpResponse response) throws IOException {
                     HttpEntity entity = response.getEntity();
-                    String body = entity == null ? null : EntityUtils.toString(entity, "UTF-8");
                     statusCode = response.getStatusLine().getStatusCode();
                     statusText = response.getStatusLine().getReasonPhrase();
                     logger.debug("Long poll returned: {} reason: url {}", statusCode, asciiString);
-                    return body;
+                    if (entity == null) {
+                        return null;
+                    }
+                    if (statusCode == HttpStatus.SC_OK) {
+                        // messages are dispatched while the body is still being received
+                        InputStream content = entity.getContent();
+                        try {
+                            int messageCount = notifyDispatcher(content);
+                            logger.info("LongPollingChannel CHANNEL: {} messages received: {}", id, messageCount);
+                        } finally {
+                            content.close();
+                        }
+                        return null;
+                    }
+                    return EntityUtils.toString(entity, "UTF-8");
                 }
             });
         } catch (IllegalStateException e) {
@@ -189,7 +205,7 @@ public class LongPollChannel {
 
         switch (statusCode) {
         case HttpStatus.SC_OK:
-            notifyDispatcher(responseBody);
+            // the messages have already been dispatched by the response handler
             break;
         case HttpStatus.SC_NOT_FOUND:
             logger.error(responseBody);
@@ -220,48 +236,77 @@ public class LongPollChannel {
 
     }
 
-    private void notifyDispatcher(String responseBody) {
-        if (responseBody == null || responseBody.length() <= 0) {
-            return;
+    /**
+     * Parses the messages of a long poll response one after the other and hands each of them to the message
+     * receiver executor as soon as it has been parsed. The response body can contain multiple json objects. A json
+     * object which is not a valid message is skipped; invalid json ends the processing of the response body.
+     *
+     * @return the number of json objects found in the response body
+     */
+    int notifyDispatcher(InputStream responseBody) throws IOException {
+        int messageCount = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(responseBody)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    // only json objects can be messages
+                    parser.skipChildren();
+                    continue;
+                }
+                messageCount++;
+                JoynrMessage message;
+                try {
+                    message = parser.readValueAs(JoynrMessage.class);
+                } catch (JsonMappingException e) {
+                    logger.error("CHANNEL: " + id
+                            + " Error converting the JSON into a Message object, message could not be passed to dispatcher",
+                                 e);
+                    skipToEndOfMessage(parser);
+                    continue;
+                }
+                notifyDispatcher(message);
+            }
+        } catch (JsonProcessingException e) {
+            logger.error("CHANNEL: " + id + " error parsing JSON, the remaining response body was dropped", e);
         }
+        return messageCount;
+    }
 
-        // the response body could contain multiple json objects
-        List<String> listOfJsonStrings = Utilities.splitJson(responseBody);
-        logger.info("LongPollingChannel CHANNEL: {} messages received: {}", listOfJsonStrings.size());
+    /**
+     * Moves the parser behind the top level json object in which mapping failed.
+     */
+    private void skipToEndOfMessage(JsonParser parser) throws IOException {
+        while (!parser.getParsingContext().inRoot() && parser.nextToken() != null) {
+            // skip the remaining tokens of the message
+        }
+    }
 
-        // Tries to parse each message as a JoynrMessage or MessageWrapper
-        for (String json : listOfJsonStrings) {
+    private void notifyDispatcher(@CheckForNull final JoynrMessage message) {
+        if (message != null) {
             try {
-                final JoynrMessage message = objectMapper.readValue(json, JoynrMessage.class); // jsonConverter.fromJson(json,
-                // MessageWrapper.class);
-                if (message != null) {
-                    messageReceiverExecutor.execute(new Runnable() {
-
-                        @Override
-                        public void run() {
-                            logger.info("ARRIVED {} messageId: {} type: {} from: {} to: {} header: {}", new String[]{
-                                    httpget.getURI().toString(), message.getId(), message.getType(),
-                                    message.getHeaderValue(JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID),
-                                    message.getHeaderValue(JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID),
-                                    message.getHeader().toString() });
-                            logger.debug("\r\n<<<<<<<<<<<<<<<<<\r\n:{}", message.toLogMessage());
-                            messageArrivedListener.messageArrived(message);
-                        }
-                    });
-
-                } else {
-                    logger.warn("LongPollingChannel CHANNEL: {} message was null", id);
-                    messageArrivedListener.error(null,
-                                                 new JoynrCommunicationException("LongPollingChannel CHANNEL: {} message was null"));
-                }
-                continue;
-            } catch (IOException e) {
-                logger.error("error parsing JSON", e);
+                messageReceiverExecutor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        logger.info("ARRIVED {} messageId: {} type: {} from: {} to: {} header: {}", new String[]{
+                                httpget.getURI().toString(), message.getId(), message.getType(),
+                                message.getHeaderValue(JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID),
+                                message.getHeaderValue(JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID),
+                                message.getHeader().toString() });
+                        logger.debug("\r\n<<<<<<<<<<<<<<<<<\r\n:{}", message.toLogMessage());
+                        messageArrivedListener.messageArrived(message);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.error("LongPollingChannel CHANNEL: {} message receiver is shut down, messageId {} was dropped",
+                             id,
+                             message.getId());
+                messageArrivedListener.error(message, new JoynrShutdownException("message receiver is shut down", e));
             }
-
-            logger.error("CHANNEL: {} Error converting the JSON into a Message object, message could not be passed to dispatcher. \n"
-                                 + "Response body was: " + json,
-                         id);
+        } else {
+            logger.warn("LongPollingChannel CHANNEL: {} message was null", id);
+            messageArrivedListener.error(null,
+                                         new JoynrCommunicationException("LongPollingChannel CHANNEL: {} message was null"));
         }
     }
 
@@ -21,6 +21,7 @@ package io.joynr.messaging.http.operation;
 
 import io.joynr.exceptions.JoynrChannelMissingException;
 import io.joynr.exceptions.JoynrShutdownException;
+import io.joynr.messaging.ConfigurableMessagingSettings;
 import io.joynr.messaging.MessageArrivedListener;
 import io.joynr.messaging.MessagingPropertyKeys;
 import io.joynr.messaging.MessagingSettings;
@@ -33,8 +34,12 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -85,6 +90,7 @@ public class LongPollingChannelLifecycle {
     private RequestConfig defaultRequestConfig;
     private Future<Void> longPollingFuture;
     private HttpRequestFactory httpRequestFactory;
+    private final ThreadPoolExecutor messageReceiverExecutor;
 
     @Inject
     @Nullable
@@ -94,7 +100,9 @@ public class LongPollingChannelLifecycle {
                                        @Named(MessagingPropertyKeys.RECEIVERID) String receiverId,
                                        ObjectMapper objectMapper,
                                        HttpConstants httpConstants,
-                                       HttpRequestFactory httpRequestFactory) {
+                                       HttpRequestFactory httpRequestFactory,
+                                       @Named(ConfigurableMessagingSettings.PROPERTY_LONG_POLL_RECEIVER_THREADS) int receiverThreads,
+                                       @Named(ConfigurableMessagingSettings.PROPERTY_LONG_POLL_RECEIVER_QUEUE_SIZE) int receiverQueueSize) {
         this.httpclient = httpclient;
         this.defaultRequestConfig = defaultRequestConfig;
         this.channelId = channelId;
@@ -102,6 +110,29 @@ public class LongPollingChannelLifecycle {
         this.objectMapper = objectMapper;
         this.httpConstants = httpConstants;
         this.httpRequestFactory = httpRequestFactory;
+
+        // received messages are handed over to a bounded pool. If it is saturated, the long poll thread processes
+        // the message itself and thereby stops reading the response body until the receivers have caught up.
+        // Unlike CallerRunsPolicy, messages received after shutdown are rejected instead of silently dropped.
+        ThreadFactory receiverThreadFactory = new ThreadFactoryBuilder().setNameFormat("joynr.LongPollChannel-%d")
+                                                                        .build();
+        messageReceiverExecutor = new ThreadPoolExecutor(receiverThreads,
+                                                         receiverThreads,
+                                                         60L,
+                                                         TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<Runnable>(receiverQueueSize),
+                                                         receiverThreadFactory,
+                                                         new RejectedExecutionHandler() {
+                                                             @Override
+                                                             public void rejectedExecution(Runnable runnable,
+                                                                                           ThreadPoolExecutor executor) {
+                                                                 if (executor.isShutdown()) {
+                                                                     throw new RejectedExecutionException("message receiver is shut down");
+                                                                 }
+                                                                 runnable.run();
+                                                             }
+                                                         });
+        messageReceiverExecutor.allowCoreThreadTimeOut(true);
     }
 
     public synchronized void startLongPolling(final MessageArrivedListener messageArrivedListener,
@@ -238,7 +269,8 @@ public class LongPollingChannelLifecycle {
                                                            httpConstants,
                                                            channelId,
                                                            receiverId,
-                                                           httpRequestFactory);
+                                                           httpRequestFactory,
+                                                           messageReceiverExecutor);
                 }
                 longPolling.setChannelUrl(channelUrl);
 
@@ -326,6 +358,8 @@ public class LongPollingChannelLifecycle {
             longPollingFuture.cancel(true);
         }
 
+        messageReceiverExecutor.shutdown();
+
     }
 
     /**
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -32,6 +35,7 @@ import com.google.inject.Injector;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import io.joynr.arbitration.DiscoveryQos;
+import io.joynr.capabilities.CapabilityListener;
 import io.joynr.capabilities.LocalCapabilitiesDirectory;
 import io.joynr.common.ExpiryDate;
 import io.joynr.dispatching.JoynrMessageFactory;
@@ -49,6 +53,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -72,6 +77,8 @@ public class AccessControllerTest {
     private JoynrMessage message;
     private static ObjectMapper objectMapper;
     private AccessController accessController;
+    private ConsumerPermissionCache consumerPermissionCache;
+    private DiscoveryEntry discoveryEntry;
     private Request request;
     private String fromParticipantId = "sender";
     private String toParticipantId = "receiver";
@@ -100,23 +107,25 @@ public class AccessControllerTest {
 
     @Before
     public void setup() {
+        consumerPermissionCache = new ConsumerPermissionCache();
         accessController = new AccessControllerImpl(localCapabilitiesDirectory,
                                                     localDomainAccessController,
-                                                    objectMapper);
+                                                    objectMapper,
+                                                    consumerPermissionCache);
 
         // Create a dummy message
         request = new Request(testOperation, new String[]{}, new Class<?>[]{});
         message = messageFactory.createRequest(fromParticipantId, toParticipantId, request, messagingQos);
         message.setHeaderValue(JoynrMessage.HEADER_NAME_CREATOR_USER_ID, DUMMY_USERID);
 
-        DiscoveryEntry discoveryEntry = new DiscoveryEntry(new Version(47, 11),
-                                                           testDomain,
-                                                           testInterface,
-                                                           toParticipantId,
-                                                           new ProviderQos(),
-                                                           System.currentTimeMillis(),
-                                                           System.currentTimeMillis() + ONE_MINUTE_IN_MS,
-                                                           testPublicKeyId);
+        discoveryEntry = new DiscoveryEntry(new Version(47, 11),
+                                            testDomain,
+                                            testInterface,
+                                            toParticipantId,
+                                            new ProviderQos(),
+                                            System.currentTimeMillis(),
+                                            System.currentTimeMillis() + ONE_MINUTE_IN_MS,
+                                            testPublicKeyId);
         when(localCapabilitiesDirectory.lookup(eq(toParticipantId), any(DiscoveryQos.class))).thenReturn(discoveryEntry);
     }
 
@@ -150,4 +159,83 @@ public class AccessControllerTest {
 
         assertFalse(accessController.hasConsumerPermission(message));
     }
+
+    @Test
+    public void testInterfaceLevelDecisionIsCached() {
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID, testDomain, testInterface, TrustLevel.HIGH)).thenReturn(Permission.YES);
+
+        assertTrue(accessController.hasConsumerPermission(message));
+        assertTrue(accessController.hasConsumerPermission(message));
+
+        verify(localCapabilitiesDirectory, times(1)).lookup(eq(toParticipantId), any(DiscoveryQos.class));
+        verify(localDomainAccessController, times(1)).getConsumerPermission(DUMMY_USERID,
+                                                                            testDomain,
+                                                                            testInterface,
+                                                                            TrustLevel.HIGH);
+    }
+
+    @Test
+    public void testOperationLevelDecisionIsCached() {
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID, testDomain, testInterface, TrustLevel.HIGH)).thenReturn(null);
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID,
+                                                               testDomain,
+                                                               testInterface,
+                                                               testOperation,
+                                                               TrustLevel.HIGH)).thenReturn(Permission.YES);
+
+        assertTrue(accessController.hasConsumerPermission(message));
+        assertTrue(accessController.hasConsumerPermission(message));
+
+        verify(localCapabilitiesDirectory, times(1)).lookup(eq(toParticipantId), any(DiscoveryQos.class));
+        verify(localDomainAccessController, times(1)).getConsumerPermission(DUMMY_USERID,
+                                                                            testDomain,
+                                                                            testInterface,
+                                                                            testOperation,
+                                                                            TrustLevel.HIGH);
+    }
+
+    @Test
+    public void testAceChangeInvalidatesCachedDecision() {
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID, testDomain, testInterface, TrustLevel.HIGH)).thenReturn(Permission.YES);
+        assertTrue(accessController.hasConsumerPermission(message));
+
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID, testDomain, testInterface, TrustLevel.HIGH)).thenReturn(Permission.NO);
+        assertTrue(accessController.hasConsumerPermission(message));
+
+        consumerPermissionCache.invalidate(testDomain, testInterface);
+        assertFalse(accessController.hasConsumerPermission(message));
+    }
+
+    @Test
+    public void testCapabilityRemovalInvalidatesCachedDecision() {
+        ArgumentCaptor<CapabilityListener> capabilityListener = ArgumentCaptor.forClass(CapabilityListener.class);
+        verify(localCapabilitiesDirectory).addCapabilityListener(capabilityListener.capture());
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID, testDomain, testInterface, TrustLevel.HIGH)).thenReturn(Permission.YES);
+        assertTrue(accessController.hasConsumerPermission(message));
+
+        capabilityListener.getValue().capabilityRemoved(discoveryEntry);
+        when(localCapabilitiesDirectory.lookup(eq(toParticipantId), any(DiscoveryQos.class))).thenReturn(null);
+
+        assertFalse(accessController.hasConsumerPermission(message));
+    }
+
+    @Test
+    public void testOperationIsReadWithoutDeserializingParams() {
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID, testDomain, testInterface, TrustLevel.HIGH)).thenReturn(null);
+        when(localDomainAccessController.getConsumerPermission(DUMMY_USERID,
+                                                               testDomain,
+                                                               testInterface,
+                                                               testOperation,
+                                                               TrustLevel.HIGH)).thenReturn(Permission.YES);
+        // params of an unknown type would fail a full deserialization of the request
+        message.setPayload("{\"_typeName\":\"joynr.Request\",\"params\":[{\"_typeName\":\"unknown.Type\",\"nested\":{\"methodName\":\"other\"}}],"
+                + "\"methodName\":\"" + testOperation + "\",\"requestReplyId\":\"id\"}");
+
+        assertTrue(accessController.hasConsumerPermission(message));
+        verify(localDomainAccessController, never()).getConsumerPermission(DUMMY_USERID,
+                                                                           testDomain,
+                                                                           testInterface,
+                                                                           "other",
+                                                                           TrustLevel.HIGH);
+    }
 }
@@ -52,6 +52,8 @@ public class GdacBroadcastListenerTest {
 
     @Mock
     private DomainAccessControlStore domainAccessControlStore;
+    @Mock
+    private ConsumerPermissionCache consumerPermissionCache;
 
     @Before
     public void setup() {
@@ -78,24 +80,29 @@ public class GdacBroadcastListenerTest {
 
     @Test
     public void testDreChangedListenerForUpdateDre() {
-        LdacDomainRoleEntryChangedBroadcastListener dreChangedListener = new LdacDomainRoleEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacDomainRoleEntryChangedBroadcastListener dreChangedListener = new LdacDomainRoleEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                         consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.UPDATE, userDre);
         verify(domainAccessControlStore).updateDomainRole(eq(userDre));
+        verify(consumerPermissionCache).invalidateAll();
     }
 
     @Test
     public void testDreChangedListenerForRemoveDre() {
         userDre.setDomains(null);
-        LdacDomainRoleEntryChangedBroadcastListener dreChangedListener = new LdacDomainRoleEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacDomainRoleEntryChangedBroadcastListener dreChangedListener = new LdacDomainRoleEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                         consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.REMOVE, userDre);
         verify(domainAccessControlStore).removeDomainRole(eq(userDre.getUid()), eq(userDre.getRole()));
     }
 
     @Test
     public void testMasterAceChangedListenerForUpdateAce() {
-        LdacMasterAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMasterAccessControlEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacMasterAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMasterAccessControlEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                                           consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.UPDATE, masterAce);
         verify(domainAccessControlStore).updateMasterAccessControlEntry(eq(masterAce));
+        verify(consumerPermissionCache).invalidate(DOMAIN1, INTERFACE1);
     }
 
     @Test
@@ -106,7 +113,8 @@ public class GdacBroadcastListenerTest {
         masterAce.setPossibleRequiredTrustLevels(null);
         masterAce.setDefaultRequiredControlEntryChangeTrustLevel(null);
         masterAce.setPossibleRequiredControlEntryChangeTrustLevels(null);
-        LdacMasterAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMasterAccessControlEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacMasterAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMasterAccessControlEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                                           consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.REMOVE, masterAce);
         verify(domainAccessControlStore).removeMasterAccessControlEntry(masterAce.getUid(),
                                                                         masterAce.getDomain(),
@@ -116,9 +124,11 @@ public class GdacBroadcastListenerTest {
 
     @Test
     public void testMediatorAceChangedListenerForUpdateAce() {
-        LdacMediatorAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMediatorAccessControlEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacMediatorAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMediatorAccessControlEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                                               consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.UPDATE, masterAce);
         verify(domainAccessControlStore).updateMediatorAccessControlEntry(eq(masterAce));
+        verify(consumerPermissionCache).invalidate(DOMAIN1, INTERFACE1);
     }
 
     @Test
@@ -129,7 +139,8 @@ public class GdacBroadcastListenerTest {
         masterAce.setPossibleRequiredTrustLevels(null);
         masterAce.setDefaultRequiredControlEntryChangeTrustLevel(null);
         masterAce.setPossibleRequiredControlEntryChangeTrustLevels(null);
-        LdacMediatorAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMediatorAccessControlEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacMediatorAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacMediatorAccessControlEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                                               consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.REMOVE, masterAce);
         verify(domainAccessControlStore).removeMediatorAccessControlEntry(masterAce.getUid(),
                                                                           masterAce.getDomain(),
@@ -139,9 +150,11 @@ public class GdacBroadcastListenerTest {
 
     @Test
     public void testOnwerAceChangedListenerForUpdateAce() {
-        LdacOwnerAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacOwnerAccessControlEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacOwnerAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacOwnerAccessControlEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                                         consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.UPDATE, ownerAce);
         verify(domainAccessControlStore).updateOwnerAccessControlEntry(eq(ownerAce));
+        verify(consumerPermissionCache).invalidate(DOMAIN1, INTERFACE1);
     }
 
     @Test
@@ -149,7 +162,8 @@ public class GdacBroadcastListenerTest {
         ownerAce.setConsumerPermission(null);
         ownerAce.setRequiredAceChangeTrustLevel(null);
         ownerAce.setRequiredTrustLevel(null);
-        LdacOwnerAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacOwnerAccessControlEntryChangedBroadcastListener(domainAccessControlStore);
+        LdacOwnerAccessControlEntryChangedBroadcastListener dreChangedListener = new LdacOwnerAccessControlEntryChangedBroadcastListener(domainAccessControlStore,
+                                                                                                                                         consumerPermissionCache);
         dreChangedListener.onReceive(ChangeType.REMOVE, ownerAce);
         verify(domainAccessControlStore).removeOwnerAccessControlEntry(ownerAce.getUid(),
                                                                        ownerAce.getDomain(),
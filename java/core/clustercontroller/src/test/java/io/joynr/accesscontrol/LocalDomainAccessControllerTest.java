@@ -111,7 +111,8 @@ public class LocalDomainAccessControllerTest {
                                                                                                       messageRouter,
                                                                                                       MAX_TTL,
                                                                                                       libjoynrMessagingAddress),
-                                                                          "systemServiceDomain");
+                                                                          "systemServiceDomain",
+                                                                          new ConsumerPermissionCache());
 
         // instantiate some template objects
         userDre = new DomainRoleEntry(UID1, new String[]{ DOMAIN1 }, Role.OWNER);
@@ -0,0 +1,227 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import io.joynr.exceptions.SubscriptionException;
+import joynr.OnChangeSubscriptionQos;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastFilterParameters;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastListener;
+import joynr.types.DiscoveryEntryChangeType;
+import joynr.types.GlobalDiscoveryEntry;
+
+/**
+ * Unit tests for the {@link GlobalDiscoveryEntryChangeSubscriptions}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GlobalDiscoveryEntryChangeSubscriptionsTest {
+
+    private static final String INTERFACE_NAME = "interfaceName";
+
+    @Mock
+    private GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient;
+
+    @Mock
+    private GlobalDiscoveryEntryChangeSubscriptions.ChangeAction changeAction;
+
+    @Captor
+    private ArgumentCaptor<GlobalDiscoveryEntryChangedBroadcastListener> listenerCaptor;
+
+    @Captor
+    private ArgumentCaptor<OnChangeSubscriptionQos> subscriptionQosCaptor;
+
+    @Captor
+    private ArgumentCaptor<GlobalDiscoveryEntryChangedBroadcastFilterParameters> filterParametersCaptor;
+
+    private GlobalDiscoveryEntryChangeSubscriptions subject;
+
+    @Before
+    public void setUp() {
+        subject = new GlobalDiscoveryEntryChangeSubscriptions(globalCapabilitiesDirectoryClient, changeAction);
+    }
+
+    @Test
+    public void subscribesOncePerDomainAndInterface() {
+        subject.subscribe(new String[]{ "domain1", "domain2" }, INTERFACE_NAME);
+        subject.subscribe(new String[]{ "domain2", "domain1" }, INTERFACE_NAME);
+
+        verify(globalCapabilitiesDirectoryClient, times(2)).subscribeToGlobalDiscoveryEntryChangedBroadcast(any(GlobalDiscoveryEntryChangedBroadcastListener.class),
+                                                                                                           subscriptionQosCaptor.capture(),
+                                                                                                           filterParametersCaptor.capture());
+        assertEquals("domain1", filterParametersCaptor.getAllValues().get(0).getDomainOfInterest());
+        assertEquals("domain2", filterParametersCaptor.getAllValues().get(1).getDomainOfInterest());
+        assertEquals(INTERFACE_NAME, filterParametersCaptor.getValue().getInterfaceOfInterest());
+        assertEquals(0L, subscriptionQosCaptor.getValue().getMinIntervalMs());
+        assertTrue(subject.isSubscribed("domain1", INTERFACE_NAME));
+        assertTrue(subject.isSubscribed("domain2", INTERFACE_NAME));
+    }
+
+    @Test
+    public void changesAreHandedToChangeAction() {
+        GlobalDiscoveryEntryChangedBroadcastListener listener = subscribe("domain");
+        GlobalDiscoveryEntry addedEntry = createEntry("addedParticipantId");
+        GlobalDiscoveryEntry removedEntry = createEntry("removedParticipantId");
+
+        listener.onReceive(DiscoveryEntryChangeType.ADD_OR_UPDATE, addedEntry);
+        listener.onReceive(DiscoveryEntryChangeType.REMOVE, removedEntry);
+
+        verify(changeAction).globalDiscoveryEntryAddedOrUpdated(addedEntry);
+        verify(changeAction).globalDiscoveryEntryRemoved(removedEntry);
+    }
+
+    @Test
+    public void failedSubscriptionIsRenewedByNextSubscribe() {
+        GlobalDiscoveryEntryChangedBroadcastListener listener = subscribe("domain");
+
+        listener.onError(new SubscriptionException("subscriptionId"));
+        assertFalse(subject.isSubscribed("domain", INTERFACE_NAME));
+
+        subject.subscribe(new String[]{ "domain" }, INTERFACE_NAME);
+        verify(globalCapabilitiesDirectoryClient, times(2)).subscribeToGlobalDiscoveryEntryChangedBroadcast(any(GlobalDiscoveryEntryChangedBroadcastListener.class),
+                                                                                                           any(OnChangeSubscriptionQos.class),
+                                                                                                           any(GlobalDiscoveryEntryChangedBroadcastFilterParameters.class));
+    }
+
+    @Test
+    public void unsubscribeAllUnsubscribesConfirmedSubscriptions() {
+        GlobalDiscoveryEntryChangedBroadcastListener listener = subscribe("domain");
+        listener.onSubscribed("subscriptionId");
+
+        subject.unsubscribeAll();
+
+        verify(globalCapabilitiesDirectoryClient).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast("subscriptionId");
+        assertFalse(subject.isSubscribed("domain", INTERFACE_NAME));
+    }
+
+    @Test
+    public void noSubscriptionAfterUnsubscribeAll() {
+        subject.unsubscribeAll();
+
+        subject.subscribe(new String[]{ "domain" }, INTERFACE_NAME);
+
+        verify(globalCapabilitiesDirectoryClient, never()).subscribeToGlobalDiscoveryEntryChangedBroadcast(any(GlobalDiscoveryEntryChangedBroadcastListener.class),
+                                                                                                          any(OnChangeSubscriptionQos.class),
+                                                                                                          any(GlobalDiscoveryEntryChangedBroadcastFilterParameters.class));
+        verify(globalCapabilitiesDirectoryClient, never()).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast(anyString());
+    }
+
+    @Test
+    public void subscriptionExpiresAfterQosDuration() {
+        long minExpiryDateMs = System.currentTimeMillis() + GlobalDiscoveryEntryChangeSubscriptions.QOS_DURATION_MS;
+
+        subject.subscribe(new String[]{ "domain" }, INTERFACE_NAME);
+
+        verify(globalCapabilitiesDirectoryClient).subscribeToGlobalDiscoveryEntryChangedBroadcast(any(GlobalDiscoveryEntryChangedBroadcastListener.class),
+                                                                                                 subscriptionQosCaptor.capture(),
+                                                                                                 any(GlobalDiscoveryEntryChangedBroadcastFilterParameters.class));
+        long expiryDateMs = subscriptionQosCaptor.getValue().getExpiryDateMs();
+        assertTrue(expiryDateMs >= minExpiryDateMs);
+        assertTrue(expiryDateMs <= System.currentTimeMillis()
+                + GlobalDiscoveryEntryChangeSubscriptions.QOS_DURATION_MS);
+    }
+
+    @Test
+    public void expiringSubscriptionIsRenewedByNextSubscribe() {
+        subject = new GlobalDiscoveryEntryChangeSubscriptions(globalCapabilitiesDirectoryClient, changeAction, 0, 10);
+        GlobalDiscoveryEntryChangedBroadcastListener listener = subscribe("domain");
+        listener.onSubscribed("subscriptionId");
+
+        subject.subscribe(new String[]{ "domain" }, INTERFACE_NAME);
+
+        verify(globalCapabilitiesDirectoryClient).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast("subscriptionId");
+        verify(globalCapabilitiesDirectoryClient, times(2)).subscribeToGlobalDiscoveryEntryChangedBroadcast(any(GlobalDiscoveryEntryChangedBroadcastListener.class),
+                                                                                                           any(OnChangeSubscriptionQos.class),
+                                                                                                           any(GlobalDiscoveryEntryChangedBroadcastFilterParameters.class));
+        assertTrue(subject.isSubscribed("domain", INTERFACE_NAME));
+    }
+
+    @Test
+    public void leastRecentlyUsedSubscriptionIsUnsubscribedWhenLimitIsReached() {
+        subject = new GlobalDiscoveryEntryChangeSubscriptions(globalCapabilitiesDirectoryClient,
+                                                              changeAction,
+                                                              GlobalDiscoveryEntryChangeSubscriptions.QOS_DURATION_MS,
+                                                              2);
+        subject.subscribe(new String[]{ "domain1", "domain2" }, INTERFACE_NAME);
+        verify(globalCapabilitiesDirectoryClient, times(2)).subscribeToGlobalDiscoveryEntryChangedBroadcast(listenerCaptor.capture(),
+                                                                                                           any(OnChangeSubscriptionQos.class),
+                                                                                                           any(GlobalDiscoveryEntryChangedBroadcastFilterParameters.class));
+        listenerCaptor.getAllValues().get(0).onSubscribed("subscriptionId1");
+        listenerCaptor.getAllValues().get(1).onSubscribed("subscriptionId2");
+        subject.subscribe(new String[]{ "domain1" }, INTERFACE_NAME);
+
+        subject.subscribe(new String[]{ "domain3" }, INTERFACE_NAME);
+
+        verify(globalCapabilitiesDirectoryClient).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast("subscriptionId2");
+        verify(globalCapabilitiesDirectoryClient, never()).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast("subscriptionId1");
+        assertTrue(subject.isSubscribed("domain1", INTERFACE_NAME));
+        assertFalse(subject.isSubscribed("domain2", INTERFACE_NAME));
+        assertTrue(subject.isSubscribed("domain3", INTERFACE_NAME));
+    }
+
+    @Test
+    public void subscriptionReleasedBeforeConfirmationIsUnsubscribedOnConfirmation() {
+        subject = new GlobalDiscoveryEntryChangeSubscriptions(globalCapabilitiesDirectoryClient,
+                                                              changeAction,
+                                                              GlobalDiscoveryEntryChangeSubscriptions.QOS_DURATION_MS,
+                                                              1);
+        GlobalDiscoveryEntryChangedBroadcastListener listener = subscribe("domain1");
+        subject.subscribe(new String[]{ "domain2" }, INTERFACE_NAME);
+        verify(globalCapabilitiesDirectoryClient, never()).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast(anyString());
+
+        listener.onSubscribed("subscriptionId1");
+
+        verify(globalCapabilitiesDirectoryClient).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast("subscriptionId1");
+        assertFalse(subject.isSubscribed("domain1", INTERFACE_NAME));
+        assertTrue(subject.isSubscribed("domain2", INTERFACE_NAME));
+    }
+
+    private GlobalDiscoveryEntryChangedBroadcastListener subscribe(String domain) {
+        subject.subscribe(new String[]{ domain }, INTERFACE_NAME);
+        verify(globalCapabilitiesDirectoryClient).subscribeToGlobalDiscoveryEntryChangedBroadcast(listenerCaptor.capture(),
+                                                                                                 any(OnChangeSubscriptionQos.class),
+                                                                                                 any(GlobalDiscoveryEntryChangedBroadcastFilterParameters.class));
+        return listenerCaptor.getValue();
+    }
+
+    private GlobalDiscoveryEntry createEntry(String participantId) {
+        GlobalDiscoveryEntry globalDiscoveryEntry = new GlobalDiscoveryEntry();
+        globalDiscoveryEntry.setDomain("domain");
+        globalDiscoveryEntry.setInterfaceName(INTERFACE_NAME);
+        globalDiscoveryEntry.setParticipantId(participantId);
+        return globalDiscoveryEntry;
+    }
+}
@@ -0,0 +1,200 @@
+package io.joynr.capabilities;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.exceptions.JoynrTimeoutException;
+import io.joynr.proxy.Callback;
+import joynr.types.GlobalDiscoveryEntry;
+
+/**
+ * Unit tests for the {@link GlobalLookupCoalescer}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GlobalLookupCoalescerTest {
+
+    private static final String INTERFACE_NAME = "interfaceName";
+    private static final long DISCOVERY_TIMEOUT_MS = 30000;
+
+    @Mock
+    private GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient;
+
+    @Mock
+    private GlobalLookupCoalescer.ResultAction resultAction;
+
+    @Mock
+    private Callback<List<GlobalDiscoveryEntry>> firstCallback;
+
+    @Mock
+    private Callback<List<GlobalDiscoveryEntry>> secondCallback;
+
+    @Captor
+    private ArgumentCaptor<Callback<List<GlobalDiscoveryEntry>>> clientCallbackCaptor;
+
+    private ScheduledExecutorService timeoutScheduler;
+
+    private GlobalLookupCoalescer subject;
+
+    @Before
+    public void setUp() {
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+        subject = new GlobalLookupCoalescer(globalCapabilitiesDirectoryClient, timeoutScheduler, resultAction);
+    }
+
+    @After
+    public void tearDown() {
+        timeoutScheduler.shutdownNow();
+    }
+
+    @Test
+    public void identicalLookupsAreMergedIntoOneRemoteLookup() {
+        subject.lookup(new String[]{ "domain1", "domain2" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, firstCallback);
+        subject.lookup(new String[]{ "domain2", "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, secondCallback);
+
+        verify(globalCapabilitiesDirectoryClient, times(1)).lookup(clientCallbackCaptor.capture(),
+                                                                   any(String[].class),
+                                                                   eq(INTERFACE_NAME),
+                                                                   eq(DISCOVERY_TIMEOUT_MS));
+        List<GlobalDiscoveryEntry> result = Arrays.asList(new GlobalDiscoveryEntry());
+        clientCallbackCaptor.getValue().onSuccess(result);
+
+        verify(resultAction, times(1)).globalDiscoveryEntriesReceived(result);
+        verify(firstCallback).onSuccess(result);
+        verify(secondCallback).onSuccess(result);
+        assertEquals(1, subject.getRemoteLookupCount());
+        assertEquals(1, subject.getMergedLookupCount());
+    }
+
+    @Test
+    public void differentLookupsAreNotMerged() {
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, firstCallback);
+        subject.lookup(new String[]{ "domain2" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, secondCallback);
+
+        verify(globalCapabilitiesDirectoryClient, times(2)).lookup(Mockito.<Callback<List<GlobalDiscoveryEntry>>> any(),
+                                                                   any(String[].class),
+                                                                   eq(INTERFACE_NAME),
+                                                                   eq(DISCOVERY_TIMEOUT_MS));
+        assertEquals(2, subject.getRemoteLookupCount());
+        assertEquals(0, subject.getMergedLookupCount());
+    }
+
+    @Test
+    public void lookupAfterCompletionIsSentAgain() {
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, firstCallback);
+        verify(globalCapabilitiesDirectoryClient).lookup(clientCallbackCaptor.capture(),
+                                                         any(String[].class),
+                                                         eq(INTERFACE_NAME),
+                                                         anyLong());
+        JoynrRuntimeException error = new JoynrRuntimeException("lookup failed");
+        clientCallbackCaptor.getValue().onFailure(error);
+        verify(firstCallback).onFailure(error);
+        verify(resultAction, never()).globalDiscoveryEntriesReceived(Mockito.<List<GlobalDiscoveryEntry>> any());
+
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, secondCallback);
+        verify(globalCapabilitiesDirectoryClient, times(2)).lookup(Mockito.<Callback<List<GlobalDiscoveryEntry>>> any(),
+                                                                   any(String[].class),
+                                                                   eq(INTERFACE_NAME),
+                                                                   anyLong());
+        assertEquals(2, subject.getRemoteLookupCount());
+        assertEquals(0, subject.getMergedLookupCount());
+    }
+
+    @Test
+    public void mergedLookupTimesOutWithItsOwnTimeout() {
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, firstCallback);
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, 100, secondCallback);
+
+        verify(secondCallback, timeout(1000)).onFailure(any(JoynrTimeoutException.class));
+        verify(firstCallback, never()).onFailure(any(JoynrRuntimeException.class));
+
+        verify(globalCapabilitiesDirectoryClient).lookup(clientCallbackCaptor.capture(),
+                                                         any(String[].class),
+                                                         eq(INTERFACE_NAME),
+                                                         anyLong());
+        List<GlobalDiscoveryEntry> result = Arrays.asList(new GlobalDiscoveryEntry());
+        clientCallbackCaptor.getValue().onSuccess(result);
+        verify(firstCallback).onSuccess(result);
+        verify(secondCallback, never()).onSuccess(Mockito.<List<GlobalDiscoveryEntry>> any());
+    }
+
+    @Test
+    public void lookupIsSentAgainForCallerWithLongerTimeout() {
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, 100, firstCallback);
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, secondCallback);
+
+        verify(firstCallback, timeout(1000)).onFailure(any(JoynrTimeoutException.class));
+        verify(globalCapabilitiesDirectoryClient, timeout(1000).times(2)).lookup(clientCallbackCaptor.capture(),
+                                                                                 any(String[].class),
+                                                                                 eq(INTERFACE_NAME),
+                                                                                 anyLong());
+        verify(secondCallback, never()).onFailure(any(JoynrRuntimeException.class));
+        assertEquals(2, subject.getRemoteLookupCount());
+        assertEquals(1, subject.getMergedLookupCount());
+
+        // the reissued lookup waits for the remaining timeout of the second caller
+        List<GlobalDiscoveryEntry> result = Arrays.asList(new GlobalDiscoveryEntry());
+        clientCallbackCaptor.getAllValues().get(1).onSuccess(result);
+        verify(secondCallback).onSuccess(result);
+        verify(firstCallback, never()).onSuccess(Mockito.<List<GlobalDiscoveryEntry>> any());
+    }
+
+    @Test
+    public void timedOutInFlightLookupIsRemoved() {
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, 100, firstCallback);
+        verify(firstCallback, timeout(1000)).onFailure(any(JoynrTimeoutException.class));
+
+        subject.lookup(new String[]{ "domain1" }, INTERFACE_NAME, DISCOVERY_TIMEOUT_MS, secondCallback);
+        verify(globalCapabilitiesDirectoryClient, times(2)).lookup(clientCallbackCaptor.capture(),
+                                                                   any(String[].class),
+                                                                   eq(INTERFACE_NAME),
+                                                                   anyLong());
+
+        // a late reply of the timed out lookup must not complete the new one
+        List<GlobalDiscoveryEntry> lateResult = Arrays.asList(new GlobalDiscoveryEntry());
+        clientCallbackCaptor.getAllValues().get(0).onSuccess(lateResult);
+        verify(secondCallback, never()).onSuccess(Mockito.<List<GlobalDiscoveryEntry>> any());
+        verify(firstCallback, never()).onSuccess(Mockito.<List<GlobalDiscoveryEntry>> any());
+    }
+}
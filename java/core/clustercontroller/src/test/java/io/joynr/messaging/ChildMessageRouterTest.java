@@ -19,6 +19,8 @@ package io.joynr.messaging;
  * #L%
  */
 
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 import java.util.concurrent.ScheduledExecutorService;
@@ -29,9 +31,12 @@ import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
@@ -40,6 +45,7 @@ import io.joynr.common.ExpiryDate;
 import io.joynr.messaging.routing.ChildMessageRouter;
 import io.joynr.messaging.routing.MessagingStubFactory;
 import io.joynr.messaging.routing.RoutingTable;
+import io.joynr.proxy.Callback;
 import joynr.JoynrMessage;
 import joynr.system.RoutingProxy;
 import joynr.system.RoutingTypes.Address;
@@ -83,7 +89,7 @@ public class ChildMessageRouterTest {
         messageRouter.setParentRouter(messageRouterParent, parentAddress, "parentParticipantId", "proxyParticipantId");
 
         when(routingTable.containsKey(unknownParticipantId)).thenReturn(false);
-        when(messageRouterParent.resolveNextHop(unknownParticipantId)).thenReturn(true);
+        parentAnswersResolveNextHop(true);
         when(messagingStubFactory.create(Mockito.any(Address.class))).thenReturn(messagingStub);
         when(parentAddress.getChannelId()).thenReturn("MessageRouterImplTestChannel");
 
@@ -93,7 +99,43 @@ public class ChildMessageRouterTest {
     public void itQueriesParentForNextHop() throws Exception {
         messageRouter.route(message);
         Thread.sleep(100);
-        Mockito.verify(messageRouterParent).resolveNextHop(Mockito.eq(unknownParticipantId));
+        Mockito.verify(messageRouterParent).resolveNextHop(Mockito.<Callback<Boolean>> any(),
+                                                           Mockito.eq(unknownParticipantId));
+        Mockito.verify(messageRouterParent, Mockito.never()).resolveNextHop(Mockito.anyString());
+    }
+
+    @Test
+    public void concurrentResolutionsForSameParticipantAreMerged() throws Exception {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        ArgumentCaptor<Callback<Boolean>> callbackCaptor = ArgumentCaptor.forClass((Class) Callback.class);
+        // the parent doesn't answer until the callback is called by the test
+        Mockito.doReturn(null)
+               .when(messageRouterParent)
+               .resolveNextHop(Mockito.<Callback<Boolean>> any(), Mockito.eq(unknownParticipantId));
+
+        messageRouter.route(message);
+        messageRouter.route(createMessage());
+        Thread.sleep(100);
+        Mockito.verify(messageRouterParent).resolveNextHop(callbackCaptor.capture(), Mockito.eq(unknownParticipantId));
+        Mockito.verify(messagingStubFactory, Mockito.never()).create(parentAddress);
+
+        callbackCaptor.getValue().onSuccess(true);
+        Mockito.verify(routingTable).put(unknownParticipantId, parentAddress);
+        Mockito.verify(messagingStubFactory, timeout(1000).atLeastOnce()).create(parentAddress);
+    }
+
+    @Test
+    public void unresolvedNextHopIsNotQueriedAgainWithinCacheTime() throws Exception {
+        parentAnswersResolveNextHop(false);
+
+        messageRouter.route(message);
+        Thread.sleep(100);
+        messageRouter.route(createMessage());
+        Thread.sleep(100);
+
+        Mockito.verify(messageRouterParent, times(1)).resolveNextHop(Mockito.<Callback<Boolean>> any(),
+                                                                     Mockito.eq(unknownParticipantId));
+        Mockito.verify(messagingStubFactory, Mockito.never()).create(parentAddress);
     }
 
     @Test
@@ -110,6 +152,24 @@ public class ChildMessageRouterTest {
         Mockito.verify(messageRouterParent).addNextHop(Mockito.eq(unknownParticipantId), Mockito.eq(incomingAddress));
     }
 
+    private JoynrMessage createMessage() {
+        JoynrMessage joynrMessage = new JoynrMessage();
+        joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(10000));
+        joynrMessage.setTo(unknownParticipantId);
+        return joynrMessage;
+    }
+
+    private void parentAnswersResolveNextHop(final boolean resolved) {
+        Mockito.doAnswer(new Answer<Object>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ((Callback<Boolean>) invocation.getArguments()[0]).onSuccess(resolved);
+                return null;
+            }
+        }).when(messageRouterParent).resolveNextHop(Mockito.<Callback<Boolean>> any(), Mockito.eq(unknownParticipantId));
+    }
+
     ScheduledExecutorService provideMessageSchedulerThreadPoolExecutor() {
         ThreadFactory schedulerNamedThreadFactory = new ThreadFactoryBuilder().setNameFormat("joynr.MessageScheduler-scheduler-%d")
                                                                               .build();
@@ -0,0 +1,108 @@
+package io.joynr.messaging.channel;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.JoynrMessageSerializer;
+import io.joynr.messaging.http.HttpMessageSender;
+import joynr.JoynrMessage;
+import joynr.system.RoutingTypes.ChannelAddress;
+
+/**
+ * Unit tests for the batched transmit of the {@link ChannelMessagingStub}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ChannelMessagingStubTest {
+
+    private ChannelAddress address = new ChannelAddress("http://testUrl", "channel");
+    private ChannelAddress replyToAddress = new ChannelAddress("http://testUrl", "replyToChannel");
+
+    @Mock
+    private JoynrMessageSerializer messageSerializer;
+    @Mock
+    private HttpMessageSender httpMessageSender;
+    @Mock
+    private FailureAction firstFailureAction;
+    @Mock
+    private FailureAction secondFailureAction;
+    @Mock
+    private FailureAction thirdFailureAction;
+
+    private ChannelMessagingStub subject;
+
+    @Before
+    public void setUp() {
+        subject = new ChannelMessagingStub(address, replyToAddress, messageSerializer, httpMessageSender);
+    }
+
+    @Test
+    public void messageFailingSerializationDoesNotAffectRestOfBatch() {
+        JoynrMessage firstMessage = new JoynrMessage();
+        JoynrMessage secondMessage = new JoynrMessage();
+        JoynrMessage thirdMessage = new JoynrMessage();
+        JoynrRuntimeException error = new JoynrRuntimeException("not serializable");
+        when(messageSerializer.serialize(firstMessage)).thenReturn("m1");
+        when(messageSerializer.serialize(secondMessage)).thenThrow(error);
+        when(messageSerializer.serialize(thirdMessage)).thenReturn("m3");
+
+        subject.transmit(Arrays.asList(firstMessage, secondMessage, thirdMessage),
+                         Arrays.asList(firstFailureAction, secondFailureAction, thirdFailureAction));
+
+        verify(httpMessageSender, times(1)).sendMessage(address, "m1", firstFailureAction);
+        verify(httpMessageSender, times(1)).sendMessage(address, "m3", thirdFailureAction);
+        verify(secondFailureAction).execute(error);
+        verify(firstFailureAction, never()).execute(any(Throwable.class));
+        verify(thirdFailureAction, never()).execute(any(Throwable.class));
+    }
+
+    @Test
+    public void failingSendDoesNotStopBatch() {
+        JoynrMessage firstMessage = new JoynrMessage();
+        JoynrMessage secondMessage = new JoynrMessage();
+        JoynrRuntimeException error = new JoynrRuntimeException("connection refused");
+        when(messageSerializer.serialize(firstMessage)).thenReturn("m1");
+        when(messageSerializer.serialize(secondMessage)).thenReturn("m2");
+        doThrow(error).when(httpMessageSender).sendMessage(eq(address), eq("m1"), any(FailureAction.class));
+
+        subject.transmit(Arrays.asList(firstMessage, secondMessage),
+                         Arrays.asList(firstFailureAction, secondFailureAction));
+
+        verify(firstFailureAction).execute(error);
+        verify(httpMessageSender).sendMessage(address, "m2", secondFailureAction);
+        verify(secondFailureAction, never()).execute(any(Throwable.class));
+    }
+}
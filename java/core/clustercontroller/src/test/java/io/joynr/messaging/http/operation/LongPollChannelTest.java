@@ -0,0 +1,179 @@
+package io.joynr.messaging.http.operation;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.http.client.config.RequestConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Guice;
+
+import io.joynr.common.ExpiryDate;
+import io.joynr.exceptions.JoynrShutdownException;
+import io.joynr.messaging.JsonMessageSerializerModule;
+import io.joynr.messaging.MessageArrivedListener;
+import joynr.JoynrMessage;
+
+/**
+ * Unit tests for the streaming parser of long poll responses in {@link LongPollChannel}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LongPollChannelTest {
+
+    private static final String CHANNEL_URL = "http://localhost/bounceproxy/channels/channelId/";
+
+    @Mock
+    private MessageArrivedListener messageArrivedListener;
+    @Mock
+    private HttpRequestFactory httpRequestFactory;
+    @Mock
+    private HttpGet httpGet;
+
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        objectMapper = Guice.createInjector(new JsonMessageSerializerModule()).getInstance(ObjectMapper.class);
+        when(httpRequestFactory.createHttpGet(any(URI.class))).thenReturn(httpGet);
+        when(httpGet.getURI()).thenReturn(URI.create(CHANNEL_URL));
+    }
+
+    @Test
+    public void severalMessagesAreDispatchedInOrder() throws Exception {
+        JoynrMessage message1 = createMessage("payload1");
+        JoynrMessage message2 = createMessage("payload2");
+        JoynrMessage message3 = createMessage("payload3");
+
+        int messageCount = notifyDispatcher(serialize(message1) + "\n" + serialize(message2) + serialize(message3));
+
+        assertEquals(3, messageCount);
+        InOrder inOrder = inOrder(messageArrivedListener);
+        inOrder.verify(messageArrivedListener).messageArrived(eq(message1));
+        inOrder.verify(messageArrivedListener).messageArrived(eq(message2));
+        inOrder.verify(messageArrivedListener).messageArrived(eq(message3));
+    }
+
+    @Test
+    public void nonObjectTokensAreSkipped() throws Exception {
+        JoynrMessage message = createMessage("payload");
+
+        int messageCount = notifyDispatcher("\"text\" 42 [{\"payload\": \"inArray\"}] " + serialize(message));
+
+        assertEquals(1, messageCount);
+        verify(messageArrivedListener).messageArrived(eq(message));
+    }
+
+    @Test
+    public void objectWhichIsNoMessageIsSkipped() throws Exception {
+        JoynrMessage message1 = createMessage("payload1");
+        JoynrMessage message2 = createMessage("payload2");
+
+        int messageCount = notifyDispatcher(serialize(message1) + "{\"header\": {\"nested\": [1, 2]}, \"type\": 3}"
+                + serialize(message2));
+
+        assertEquals(3, messageCount);
+        InOrder inOrder = inOrder(messageArrivedListener);
+        inOrder.verify(messageArrivedListener).messageArrived(eq(message1));
+        inOrder.verify(messageArrivedListener).messageArrived(eq(message2));
+    }
+
+    @Test
+    public void malformedJsonDropsRemainingBody() throws Exception {
+        JoynrMessage message1 = createMessage("payload1");
+        JoynrMessage message2 = createMessage("payload2");
+
+        notifyDispatcher(serialize(message1) + "{\"type\" \"missingColon\"}" + serialize(message2));
+
+        verify(messageArrivedListener).messageArrived(eq(message1));
+        verify(messageArrivedListener, never()).messageArrived(eq(message2));
+    }
+
+    @Test
+    public void messageIsReportedIfReceiverIsShutDown() throws Exception {
+        ExecutorService shutDownExecutor = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException("shut down")).when(shutDownExecutor).execute(any(Runnable.class));
+        JoynrMessage message = createMessage("payload");
+
+        createLongPollChannel(shutDownExecutor).notifyDispatcher(toInputStream(serialize(message)));
+
+        verify(messageArrivedListener).error(eq(message), any(JoynrShutdownException.class));
+        verify(messageArrivedListener, never()).messageArrived(any(JoynrMessage.class));
+    }
+
+    private int notifyDispatcher(String responseBody) throws Exception {
+        return createLongPollChannel(MoreExecutors.sameThreadExecutor()).notifyDispatcher(toInputStream(responseBody));
+    }
+
+    private LongPollChannel createLongPollChannel(ExecutorService messageReceiverExecutor) {
+        LongPollChannel longPollChannel = new LongPollChannel(null,
+                                                              RequestConfig.DEFAULT,
+                                                              false,
+                                                              messageArrivedListener,
+                                                              objectMapper,
+                                                              null,
+                                                              mock(HttpConstants.class),
+                                                              "channelId",
+                                                              "receiverId",
+                                                              httpRequestFactory,
+                                                              messageReceiverExecutor);
+        longPollChannel.setChannelUrl(CHANNEL_URL);
+        return longPollChannel;
+    }
+
+    private JoynrMessage createMessage(String payload) {
+        JoynrMessage message = new JoynrMessage();
+        message.setType(JoynrMessage.MESSAGE_TYPE_ONE_WAY);
+        message.setFrom("fromParticipantId");
+        message.setTo("toParticipantId");
+        message.setExpirationDate(ExpiryDate.fromRelativeTtl(60000));
+        message.setPayload(payload);
+        return message;
+    }
+
+    private String serialize(JoynrMessage message) throws Exception {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    private ByteArrayInputStream toInputStream(String responseBody) {
+        return new ByteArrayInputStream(responseBody.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -19,10 +19,15 @@ package io.joynr.messaging.routing;
  * #L%
  */
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
@@ -33,8 +38,11 @@ import javax.inject.Named;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -45,6 +53,7 @@ import com.google.inject.multibindings.MapBinder;
 import com.google.inject.name.Names;
 
 import io.joynr.common.ExpiryDate;
+import io.joynr.exceptions.JoynrDelayMessageException;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.messaging.AbstractMiddlewareMessagingStubFactory;
 import io.joynr.messaging.ConfigurableMessagingSettings;
@@ -125,9 +134,145 @@ public class MessageRouterTest {
     public void testScheduleMessageOk() throws Exception {
         joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
         messageRouter.route(joynrMessage);
-        Thread.sleep(1000);
-        verify(messagingStubFactoryMock).create(eq(channelAddress));
-        verify(messagingStubMock).transmit(eq(joynrMessage), any(FailureAction.class));
+        verify(messagingStubFactoryMock, timeout(1000)).create(eq(channelAddress));
+        verify(messagingStubMock, timeout(1000)).transmit(eq(joynrMessage), any(FailureAction.class));
+    }
+
+    @Test
+    public void testRetryAfterDelay() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                FailureAction failureAction = (FailureAction) invocation.getArguments()[1];
+                failureAction.execute(new JoynrDelayMessageException(10, "try again later"));
+                return null;
+            }
+        }).doNothing().when(messagingStubMock).transmit(eq(joynrMessage), any(FailureAction.class));
+
+        joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
+        messageRouter.route(joynrMessage);
+        verify(messagingStubMock, timeout(1000).times(2)).transmit(eq(joynrMessage), any(FailureAction.class));
+    }
+
+    @Test
+    public void testEmptyAddressQueueIsRemoved() throws Exception {
+        joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
+        messageRouter.route(joynrMessage);
+        verify(messagingStubMock, timeout(1000)).transmit(eq(joynrMessage), any(FailureAction.class));
+
+        MessageRouterImpl messageRouterImpl = (MessageRouterImpl) messageRouter;
+        long waitUntilMs = System.currentTimeMillis() + 1000;
+        while (messageRouterImpl.getAddressQueueCount() > 0 && System.currentTimeMillis() < waitUntilMs) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, messageRouterImpl.getAddressQueueCount());
+
+        // a new queue is created for the next message to the address
+        messageRouter.route(joynrMessage);
+        verify(messagingStubMock, timeout(1000).times(2)).transmit(eq(joynrMessage), any(FailureAction.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWaitingMessagesAreTransmittedAsOneBatch() throws Exception {
+        final CountDownLatch firstTransmitStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstTransmit = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                firstTransmitStarted.countDown();
+                releaseFirstTransmit.await();
+                return null;
+            }
+        }).when(messagingStubMock).transmit(eq(joynrMessage), any(FailureAction.class));
+
+        joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
+        messageRouter.route(joynrMessage);
+        assertTrue(firstTransmitStarted.await(1000, TimeUnit.MILLISECONDS));
+
+        // the messages routed while the address is busy wait in its queue
+        List<JoynrMessage> waitingMessages = Arrays.asList(createMessage(), createMessage(), createMessage());
+        for (JoynrMessage message : waitingMessages) {
+            messageRouter.route(message);
+        }
+        releaseFirstTransmit.countDown();
+
+        ArgumentCaptor<List> failureActions = ArgumentCaptor.forClass(List.class);
+        verify(messagingStubMock, timeout(1000)).transmit(eq(waitingMessages), failureActions.capture());
+        assertEquals(waitingMessages.size(), failureActions.getValue().size());
+        for (JoynrMessage message : waitingMessages) {
+            verify(messagingStubMock, never()).transmit(eq(message), any(FailureAction.class));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFailedMessageOfBatchIsRetriedAlone() throws Exception {
+        final CountDownLatch firstTransmitStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstTransmit = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                firstTransmitStarted.countDown();
+                releaseFirstTransmit.await();
+                return null;
+            }
+        }).when(messagingStubMock).transmit(eq(joynrMessage), any(FailureAction.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                List<FailureAction> failureActions = (List<FailureAction>) invocation.getArguments()[1];
+                failureActions.get(1).execute(new JoynrDelayMessageException(10, "try again later"));
+                return null;
+            }
+        }).when(messagingStubMock).transmit(any(List.class), any(List.class));
+
+        joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
+        messageRouter.route(joynrMessage);
+        assertTrue(firstTransmitStarted.await(1000, TimeUnit.MILLISECONDS));
+        JoynrMessage message1 = createMessage();
+        JoynrMessage message2 = createMessage();
+        messageRouter.route(message1);
+        messageRouter.route(message2);
+        releaseFirstTransmit.countDown();
+
+        verify(messagingStubMock, timeout(1000)).transmit(eq(Arrays.asList(message1, message2)), any(List.class));
+        verify(messagingStubMock, timeout(1000)).transmit(eq(message2), any(FailureAction.class));
+        verify(messagingStubMock, never()).transmit(eq(message1), any(FailureAction.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMessagesOfFailingBatchAreNotRetriedByRouter() throws Exception {
+        final CountDownLatch firstTransmitStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstTransmit = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                firstTransmitStarted.countDown();
+                releaseFirstTransmit.await();
+                return null;
+            }
+        }).when(messagingStubMock).transmit(eq(joynrMessage), any(FailureAction.class));
+        // the stub owns the failure reporting of a batch, messages before the failure may have been sent already
+        doThrow(new IllegalStateException("stub failed")).when(messagingStubMock).transmit(any(List.class),
+                                                                                           any(List.class));
+
+        joynrMessage.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
+        messageRouter.route(joynrMessage);
+        assertTrue(firstTransmitStarted.await(1000, TimeUnit.MILLISECONDS));
+        JoynrMessage message1 = createMessage();
+        JoynrMessage message2 = createMessage();
+        messageRouter.route(message1);
+        messageRouter.route(message2);
+        releaseFirstTransmit.countDown();
+
+        verify(messagingStubMock, timeout(1000)).transmit(eq(Arrays.asList(message1, message2)), any(List.class));
+        // longer than the retry interval of the router
+        Thread.sleep(100);
+        verify(messagingStubMock, times(1)).transmit(any(List.class), any(List.class));
+        verify(messagingStubMock, never()).transmit(eq(message1), any(FailureAction.class));
+        verify(messagingStubMock, never()).transmit(eq(message2), any(FailureAction.class));
     }
 
     @Test
@@ -143,4 +288,11 @@ public class MessageRouterTest {
         fail("scheduling an expired message should throw");
     }
 
+    private JoynrMessage createMessage() {
+        JoynrMessage message = new JoynrMessage();
+        message.setTo(toParticipantId);
+        message.setExpirationDate(ExpiryDate.fromRelativeTtl(100000000));
+        return message;
+    }
+
 }
@@ -26,8 +26,13 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,14 +58,20 @@ import joynr.types.Version;
  * <li> search for matching {@link DiscoveryEntry} elements locally and/or globally depending on the DiscoveryQos
  * <li> call the {@link ArbitrationStrategyFunction} to select a discoveryEntry to be used for the proxy being created
  * </ul>
+ * If no suitable provider is found, the lookup is retried on the given scheduler until the discovery timeout
+ * expires. No thread is blocked while waiting for the next retry.
  */
 public class Arbitrator {
     private static final Logger logger = LoggerFactory.getLogger(Arbitrator.class);
+    // the delay of a retry is randomly increased by up to this fraction of the retry interval, so that
+    // arbitrations which failed at the same time, e.g. at startup, don't retry in lockstep
+    private static final double RETRY_JITTER_FACTOR = 0.5;
+    private static final Random jitterRandom = new Random();
     private final long MINIMUM_ARBITRATION_RETRY_DELAY;
     protected DiscoveryQos discoveryQos;
     protected DiscoveryAsync localDiscoveryAggregator;
     protected ArbitrationResult arbitrationResult = new ArbitrationResult();
-    protected ArbitrationStatus arbitrationStatus = ArbitrationStatus.ArbitrationNotStarted;
+    protected volatile ArbitrationStatus arbitrationStatus = ArbitrationStatus.ArbitrationNotStarted;
     protected ArbitrationCallback arbitrationListener;
     // Initialized with 0 to block until the listener is registered
     private Semaphore arbitrationListenerSemaphore = new Semaphore(0);
@@ -71,6 +82,10 @@ public class Arbitrator {
     private ArbitrationStrategyFunction arbitrationStrategyFunction;
     private DiscoveryEntryVersionFilter discoveryEntryVersionFilter;
     private final Map<String, Set<Version>> discoveredVersions = new HashMap<>();
+    private final ScheduledExecutorService retryScheduler;
+    private final Object retryLock = new Object();
+    private volatile boolean canceled = false;
+    private ScheduledFuture<?> scheduledRetry;
 
     // CHECKSTYLE IGNORE ParameterNumber FOR NEXT 1 LINES
     public Arbitrator(final Set<String> domains,
@@ -80,7 +95,8 @@ public class Arbitrator {
                       DiscoveryAsync localDiscoveryAggregator,
                       long minimumArbitrationRetryDelay,
                       ArbitrationStrategyFunction arbitrationStrategyFunction,
-                      DiscoveryEntryVersionFilter discoveryEntryVersionFilter) {
+                      DiscoveryEntryVersionFilter discoveryEntryVersionFilter,
+                      ScheduledExecutorService retryScheduler) {
         // CHECKSTYLE:ON
         this.domains = domains;
         this.interfaceName = interfaceName;
@@ -91,9 +107,13 @@ public class Arbitrator {
         this.arbitrationStrategyFunction = arbitrationStrategyFunction;
         arbitrationDeadline = System.currentTimeMillis() + discoveryQos.getDiscoveryTimeoutMs();
         this.discoveryEntryVersionFilter = discoveryEntryVersionFilter;
+        this.retryScheduler = retryScheduler;
     }
 
     protected void onError(Throwable exception) {
+        if (canceled) {
+            return;
+        }
         if (exception instanceof JoynrShutdownException) {
             arbitrationFailed(exception);
         } else if (exception instanceof JoynrRuntimeException) {
@@ -113,6 +133,10 @@ public class Arbitrator {
      * Called by the proxy builder to start the arbitration process.
      */
     public void startArbitration() {
+        if (canceled) {
+            return;
+        }
+        arbitrationStatus = ArbitrationStatus.ArbitrationRunning;
         logger.debug("start arbitration for domain: {}, interface: {}", domains, interfaceName);
         localDiscoveryAggregator.lookup(new DiscoveryCallback(), domains.toArray(new String[domains.size()]), interfaceName,
                                         new joynr.types.DiscoveryQos(discoveryQos.getCacheMaxAgeMs(),
@@ -161,16 +185,64 @@ public class Arbitrator {
         return System.currentTimeMillis() < arbitrationDeadline;
     }
 
+    /**
+     * Cancels the arbitration, e.g. because the proxy it was started for is not needed anymore. A pending retry
+     * is removed from the scheduler and the arbitration listener is informed with a {@link DiscoveryException}.
+     * Has no effect if the arbitration has already finished.
+     */
+    public void cancel() {
+        synchronized (retryLock) {
+            if (canceled || arbitrationStatus == ArbitrationStatus.ArbitrationSuccesful
+                    || arbitrationStatus == ArbitrationStatus.ArbitrationCanceledForever) {
+                return;
+            }
+            canceled = true;
+            if (scheduledRetry != null) {
+                scheduledRetry.cancel(false);
+                scheduledRetry = null;
+            }
+        }
+        logger.debug("arbitration canceled for domain: {}, interface: {}", domains, interfaceName);
+        arbitrationFailed(new DiscoveryException("Arbitration canceled: interface: " + interfaceName + " domains: "
+                + domains));
+    }
+
+    /**
+     * Schedules the next lookup after the retry interval plus a random jitter. The calling thread, usually the
+     * one which delivered the result of the previous lookup, is not blocked.
+     */
     protected void restartArbitration() {
-        logger.info("Restarting Arbitration");
         long backoff = Math.max(discoveryQos.getRetryIntervalMs(), MINIMUM_ARBITRATION_RETRY_DELAY);
-        try {
-            if (backoff > 0) {
-                Thread.sleep(backoff);
+        long delay = Math.max(0, backoff + (long) (jitterRandom.nextDouble() * RETRY_JITTER_FACTOR * backoff));
+        long remainingTime = arbitrationDeadline - System.currentTimeMillis();
+        if (delay > remainingTime) {
+            // do a last lookup right before the deadline instead of missing it while waiting
+            delay = Math.max(0, remainingTime);
+        }
+        logger.info("Restarting Arbitration in {} ms", delay);
+        synchronized (retryLock) {
+            if (canceled) {
+                return;
+            }
+            try {
+                scheduledRetry = retryScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (retryLock) {
+                            scheduledRetry = null;
+                        }
+                        try {
+                            startArbitration();
+                        } catch (Exception e) {
+                            onError(e);
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("unable to schedule arbitration retry", e);
+                arbitrationFailed(new JoynrShutdownException("Arbitration retry rejected, joynr is shutting down: interface: "
+                        + interfaceName + " domains: " + domains));
             }
-            startArbitration();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
         }
     }
 
@@ -228,6 +300,9 @@ public class Arbitrator {
 
             @Override
             public void onSuccess(DiscoveryEntry[] discoveryEntries) {
+                if (canceled) {
+                    return;
+                }
                 assert discoveryEntries != null : "Discovery entries may not be null.";
                 if (allDomainsDiscovered(discoveryEntries)) {
                     logger.debug("Lookup succeeded. Got {}", Arrays.toString(discoveryEntries));
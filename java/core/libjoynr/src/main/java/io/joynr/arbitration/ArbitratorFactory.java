@@ -19,8 +19,10 @@ package io.joynr.arbitration;
  * #L%
  */
 import static io.joynr.messaging.ConfigurableMessagingSettings.PROPERTY_ARBITRATION_MINIMUMRETRYDELAY;
+import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -38,6 +40,10 @@ public final class ArbitratorFactory {
     @Inject
     private static DiscoveryEntryVersionFilter discoveryEntryVersionFilter;
 
+    @Inject
+    @Named(JOYNR_SCHEDULER_CLEANUP)
+    private static ScheduledExecutorService retryScheduler;
+
     private ArbitratorFactory() {
 
     }
@@ -93,7 +99,8 @@ public final class ArbitratorFactory {
                               localDiscoveryAggregator,
                               minimumArbitrationRetryDelay,
                               arbitrationStrategyFunction,
-                              discoveryEntryVersionFilter);
+                              discoveryEntryVersionFilter,
+                              retryScheduler);
     }
 
 }
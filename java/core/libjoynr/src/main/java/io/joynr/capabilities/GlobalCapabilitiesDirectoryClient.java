@@ -33,8 +33,12 @@ import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.MessagingPropertyKeys;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.proxy.Callback;
+import io.joynr.proxy.Future;
 import io.joynr.proxy.ProxyBuilder;
 import io.joynr.proxy.ProxyBuilderFactory;
+import joynr.OnChangeSubscriptionQos;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastFilterParameters;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastListener;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProxy;
 import joynr.types.GlobalDiscoveryEntry;
 
@@ -114,4 +118,16 @@ public class GlobalCapabilitiesDirectoryClient {
         getProxy(ttl).touch(localChannelId);
     }
 
+    public Future<String> subscribeToGlobalDiscoveryEntryChangedBroadcast(GlobalDiscoveryEntryChangedBroadcastListener listener,
+                                                                          OnChangeSubscriptionQos subscriptionQos,
+                                                                          GlobalDiscoveryEntryChangedBroadcastFilterParameters filterParameters) {
+        return getProxy(TTL_30_DAYS_IN_MS).subscribeToGlobalDiscoveryEntryChangedBroadcast(listener,
+                                                                                           subscriptionQos,
+                                                                                           filterParameters);
+    }
+
+    public void unsubscribeFromGlobalDiscoveryEntryChangedBroadcast(String subscriptionId) {
+        getProxy(TTL_30_DAYS_IN_MS).unsubscribeFromGlobalDiscoveryEntryChangedBroadcast(subscriptionId);
+    }
+
 }
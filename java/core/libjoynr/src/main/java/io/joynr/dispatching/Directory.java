@@ -19,64 +19,77 @@ package io.joynr.dispatching;
  * #L%
  */
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.slf4j.Logger;
 
-import com.google.common.collect.Sets;
-
+/**
+ * Concurrent registry of entries by id. Adding and removing entries does not take a lock; listeners are
+ * notified by the thread which added or removed the entry. A listener which is added concurrently to an
+ * entry might be notified twice about this entry. Null ids and entries are not supported.
+ */
 public abstract class Directory<T> {
-    protected Set<DirectoryListener<T>> listeners = Sets.newHashSet();
-    protected Map<String, T> entryMap = new HashMap<String, T>();
+    protected Set<DirectoryListener<T>> listeners = new CopyOnWriteArraySet<DirectoryListener<T>>();
+    protected ConcurrentMap<String, T> entryMap = new ConcurrentHashMap<String, T>();
 
     public void addListener(DirectoryListener<T> listener) {
-        synchronized (entryMap) {
-            listeners.add(listener);
-            for (Entry<String, T> entry : entryMap.entrySet()) {
-                listener.entryAdded(entry.getKey(), entry.getValue());
-            }
+        listeners.add(listener);
+        for (Entry<String, T> entry : entryMap.entrySet()) {
+            listener.entryAdded(entry.getKey(), entry.getValue());
         }
     }
 
     public void removeListener(DirectoryListener<T> listener) {
-        synchronized (entryMap) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
     public void add(String id, T entry) {
-        synchronized (entryMap) {
-            entryMap.put(id, entry);
-            for (DirectoryListener<T> listener : listeners) {
-                listener.entryAdded(id, entry);
-            }
+        entryMap.put(id, entry);
+        for (DirectoryListener<T> listener : listeners) {
+            listener.entryAdded(id, entry);
         }
     }
 
     public T remove(String id) {
-        synchronized (entryMap) {
-            getLogger().trace("remove: {}", id);
-            T result = entryMap.remove(id);
-            if (result == null) {
-                getLogger().trace("remove: {} not found", id);
-            } else {
-                for (DirectoryListener<T> listener : listeners) {
-                    listener.entryRemoved(id);
-                }
-            }
-            return result;
+        getLogger().trace("remove: {}", id);
+        T result = id == null ? null : entryMap.remove(id);
+        if (result == null) {
+            getLogger().trace("remove: {} not found", id);
+        } else {
+            notifyEntryRemoved(id);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the entry only if it is still mapped to the given value.
+     *
+     * @return true if the entry has been removed
+     */
+    protected boolean remove(String id, T entry) {
+        if (!entryMap.remove(id, entry)) {
+            return false;
+        }
+        notifyEntryRemoved(id);
+        return true;
+    }
+
+    private void notifyEntryRemoved(String id) {
+        for (DirectoryListener<T> listener : listeners) {
+            listener.entryRemoved(id);
         }
     }
 
     public boolean contains(String id) {
-        return entryMap.containsKey(id);
+        return id != null && entryMap.containsKey(id);
     }
 
     public T get(String id) {
-        return entryMap.get(id);
+        return id == null ? null : entryMap.get(id);
     }
 
     public boolean isEmpty() {
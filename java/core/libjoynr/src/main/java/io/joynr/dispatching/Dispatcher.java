@@ -21,6 +21,7 @@ import java.util.Set;
  * #L%
  */
 
+import io.joynr.dispatching.subscription.SharedPublicationPayload;
 import io.joynr.messaging.MessageArrivedListener;
 import io.joynr.messaging.MessagingQos;
 import joynr.SubscriptionPublication;
@@ -45,6 +46,16 @@ public interface Dispatcher extends MessageArrivedListener {
                                             SubscriptionPublication publication,
                                             MessagingQos qosSettings);
 
+    /**
+     * Sends the publication of an attribute change whose serialization is shared by all subscriptions of the
+     * attribute.
+     */
+    public void sendSubscriptionPublication(String fromParticipantId,
+                                            Set<String> toParticipantIds,
+                                            SharedPublicationPayload sharedPayload,
+                                            String subscriptionId,
+                                            MessagingQos qosSettings);
+
     void sendSubscriptionReply(String fromParticipantId,
                                String toParticipantId,
                                SubscriptionReply subscriptionReply,
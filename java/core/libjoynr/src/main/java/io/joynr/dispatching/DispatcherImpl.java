@@ -20,17 +20,23 @@ package io.joynr.dispatching;
  */
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.CheckForNull;
 import javax.inject.Singleton;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import io.joynr.dispatching.subscription.PublicationManager;
+import io.joynr.dispatching.subscription.SharedPublicationPayload;
 import io.joynr.dispatching.subscription.SubscriptionManager;
 import io.joynr.exceptions.JoynrException;
 import io.joynr.exceptions.JoynrRuntimeException;
@@ -51,12 +57,15 @@ import org.slf4j.LoggerFactory;
 public class DispatcherImpl implements Dispatcher {
 
     private static final Logger logger = LoggerFactory.getLogger(DispatcherImpl.class);
+    private static final String REQUEST_REPLY_ID = "requestReplyId";
+    private static final String SUBSCRIPTION_ID = "subscriptionId";
     private final JoynrMessageFactory joynrMessageFactory;
     private RequestReplyManager requestReplyManager;
     private SubscriptionManager subscriptionManager;
     private PublicationManager publicationManager;
     private final MessageRouter messageRouter;
     private ObjectMapper objectMapper;
+    private final Map<String, MessageHandler> messageHandlers;
 
     @Inject
     @Singleton
@@ -73,6 +82,7 @@ public class DispatcherImpl implements Dispatcher {
         this.messageRouter = messageRouter;
         this.joynrMessageFactory = joynrMessageFactory;
         this.objectMapper = objectMapper;
+        this.messageHandlers = createMessageHandlers();
     }
 
     // CHECKSTYLE:ON
@@ -124,6 +134,23 @@ public class DispatcherImpl implements Dispatcher {
         }
     }
 
+    @Override
+    public void sendSubscriptionPublication(String fromParticipantId,
+                                            Set<String> toParticipantIds,
+                                            SharedPublicationPayload sharedPayload,
+                                            String subscriptionId,
+                                            MessagingQos messagingQos) {
+
+        for (String toParticipantId : toParticipantIds) {
+            JoynrMessage message = joynrMessageFactory.createPublication(fromParticipantId,
+                                                                         toParticipantId,
+                                                                         sharedPayload,
+                                                                         subscriptionId,
+                                                                         messagingQos);
+            messageRouter.route(message);
+        }
+    }
+
     public void sendReply(final String fromParticipantId,
                           final String toParticipantId,
                           Reply reply,
@@ -155,54 +182,131 @@ public class DispatcherImpl implements Dispatcher {
             return;
         }
         final long expiryDate = message.getExpiryDate();
-        final Map<String, String> customHeaders = message.getCustomHeaders();
         if (DispatcherUtils.isExpired(expiryDate)) {
             logger.debug("TTL expired, discarding message : {}", message.toLogMessage());
             return;
         }
 
-        String type = message.getType();
+        MessageHandler messageHandler = messageHandlers.get(message.getType());
+        if (messageHandler == null) {
+            return;
+        }
         try {
-            if (JoynrMessage.MESSAGE_TYPE_REPLY.equals(type)) {
+            messageHandler.handle(message);
+        } catch (IOException e) {
+            logger.error("Error parsing payload. msgId: {}. from: {} to: {}. Reason: {}. Discarding joynr message.",
+                         new String[]{ message.getFrom(), message.getFrom(), message.getId(), e.getMessage() });
+            return;
+        }
+    }
+
+    /**
+     * Creates the table of payload decoders per message type which is used by {@link #messageArrived(JoynrMessage)}.
+     */
+    private Map<String, MessageHandler> createMessageHandlers() {
+        Map<String, MessageHandler> handlers = new HashMap<>();
+        handlers.put(JoynrMessage.MESSAGE_TYPE_REPLY, new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
+                String requestReplyId = readTopLevelField(message.getPayload(), REQUEST_REPLY_ID);
+                if (requestReplyId != null && !requestReplyManager.hasReplyCaller(requestReplyId)) {
+                    logger.warn("No reply caller found for id: {}. Discarding reply.", requestReplyId);
+                    return;
+                }
                 Reply reply = objectMapper.readValue(message.getPayload(), Reply.class);
                 logger.debug("Parsed reply from message payload :" + message.getPayload());
-                handle(reply);
-            } else if (JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REPLY.equals(type)) {
+                DispatcherImpl.this.handle(reply);
+            }
+        });
+        handlers.put(JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REPLY, new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
                 SubscriptionReply subscriptionReply = objectMapper.readValue(message.getPayload(),
                                                                              SubscriptionReply.class);
                 logger.debug("Parsed subscription reply from message payload :" + message.getPayload());
-                handle(subscriptionReply);
-            } else if (JoynrMessage.MESSAGE_TYPE_REQUEST.equals(type)) {
+                DispatcherImpl.this.handle(subscriptionReply);
+            }
+        });
+        handlers.put(JoynrMessage.MESSAGE_TYPE_REQUEST, new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
                 final Request request = objectMapper.readValue(message.getPayload(), Request.class);
                 request.setCreatorUserId(message.getCreatorUserId());
                 logger.debug("Parsed request from message payload :" + message.getPayload());
-                handle(request, message.getFrom(), message.getTo(), expiryDate, customHeaders);
-            } else if (JoynrMessage.MESSAGE_TYPE_ONE_WAY.equals(type)) {
+                DispatcherImpl.this.handle(request,
+                                           message.getFrom(),
+                                           message.getTo(),
+                                           message.getExpiryDate(),
+                                           message.getCustomHeaders());
+            }
+        });
+        handlers.put(JoynrMessage.MESSAGE_TYPE_ONE_WAY, new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
                 OneWayRequest oneWayRequest = objectMapper.readValue(message.getPayload(), OneWayRequest.class);
                 oneWayRequest.setCreatorUserId(message.getCreatorUserId());
                 logger.debug("Parsed one way request from message payload :" + message.getPayload());
-                handle(oneWayRequest, message.getTo(), expiryDate);
-            } else if (JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REQUEST.equals(type)
-                    || JoynrMessage.MESSAGE_TYPE_BROADCAST_SUBSCRIPTION_REQUEST.equals(type)) {
+                DispatcherImpl.this.handle(oneWayRequest, message.getTo(), message.getExpiryDate());
+            }
+        });
+        MessageHandler subscriptionRequestHandler = new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
                 SubscriptionRequest subscriptionRequest = objectMapper.readValue(message.getPayload(),
                                                                                  SubscriptionRequest.class);
                 logger.debug("Parsed subscription request from message payload :" + message.getPayload());
-                handle(subscriptionRequest, message.getFrom(), message.getTo());
-            } else if (JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_STOP.equals(type)) {
+                DispatcherImpl.this.handle(subscriptionRequest, message.getFrom(), message.getTo());
+            }
+        };
+        handlers.put(JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REQUEST, subscriptionRequestHandler);
+        handlers.put(JoynrMessage.MESSAGE_TYPE_BROADCAST_SUBSCRIPTION_REQUEST, subscriptionRequestHandler);
+        handlers.put(JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_STOP, new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
                 SubscriptionStop subscriptionStop = objectMapper.readValue(message.getPayload(), SubscriptionStop.class);
                 logger.debug("Parsed subscription stop from message payload :" + message.getPayload());
-                handle(subscriptionStop);
-            } else if (JoynrMessage.MESSAGE_TYPE_PUBLICATION.equals(type)) {
+                DispatcherImpl.this.handle(subscriptionStop);
+            }
+        });
+        handlers.put(JoynrMessage.MESSAGE_TYPE_PUBLICATION, new MessageHandler() {
+            @Override
+            public void handle(JoynrMessage message) throws IOException {
+                String subscriptionId = readTopLevelField(message.getPayload(), SUBSCRIPTION_ID);
+                if (subscriptionId != null && !subscriptionManager.hasSubscription(subscriptionId)) {
+                    logger.debug("No subscription found for id: {}. Discarding publication.", subscriptionId);
+                    return;
+                }
                 SubscriptionPublication publication = objectMapper.readValue(message.getPayload(),
                                                                              SubscriptionPublication.class);
                 logger.debug("Parsed publication from message payload :" + message.getPayload());
-                handle(publication);
+                DispatcherImpl.this.handle(publication);
+            }
+        });
+        return Collections.unmodifiableMap(handlers);
+    }
+
+    /**
+     * Scans the payload for a string field of the top level object without building an object tree. Nested objects
+     * and arrays are skipped.
+     *
+     * @return the value of the field or null if the payload does not contain it
+     */
+    @CheckForNull
+    private String readTopLevelField(String payload, String fieldName) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String currentFieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if (fieldName.equals(currentFieldName)) {
+                    return valueToken == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
             }
-        } catch (IOException e) {
-            logger.error("Error parsing payload. msgId: {}. from: {} to: {}. Reason: {}. Discarding joynr message.",
-                         new String[]{ message.getFrom(), message.getFrom(), message.getId(), e.getMessage() });
-            return;
         }
+        return null;
     }
 
     private void handle(final Request request,
@@ -329,4 +433,7 @@ public class DispatcherImpl implements Dispatcher {
         publicationManager.stopPublication(subscriptionStop.getSubscriptionId());
     }
 
+    private interface MessageHandler {
+        void handle(JoynrMessage message) throws IOException;
+    }
 }
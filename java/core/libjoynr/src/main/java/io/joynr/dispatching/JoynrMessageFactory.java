@@ -27,6 +27,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import io.joynr.common.ExpiryDate;
+import io.joynr.dispatching.subscription.SharedPublicationPayload;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.messaging.MessagingQosEffort;
 import joynr.JoynrMessage;
@@ -140,6 +141,28 @@ public class JoynrMessageFactory {
                              messagingQos);
     }
 
+    /**
+     * Creates the publication of an attribute change whose serialization is shared by all subscriptions of the
+     * attribute.
+     */
+    public JoynrMessage createPublication(String fromParticipantId,
+                                          String toParticipantId,
+                                          SharedPublicationPayload sharedPayload,
+                                          String subscriptionId,
+                                          MessagingQos messagingQos) {
+        String payload;
+        try {
+            payload = sharedPayload.serialize(subscriptionId, objectMapper);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return createMessage(JoynrMessage.MESSAGE_TYPE_PUBLICATION,
+                             fromParticipantId,
+                             toParticipantId,
+                             payload,
+                             messagingQos);
+    }
+
     public JoynrMessage createSubscriptionStop(String fromParticipantId,
                                                String toParticipantId,
                                                SubscriptionStop subscriptionStop,
@@ -91,6 +91,12 @@ public interface RequestReplyManager {
 
     public void handleReply(Reply reply);
 
+    /**
+     * @param requestReplyId the id of a request sent by this runtime
+     * @return true if a reply caller is still waiting for the reply to the request
+     */
+    public boolean hasReplyCaller(String requestReplyId);
+
     public void handleRequest(ProviderCallback<Reply> replyCallback,
                               String providerParticipant,
                               Request request,
@@ -21,9 +21,7 @@ package io.joynr.dispatching;
 
 import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -57,9 +55,10 @@ import org.slf4j.LoggerFactory;
 @Singleton
 public class RequestReplyManagerImpl implements RequestReplyManager, DirectoryListener<ProviderContainer> {
     private static final Logger logger = LoggerFactory.getLogger(RequestReplyManagerImpl.class);
-    private boolean running = true;
+    private volatile boolean running = true;
 
-    private List<Thread> outstandingRequestThreads = Collections.synchronizedList(new ArrayList<Thread>());
+    // outstanding synchronous requests, so that they can be ended at shutdown
+    private Set<SynchronizedReplyCaller> outstandingSyncRequests = Collections.newSetFromMap(new ConcurrentHashMap<SynchronizedReplyCaller, Boolean>());
     private ConcurrentHashMap<String, ConcurrentLinkedQueue<ContentWithExpiryDate<Request>>> requestQueue = new ConcurrentHashMap<String, ConcurrentLinkedQueue<ContentWithExpiryDate<Request>>>();
     private ConcurrentHashMap<String, ConcurrentLinkedQueue<OneWayCallable>> oneWayRequestQueue =
             new ConcurrentHashMap<>();
@@ -121,39 +120,36 @@ public class RequestReplyManagerImpl implements RequestReplyManager, DirectoryLi
                     + System.identityHashCode(this) + ": joynr is shutting down");
         }
 
-        final ArrayList<Object> responsePayloadContainer = new ArrayList<Object>(1);
-        // the synchronizedReplyCaller will call notify on the responsePayloadContainer when a message arrives
-        synchronizedReplyCaller.setResponseContainer(responsePayloadContainer);
-
-        sendRequest(fromParticipantId, toParticipantId, request, messagingQos);
-
-        long entryTime = System.currentTimeMillis();
+        outstandingSyncRequests.add(synchronizedReplyCaller);
+        Object response;
+        try {
+            // shutdown might have ended the outstanding requests before this one was added
+            if (!running) {
+                throw new JoynrShutdownException("Request: " + request.getRequestReplyId()
+                        + " interrupted by shutdown");
+            }
+            sendRequest(fromParticipantId, toParticipantId, request, messagingQos);
 
-        // saving all calling threads so that they can be interrupted at shutdown
-        outstandingRequestThreads.add(Thread.currentThread());
-        synchronized (responsePayloadContainer) {
-            while (running && responsePayloadContainer.isEmpty() && entryTime + messagingQos.getRoundTripTtl_ms() > System.currentTimeMillis()) {
-                try {
-                    responsePayloadContainer.wait(messagingQos.getRoundTripTtl_ms());
-                } catch (InterruptedException e) {
-                    if (running) {
-                        throw new JoynrRequestInterruptedException("Request: " + request.getRequestReplyId()
+            // the synchronizedReplyCaller unparks this thread when the reply arrives
+            response = synchronizedReplyCaller.awaitResponse(messagingQos.getRoundTripTtl_ms());
+        } catch (InterruptedException e) {
+            if (running) {
+                throw new JoynrRequestInterruptedException("Request: " + request.getRequestReplyId()
                         + " interrupted.");
-                    }
-                    throw new JoynrShutdownException("Request: " + request.getRequestReplyId()
-                    + " interrupted by shutdown");
-
-                }
             }
+            throw new JoynrShutdownException("Request: " + request.getRequestReplyId() + " interrupted by shutdown");
+        } finally {
+            outstandingSyncRequests.remove(synchronizedReplyCaller);
         }
-        outstandingRequestThreads.remove(Thread.currentThread());
 
-        if (responsePayloadContainer.isEmpty()) {
+        if (response == null) {
             throw new JoynrCommunicationException("Request: " + request.getRequestReplyId()
             + " failed. The response didn't arrive in time");
         }
 
-        Object response = responsePayloadContainer.get(0);
+        if (response instanceof JoynrShutdownException) {
+            throw (JoynrShutdownException) response;
+        }
         if (response instanceof Throwable) {
             Throwable error = (Throwable) response;
             throw new JoynrMessageNotSentException("Request: " + request.getRequestReplyId() + " failed: "
@@ -177,6 +173,7 @@ public class RequestReplyManagerImpl implements RequestReplyManager, DirectoryLi
 
     @Override
     public void entryAdded(String participantId, ProviderContainer providerContainer) {
+        requestInterpreter.registerRequestCaller(providerContainer.getRequestCaller());
         ConcurrentLinkedQueue<ContentWithExpiryDate<Request>> requestList = requestQueue.remove(participantId);
         if (requestList != null) {
             for (ContentWithExpiryDate<Request> requestItem : requestList) {
@@ -247,6 +244,11 @@ public class RequestReplyManagerImpl implements RequestReplyManager, DirectoryLi
         callBack.messageCallBack(reply);
     }
 
+    @Override
+    public boolean hasReplyCaller(String requestReplyId) {
+        return replyCallerDirectory.contains(requestReplyId);
+    }
+
     @Override
     public void handleError(Request request, Throwable error) {
         String requestReplyId = request.getRequestReplyId();
@@ -288,11 +290,10 @@ public class RequestReplyManagerImpl implements RequestReplyManager, DirectoryLi
     @Override
     public void shutdown() {
         running = false;
-        synchronized (outstandingRequestThreads) {
-            for (Thread thread : outstandingRequestThreads) {
-                logger.debug("shutting down. Interrupting thread: " + thread);
-                thread.interrupt();
-            }
+        for (SynchronizedReplyCaller synchronizedReplyCaller : outstandingSyncRequests) {
+            logger.debug("shutting down. Ending request: " + synchronizedReplyCaller.getRequestReplyId());
+            synchronizedReplyCaller.error(new JoynrShutdownException("Request: "
+                    + synchronizedReplyCaller.getRequestReplyId() + " interrupted by shutdown"));
         }
         messageRouter.shutdown();
         providerDirectory.removeListener(this);
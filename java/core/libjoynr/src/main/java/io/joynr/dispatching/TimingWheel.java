@@ -0,0 +1,356 @@
+package io.joynr.dispatching;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Hashed timing wheel shared by all timers of a runtime, e.g. the publication and missed publication timers of
+ * subscriptions.
+ * <p>
+ * Timeouts are hashed into a ring of buckets by their deadline; a single worker thread advances one bucket per tick and
+ * hands the expired tasks to a small task executor. Scheduling and cancelling a timeout are O(1), and the number of
+ * threads does not depend on the number of timers. The price is the resolution: a task runs up to one tick after its
+ * deadline. Tick duration and wheel size are configurable through {@link #PROPERTY_TICK_DURATION_MS} and
+ * {@link #PROPERTY_TICKS_PER_WHEEL}.
+ */
+@Singleton
+public class TimingWheel {
+    public static final String PROPERTY_TICK_DURATION_MS = "joynr.dispatching.timingwheel.tickdurationms";
+    public static final String PROPERTY_TICKS_PER_WHEEL = "joynr.dispatching.timingwheel.ticksperwheel";
+    public static final String PROPERTY_TASK_THREADS = "joynr.dispatching.timingwheel.taskthreads";
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    // upper bound for timeouts moved into the wheel per tick, keeps the worker responsive under bursts
+    private static final int MAXIMUM_TRANSFERS_PER_TICK = 100000;
+
+    @Inject(optional = true)
+    @Named(PROPERTY_TICK_DURATION_MS)
+    private long tickDurationMs = 10;
+
+    @Inject(optional = true)
+    @Named(PROPERTY_TICKS_PER_WHEEL)
+    private int ticksPerWheel = 512;
+
+    @Inject(optional = true)
+    @Named(PROPERTY_TASK_THREADS)
+    private int taskThreads = 4;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private Bucket[] wheel;
+    private int mask;
+    private long tickDurationNanos;
+    private long startTimeNanos;
+    private Thread workerThread;
+    private ExecutorService taskExecutor;
+    private volatile boolean started = false;
+    private volatile boolean stopped = false;
+
+    @Inject
+    public TimingWheel() {
+    }
+
+    public TimingWheel(long tickDurationMs, int ticksPerWheel, int taskThreads) {
+        this.tickDurationMs = tickDurationMs;
+        this.ticksPerWheel = ticksPerWheel;
+        this.taskThreads = taskThreads;
+    }
+
+    /**
+     * Schedules the task for a single execution after the given delay.
+     *
+     * @param task the task to be executed
+     * @param delayMs delay in milliseconds, negative values are treated as 0
+     * @return handle to cancel the timeout
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        if (task == null) {
+            throw new IllegalArgumentException("task must not be null");
+        }
+        start();
+        long deadline = System.nanoTime() - startTimeNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread and the task executor. Timeouts which did not expire yet are discarded.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (workerThread != null) {
+            workerThread.interrupt();
+            taskExecutor.shutdownNow();
+        }
+        pendingTimeouts.clear();
+        cancelledTimeouts.clear();
+    }
+
+    private void start() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            if (stopped) {
+                throw new IllegalStateException("TimingWheel has already been stopped");
+            }
+            int wheelSize = normalizeTicksPerWheel(ticksPerWheel);
+            wheel = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                wheel[i] = new Bucket();
+            }
+            mask = wheelSize - 1;
+            tickDurationNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickDurationMs));
+
+            ThreadFactory taskThreadFactory = new ThreadFactoryBuilder().setNameFormat("joynr.TimingWheel-task-%d")
+                                                                        .setDaemon(true)
+                                                                        .build();
+            taskExecutor = Executors.newFixedThreadPool(Math.max(1, taskThreads), taskThreadFactory);
+            workerThread = new ThreadFactoryBuilder().setNameFormat("joynr.TimingWheel-worker")
+                                                     .setDaemon(true)
+                                                     .build()
+                                                     .newThread(new Worker());
+            startTimeNanos = System.nanoTime();
+            workerThread.start();
+            started = true;
+        }
+    }
+
+    private static int normalizeTicksPerWheel(int ticksPerWheel) {
+        int normalized = 1;
+        while (normalized < ticksPerWheel && normalized < (1 << 20)) {
+            normalized <<= 1;
+        }
+        return normalized;
+    }
+
+    private void expire(final Timeout timeout) {
+        try {
+            taskExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        timeout.task.run();
+                    } catch (Exception e) {
+                        logger.error("Timer task threw an exception", e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!stopped) {
+                logger.error("Unable to execute timer task", e);
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private long tick = 0;
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                long deadline = waitForNextTick();
+                if (deadline < 0) {
+                    break;
+                }
+                removeCancelledTimeouts();
+                transferPendingTimeouts();
+                wheel[(int) (tick & mask)].expireTimeouts(deadline);
+                tick++;
+            }
+        }
+
+        private long waitForNextTick() {
+            long deadline = tickDurationNanos * (tick + 1);
+            while (true) {
+                long currentTime = System.nanoTime() - startTimeNanos;
+                long sleepTimeMs = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999999);
+                if (sleepTimeMs <= 0) {
+                    return currentTime;
+                }
+                try {
+                    Thread.sleep(sleepTimeMs);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+
+        private void transferPendingTimeouts() {
+            for (int i = 0; i < MAXIMUM_TRANSFERS_PER_TICK; i++) {
+                Timeout timeout = pendingTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                long calculatedTick = timeout.deadline / tickDurationNanos;
+                timeout.remainingRounds = (calculatedTick - tick) / wheel.length;
+                // timeouts which are already due are put into the current bucket
+                long targetTick = Math.max(calculatedTick, tick);
+                wheel[(int) (targetTick & mask)].add(timeout);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts; only accessed by the worker thread.
+     */
+    private class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        expire(timeout);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.previous != null) {
+                timeout.previous.next = next;
+            }
+            if (next != null) {
+                next.previous = timeout.previous;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public static class Timeout {
+        private static final int STATE_INIT = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final TimingWheel timingWheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+
+        // the following fields are only accessed by the worker thread
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout previous;
+        private Bucket bucket;
+
+        Timeout(TimingWheel timingWheel, Runnable task, long deadline) {
+            this.timingWheel = timingWheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout; has no effect if the task has already been handed over for execution.
+         *
+         * @return true if the task will not be executed because of this call
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(STATE_INIT, STATE_CANCELLED)) {
+                return false;
+            }
+            timingWheel.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+
+        private boolean expire() {
+            return state.compareAndSet(STATE_INIT, STATE_EXPIRED);
+        }
+    }
+}
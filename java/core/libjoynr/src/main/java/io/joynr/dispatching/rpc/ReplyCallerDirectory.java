@@ -19,82 +19,110 @@ package io.joynr.dispatching.rpc;
  * #L%
  */
 
-import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 import io.joynr.common.ExpiryDate;
 import io.joynr.dispatching.Directory;
-import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.exceptions.JoynrShutdownException;
 import io.joynr.exceptions.JoynrTimeoutException;
 
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 
 /**
  * Queue to store replyCallers and remove them if the round-trip TTL of the corresponding request expires.
- * 
+ * <p>
+ * The expiry of the reply callers is tracked by the shared {@link TimingWheel}, which sweeps the deadlines
+ * of one tick at once. Most replies arrive long before the TTL expires; their timeout is cancelled in O(1)
+ * when the reply caller is removed.
  */
 @Singleton
 public class ReplyCallerDirectory extends Directory<ReplyCaller> {
 
-    private boolean shutdown = false;
+    private volatile boolean shutdown = false;
     private static final Logger logger = LoggerFactory.getLogger(ReplyCallerDirectory.class);
 
-    private ScheduledExecutorService cleanupScheduler;
+    private final TimingWheel timingWheel;
+    private final ConcurrentMap<String, TimingWheel.Timeout> expiryTimeouts = new ConcurrentHashMap<String, TimingWheel.Timeout>();
+    private final AtomicLong expiredReplyCallers = new AtomicLong();
 
     @Inject
-    public ReplyCallerDirectory(@Named(JOYNR_SCHEDULER_CLEANUP) ScheduledExecutorService cleanupScheduler) {
-        this.cleanupScheduler = cleanupScheduler;
+    public ReplyCallerDirectory(TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
     }
 
     public void addReplyCaller(final String requestReplyId,
                                final ReplyCaller replyCaller,
                                final ExpiryDate roundTripTtlExpirationDate) {
         logger.trace("putReplyCaller: " + requestReplyId + " expiryDate: " + roundTripTtlExpirationDate);
+        if (shutdown) {
+            throw new JoynrShutdownException("shutdown in ReplyCallerDirectory");
+        }
         super.add(requestReplyId, replyCaller);
 
+        TimingWheel.Timeout timeout;
         try {
-            cleanupScheduler.schedule(new Runnable() {
+            timeout = timingWheel.schedule(new Runnable() {
                 public void run() {
-                    removeExpiredReplyCaller(requestReplyId);
+                    removeExpiredReplyCaller(requestReplyId, replyCaller);
                 }
-            }, roundTripTtlExpirationDate.getRelativeTtl(), TimeUnit.MILLISECONDS);
-        } catch (RejectedExecutionException e) {
-            if (shutdown) {
-                throw new JoynrShutdownException("shutdown in ReplyCallerDirectory");
-            }
-            throw new JoynrRuntimeException(e);
+            }, roundTripTtlExpirationDate.getRelativeTtl());
+        } catch (IllegalStateException e) {
+            super.remove(requestReplyId, replyCaller);
+            throw new JoynrShutdownException("shutdown in ReplyCallerDirectory");
+        }
+        expiryTimeouts.put(requestReplyId, timeout);
+        // the reply might have been handled before the timeout was registered
+        if (!contains(requestReplyId)) {
+            cancelExpiryTimeout(requestReplyId);
         }
+    }
 
+    @Override
+    public ReplyCaller remove(String requestReplyId) {
+        ReplyCaller replyCaller = super.remove(requestReplyId);
+        if (replyCaller != null) {
+            cancelExpiryTimeout(requestReplyId);
+        }
+        return replyCaller;
     }
 
-    private void removeExpiredReplyCaller(String requestReplyId) {
-        ReplyCaller outstandingReplyCaller = remove(requestReplyId);
-        if (outstandingReplyCaller == null) {
+    private void cancelExpiryTimeout(String requestReplyId) {
+        TimingWheel.Timeout timeout = expiryTimeouts.remove(requestReplyId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private void removeExpiredReplyCaller(String requestReplyId, ReplyCaller replyCaller) {
+        expiryTimeouts.remove(requestReplyId);
+        if (!super.remove(requestReplyId, replyCaller)) {
             // this happens, when a reply was already received and the replyCaller has been removed.
             return;
         }
+        expiredReplyCallers.incrementAndGet();
         logger.debug("Replycaller with requestReplyId " + requestReplyId + " was removed because TTL expired");
 
         // notify the caller that the request has expired now
-        outstandingReplyCaller.error(new JoynrTimeoutException(System.currentTimeMillis()));
+        replyCaller.error(new JoynrTimeoutException(System.currentTimeMillis()));
+
+    }
 
+    /**
+     * @return the number of reply callers which have been removed because the round-trip TTL of their
+     * request expired before the reply arrived
+     */
+    public long getExpiredReplyCallerCount() {
+        return expiredReplyCallers.get();
     }
 
     public void shutdown() {
-        // outstandingReplyCaller.values();
-        // for (ContentWithExpiryDate<ReplyCaller> wrapper : outstandingReplyCaller.values()) {
-        // ReplyCaller replyCaller = wrapper.getContent();
-        // replyCaller.shutdown();
-        //
-        // }
         shutdown = true;
     }
 
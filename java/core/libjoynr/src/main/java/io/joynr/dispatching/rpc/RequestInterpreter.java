@@ -21,6 +21,12 @@ package io.joynr.dispatching.rpc;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -38,7 +44,6 @@ import io.joynr.provider.AbstractDeferred;
 import io.joynr.provider.Promise;
 import io.joynr.provider.PromiseListener;
 import io.joynr.provider.ProviderCallback;
-import io.joynr.proxy.MethodSignature;
 import joynr.OneWayRequest;
 import joynr.Reply;
 import joynr.Request;
@@ -64,12 +69,9 @@ public class RequestInterpreter {
         this.joynrMessageCreatorProvider = joynrMessageCreatorProvider;
     }
 
-    // use for caching because creation of MethodMetaInformation is expensive
-    // ConcurrentMap<ClassName, ConcurrentMap<MethodName, MethodMetaInformation>
-    // >
-    // TODO move methodMetaInformation to a central place, save metaInformations in a cache (e.g. with predefined max
-    // size)
-    private final ConcurrentMap<MethodSignature, Method> methodSignatureToMethodMap = new ConcurrentHashMap<MethodSignature, Method>();
+    // dispatch tables are built once per request caller class, either when the provider is registered or on the
+    // first request for a class which has not been registered. Afterwards they are only read.
+    private final ConcurrentMap<Class<?>, Map<String, MethodInvoker[]>> dispatchTables = new ConcurrentHashMap<Class<?>, Map<String, MethodInvoker[]>>();
 
     private Reply createReply(Request request, Object... response) {
         return new Reply(request.getRequestReplyId(), response);
@@ -102,25 +104,29 @@ public class RequestInterpreter {
 
     }
 
+    /**
+     * Builds the dispatch table for the class of the given request caller, so that requests for its methods
+     * can be dispatched without any reflective lookup.
+     *
+     * @param requestCaller the request caller of a newly registered provider
+     */
+    public void registerRequestCaller(RequestCaller requestCaller) {
+        getDispatchTable(requestCaller.getClass());
+    }
+
     public Object invokeMethod(RequestCaller requestCaller, OneWayRequest request) {
         // A method is identified by its defining request caller, its name and the types of its arguments
-        MethodSignature methodSignature = new MethodSignature(requestCaller,
-                                                              request.getMethodName(),
-                                                              request.getParamDatatypes());
-
-        ensureMethodMetaInformationPresent(requestCaller, request, methodSignature);
-
-        Method method = methodSignatureToMethodMap.get(methodSignature);
+        MethodInvoker invoker = findMethodInvoker(requestCaller, request);
 
         Object[] params = null;
         try {
-            if (method.getParameterTypes().length > 0) {
+            if (invoker.hasParameters) {
                 // method with parameters
                 params = request.getParams();
             }
             joynrMessageScope.activate();
             joynrMessageCreatorProvider.get().setMessageCreatorId(request.getCreatorUserId());
-            return method.invoke(requestCaller, params);
+            return invoker.method.invoke(requestCaller, params);
         } catch (IllegalAccessException e) {
             logger.error("RequestInterpreter: Received an RPC invocation for a non public method {}", request);
             JoynrVersion joynrVersion = AnnotationUtil.getAnnotation(requestCaller.getClass(), JoynrVersion.class);
@@ -137,21 +143,70 @@ public class RequestInterpreter {
         }
     }
 
-    private void ensureMethodMetaInformationPresent(RequestCaller requestCaller,
-                                                    OneWayRequest request,
-                                                    MethodSignature methodSignature) {
-        try {
-            if (!methodSignatureToMethodMap.containsKey(methodSignature)) {
-                Method method;
-                method = ReflectionUtils.findMethodByParamTypeNames(methodSignature.getRequestCaller().getClass(),
-                                                                    methodSignature.getMethodName(),
-                                                                    methodSignature.getParameterTypeNames());
-                methodSignatureToMethodMap.putIfAbsent(methodSignature, method);
+    private MethodInvoker findMethodInvoker(RequestCaller requestCaller, OneWayRequest request) {
+        String[] paramDatatypes = request.getParamDatatypes();
+        if (paramDatatypes == null) {
+            String msg = "Received RPC without parameter types list! Method overloading might cause unexpected behaviour!";
+            logger.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        MethodInvoker[] invokers = getDispatchTable(requestCaller.getClass()).get(request.getMethodName());
+        if (invokers != null) {
+            for (MethodInvoker invoker : invokers) {
+                if (Arrays.equals(invoker.paramDatatypes, paramDatatypes)) {
+                    return invoker;
+                }
             }
-        } catch (NoSuchMethodException e) {
-            logger.error("RequestInterpreter: Received an RPC invocation for a non existing method" + request, e);
-            JoynrVersion joynrVersion = AnnotationUtil.getAnnotation(requestCaller.getClass(), JoynrVersion.class);
-            throw new MethodInvocationException(e.toString(), new Version(joynrVersion.major(), joynrVersion.minor()));
+        }
+        NoSuchMethodException e = new NoSuchMethodException(request.getMethodName());
+        logger.error("RequestInterpreter: Received an RPC invocation for a non existing method" + request, e);
+        JoynrVersion joynrVersion = AnnotationUtil.getAnnotation(requestCaller.getClass(), JoynrVersion.class);
+        throw new MethodInvocationException(e.toString(), new Version(joynrVersion.major(), joynrVersion.minor()));
+    }
+
+    private Map<String, MethodInvoker[]> getDispatchTable(Class<?> requestCallerClass) {
+        Map<String, MethodInvoker[]> dispatchTable = dispatchTables.get(requestCallerClass);
+        if (dispatchTable == null) {
+            dispatchTable = createDispatchTable(requestCallerClass);
+            Map<String, MethodInvoker[]> existingDispatchTable = dispatchTables.putIfAbsent(requestCallerClass,
+                                                                                             dispatchTable);
+            if (existingDispatchTable != null) {
+                dispatchTable = existingDispatchTable;
+            }
+        }
+        return dispatchTable;
+    }
+
+    private static Map<String, MethodInvoker[]> createDispatchTable(Class<?> requestCallerClass) {
+        Map<String, List<MethodInvoker>> invokersByName = new HashMap<String, List<MethodInvoker>>();
+        for (Method method : requestCallerClass.getDeclaredMethods()) {
+            List<MethodInvoker> invokers = invokersByName.get(method.getName());
+            if (invokers == null) {
+                invokers = new ArrayList<MethodInvoker>();
+                invokersByName.put(method.getName(), invokers);
+            }
+            invokers.add(new MethodInvoker(method));
+        }
+        Map<String, MethodInvoker[]> dispatchTable = new HashMap<String, MethodInvoker[]>(invokersByName.size() * 2);
+        for (Map.Entry<String, List<MethodInvoker>> entry : invokersByName.entrySet()) {
+            dispatchTable.put(entry.getKey(), entry.getValue().toArray(new MethodInvoker[entry.getValue().size()]));
+        }
+        return Collections.unmodifiableMap(dispatchTable);
+    }
+
+    /**
+     * A provider method together with everything needed to match and invoke it, resolved once per class.
+     */
+    private static final class MethodInvoker {
+        private final Method method;
+        private final String[] paramDatatypes;
+        private final boolean hasParameters;
+
+        MethodInvoker(Method method) {
+            this.method = method;
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            this.paramDatatypes = ReflectionUtils.toDatatypeNames(parameterTypes);
+            this.hasParameters = parameterTypes.length > 0;
         }
     }
 }
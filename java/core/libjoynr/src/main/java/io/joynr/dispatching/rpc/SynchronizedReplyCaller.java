@@ -22,14 +22,22 @@ import java.util.HashSet;
  * #L%
  */
 
-import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import joynr.Reply;
 import joynr.Request;
 
+/**
+ * Reply caller of a synchronous request. The calling thread waits in {@link #awaitResponse(long)}
+ * and is unparked directly when the reply or an error arrives; no monitor is involved on either side.
+ */
 public class SynchronizedReplyCaller implements ReplyCaller {
-    private List<Object> responsePayloadContainer;
+    // the reply, or the error which ended the request; set once
+    private final AtomicReference<Object> response = new AtomicReference<Object>();
+    private volatile Thread waiter;
     final private String fromParticipantId;
     final private Set<String> toParticipantIds;
     final private String requestReplyId;
@@ -58,28 +66,56 @@ public class SynchronizedReplyCaller implements ReplyCaller {
 
     @Override
     public void messageCallBack(Reply payload) {
-        if (responsePayloadContainer == null) {
-            throw new IllegalStateException("SynchronizedReplyCaller: ResponseContainer not set!");
-        }
-        synchronized (responsePayloadContainer) {
-            responsePayloadContainer.add(payload);
-            responsePayloadContainer.notify();
-        }
-
+        complete(payload);
     }
 
     @Override
     public void error(Throwable error) {
-        synchronized (responsePayloadContainer) {
-            responsePayloadContainer.add(error);
-            responsePayloadContainer.notify();
-        }
-
+        complete(error);
     }
 
-    public void setResponseContainer(List<Object> responsePayloadContainer) {
-        this.responsePayloadContainer = responsePayloadContainer;
+    private void complete(Object result) {
+        // only the first result counts, e.g. a late reply after a timeout error is dropped
+        if (response.compareAndSet(null, result)) {
+            Thread waitingThread = waiter;
+            if (waitingThread != null) {
+                LockSupport.unpark(waitingThread);
+            }
+        }
+    }
 
+    /**
+     * Blocks the calling thread until the reply or an error arrived, or the timeout elapsed.
+     *
+     * @param timeoutMs maximum time to wait in milliseconds
+     * @return the {@link Reply}, the {@link Throwable} which ended the request, or null if the
+     * timeout elapsed
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public Object awaitResponse(long timeoutMs) throws InterruptedException {
+        Object result = response.get();
+        if (result != null) {
+            return result;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        // the waiter is published before the response is checked again, so complete() either
+        // sees the waiter or its response is seen here
+        waiter = Thread.currentThread();
+        try {
+            while ((result = response.get()) == null) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(this, remainingNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return result;
+        } finally {
+            waiter = null;
+        }
     }
 
     @Override
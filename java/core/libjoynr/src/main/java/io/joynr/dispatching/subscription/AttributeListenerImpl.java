@@ -1,7 +1,12 @@
 package io.joynr.dispatching.subscription;
 
+import io.joynr.provider.SubscriptionPublisherObservable;
 import io.joynr.pubsub.publication.AttributeListener;
 
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
 /*
  * #%L
  * %%
@@ -21,21 +26,58 @@ import io.joynr.pubsub.publication.AttributeListener;
  * #L%
  */
 
+/**
+ * Listens to one attribute of a provider on behalf of all on-change subscriptions to that attribute. The listener is
+ * registered with the provider for the first subscription and unregistered when the last subscription is removed.
+ * Every change gets a new version, and the serialization of the changed value is shared by the publications of all
+ * subscriptions.
+ */
 public class AttributeListenerImpl implements AttributeListener {
 
-    private final String subscriptionId;
+    private final String providerParticipantId;
+    private final String attributeName;
+    private final SubscriptionPublisherObservable subscriptionPublisher;
     private final PublicationManagerImpl publicationManagerImpl;
+    private final Set<String> subscriptionIds = new CopyOnWriteArraySet<>();
+    private final AtomicLong version = new AtomicLong();
 
-    public AttributeListenerImpl(String subscriptionId, PublicationManagerImpl publicationManagerImpl) {
-        this.subscriptionId = subscriptionId;
+    public AttributeListenerImpl(String providerParticipantId,
+                                 String attributeName,
+                                 SubscriptionPublisherObservable subscriptionPublisher,
+                                 PublicationManagerImpl publicationManagerImpl) {
+        this.providerParticipantId = providerParticipantId;
+        this.attributeName = attributeName;
+        this.subscriptionPublisher = subscriptionPublisher;
         this.publicationManagerImpl = publicationManagerImpl;
-
     }
 
     @Override
     public void attributeValueChanged(Object value) {
-        publicationManagerImpl.attributeValueChanged(subscriptionId, value);
+        SharedPublicationPayload sharedPayload = new SharedPublicationPayload(providerParticipantId,
+                                                                              attributeName,
+                                                                              version.incrementAndGet(),
+                                                                              value);
+        for (String subscriptionId : subscriptionIds) {
+            publicationManagerImpl.attributeValueChanged(subscriptionId, sharedPayload);
+        }
+    }
 
+    void addSubscription(String subscriptionId) {
+        subscriptionIds.add(subscriptionId);
     }
 
+    /**
+     * @return true if the subscription was the last one of this listener
+     */
+    boolean removeSubscription(String subscriptionId) {
+        return subscriptionIds.remove(subscriptionId) && subscriptionIds.isEmpty();
+    }
+
+    void register() {
+        subscriptionPublisher.registerAttributeListener(attributeName, this);
+    }
+
+    void unregister() {
+        subscriptionPublisher.unregisterAttributeListener(attributeName, this);
+    }
 }
@@ -0,0 +1,297 @@
+package io.joynr.dispatching.subscription;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joynr.pubsub.SubscriptionQos;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import joynr.SubscriptionRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Stores subscription requests in an append-only log file.<br>
+ * Every added or removed subscription request appends one JSON line to the
+ * log. The log is replayed on startup and compacted, i.e. rewritten with only
+ * the subscriptions which are still active, on startup and whenever it
+ * contains considerably more records than active subscriptions. A partially
+ * written last line, e.g. after a crash, is ignored when replaying the log.
+ * <p>
+ * The log is written by a dedicated thread, so that storing or removing a
+ * subscription request does not block the calling dispatcher thread on file
+ * I/O. Records which are still queued are written on {@link #shutdown()}.
+ */
+@Singleton
+public class FileSubscriptionRequestStorage implements SubscriptionRequestStorage {
+    public static final String PROPERTY_SUBSCRIPTIONREQUESTS_PERSISTENCY = "joynr.dispatching.subscription.subscriptionrequests_persistency";
+    public static final String PROPERTY_SUBSCRIPTIONREQUESTS_PERSISTENCE_FILE = "joynr.dispatching.subscription.subscriptionrequests_persistence_file";
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSubscriptionRequestStorage.class);
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final File logFile;
+    private final ObjectMapper objectMapper;
+    // Map SubscriptionId -> PersistedSubscriptionRequest, in the order of the log; guarded by this
+    private final Map<String, PersistedSubscriptionRequest> activeSubscriptionRequests = new LinkedHashMap<>();
+    private final ExecutorService logWriterExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("joynr.SubscriptionRequestLog-%d")
+                                                                                                                   .build());
+    // only accessed by the log writer thread after construction
+    private int recordsInLog = 0;
+    private Writer logWriter;
+
+    @Inject
+    public FileSubscriptionRequestStorage(@Named(PROPERTY_SUBSCRIPTIONREQUESTS_PERSISTENCE_FILE) String logFileName,
+                                          ObjectMapper objectMapper) {
+        this.logFile = new File(logFileName);
+        this.objectMapper = objectMapper;
+        replayLog();
+        compact();
+    }
+
+    @Override
+    public synchronized void persistSubscriptionRequest(String proxyParticipantId,
+                                                        String providerParticipantId,
+                                                        SubscriptionRequest subscriptionRequest) {
+        PersistedSubscriptionRequest persistedSubscriptionRequest = new PersistedSubscriptionRequest(proxyParticipantId,
+                                                                                                     providerParticipantId,
+                                                                                                     subscriptionRequest);
+        PersistedSubscriptionRequest previous = activeSubscriptionRequests.put(subscriptionRequest.getSubscriptionId(),
+                                                                               persistedSubscriptionRequest);
+        if (!persistedSubscriptionRequest.equals(previous)) {
+            appendAsync(new LogRecord(persistedSubscriptionRequest, null));
+        }
+    }
+
+    @Override
+    public synchronized void removeSubscriptionRequest(String subscriptionId) {
+        if (activeSubscriptionRequests.remove(subscriptionId) != null) {
+            appendAsync(new LogRecord(null, subscriptionId));
+        }
+    }
+
+    @Override
+    public synchronized Multimap<String, PersistedSubscriptionRequest> getSavedSubscriptionRequests() {
+        Multimap<String, PersistedSubscriptionRequest> result = LinkedHashMultimap.create();
+        for (PersistedSubscriptionRequest persistedSubscriptionRequest : activeSubscriptionRequests.values()) {
+            if (!isExpired(persistedSubscriptionRequest)) {
+                result.put(persistedSubscriptionRequest.getProviderParticipantId(), persistedSubscriptionRequest);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void shutdown() {
+        logWriterExecutor.shutdown();
+        try {
+            if (!logWriterExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.error("subscription request log {} was not written completely before shutdown", logFile);
+                logWriterExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeLogWriter();
+    }
+
+    private void replayLog() {
+        if (!logFile.exists()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile),
+                                                                              StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                LogRecord record;
+                try {
+                    record = objectMapper.readValue(line, LogRecord.class);
+                } catch (IOException e) {
+                    logger.warn("ignoring corrupt record in subscription request log {}: {}", logFile, e.getMessage());
+                    continue;
+                }
+                if (record.added != null) {
+                    activeSubscriptionRequests.put(record.added.getSubscriptionRequest().getSubscriptionId(),
+                                                   record.added);
+                } else if (record.removedSubscriptionId != null) {
+                    activeSubscriptionRequests.remove(record.removedSubscriptionId);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("unable to read subscription request log " + logFile, e);
+        }
+        logger.info("restored {} subscription requests from {} in {} ms",
+                    activeSubscriptionRequests.size(),
+                    logFile,
+                    System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Rewrites the log with one record per active subscription and drops
+     * expired subscriptions.
+     */
+    private void compact() {
+        closeLogWriter();
+        List<PersistedSubscriptionRequest> snapshot;
+        synchronized (this) {
+            Iterator<PersistedSubscriptionRequest> iterator = activeSubscriptionRequests.values().iterator();
+            while (iterator.hasNext()) {
+                if (isExpired(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+            // records queued after the snapshot are appended to the compacted log and replayed on top of it
+            snapshot = new ArrayList<>(activeSubscriptionRequests.values());
+        }
+        File compactedLogFile = new File(logFile.getPath() + ".compacting");
+        try {
+            try (Writer writer = createWriter(compactedLogFile, false)) {
+                for (PersistedSubscriptionRequest persistedSubscriptionRequest : snapshot) {
+                    writeRecord(writer, new LogRecord(persistedSubscriptionRequest, null));
+                }
+            }
+            Files.move(compactedLogFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            recordsInLog = snapshot.size();
+        } catch (IOException e) {
+            logger.error("unable to compact subscription request log " + logFile, e);
+        }
+    }
+
+    /**
+     * Queues the record for the log writer thread. Must be called while holding the lock on this, so that the
+     * records are written in the order in which the active subscription requests were changed.
+     */
+    private void appendAsync(final LogRecord record) {
+        try {
+            logWriterExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    append(record);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("subscription request log {} is shut down, change was not written", logFile);
+        }
+    }
+
+    private void append(LogRecord record) {
+        try {
+            if (logWriter == null) {
+                logWriter = createWriter(logFile, true);
+            }
+            writeRecord(logWriter, record);
+            logWriter.flush();
+            recordsInLog++;
+        } catch (IOException e) {
+            logger.error("unable to write to subscription request log " + logFile, e);
+            closeLogWriter();
+            return;
+        }
+        if (recordsInLog > MIN_RECORDS_BEFORE_COMPACTION + 2 * getActiveSubscriptionRequestCount()) {
+            compact();
+        }
+    }
+
+    private synchronized int getActiveSubscriptionRequestCount() {
+        return activeSubscriptionRequests.size();
+    }
+
+    private void writeRecord(Writer writer, LogRecord record) throws IOException {
+        writer.write(objectMapper.writeValueAsString(record));
+        writer.write('\n');
+    }
+
+    private static Writer createWriter(File file, boolean append) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8));
+    }
+
+    private void closeLogWriter() {
+        if (logWriter != null) {
+            try {
+                logWriter.close();
+            } catch (IOException e) {
+                logger.debug("error closing subscription request log", e);
+            }
+            logWriter = null;
+        }
+    }
+
+    private static boolean isExpired(PersistedSubscriptionRequest persistedSubscriptionRequest) {
+        long expiryDateMs = persistedSubscriptionRequest.getSubscriptionRequest().getQos().getExpiryDateMs();
+        return expiryDateMs != SubscriptionQos.NO_EXPIRY_DATE && expiryDateMs <= System.currentTimeMillis();
+    }
+
+    /**
+     * A line of the log: either an added subscription request or the id of a
+     * removed subscription.
+     */
+    @JsonInclude(Include.NON_NULL)
+    static class LogRecord {
+        @JsonProperty("added")
+        PersistedSubscriptionRequest added;
+        @JsonProperty("removed")
+        String removedSubscriptionId;
+
+        LogRecord() {
+        }
+
+        LogRecord(PersistedSubscriptionRequest added, String removedSubscriptionId) {
+            this.added = added;
+            this.removedSubscriptionId = removedSubscriptionId;
+        }
+    }
+}
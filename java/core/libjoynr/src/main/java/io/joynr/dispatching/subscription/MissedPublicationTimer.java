@@ -19,10 +19,9 @@ package io.joynr.dispatching.subscription;
  * #L%
  */
 
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.pubsub.subscription.AttributeSubscriptionListener;
 
-import java.util.TimerTask;
-
 import joynr.exceptions.PublicationMissedException;
 
 import org.slf4j.Logger;
@@ -41,8 +40,9 @@ public class MissedPublicationTimer extends PubSubTimerBase {
                                   long alertAfterInterval_ms,
                                   AttributeSubscriptionListener<?> callback,
                                   PubSubState state,
-                                  String subscrptionId) {
-        super(expiryDate, state);
+                                  String subscrptionId,
+                                  TimingWheel timingWheel) {
+        super(expiryDate, state, timingWheel);
         this.expectedInterval_ms = expectedInterval_ms;
         this.alertAfterInterval_ms = alertAfterInterval_ms;
         this.callback = callback;
@@ -50,7 +50,7 @@ public class MissedPublicationTimer extends PubSubTimerBase {
         startTimer();
     }
 
-    class MissedPublicationTask extends TimerTask {
+    class MissedPublicationTask implements Runnable {
 
         @Override
         public void run() {
@@ -79,7 +79,7 @@ public class MissedPublicationTimer extends PubSubTimerBase {
     }
 
     @Override
-    protected TimerTask getTimerTask() {
+    protected Runnable getTimerTask() {
         return new MissedPublicationTask();
     };
 
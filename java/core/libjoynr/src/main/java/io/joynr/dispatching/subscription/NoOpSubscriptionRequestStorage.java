@@ -0,0 +1,51 @@
+package io.joynr.dispatching.subscription;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import joynr.SubscriptionRequest;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Storage used if persisting subscription requests is disabled. Nothing is
+ * stored, so publications are only restored when consumers resubscribe.
+ */
+public class NoOpSubscriptionRequestStorage implements SubscriptionRequestStorage {
+
+    @Override
+    public void persistSubscriptionRequest(String proxyParticipantId,
+                                           String providerParticipantId,
+                                           SubscriptionRequest subscriptionRequest) {
+    }
+
+    @Override
+    public void removeSubscriptionRequest(String subscriptionId) {
+    }
+
+    @Override
+    public Multimap<String, PersistedSubscriptionRequest> getSavedSubscriptionRequests() {
+        return HashMultimap.create();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
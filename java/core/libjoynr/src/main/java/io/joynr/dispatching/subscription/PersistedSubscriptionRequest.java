@@ -0,0 +1,91 @@
+package io.joynr.dispatching.subscription;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import joynr.SubscriptionRequest;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A subscription request as stored by a {@link SubscriptionRequestStorage},
+ * together with the participantIds of the subscribing proxy and of the
+ * provider.
+ */
+public class PersistedSubscriptionRequest {
+    private final String proxyParticipantId;
+    private final String providerParticipantId;
+    private final SubscriptionRequest subscriptionRequest;
+
+    @JsonCreator
+    public PersistedSubscriptionRequest(@JsonProperty("proxyParticipantId") String proxyParticipantId,
+                                        @JsonProperty("providerParticipantId") String providerParticipantId,
+                                        @JsonProperty("subscriptionRequest") SubscriptionRequest subscriptionRequest) {
+        this.proxyParticipantId = proxyParticipantId;
+        this.providerParticipantId = providerParticipantId;
+        this.subscriptionRequest = subscriptionRequest;
+    }
+
+    public String getProxyParticipantId() {
+        return proxyParticipantId;
+    }
+
+    public String getProviderParticipantId() {
+        return providerParticipantId;
+    }
+
+    public SubscriptionRequest getSubscriptionRequest() {
+        return subscriptionRequest;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((proxyParticipantId == null) ? 0 : proxyParticipantId.hashCode());
+        result = prime * result + ((providerParticipantId == null) ? 0 : providerParticipantId.hashCode());
+        result = prime * result + ((subscriptionRequest == null) ? 0 : subscriptionRequest.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        PersistedSubscriptionRequest other = (PersistedSubscriptionRequest) obj;
+        return equal(proxyParticipantId, other.proxyParticipantId)
+                && equal(providerParticipantId, other.providerParticipantId)
+                && equal(subscriptionRequest, other.subscriptionRequest);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String toString() {
+        return "PersistedSubscriptionRequest [proxyParticipantId=" + proxyParticipantId + ", providerParticipantId="
+                + providerParticipantId + ", subscriptionRequest=" + subscriptionRequest + "]";
+    }
+}
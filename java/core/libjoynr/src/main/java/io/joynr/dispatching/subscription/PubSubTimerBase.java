@@ -19,24 +19,28 @@ package io.joynr.dispatching.subscription;
  * #L%
  */
 
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.pubsub.SubscriptionQos;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Base class of the subscription timers. The timers do not own a thread; their tasks are scheduled with the
+ * {@link TimingWheel} shared by the runtime.
+ */
 public abstract class PubSubTimerBase {
     protected long expiryDate;
     protected PubSubState state;
-    protected Timer timer = new Timer();
+    protected final TimingWheel timingWheel;
+    private final Object timerLock = new Object();
+    private TimingWheel.Timeout scheduledTimeout;
     private static final Logger logger = LoggerFactory.getLogger(PubSubTimerBase.class);
 
-    public PubSubTimerBase(long expiryDate, PubSubState state) {
+    public PubSubTimerBase(long expiryDate, PubSubState state, TimingWheel timingWheel) {
         this.state = state;
         this.expiryDate = expiryDate;
-
+        this.timingWheel = timingWheel;
     }
 
     public void startTimer() {
@@ -53,19 +57,22 @@ public abstract class PubSubTimerBase {
     }
 
     public void cancel() {
-        synchronized (timer) {
+        synchronized (timerLock) {
             state.stop();
-            timer.cancel();
+            if (scheduledTimeout != null) {
+                scheduledTimeout.cancel();
+                scheduledTimeout = null;
+            }
         }
     }
 
     protected void rescheduleTimer(long delay) {
-        synchronized (timer) {
+        synchronized (timerLock) {
             boolean isExpiredNow = isExpiredInMs(0);
             boolean isExpiredBeforeNextPublication = isExpiredInMs(delay);
             if (!isExpiredNow && !isExpiredBeforeNextPublication && !state.isStopped()) {
                 logger.info("Rescheduling PubSubTimer with delay {}.", delay);
-                timer.schedule(getTimerTask(), delay);
+                scheduledTimeout = timingWheel.schedule(getTimerTask(), delay);
             } else {
                 logger.info("Will not reschedule PubSubTimer: "
                         + (isExpiredNow ? "endDate is reached"
@@ -80,6 +87,6 @@ public abstract class PubSubTimerBase {
 
     }
 
-    protected abstract TimerTask getTimerTask();
+    protected abstract Runnable getTimerTask();
 
 }
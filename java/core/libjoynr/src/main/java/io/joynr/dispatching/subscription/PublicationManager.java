@@ -60,6 +60,16 @@ public interface PublicationManager {
     void sendSubscriptionPublication(SubscriptionPublication publication, PublicationInformation information)
                                                                                                              throws IOException;
 
+    /**
+     * Sends the publication of an attribute change whose serialization is shared by all subscriptions of the
+     * attribute.
+     *
+     * @param sharedPayload the attribute change
+     * @param information the subscription to publish the change to
+     */
+    void sendSubscriptionPublication(SharedPublicationPayload sharedPayload, PublicationInformation information)
+                                                                                                                throws IOException;
+
     void shutdown();
 
 }
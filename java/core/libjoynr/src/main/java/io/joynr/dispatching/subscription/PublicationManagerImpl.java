@@ -46,6 +46,7 @@ import io.joynr.dispatcher.rpc.ReflectionUtils;
 import io.joynr.dispatching.DirectoryListener;
 import io.joynr.dispatching.Dispatcher;
 import io.joynr.dispatching.ProviderDirectory;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.exceptions.JoynrException;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrRuntimeException;
@@ -58,7 +59,6 @@ import io.joynr.provider.ProviderContainer;
 import io.joynr.provider.SubscriptionPublisherObservable;
 import io.joynr.pubsub.HeartbeatSubscriptionInformation;
 import io.joynr.pubsub.SubscriptionQos;
-import io.joynr.pubsub.publication.AttributeListener;
 import io.joynr.pubsub.publication.BroadcastFilter;
 import io.joynr.pubsub.publication.BroadcastListener;
 import joynr.BroadcastFilterParameters;
@@ -82,8 +82,8 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
     private final ConcurrentMap<String, PublicationTimer> publicationTimers;
     // Map SubscriptionId -> ScheduledFuture
     private final ConcurrentMap<String, ScheduledFuture<?>> subscriptionEndFutures;
-    // Map SubscriptionId -> UnregisterAttributeListener
-    private final ConcurrentMap<String, UnregisterAttributeListener> unregisterAttributeListeners;
+    // Map ProviderId/AttributeName -> listener shared by all on-change subscriptions of the attribute; guarded by itself
+    private final ConcurrentMap<String, AttributeListenerImpl> attributeListeners;
     // Map SubscriptionId -> UnregisterBroadcastListener
     private final ConcurrentMap<String, UnregisterBroadcastListener> unregisterBroadcastListeners;
 
@@ -91,6 +91,8 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
     private ScheduledExecutorService cleanupScheduler;
     private Dispatcher dispatcher;
     private ProviderDirectory providerDirectory;
+    private TimingWheel timingWheel;
+    private SubscriptionRequestStorage subscriptionRequestStorage;
 
     static class PublicationInformation {
         private String providerParticipantId;
@@ -161,24 +163,59 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
         }
     }
 
+    PublicationManagerImpl(AttributePollInterpreter attributePollInterpreter,
+                           Dispatcher dispatcher,
+                           ProviderDirectory providerDirectory,
+                           ScheduledExecutorService cleanupScheduler,
+                           TimingWheel timingWheel) {
+        this(attributePollInterpreter,
+             dispatcher,
+             providerDirectory,
+             cleanupScheduler,
+             timingWheel,
+             new NoOpSubscriptionRequestStorage());
+    }
+
     @Inject
     public PublicationManagerImpl(AttributePollInterpreter attributePollInterpreter,
                                   Dispatcher dispatcher,
                                   ProviderDirectory providerDirectory,
-                                  @Named(JOYNR_SCHEDULER_CLEANUP) ScheduledExecutorService cleanupScheduler) {
+                                  @Named(JOYNR_SCHEDULER_CLEANUP) ScheduledExecutorService cleanupScheduler,
+                                  TimingWheel timingWheel,
+                                  SubscriptionRequestStorage subscriptionRequestStorage) {
         super();
         this.dispatcher = dispatcher;
         this.providerDirectory = providerDirectory;
         this.cleanupScheduler = cleanupScheduler;
+        this.timingWheel = timingWheel;
+        this.subscriptionRequestStorage = subscriptionRequestStorage;
         this.queuedSubscriptionRequests = HashMultimap.create();
         this.subscriptionId2PublicationInformation = Maps.newConcurrentMap();
         this.publicationTimers = Maps.newConcurrentMap();
         this.subscriptionEndFutures = Maps.newConcurrentMap();
-        this.unregisterAttributeListeners = Maps.newConcurrentMap();
+        this.attributeListeners = Maps.newConcurrentMap();
         this.unregisterBroadcastListeners = Maps.newConcurrentMap();
         this.attributePollInterpreter = attributePollInterpreter;
         providerDirectory.addListener(this);
+        restorePersistedSubscriptionRequests();
+    }
 
+    /**
+     * Restores the subscription requests saved before a restart. Publications start as soon as the provider is
+     * registered, without waiting for the consumers to resubscribe. The restored requests are already stored, so
+     * they are not persisted again.
+     */
+    private void restorePersistedSubscriptionRequests() {
+        Multimap<String, PersistedSubscriptionRequest> savedSubscriptionRequests = subscriptionRequestStorage.getSavedSubscriptionRequests();
+        for (PersistedSubscriptionRequest persistedSubscriptionRequest : savedSubscriptionRequests.values()) {
+            addOrQueueSubscriptionRequest(persistedSubscriptionRequest.getProxyParticipantId(),
+                                          persistedSubscriptionRequest.getProviderParticipantId(),
+                                          persistedSubscriptionRequest.getSubscriptionRequest(),
+                                          false);
+        }
+        if (!savedSubscriptionRequests.isEmpty()) {
+            logger.info("restored {} persisted subscription requests", savedSubscriptionRequests.size());
+        }
     }
 
     private void handleSubscriptionRequest(PublicationInformation publicationInformation,
@@ -203,14 +240,15 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
                                                                     method,
                                                                     providerContainer,
                                                                     this,
-                                                                    attributePollInterpreter);
+                                                                    attributePollInterpreter,
+                                                                    timingWheel);
 
                 timer.startTimer();
                 publicationTimers.put(subscriptionId, timer);
             }
 
             if (subscriptionQos instanceof OnChangeSubscriptionQos) {
-                handleOnChangeSubscription(subscriptionRequest, providerContainer, subscriptionId);
+                handleOnChangeSubscription(publicationInformation, providerContainer);
             }
 
             dispatcher.sendSubscriptionReply(publicationInformation.providerParticipantId,
@@ -235,16 +273,37 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
         return messagingQos;
     }
 
-    private void handleOnChangeSubscription(SubscriptionRequest subscriptionRequest,
-                                            ProviderContainer providerContainer,
-                                            String subscriptionId) {
-        AttributeListener attributeListener = new AttributeListenerImpl(subscriptionId, this);
-        String attributeName = subscriptionRequest.getSubscribedToName();
-        SubscriptionPublisherObservable subscriptionPublisher = providerContainer.getSubscriptionPublisher();
-        subscriptionPublisher.registerAttributeListener(attributeName, attributeListener);
-        unregisterAttributeListeners.put(subscriptionId, new UnregisterAttributeListener(subscriptionPublisher,
-                                                                                         attributeName,
-                                                                                         attributeListener));
+    private void handleOnChangeSubscription(PublicationInformation publicationInformation,
+                                            ProviderContainer providerContainer) {
+        String attributeKey = getAttributeKey(publicationInformation);
+        synchronized (attributeListeners) {
+            AttributeListenerImpl attributeListener = attributeListeners.get(attributeKey);
+            if (attributeListener == null) {
+                attributeListener = new AttributeListenerImpl(publicationInformation.getProviderParticipantId(),
+                                                              publicationInformation.getSubscribedToName(),
+                                                              providerContainer.getSubscriptionPublisher(),
+                                                              this);
+                attributeListeners.put(attributeKey, attributeListener);
+                attributeListener.register();
+            }
+            attributeListener.addSubscription(publicationInformation.getSubscriptionId());
+        }
+    }
+
+    /**
+     * Removes the subscription from the listener of its attribute. The listener is unregistered from the provider
+     * together with the last subscription of the attribute.
+     */
+    private void removeAttributeListener(PublicationInformation publicationInformation) {
+        String attributeKey = getAttributeKey(publicationInformation);
+        synchronized (attributeListeners) {
+            AttributeListenerImpl attributeListener = attributeListeners.get(attributeKey);
+            if (attributeListener != null
+                    && attributeListener.removeSubscription(publicationInformation.getSubscriptionId())) {
+                attributeListeners.remove(attributeKey);
+                attributeListener.unregister();
+            }
+        }
     }
 
     private void sendSubscriptionReplyWithError(PublicationInformation publicationInformation,
@@ -288,7 +347,8 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
     private void addSubscriptionRequest(String proxyParticipantId,
                                         String providerParticipantId,
                                         SubscriptionRequest subscriptionRequest,
-                                        ProviderContainer providerContainer) {
+                                        ProviderContainer providerContainer,
+                                        boolean persist) {
 
         PublicationInformation publicationInformation = new PublicationInformation(providerParticipantId,
                                                                                    proxyParticipantId,
@@ -299,6 +359,11 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
 
             final String subscriptionId = subscriptionRequest.getSubscriptionId();
             subscriptionId2PublicationInformation.put(subscriptionId, publicationInformation);
+            if (persist) {
+                subscriptionRequestStorage.persistSubscriptionRequest(proxyParticipantId,
+                                                                      providerParticipantId,
+                                                                      subscriptionRequest);
+            }
 
             if (subscriptionRequest instanceof BroadcastSubscriptionRequest) {
                 handleBroadcastSubscriptionRequest(proxyParticipantId,
@@ -372,6 +437,7 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
 
     private void cancelPublicationCreation(String subscriptionId) {
         subscriptionId2PublicationInformation.remove(subscriptionId);
+        subscriptionRequestStorage.removeSubscriptionRequest(subscriptionId);
         logger.error("Subscription request rejected. Removing publication.");
     }
 
@@ -383,11 +449,19 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
     public void addSubscriptionRequest(String proxyParticipantId,
                                        String providerParticipantId,
                                        SubscriptionRequest subscriptionRequest) {
+        addOrQueueSubscriptionRequest(proxyParticipantId, providerParticipantId, subscriptionRequest, true);
+    }
+
+    private void addOrQueueSubscriptionRequest(String proxyParticipantId,
+                                               String providerParticipantId,
+                                               SubscriptionRequest subscriptionRequest,
+                                               boolean persist) {
         if (providerDirectory.contains(providerParticipantId)) {
             addSubscriptionRequest(proxyParticipantId,
                                    providerParticipantId,
                                    subscriptionRequest,
-                                   providerDirectory.get(providerParticipantId));
+                                   providerDirectory.get(providerParticipantId),
+                                   persist);
         } else {
             logger.debug("Adding subscription request for non existing provider to queue.");
             PublicationInformation publicationInformation = new PublicationInformation(providerParticipantId,
@@ -395,6 +469,11 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
                                                                                        subscriptionRequest);
             queuedSubscriptionRequests.put(providerParticipantId, publicationInformation);
             subscriptionId2PublicationInformation.put(subscriptionRequest.getSubscriptionId(), publicationInformation);
+            if (persist) {
+                subscriptionRequestStorage.persistSubscriptionRequest(proxyParticipantId,
+                                                                      providerParticipantId,
+                                                                      subscriptionRequest);
+            }
         }
     }
 
@@ -403,6 +482,7 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
         if (publicationInformation == null) {
             return;
         }
+        subscriptionRequestStorage.removeSubscriptionRequest(subscriptionId);
 
         // Remove (eventually) queued subcriptionRequest
         Collection<PublicationInformation> queuedSubscriptionRequestsForParticipant = queuedSubscriptionRequests.get(publicationInformation.getProviderParticipantId());
@@ -421,35 +501,13 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
             future.cancel(true);
         }
 
-        UnregisterAttributeListener unregisterAttributeListener = unregisterAttributeListeners.remove(subscriptionId);
-        if (unregisterAttributeListener != null) {
-            unregisterAttributeListener.unregister();
-        }
+        removeAttributeListener(publicationInformation);
         UnregisterBroadcastListener unregisterBroadcastListener = unregisterBroadcastListeners.remove(subscriptionId);
         if (unregisterBroadcastListener != null) {
             unregisterBroadcastListener.unregister();
         }
     }
 
-    // Class that holds information needed to unregister attribute listener
-    static class UnregisterAttributeListener {
-        private final String attributeName;
-        private final AttributeListener attributeListener;
-        private final SubscriptionPublisherObservable subscriptionPublisher;
-
-        public UnregisterAttributeListener(SubscriptionPublisherObservable subscriptionPublisher,
-                                           String attributeName,
-                                           AttributeListener attributeListener) {
-            this.subscriptionPublisher = subscriptionPublisher;
-            this.attributeName = attributeName;
-            this.attributeListener = attributeListener;
-        }
-
-        public void unregister() {
-            subscriptionPublisher.unregisterAttributeListener(attributeName, attributeListener);
-        }
-    }
-
     // Class that holds information needed to unregister broadcast listener
     static class UnregisterBroadcastListener {
         private final String broadcastName;
@@ -520,11 +578,17 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
         while (queuedRequestsIterator.hasNext()) {
             PublicationInformation publicationInformation = queuedRequestsIterator.next();
             queuedRequestsIterator.remove();
+            // the queued request is already stored, activating it must neither remove nor persist it again
+            subscriptionId2PublicationInformation.remove(publicationInformation.getSubscriptionId(),
+                                                         publicationInformation);
             if (!isExpired(publicationInformation)) {
                 addSubscriptionRequest(publicationInformation.getProxyParticipantId(),
                                        publicationInformation.getProviderParticipantId(),
                                        publicationInformation.subscriptionRequest,
-                                       providerContainer);
+                                       providerContainer,
+                                       false);
+            } else {
+                subscriptionRequestStorage.removeSubscriptionRequest(publicationInformation.getSubscriptionId());
             }
         }
     }
@@ -557,6 +621,30 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
 
     }
 
+    /**
+     * Called by the listener of the attribute for every subscription to it when the attribute changed.
+     */
+    void attributeValueChanged(String subscriptionId, SharedPublicationPayload sharedPayload) {
+        PublicationInformation publicationInformation = subscriptionId2PublicationInformation.get(subscriptionId);
+        if (publicationInformation == null) {
+            logger.error("subscription {} has expired but attributeValueChanged has been called", subscriptionId);
+            return;
+        }
+        if (isExpired(publicationInformation)) {
+            removePublication(subscriptionId);
+            return;
+        }
+        PublicationTimer publicationTimer = publicationTimers.get(subscriptionId);
+        if (publicationTimer != null) {
+            // used by OnChangedWithKeepAlive
+            publicationTimer.sendPublicationNow(sharedPayload);
+        } else {
+            sendPublication(sharedPayload, publicationInformation);
+        }
+        logger.debug("attribute changed for subscription id: {} sending publication if delay > minInterval.",
+                     subscriptionId);
+    }
+
     @Override
     public void broadcastOccurred(String subscriptionId, List<BroadcastFilter> filters, Object... values) {
         if (subscriptionId2PublicationInformation.containsKey(subscriptionId)) {
@@ -628,6 +716,10 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
         return true;
     }
 
+    private static String getAttributeKey(PublicationInformation publicationInformation) {
+        return publicationInformation.getProviderParticipantId() + "/" + publicationInformation.getSubscribedToName();
+    }
+
     private SubscriptionPublication prepareAttributePublication(Object value, String subscriptionId) {
         return new SubscriptionPublication(Arrays.asList(value), subscriptionId);
     }
@@ -645,6 +737,14 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
         }
     }
 
+    private void sendPublication(SharedPublicationPayload sharedPayload, PublicationInformation publicationInformation) {
+        try {
+            sendSubscriptionPublication(sharedPayload, publicationInformation);
+        } catch (JoynrRuntimeException e) {
+            logger.error("sendPublication error.", e);
+        }
+    }
+
     private void sendPublicationError(JoynrRuntimeException error, PublicationInformation publicationInformation) {
         SubscriptionPublication publication = new SubscriptionPublication(error,
                                                                           publicationInformation.getSubscriptionId());
@@ -697,17 +797,36 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
                                                     JsonGenerationException,
                                                     JsonMappingException,
                                                     IOException {
-        MessagingQos messagingQos = new MessagingQos();
-        messagingQos.setTtl_ms(publicationInformation.subscriptionRequest.getQos().getPublicationTtlMs());
-        Set<String> toParticipantIds = new HashSet<>();
-        toParticipantIds.add(publicationInformation.proxyParticipantId);
         dispatcher.sendSubscriptionPublication(publicationInformation.providerParticipantId,
-                                               toParticipantIds,
+                                               getToParticipantIds(publicationInformation),
                                                publication,
-                                               messagingQos);
+                                               createPublicationMessagingQos(publicationInformation));
         publicationInformation.getState().updateTimeOfLastPublication();
     }
 
+    @Override
+    public void sendSubscriptionPublication(SharedPublicationPayload sharedPayload,
+                                            PublicationInformation publicationInformation) {
+        dispatcher.sendSubscriptionPublication(publicationInformation.providerParticipantId,
+                                               getToParticipantIds(publicationInformation),
+                                               sharedPayload,
+                                               publicationInformation.getSubscriptionId(),
+                                               createPublicationMessagingQos(publicationInformation));
+        publicationInformation.getState().updateTimeOfLastPublication();
+    }
+
+    private static Set<String> getToParticipantIds(PublicationInformation publicationInformation) {
+        Set<String> toParticipantIds = new HashSet<>();
+        toParticipantIds.add(publicationInformation.proxyParticipantId);
+        return toParticipantIds;
+    }
+
+    private static MessagingQos createPublicationMessagingQos(PublicationInformation publicationInformation) {
+        MessagingQos messagingQos = new MessagingQos();
+        messagingQos.setTtl_ms(publicationInformation.subscriptionRequest.getQos().getPublicationTtlMs());
+        return messagingQos;
+    }
+
     @Override
     public void entryAdded(String providerParticipantId, ProviderContainer providerContainer) {
         restoreQueuedSubscription(providerParticipantId, providerContainer);
@@ -721,5 +840,6 @@ public class PublicationManagerImpl implements PublicationManager, DirectoryList
     @Override
     public void shutdown() {
         providerDirectory.removeListener(this);
+        subscriptionRequestStorage.shutdown();
     }
 }
@@ -19,6 +19,7 @@ package io.joynr.dispatching.subscription;
  * #L%
  */
 
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.dispatching.subscription.PublicationManagerImpl.PublicationInformation;
 import io.joynr.exceptions.JoynrException;
 import io.joynr.exceptions.JoynrRuntimeException;
@@ -31,7 +32,6 @@ import io.joynr.pubsub.SubscriptionQos;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.TimerTask;
 
 import joynr.OnChangeSubscriptionQos;
 import joynr.SubscriptionPublication;
@@ -55,7 +55,13 @@ public class PublicationTimer extends PubSubTimerBase {
     private final long publicationTtl;
     private final long minInterval;
     private final long period;
-    private boolean pendingPublication;
+    // latest publication withheld because of the minInterval, either a publication or a shared attribute change;
+    // guarded by this
+    private SubscriptionPublication pendingPublication;
+    private SharedPublicationPayload pendingSharedPayload;
+    // whether a publication is being sent and whether sending the pending publication is scheduled; guarded by this
+    private boolean sendInProgress;
+    private boolean delayedPublicationScheduled;
     private final PublicationManager publicationManager;
 
     /**
@@ -65,13 +71,15 @@ public class PublicationTimer extends PubSubTimerBase {
      * @param providerContainer request caller
      * @param publicationManager publication manager to send publication messages
      * @param attributePollInterpreter attribute poll interpreter to execute method
+     * @param timingWheel timing wheel to schedule the periodic and the delayed publications
      */
     public PublicationTimer(PublicationInformation publicationInformation,
                             Method method,
                             ProviderContainer providerContainer,
                             PublicationManager publicationManager,
-                            AttributePollInterpreter attributePollInterpreter) {
-        super(publicationInformation.getQos().getExpiryDateMs(), publicationInformation.getState());
+                            AttributePollInterpreter attributePollInterpreter,
+                            TimingWheel timingWheel) {
+        super(publicationInformation.getQos().getExpiryDateMs(), publicationInformation.getState(), timingWheel);
         this.publicationManager = publicationManager;
 
         SubscriptionQos qos = publicationInformation.getQos();
@@ -88,10 +96,11 @@ public class PublicationTimer extends PubSubTimerBase {
         this.providerContainer = providerContainer;
         this.attributePollInterpreter = attributePollInterpreter;
         this.method = method;
-        this.pendingPublication = false;
+        this.pendingPublication = null;
+        this.pendingSharedPayload = null;
     }
 
-    class PublicationTask extends TimerTask {
+    class PublicationTask implements Runnable {
 
         @Override
         public void run() {
@@ -155,57 +164,94 @@ public class PublicationTimer extends PubSubTimerBase {
     }
 
     protected void sendPublication(final SubscriptionPublication publication) {
-        long timeSinceLast = System.currentTimeMillis() - state.getTimeOfLastPublication();
+        sendOrDelayPublication(publication, null);
+    }
+
+    /**
+     * Sends the publication if the minInterval has elapsed since the last publication and no other publication is
+     * being sent or waiting; otherwise it replaces the waiting publication, which is sent as soon as the minInterval
+     * has elapsed after the previous publication. Changes are thus coalesced, but the latest one is always published.
+     * Exactly one of the arguments is not null.
+     */
+    private void sendOrDelayPublication(final SubscriptionPublication publication,
+                                        final SharedPublicationPayload sharedPayload) {
+        synchronized (this) {
+            long timeSinceLast = System.currentTimeMillis() - state.getTimeOfLastPublication();
+            if (sendInProgress || delayedPublicationScheduled || timeSinceLast < minInterval) {
+                // changes within the minInterval are coalesced: only the latest value is published
+                pendingPublication = publication;
+                pendingSharedPayload = sharedPayload;
+                if (!sendInProgress) {
+                    scheduleDelayedPublication(timeSinceLast);
+                } else {
+                    logger.trace("coalesced attribute change while sending a publication");
+                }
+                return;
+            }
+            sendInProgress = true;
+        }
+        send(publication, sharedPayload);
+    }
 
-        if (timeSinceLast >= minInterval) {
-            // publish
-            logger.trace("sending subscriptionreply");
-            try {
+    /**
+     * Sends the publication without holding the lock and afterwards schedules the publication of a change which
+     * arrived in the meantime. Must only be called by the thread which set sendInProgress.
+     */
+    private void send(SubscriptionPublication publication, SharedPublicationPayload sharedPayload) {
+        logger.trace("sending subscriptionreply");
+        try {
+            if (sharedPayload != null) {
+                publicationManager.sendSubscriptionPublication(sharedPayload, publicationInformation);
+            } else {
                 publicationManager.sendSubscriptionPublication(publication, publicationInformation);
-            } catch (IOException e) {
-                logger.error("sendPublication error.", e);
             }
-            synchronized (PublicationTimer.this) {
-                if (pendingPublication) {
-                    pendingPublication = false;
-                    PublicationTimer.this.notify();
+            logger.trace("sent subscriptionreply @ " + state.getTimeOfLastPublication());
+        } catch (IOException e) {
+            logger.error("sendPublication error.", e);
+        } finally {
+            synchronized (this) {
+                sendInProgress = false;
+                if (pendingPublication != null || pendingSharedPayload != null) {
+                    scheduleDelayedPublication(System.currentTimeMillis() - state.getTimeOfLastPublication());
                 }
             }
-            logger.trace("sent subscriptionreply @ " + state.getTimeOfLastPublication());
-        } else {
-            synchronized (PublicationTimer.this) {
-                if (!pendingPublication) {
-                    pendingPublication = true;
-                    final long timeToWait = minInterval - timeSinceLast;
-                    logger.trace("TimeToWait for subscription {}: {}", publication.getSubscriptionId(), timeToWait);
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            synchronized (PublicationTimer.this) {
-                                try {
-                                    PublicationTimer.this.wait(timeToWait);
-                                    if (pendingPublication) {
-                                        sendPublication(publication);
-                                    }
-                                } catch (InterruptedException e) {
-                                    Thread.currentThread().interrupt();
-                                    logger.trace("DelayedPublicationThread interrupted. No publication is sent.");
-                                }
-                            }
+        }
+    }
 
-                        }
-                    }).start();
-                } else {
-                    logger.trace("ignored attribute change. Mininterval {} not yet reached since timeSinceLast: {}",
-                                 minInterval,
-                                 timeSinceLast);
+    // guarded by this
+    private void scheduleDelayedPublication(long timeSinceLast) {
+        if (delayedPublicationScheduled) {
+            logger.trace("coalesced attribute change. Mininterval {} not yet reached since timeSinceLast: {}",
+                         minInterval,
+                         timeSinceLast);
+            return;
+        }
+        delayedPublicationScheduled = true;
+        long timeToWait = Math.max(0, minInterval - timeSinceLast);
+        logger.trace("TimeToWait for subscription {}: {}", publicationInformation.getSubscriptionId(), timeToWait);
+        timingWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                SubscriptionPublication latestPublication;
+                SharedPublicationPayload latestSharedPayload;
+                synchronized (PublicationTimer.this) {
+                    delayedPublicationScheduled = false;
+                    latestPublication = pendingPublication;
+                    latestSharedPayload = pendingSharedPayload;
+                    pendingPublication = null;
+                    pendingSharedPayload = null;
+                    if ((latestPublication == null && latestSharedPayload == null) || state.isStopped()) {
+                        return;
+                    }
+                    sendInProgress = true;
                 }
+                send(latestPublication, latestSharedPayload);
             }
-        }
+        }, timeToWait);
     }
 
     @Override
-    protected TimerTask getTimerTask() {
+    protected Runnable getTimerTask() {
         return new PublicationTask();
     }
 
@@ -228,4 +274,16 @@ public class PublicationTimer extends PubSubTimerBase {
         sendPublication(publication);
 
     }
+
+    /**
+     * Sends the publication of an attribute change whose serialization is shared with other subscriptions.
+     */
+    public void sendPublicationNow(SharedPublicationPayload sharedPayload) {
+        if (publicationTtl < 0) {
+            logger.info("sendPublicationNow, dropping publication because TTL is in the past");
+            return;
+        }
+
+        sendOrDelayPublication(null, sharedPayload);
+    }
 }
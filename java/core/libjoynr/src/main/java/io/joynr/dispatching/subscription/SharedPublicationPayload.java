@@ -0,0 +1,117 @@
+package io.joynr.dispatching.subscription;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import joynr.SubscriptionPublication;
+
+/**
+ * Serialized form of one change of an attribute value, shared by the publications of all subscriptions to that
+ * attribute. A payload is identified by the provider, the attribute and the version of the value, i.e. the number of
+ * the change.
+ * <p>
+ * The publication is serialized once with a placeholder subscription id; the payload of each subscription is then
+ * created by splicing the real subscription id into that template, so the attribute value itself is serialized only
+ * once, no matter how many subscriptions it is published to.
+ */
+public class SharedPublicationPayload {
+    private static final String SUBSCRIPTION_ID_PLACEHOLDER = UUID.randomUUID().toString();
+
+    private final String providerParticipantId;
+    private final String attributeName;
+    private final long version;
+    private final Object value;
+    private final List<Object> response;
+    private volatile String[] template;
+
+    public SharedPublicationPayload(String providerParticipantId, String attributeName, long version, Object value) {
+        this.providerParticipantId = providerParticipantId;
+        this.attributeName = attributeName;
+        this.version = version;
+        this.value = value;
+        this.response = Arrays.asList(value);
+    }
+
+    public String getProviderParticipantId() {
+        return providerParticipantId;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return an unshared publication of the value, e.g. for publications which are not serialized
+     */
+    public SubscriptionPublication createPublication(String subscriptionId) {
+        return new SubscriptionPublication(response, subscriptionId);
+    }
+
+    public String serialize(String subscriptionId, ObjectMapper objectMapper) throws JsonProcessingException {
+        String[] parts = template;
+        if (parts == null) {
+            synchronized (this) {
+                if (template == null) {
+                    template = createTemplate(objectMapper);
+                }
+                parts = template;
+            }
+        }
+        if (parts.length == 1) {
+            // the placeholder could not be located, fall back to serializing the complete publication
+            return objectMapper.writeValueAsString(createPublication(subscriptionId));
+        }
+        String serializedSubscriptionId = objectMapper.writeValueAsString(subscriptionId);
+        StringBuilder payload = new StringBuilder(parts[0].length() + serializedSubscriptionId.length()
+                + parts[1].length());
+        return payload.append(parts[0]).append(serializedSubscriptionId).append(parts[1]).toString();
+    }
+
+    private String[] createTemplate(ObjectMapper objectMapper) throws JsonProcessingException {
+        String serializedPublication = objectMapper.writeValueAsString(createPublication(SUBSCRIPTION_ID_PLACEHOLDER));
+        String quotedPlaceholder = "\"" + SUBSCRIPTION_ID_PLACEHOLDER + "\"";
+        int placeholderIndex = serializedPublication.indexOf(quotedPlaceholder);
+        if (placeholderIndex < 0) {
+            return new String[]{ serializedPublication };
+        }
+        return new String[]{ serializedPublication.substring(0, placeholderIndex),
+                serializedPublication.substring(placeholderIndex + quotedPlaceholder.length()) };
+    }
+
+    @Override
+    public String toString() {
+        return "SharedPublicationPayload [providerParticipantId=" + providerParticipantId + ", attributeName="
+                + attributeName + ", version=" + version + "]";
+    }
+}
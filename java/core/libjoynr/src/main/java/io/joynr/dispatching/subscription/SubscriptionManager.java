@@ -56,6 +56,11 @@ public interface SubscriptionManager {
 
     boolean isBroadcast(String subscriptionId);
 
+    /**
+     * @return true if an attribute or broadcast subscription with the given id is registered
+     */
+    boolean hasSubscription(String subscriptionId);
+
     BroadcastSubscriptionListener getBroadcastSubscriptionListener(String subscriptionId);
 
     @CheckForNull
@@ -37,6 +37,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import io.joynr.dispatching.Dispatcher;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.proxy.Future;
@@ -70,13 +71,16 @@ public class SubscriptionManagerImpl implements SubscriptionManager {
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionManagerImpl.class);
     private ScheduledExecutorService cleanupScheduler;
     private Dispatcher dispatcher;
+    private TimingWheel timingWheel;
 
     @Inject
     public SubscriptionManagerImpl(@Named(JOYNR_SCHEDULER_CLEANUP) ScheduledExecutorService cleanupScheduler,
-                                   Dispatcher dispatcher) {
+                                   Dispatcher dispatcher,
+                                   TimingWheel timingWheel) {
         super();
         this.cleanupScheduler = cleanupScheduler;
         this.dispatcher = dispatcher;
+        this.timingWheel = timingWheel;
         this.subscriptionListenerDirectory = Maps.newConcurrentMap();
         this.broadcastSubscriptionListenerDirectory = Maps.newConcurrentMap();
         this.subscriptionStates = Maps.newConcurrentMap();
@@ -97,7 +101,8 @@ public class SubscriptionManagerImpl implements SubscriptionManager {
                                    ConcurrentMap<String, Class<?>[]> subscriptionBroadcastTypes,
                                    ConcurrentMap<String, Future<String>> subscriptionFutureMap,
                                    ScheduledExecutorService cleanupScheduler,
-                                   Dispatcher dispatcher) {
+                                   Dispatcher dispatcher,
+                                   TimingWheel timingWheel) {
         super();
         this.subscriptionListenerDirectory = attributeSubscriptionDirectory;
         this.broadcastSubscriptionListenerDirectory = broadcastSubscriptionDirectory;
@@ -108,6 +113,7 @@ public class SubscriptionManagerImpl implements SubscriptionManager {
         this.subscriptionBroadcastTypes = subscriptionBroadcastTypes;
         this.cleanupScheduler = cleanupScheduler;
         this.dispatcher = dispatcher;
+        this.timingWheel = timingWheel;
         this.subscriptionFutureMap = subscriptionFutureMap;
     }
 
@@ -169,7 +175,8 @@ public class SubscriptionManagerImpl implements SubscriptionManager {
                                                                        heartbeat.getAlertAfterIntervalMs(),
                                                                        request.getAttributeSubscriptionListener(),
                                                                        subscriptionStates.get(request.getSubscriptionId()),
-                                                                       request.getSubscriptionId()));
+                                                                       request.getSubscriptionId(),
+                                                                       timingWheel));
             }
         }
 
@@ -352,6 +359,12 @@ public class SubscriptionManagerImpl implements SubscriptionManager {
         return broadcastSubscriptionListenerDirectory.containsKey(subscriptionId);
     }
 
+    @Override
+    public boolean hasSubscription(String subscriptionId) {
+        return subscriptionListenerDirectory.containsKey(subscriptionId)
+                || broadcastSubscriptionListenerDirectory.containsKey(subscriptionId);
+    }
+
     @Override
     public Class<?> getAttributeType(final String subscriptionId) {
         return subscriptionTypes.get(subscriptionId);
@@ -0,0 +1,61 @@
+package io.joynr.dispatching.subscription;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import joynr.SubscriptionRequest;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Stores the subscription requests handled by the {@link PublicationManager},
+ * so that publications can be restored after a restart of the provider
+ * without waiting for the consumers to resubscribe.
+ */
+public interface SubscriptionRequestStorage {
+
+    /**
+     * Stores a subscription request. Storing a request which is already stored
+     * replaces it.
+     *
+     * @param proxyParticipantId participantId of the subscribing proxy
+     * @param providerParticipantId participantId of the provider
+     * @param subscriptionRequest the subscription request
+     */
+    void persistSubscriptionRequest(String proxyParticipantId,
+                                    String providerParticipantId,
+                                    SubscriptionRequest subscriptionRequest);
+
+    /**
+     * Removes a stored subscription request.
+     *
+     * @param subscriptionId id of the subscription to remove
+     */
+    void removeSubscriptionRequest(String subscriptionId);
+
+    /**
+     * @return all stored subscription requests which did not expire yet, mapped by provider participantId
+     */
+    Multimap<String, PersistedSubscriptionRequest> getSavedSubscriptionRequests();
+
+    /**
+     * Releases the resources held by the storage.
+     */
+    void shutdown();
+}
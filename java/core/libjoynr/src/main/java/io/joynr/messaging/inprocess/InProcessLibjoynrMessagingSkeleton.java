@@ -21,6 +21,8 @@ import com.google.inject.Inject;
  * #L%
  */
 
+import java.util.List;
+
 import io.joynr.dispatching.Dispatcher;
 import io.joynr.messaging.FailureAction;
 import joynr.JoynrMessage;
@@ -43,6 +45,13 @@ public class InProcessLibjoynrMessagingSkeleton implements InProcessMessagingSke
         }
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        for (int i = 0; i < messages.size(); i++) {
+            transmit(messages.get(i), failureActions.get(i));
+        }
+    }
+
     @Override
     public void transmit(JoynrMessage message) {
         dispatcher.messageArrived(message);
@@ -23,7 +23,9 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 
+import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.ConfigurableMessagingSettings;
+import io.joynr.proxy.Callback;
 import io.joynr.runtime.SystemServicesSettings;
 import joynr.exceptions.ProviderRuntimeException;
 import joynr.system.RoutingProxy;
@@ -36,12 +38,25 @@ import joynr.system.RoutingTypes.WebSocketClientAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * MessageRouter implementation which adds hops to its parent and tries to resolve unknown addresses at its parent
+ * <p>
+ * Unknown addresses are resolved asynchronously, so no routing thread waits for the parent. Messages which arrive
+ * while the parent is already asked for the same participant wait for that answer instead of asking again. If the
+ * parent doesn't know the participant either, this is remembered for
+ * {@link ConfigurableMessagingSettings#PROPERTY_MESSAGING_UNRESOLVED_NEXT_HOP_CACHE_MS}, and messages to the
+ * participant fail without asking the parent again until then.
  */
  @Singleton
 public class ChildMessageRouter extends MessageRouterImpl {
@@ -52,6 +67,16 @@ public class ChildMessageRouter extends MessageRouterImpl {
     private Address incomingAddress;
     private Set<String> deferredParentHopsParticipantIds = new HashSet<>();
 
+    private static final long DEFAULT_UNRESOLVED_NEXT_HOP_CACHE_MS = 1000;
+
+    @Inject(optional = true)
+    @Named(ConfigurableMessagingSettings.PROPERTY_MESSAGING_UNRESOLVED_NEXT_HOP_CACHE_MS)
+    private long unresolvedNextHopCacheMs = DEFAULT_UNRESOLVED_NEXT_HOP_CACHE_MS;
+
+    // participantId -> time until which the parent is not asked again for the participant
+    private final ConcurrentMap<String, Long> unresolvedNextHops = new ConcurrentHashMap<>();
+    // participantId -> messages waiting for the answer of the parent; guarded by itself
+    private final Map<String, List<AddressCallback>> pendingResolutions = new HashMap<>();
 
     @Inject
     public ChildMessageRouter(RoutingTable routingTable,
@@ -64,21 +89,87 @@ public class ChildMessageRouter extends MessageRouterImpl {
     }
 
     @Override
-    protected Address getAddress(String toParticipantId) {
-        Address address = super.getAddress(toParticipantId);
-        if (address == null && parentRouter != null) {
-            Boolean parentHasNextHop = parentRouter.resolveNextHop(toParticipantId);
-            if (parentHasNextHop) {
-                super.addNextHop(toParticipantId, parentRouterMessagingAddress);
-                address = parentRouterMessagingAddress;
+    protected void resolveAddress(final String toParticipantId, AddressCallback callback) {
+        Address address = getAddress(toParticipantId);
+        if (address != null || toParticipantId == null || parentRouter == null) {
+            callback.addressResolved(address);
+            return;
+        }
+        Long unresolvedUntil = unresolvedNextHops.get(toParticipantId);
+        if (unresolvedUntil != null) {
+            if (unresolvedUntil > System.currentTimeMillis()) {
+                logger.debug("Parent router recently had no next hop for participant id {}", toParticipantId);
+                callback.addressResolved(null);
+                return;
+            }
+            unresolvedNextHops.remove(toParticipantId, unresolvedUntil);
+        }
+
+        synchronized (pendingResolutions) {
+            List<AddressCallback> waitingCallbacks = pendingResolutions.get(toParticipantId);
+            if (waitingCallbacks != null) {
+                waitingCallbacks.add(callback);
+                return;
+            }
+            waitingCallbacks = new ArrayList<>();
+            waitingCallbacks.add(callback);
+            pendingResolutions.put(toParticipantId, waitingCallbacks);
+        }
+
+        logger.debug("Resolving next hop for participant id {} at parent router", toParticipantId);
+        Callback<Boolean> resolveNextHopCallback = new Callback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean parentHasNextHop) {
+                Address resolvedAddress = null;
+                if (parentHasNextHop != null && parentHasNextHop) {
+                    ChildMessageRouter.super.addNextHop(toParticipantId, parentRouterMessagingAddress);
+                    resolvedAddress = parentRouterMessagingAddress;
+                } else {
+                    rememberUnresolvedNextHop(toParticipantId);
+                }
+                for (AddressCallback waitingCallback : removePendingResolution(toParticipantId)) {
+                    waitingCallback.addressResolved(resolvedAddress);
+                }
+            }
+
+            @Override
+            public void onFailure(JoynrRuntimeException error) {
+                for (AddressCallback waitingCallback : removePendingResolution(toParticipantId)) {
+                    waitingCallback.addressResolutionFailed(error);
+                }
+            }
+        };
+        try {
+            parentRouter.resolveNextHop(resolveNextHopCallback, toParticipantId);
+        } catch (JoynrRuntimeException error) {
+            resolveNextHopCallback.onFailure(error);
+        }
+    }
+
+    private List<AddressCallback> removePendingResolution(String participantId) {
+        List<AddressCallback> waitingCallbacks;
+        synchronized (pendingResolutions) {
+            waitingCallbacks = pendingResolutions.remove(participantId);
+        }
+        return waitingCallbacks == null ? new ArrayList<AddressCallback>() : waitingCallbacks;
+    }
+
+    private void rememberUnresolvedNextHop(String participantId) {
+        long now = System.currentTimeMillis();
+        // unresolved participants are rare, so dropping the expired ones here keeps the map small at little cost
+        Iterator<Long> unresolvedUntilIterator = unresolvedNextHops.values().iterator();
+        while (unresolvedUntilIterator.hasNext()) {
+            if (unresolvedUntilIterator.next() <= now) {
+                unresolvedUntilIterator.remove();
             }
         }
-        return address;
+        unresolvedNextHops.put(participantId, now + unresolvedNextHopCacheMs);
     }
 
     @Override
     public void addNextHop(final String participantId, final Address address) {
         super.addNextHop(participantId, address);
+        unresolvedNextHops.remove(participantId);
         if (parentRouter != null) {
             addNextHopToParent(participantId);
         } else {
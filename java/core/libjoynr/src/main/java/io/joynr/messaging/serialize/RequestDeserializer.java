@@ -20,6 +20,8 @@ package io.joynr.messaging.serialize;
  */
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +48,9 @@ public class RequestDeserializer extends JsonDeserializer<Request> {
 
     private ObjectMapper objectMapper;
 
+    // resolving a datatype name involves string splitting and a class loader lookup, so it is done once per name
+    private final ConcurrentMap<String, Class<?>> datatypeClasses = new ConcurrentHashMap<String, Class<?>>();
+
     public RequestDeserializer(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
     }
@@ -71,7 +76,7 @@ public class RequestDeserializer extends JsonDeserializer<Request> {
                 paramDatatypes[i] = paramDatatypeNode.asText();
                 i++;
             }
-            javaClasses = ReflectionUtils.toJavaClasses(paramDatatypes);
+            javaClasses = toJavaClasses(paramDatatypes);
         } else {
             paramDatatypes = new String[0];
         }
@@ -96,4 +101,24 @@ public class RequestDeserializer extends JsonDeserializer<Request> {
         return new Request(methodName, params, paramDatatypes, requestReplyId);
 
     }
+
+    private Class<?>[] toJavaClasses(String[] paramDatatypes) {
+        Class<?>[] javaClasses = new Class<?>[paramDatatypes.length];
+        for (int i = 0; i < paramDatatypes.length; i++) {
+            Class<?> javaClass = datatypeClasses.get(paramDatatypes[i]);
+            if (javaClass == null) {
+                javaClass = ReflectionUtils.toJavaClasses(paramDatatypes[i])[0];
+                Class<?> componentClass = javaClass;
+                while (componentClass.isArray()) {
+                    componentClass = componentClass.getComponentType();
+                }
+                if (componentClass != Object.class) {
+                    // unknown datatypes are not cached, they might become loadable later
+                    datatypeClasses.putIfAbsent(paramDatatypes[i], javaClass);
+                }
+            }
+            javaClasses[i] = javaClass;
+        }
+        return javaClasses;
+    }
 }
@@ -46,6 +46,7 @@ public class JoynrMessagingConnectorFactory {
 
     // use for caching because creation of MethodMetaInformation is expensive
     private static final ConcurrentMap<Method, MethodMetaInformation> metaInformationMap = new ConcurrentHashMap<Method, MethodMetaInformation>();
+    private static final ConcurrentMap<Method, MethodInvocationPlan> invocationPlanMap = new ConcurrentHashMap<Method, MethodInvocationPlan>();
 
     private RequestReplyManager requestReplyManager;
     private SubscriptionManager subscriptionManager;
@@ -86,11 +87,11 @@ public class JoynrMessagingConnectorFactory {
     }
 
     public static MethodMetaInformation ensureMethodMetaInformationPresent(Method method) {
-        if (metaInformationMap.containsKey(method)) {
-            return metaInformationMap.get(method);
+        MethodMetaInformation metaInformation = metaInformationMap.get(method);
+        if (metaInformation != null) {
+            return metaInformation;
         }
 
-        MethodMetaInformation metaInformation;
         try {
             metaInformation = new MethodMetaInformation(method);
         } catch (JsonMappingException e) {
@@ -100,7 +101,19 @@ public class JoynrMessagingConnectorFactory {
         if (existingMetaInformation != null) {
             // we only use putIfAbsent instead of .put, because putIfAbsent is threadsafe
             logger.debug("There was already a metaInformation object for that method in the map.");
+            return existingMetaInformation;
         }
         return metaInformation;
     }
+
+    static MethodInvocationPlan getInvocationPlan(Method method) {
+        MethodInvocationPlan invocationPlan = invocationPlanMap.get(method);
+        if (invocationPlan != null) {
+            return invocationPlan;
+        }
+
+        invocationPlan = new MethodInvocationPlan(method, ensureMethodMetaInformationPresent(method));
+        MethodInvocationPlan existingInvocationPlan = invocationPlanMap.putIfAbsent(method, invocationPlan);
+        return existingInvocationPlan != null ? existingInvocationPlan : invocationPlan;
+    }
 }
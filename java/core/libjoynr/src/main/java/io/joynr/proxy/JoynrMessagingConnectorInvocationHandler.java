@@ -41,7 +41,6 @@ import io.joynr.messaging.MessagingQos;
 import io.joynr.proxy.invocation.AttributeSubscribeInvocation;
 import io.joynr.proxy.invocation.BroadcastSubscribeInvocation;
 import io.joynr.proxy.invocation.UnsubscribeInvocation;
-import joynr.MethodMetaInformation;
 import joynr.OneWayRequest;
 import joynr.Reply;
 import joynr.Request;
@@ -93,28 +92,16 @@ final class JoynrMessagingConnectorInvocationHandler implements ConnectorInvocat
             throw new JoynrIllegalStateException("You must have exactly one participant to be able to execute an async method.");
         }
 
-        MethodMetaInformation methodMetaInformation = JoynrMessagingConnectorFactory.ensureMethodMetaInformationPresent(method);
-        if (methodMetaInformation.getCallbackAnnotation() == null) {
-            throw new JoynrIllegalStateException("All async methods need to have a annotated callback parameter.");
-        }
-
-        int callbackIndex = methodMetaInformation.getCallbackIndex();
-        ICallback callback = (ICallback) params[callbackIndex];
-
-        Object[] paramsWithoutCallback = new Object[params.length - 1];
-        copyArrayWithoutElement(params, paramsWithoutCallback, callbackIndex);
-        Class<?>[] paramDatatypes = method.getParameterTypes();
-        Class<?>[] paramDatatypesWithoutCallback = new Class<?>[paramDatatypes.length - 1];
-        copyArrayWithoutElement(paramDatatypes, paramDatatypesWithoutCallback, callbackIndex);
-
-        Request request = new Request(method.getName(), paramsWithoutCallback, paramDatatypesWithoutCallback);
+        MethodInvocationPlan invocationPlan = JoynrMessagingConnectorFactory.getInvocationPlan(method);
+        ICallback callback = invocationPlan.getCallback(params);
+        Request request = invocationPlan.createAsyncRequest(params);
         String requestReplyId = request.getRequestReplyId();
 
         RpcAsyncRequestReplyCaller<?> callbackWrappingReplyCaller = new RpcAsyncRequestReplyCaller(requestReplyId,
                                                                                                    callback,
                                                                                                    future,
                                                                                                    method,
-                                                                                                   methodMetaInformation);
+                                                                                                   invocationPlan.getMethodMetaInformation());
 
         ExpiryDate expiryDate = DispatcherUtils.convertTtlToExpirationDate(qosSettings.getRoundTripTtl_ms());
 
@@ -123,11 +110,6 @@ final class JoynrMessagingConnectorInvocationHandler implements ConnectorInvocat
         return future;
     }
 
-    private void copyArrayWithoutElement(Object[] fromArray, Object[] toArray, int removeIndex) {
-        System.arraycopy(fromArray, 0, toArray, 0, removeIndex);
-        System.arraycopy(fromArray, removeIndex + 1, toArray, removeIndex, toArray.length - removeIndex);
-    }
-
     @CheckForNull
     @Override
     public Object executeSyncMethod(Method method, Object[] args) throws ApplicationException {
@@ -143,9 +125,9 @@ final class JoynrMessagingConnectorInvocationHandler implements ConnectorInvocat
             throw new JoynrIllegalStateException("You must have exactly one participant to be able to execute a sync method.");
         }
 
-        MethodMetaInformation methodMetaInformation = JoynrMessagingConnectorFactory.ensureMethodMetaInformationPresent(method);
+        MethodInvocationPlan invocationPlan = JoynrMessagingConnectorFactory.getInvocationPlan(method);
 
-        Request request = new Request(method.getName(), args, method.getParameterTypes());
+        Request request = invocationPlan.createSyncRequest(args);
         Reply reply;
         String requestReplyId = request.getRequestReplyId();
         SynchronizedReplyCaller synchronizedReplyCaller = new SynchronizedReplyCaller(fromParticipantId,
@@ -160,10 +142,12 @@ final class JoynrMessagingConnectorInvocationHandler implements ConnectorInvocat
                                                             synchronizedReplyCaller,
                                                             qosSettings);
         if (reply.getError() == null) {
-            if (method.getReturnType().equals(void.class)) {
+            if (invocationPlan.returnsVoid()) {
                 return null;
             }
-            return RpcUtils.reconstructReturnedObject(method, methodMetaInformation, reply.getResponse());
+            return RpcUtils.reconstructReturnedObject(method,
+                                                      invocationPlan.getMethodMetaInformation(),
+                                                      reply.getResponse());
         } else if (reply.getError() instanceof ApplicationException) {
             throw (ApplicationException) reply.getError();
         } else {
@@ -182,7 +166,7 @@ final class JoynrMessagingConnectorInvocationHandler implements ConnectorInvocat
             throw new JoynrIllegalStateException("You must have at least one participant to be able to execute an oneWayMethod.");
         }
 
-        OneWayRequest request = new OneWayRequest(method.getName(), args, method.getParameterTypes());
+        OneWayRequest request = JoynrMessagingConnectorFactory.getInvocationPlan(method).createOneWayRequest(args);
         requestReplyManager.sendOneWayRequest(fromParticipantId, toParticipantIds, request, qosSettings);
     }
 
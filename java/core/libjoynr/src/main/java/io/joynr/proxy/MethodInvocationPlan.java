@@ -0,0 +1,103 @@
+package io.joynr.proxy;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+
+import io.joynr.dispatcher.rpc.ReflectionUtils;
+import io.joynr.exceptions.JoynrIllegalStateException;
+import joynr.MethodMetaInformation;
+import joynr.OneWayRequest;
+import joynr.Request;
+
+/**
+ * Immutable description of how a proxy method is turned into a request. It is compiled once per interface
+ * method, so that a call only has to fill in its arguments.
+ * <p>
+ * The datatype name arrays are shared by all requests created from this plan and must not be modified.
+ */
+final class MethodInvocationPlan {
+    private final Method method;
+    private final String methodName;
+    private final MethodMetaInformation methodMetaInformation;
+    private final int callbackIndex;
+    private final String[] paramDatatypes;
+    private final String[] paramDatatypesWithoutCallback;
+    private final boolean returnsVoid;
+
+    MethodInvocationPlan(Method method, MethodMetaInformation methodMetaInformation) {
+        this.method = method;
+        this.methodName = method.getName();
+        this.methodMetaInformation = methodMetaInformation;
+        this.callbackIndex = methodMetaInformation.getCallbackAnnotation() == null ? -1
+                : methodMetaInformation.getCallbackIndex();
+        this.paramDatatypes = ReflectionUtils.toDatatypeNames(method.getParameterTypes());
+        if (callbackIndex >= 0) {
+            this.paramDatatypesWithoutCallback = new String[paramDatatypes.length - 1];
+            copyArrayWithoutElement(paramDatatypes, paramDatatypesWithoutCallback, callbackIndex);
+        } else {
+            this.paramDatatypesWithoutCallback = paramDatatypes;
+        }
+        this.returnsVoid = method.getReturnType().equals(void.class);
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    MethodMetaInformation getMethodMetaInformation() {
+        return methodMetaInformation;
+    }
+
+    boolean returnsVoid() {
+        return returnsVoid;
+    }
+
+    ICallback getCallback(Object[] args) {
+        checkHasCallback();
+        return (ICallback) args[callbackIndex];
+    }
+
+    Request createAsyncRequest(Object[] args) {
+        checkHasCallback();
+        Object[] paramsWithoutCallback = new Object[args.length - 1];
+        copyArrayWithoutElement(args, paramsWithoutCallback, callbackIndex);
+        return new Request(methodName, paramsWithoutCallback, paramDatatypesWithoutCallback, null);
+    }
+
+    Request createSyncRequest(Object[] args) {
+        return new Request(methodName, args, paramDatatypes, null);
+    }
+
+    OneWayRequest createOneWayRequest(Object[] args) {
+        return new OneWayRequest(methodName, args, paramDatatypes);
+    }
+
+    private void checkHasCallback() {
+        if (callbackIndex < 0) {
+            throw new JoynrIllegalStateException("All async methods need to have a annotated callback parameter.");
+        }
+    }
+
+    private static void copyArrayWithoutElement(Object[] fromArray, Object[] toArray, int removeIndex) {
+        System.arraycopy(fromArray, 0, toArray, 0, removeIndex);
+        System.arraycopy(fromArray, removeIndex + 1, toArray, removeIndex, toArray.length - removeIndex);
+    }
+}
@@ -31,6 +31,7 @@ import javax.inject.Named;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
@@ -53,10 +54,13 @@ import io.joynr.dispatching.JoynrMessageProcessor;
 import io.joynr.dispatching.RequestReplyManager;
 import io.joynr.dispatching.RequestReplyManagerImpl;
 import io.joynr.dispatching.rpc.RpcUtils;
+import io.joynr.dispatching.subscription.FileSubscriptionRequestStorage;
+import io.joynr.dispatching.subscription.NoOpSubscriptionRequestStorage;
 import io.joynr.dispatching.subscription.PublicationManager;
 import io.joynr.dispatching.subscription.PublicationManagerImpl;
 import io.joynr.dispatching.subscription.SubscriptionManager;
 import io.joynr.dispatching.subscription.SubscriptionManagerImpl;
+import io.joynr.dispatching.subscription.SubscriptionRequestStorage;
 import io.joynr.exceptions.JoynrDelayMessageException;
 import io.joynr.logging.JoynrAppenderManagerFactory;
 import io.joynr.messaging.AbstractMiddlewareMessagingStubFactory;
@@ -152,6 +156,16 @@ abstract class AbstractRuntimeModule extends AbstractModule {
         return new InProcessAddress();
     }
 
+    @Provides
+    @Singleton
+    SubscriptionRequestStorage provideSubscriptionRequestStorage(@Named(FileSubscriptionRequestStorage.PROPERTY_SUBSCRIPTIONREQUESTS_PERSISTENCY) boolean persistSubscriptionRequests,
+                                                                 Provider<FileSubscriptionRequestStorage> fileSubscriptionRequestStorage) {
+        if (persistSubscriptionRequests) {
+            return fileSubscriptionRequestStorage.get();
+        }
+        return new NoOpSubscriptionRequestStorage();
+    }
+
     @Provides
     @Named(MessageRouter.SCHEDULEDTHREADPOOL)
     ScheduledExecutorService provideMessageSchedulerThreadPoolExecutor(@Named(ConfigurableMessagingSettings.PROPERTY_MESSAGING_MAXIMUM_PARALLEL_SENDS) int maximumParallelSends) {
@@ -38,6 +38,7 @@ import io.joynr.discovery.LocalDiscoveryAggregator;
 import io.joynr.dispatching.Dispatcher;
 import io.joynr.dispatching.ProviderDirectory;
 import io.joynr.dispatching.RequestReplyManager;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.dispatching.rpc.ReplyCallerDirectory;
 import io.joynr.dispatching.subscription.PublicationManager;
 import io.joynr.messaging.MessagingSkeletonFactory;
@@ -80,6 +81,9 @@ abstract public class JoynrRuntimeImpl implements JoynrRuntime {
     @Named(JOYNR_SCHEDULER_CLEANUP)
     ScheduledExecutorService cleanupScheduler;
 
+    @Inject
+    private TimingWheel timingWheel;
+
     private final ProxyBuilderFactory proxyBuilderFactory;
 
     protected final ProviderDirectory requestCallerDirectory;
@@ -222,6 +226,11 @@ abstract public class JoynrRuntimeImpl implements JoynrRuntime {
         } catch (Exception e) {
             logger.error("error shutting down messagingStubFactory: {}", e.getMessage());
         }
+        try {
+            timingWheel.stop();
+        } catch (Exception e) {
+            logger.error("error shutting down timing wheel: {}", e.getMessage());
+        }
         try {
             cleanupScheduler.shutdownNow();
         } catch (Exception e) {
@@ -1,6 +1,7 @@
 package io.joynr.arbitration;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /*
  * #%L
@@ -25,7 +26,9 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,7 +42,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -89,6 +95,7 @@ public class ArbitrationTest {
     protected ArrayList<DiscoveryEntry> capabilitiesList;
     private String expectedParticipantId = "expectedParticipantId";
     Address expectedEndpointAddress;
+    private ScheduledExecutorService retryScheduler;
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Before
@@ -115,6 +122,11 @@ public class ArbitrationTest {
         discoveryEntryVersionFilterField.setAccessible(true);
         discoveryEntryVersionFilterField.set(ArbitratorFactory.class, discoveryEntryVersionFilter);
 
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+        Field retrySchedulerField = ArbitratorFactory.class.getDeclaredField("retryScheduler");
+        retrySchedulerField.setAccessible(true);
+        retrySchedulerField.set(ArbitratorFactory.class, retryScheduler);
+
         doAnswer(new Answer<Set<DiscoveryEntry>>() {
             @Override
             public Set<DiscoveryEntry> answer(InvocationOnMock invocation) throws Throwable {
@@ -125,6 +137,11 @@ public class ArbitrationTest {
                                                     Mockito.<Map<String, Set<Version>>> any());
     }
 
+    @After
+    public void tearDown() {
+        retryScheduler.shutdownNow();
+    }
+
     @Test
     public void keywordArbitratorTest() {
         ProviderQos providerQos = new ProviderQos();
@@ -744,4 +761,69 @@ public class ArbitrationTest {
         assertEquals(discoveredVersions, noCompatibleProviderFoundExceptionCaptor.getValue().getDiscoveredVersionsForDomain(domain1));
 
     }
+
+    @Test
+    public void testArbitrationIsRetriedWithoutBlockingTheCaller() {
+        String otherDomain = "otherDomain";
+        discoveryQos = new DiscoveryQos(10 * ARBITRATION_TIMEOUT, ArbitrationStrategy.HighestPriority, Long.MAX_VALUE);
+        discoveryQos.setRetryIntervalMs(ARBITRATION_TIMEOUT);
+        capabilitiesList.add(new DiscoveryEntry(new Version(47, 11),
+                                                otherDomain,
+                                                TestInterface.INTERFACE_NAME,
+                                                "otherParticipantId",
+                                                new ProviderQos(),
+                                                System.currentTimeMillis(),
+                                                NO_EXPIRY,
+                                                publicKeyId));
+
+        Arbitrator arbitrator = ArbitratorFactory.create(Sets.newHashSet(domain),
+                                                         interfaceName,
+                                                         interfaceVersion,
+                                                         discoveryQos,
+                                                         localDiscoveryAggregator);
+        arbitrator.setArbitrationListener(arbitrationCallback);
+        long startTime = System.currentTimeMillis();
+        arbitrator.startArbitration();
+        assertTrue(System.currentTimeMillis() - startTime < ARBITRATION_TIMEOUT);
+        verify(arbitrationCallback, never()).onSuccess(any(ArbitrationResult.class));
+
+        // the provider appears after the first lookup, the scheduled retry finds it
+        capabilitiesList.clear();
+        capabilitiesList.add(new DiscoveryEntry(new Version(47, 11),
+                                                domain,
+                                                TestInterface.INTERFACE_NAME,
+                                                expectedParticipantId,
+                                                new ProviderQos(),
+                                                System.currentTimeMillis(),
+                                                NO_EXPIRY,
+                                                publicKeyId));
+        verify(arbitrationCallback, timeout(5 * ARBITRATION_TIMEOUT)).onSuccess(eq(new ArbitrationResult(expectedParticipantId)));
+        verify(arbitrationCallback, never()).onError(any(Throwable.class));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void testCanceledArbitrationIsNotRetried() throws Exception {
+        discoveryQos = new DiscoveryQos(10 * ARBITRATION_TIMEOUT, ArbitrationStrategy.HighestPriority, Long.MAX_VALUE);
+        discoveryQos.setRetryIntervalMs(ARBITRATION_TIMEOUT / 10);
+
+        Arbitrator arbitrator = ArbitratorFactory.create(Sets.newHashSet(domain),
+                                                         interfaceName,
+                                                         interfaceVersion,
+                                                         discoveryQos,
+                                                         localDiscoveryAggregator);
+        arbitrator.setArbitrationListener(arbitrationCallback);
+        arbitrator.startArbitration();
+        arbitrator.cancel();
+
+        verify(arbitrationCallback).onError(any(DiscoveryException.class));
+        assertEquals(ArbitrationStatus.ArbitrationCanceledForever, arbitrator.getArbitrationStatus());
+
+        Thread.sleep(ARBITRATION_TIMEOUT / 2);
+        verify(localDiscoveryAggregator, times(1)).lookup(Mockito.<Callback> any(),
+                                                          Mockito.eq(new String[]{ domain }),
+                                                          Mockito.eq(interfaceName),
+                                                          Mockito.<joynr.types.DiscoveryQos> any());
+        verify(arbitrationCallback, never()).onSuccess(any(ArbitrationResult.class));
+    }
 }
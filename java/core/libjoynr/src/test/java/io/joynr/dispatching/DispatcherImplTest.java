@@ -25,6 +25,7 @@ import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.UUID;
@@ -58,6 +59,7 @@ import io.joynr.provider.ProviderContainer;
 import io.joynr.proxy.JoynrMessagingConnectorFactory;
 import joynr.JoynrMessage;
 import joynr.OneWayRequest;
+import joynr.Reply;
 import joynr.Request;
 import org.junit.Before;
 import org.junit.Test;
@@ -176,4 +178,35 @@ public class DispatcherImplTest {
         verify(requestReplyManagerMock).handleOneWayRequest(toParticipantId, request, joynrMessage.getExpiryDate());
         verify(messageRouterMock, never()).route((JoynrMessage) any());
     }
+
+    @Test
+    public void testReplyIsHandledIfReplyCallerIsWaiting() throws IOException {
+        String requestReplyId = UUID.randomUUID().toString();
+        when(requestReplyManagerMock.hasReplyCaller(requestReplyId)).thenReturn(true);
+        Reply reply = new Reply(requestReplyId, "response");
+        JoynrMessage joynrMessage = joynrMessageFactory.createReply("fromParticipantId",
+                                                                    "toParticipantId",
+                                                                    reply,
+                                                                    new MessagingQos(1000L));
+
+        fixture.messageArrived(joynrMessage);
+
+        verify(requestReplyManagerMock).handleReply(any(Reply.class));
+    }
+
+    @Test
+    public void testReplyWithoutReplyCallerIsDiscarded() throws IOException {
+        String requestReplyId = UUID.randomUUID().toString();
+        when(requestReplyManagerMock.hasReplyCaller(requestReplyId)).thenReturn(false);
+        Reply reply = new Reply(requestReplyId, "response");
+        JoynrMessage joynrMessage = joynrMessageFactory.createReply("fromParticipantId",
+                                                                    "toParticipantId",
+                                                                    reply,
+                                                                    new MessagingQos(1000L));
+
+        fixture.messageArrived(joynrMessage);
+
+        verify(requestReplyManagerMock).hasReplyCaller(requestReplyId);
+        verify(requestReplyManagerMock, never()).handleReply(any(Reply.class));
+    }
 }
@@ -36,6 +36,7 @@ import com.google.inject.Injector;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import io.joynr.common.ExpiryDate;
+import io.joynr.dispatching.subscription.SharedPublicationPayload;
 import io.joynr.messaging.JsonMessageSerializerModule;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.messaging.MessagingQosEffort;
@@ -243,6 +244,29 @@ public class JoynrMessageFactoryTest {
         assertNotNull(message.getCreatorUserId());
     }
 
+    @Test
+    public void createPublicationWithSharedPayload() throws Exception {
+        SharedPublicationPayload sharedPayload = new SharedPublicationPayload("providerParticipantId",
+                                                                              "attributeName",
+                                                                              1,
+                                                                              "response \"quoted\"");
+        String[] subscriptionIds = { "subscription1", "subscription\"2" };
+
+        for (String subscriptionId : subscriptionIds) {
+            JoynrMessage message = joynrMessageFactory.createPublication(fromParticipantId,
+                                                                         toParticipantId,
+                                                                         sharedPayload,
+                                                                         subscriptionId,
+                                                                         messagingQos);
+
+            SubscriptionPublication expectedPublication = new SubscriptionPublication(Arrays.asList(sharedPayload.getValue()),
+                                                                                      subscriptionId);
+            assertEquals(JoynrMessage.MESSAGE_TYPE_PUBLICATION, message.getType());
+            assertEquals(objectMapper.writeValueAsString(expectedPublication), message.getPayload());
+            assertEquals(expectedPublication, objectMapper.readValue(message.getPayload(), SubscriptionPublication.class));
+        }
+    }
+
     @Test
     public void testMessageProcessorUsed() {
         JoynrMessage joynrMessage = joynrMessageFactory.createRequest("from",
@@ -21,7 +21,9 @@ package io.joynr.dispatching;
 
 import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -56,9 +58,12 @@ import io.joynr.context.JoynrMessageScopeModule;
 import io.joynr.dispatching.rpc.ReplyCaller;
 import io.joynr.dispatching.rpc.ReplyCallerDirectory;
 import io.joynr.dispatching.rpc.RpcUtils;
+import io.joynr.dispatching.rpc.SynchronizedReplyCaller;
 import io.joynr.exceptions.JoynrException;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
+import io.joynr.exceptions.JoynrShutdownException;
+import io.joynr.exceptions.JoynrTimeoutException;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.provider.AbstractSubscriptionPublisher;
@@ -318,6 +323,84 @@ public class RequestReplyManagerTest {
         verify(replyCaller, never()).messageCallBack(any(Reply.class));
     }
 
+    @Test
+    public void expiredReplyCallerIsNotifiedAndCountedOnce() throws Exception {
+        ExpiryDate ttlReplyCaller = ExpiryDate.fromRelativeTtl(100L);
+        long expiredBefore = replyCallerDirectory.getExpiredReplyCallerCount();
+
+        final ReplyCaller expiringReplyCaller = mock(ReplyCaller.class);
+        final ReplyCaller answeredReplyCaller = mock(ReplyCaller.class);
+        replyCallerDirectory.addReplyCaller(request1.getRequestReplyId(), expiringReplyCaller, ttlReplyCaller);
+        replyCallerDirectory.addReplyCaller(request2.getRequestReplyId(), answeredReplyCaller, ttlReplyCaller);
+        replyCallerDirectory.remove(request2.getRequestReplyId());
+
+        Thread.sleep(ttlReplyCaller.getRelativeTtl() + 200);
+
+        verify(expiringReplyCaller).error(any(JoynrTimeoutException.class));
+        verify(answeredReplyCaller, never()).error(any(Throwable.class));
+        assertEquals(expiredBefore + 1, replyCallerDirectory.getExpiredReplyCallerCount());
+        assertFalse(replyCallerDirectory.contains(request1.getRequestReplyId()));
+    }
+
+    @Test(timeout = 3000)
+    public void sendSyncRequestReturnsReplyOfOtherThread() throws Exception {
+        final SynchronizedReplyCaller synchronizedReplyCaller = new SynchronizedReplyCaller(testSenderParticipantId,
+                                                                                            testMessageResponderParticipantId,
+                                                                                            request1.getRequestReplyId(),
+                                                                                            request1);
+        final Reply reply = new Reply(request1.getRequestReplyId(), payload1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                synchronizedReplyCaller.messageCallBack(reply);
+            }
+        }).start();
+
+        Object response = requestReplyManager.sendSyncRequest(testSenderParticipantId,
+                                                              testMessageResponderParticipantId,
+                                                              request1,
+                                                              synchronizedReplyCaller,
+                                                              new MessagingQos(TIME_TO_LIVE));
+
+        assertEquals(reply, response);
+        verify(messageRouterMock).route(any(JoynrMessage.class));
+    }
+
+    @Test(timeout = 3000)
+    public void shutdownEndsOutstandingSyncRequest() throws Exception {
+        SynchronizedReplyCaller synchronizedReplyCaller = new SynchronizedReplyCaller(testSenderParticipantId,
+                                                                                      testMessageResponderParticipantId,
+                                                                                      request1.getRequestReplyId(),
+                                                                                      request1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                requestReplyManager.shutdown();
+            }
+        }).start();
+
+        try {
+            requestReplyManager.sendSyncRequest(testSenderParticipantId,
+                                                testMessageResponderParticipantId,
+                                                request1,
+                                                synchronizedReplyCaller,
+                                                new MessagingQos(TIME_TO_LIVE));
+            fail("sync request should have been ended by shutdown");
+        } catch (JoynrShutdownException e) {
+            // expected
+        }
+    }
+
     @Test
     public void sendOneWayTtl() throws JoynrMessageNotSentException, JoynrSendBufferFullException,
                                JsonGenerationException, JsonMappingException, IOException {
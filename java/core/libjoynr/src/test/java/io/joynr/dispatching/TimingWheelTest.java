@@ -0,0 +1,113 @@
+package io.joynr.dispatching;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    private static final long TICK_DURATION_MS = 5;
+
+    private TimingWheel timingWheel;
+
+    @Before
+    public void setUp() {
+        // small wheel so that delays span several rounds
+        timingWheel = new TimingWheel(TICK_DURATION_MS, 8, 2);
+    }
+
+    @After
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test(timeout = 3000)
+    public void taskIsNotExecutedBeforeDelay() throws InterruptedException {
+        final long delayMs = 200;
+        final CountDownLatch executed = new CountDownLatch(1);
+        final long scheduledAt = System.currentTimeMillis();
+        final long[] executedAt = new long[1];
+
+        TimingWheel.Timeout timeout = timingWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executedAt[0] = System.currentTimeMillis();
+                executed.countDown();
+            }
+        }, delayMs);
+
+        executed.await();
+        assertTrue(executedAt[0] - scheduledAt >= delayMs);
+        assertTrue(timeout.isExpired());
+    }
+
+    @Test(timeout = 3000)
+    public void cancelledTaskIsNotExecuted() throws InterruptedException {
+        final AtomicInteger executions = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                executions.incrementAndGet();
+            }
+        };
+        TimingWheel.Timeout cancelled = timingWheel.schedule(task, 100);
+        final CountDownLatch executed = new CountDownLatch(1);
+        timingWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 200);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        executed.await();
+        assertEquals(0, executions.get());
+        assertTrue(cancelled.isCancelled());
+    }
+
+    @Test(timeout = 5000)
+    public void manyTimeoutsAreExecuted() throws InterruptedException {
+        final int numberOfTimeouts = 10000;
+        final CountDownLatch executed = new CountDownLatch(numberOfTimeouts);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        };
+        for (int i = 0; i < numberOfTimeouts; i++) {
+            timingWheel.schedule(task, i % 500);
+        }
+
+        assertTrue(executed.await(3, TimeUnit.SECONDS));
+    }
+}
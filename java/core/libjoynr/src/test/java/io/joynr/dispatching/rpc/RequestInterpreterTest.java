@@ -19,6 +19,7 @@ package io.joynr.dispatching.rpc;
  * #L%
  */
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.verify;
 
 import org.junit.Before;
@@ -30,10 +31,12 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.google.inject.Provider;
 
+import io.joynr.JoynrVersion;
 import io.joynr.context.JoynrMessageScope;
 import io.joynr.dispatching.RequestCaller;
 import io.joynr.messaging.JoynrMessageCreator;
 import joynr.OneWayRequest;
+import joynr.exceptions.MethodInvocationException;
 
 /**
  * Unit tests for {@link RequestInterpreter}.
@@ -41,9 +44,23 @@ import joynr.OneWayRequest;
 @RunWith(MockitoJUnitRunner.class)
 public class RequestInterpreterTest {
 
+    @JoynrVersion(major = 1, minor = 0)
     private static class TestRequestCaller implements RequestCaller {
+        private String lastInvocation;
+
         @SuppressWarnings("unused")
         public void test() {
+            lastInvocation = "test()";
+        }
+
+        @SuppressWarnings("unused")
+        public void test(Integer value) {
+            lastInvocation = "test(Integer " + value + ")";
+        }
+
+        @SuppressWarnings("unused")
+        public void test(String value) {
+            lastInvocation = "test(String " + value + ")";
         }
     }
 
@@ -58,7 +75,7 @@ public class RequestInterpreterTest {
 
     private RequestInterpreter subject;
 
-    private RequestCaller requestCaller;
+    private TestRequestCaller requestCaller;
 
     private OneWayRequest request;
 
@@ -85,4 +102,28 @@ public class RequestInterpreterTest {
         verify(joynrMessageCreator).setMessageCreatorId("creator");
     }
 
+    @Test
+    public void testOverloadedMethodsAreDispatchedByParameterTypes() {
+        subject.registerRequestCaller(requestCaller);
+
+        subject.invokeMethod(requestCaller, new OneWayRequest("test", new Object[]{ 42 }, new Class[]{ Integer.class }));
+        assertEquals("test(Integer 42)", requestCaller.lastInvocation);
+
+        subject.invokeMethod(requestCaller, new OneWayRequest("test", new Object[]{ "x" }, new Class[]{ String.class }));
+        assertEquals("test(String x)", requestCaller.lastInvocation);
+
+        subject.invokeMethod(requestCaller, request);
+        assertEquals("test()", requestCaller.lastInvocation);
+    }
+
+    @Test(expected = MethodInvocationException.class)
+    public void testUnknownParameterTypesAreRejected() {
+        subject.invokeMethod(requestCaller, new OneWayRequest("test", new Object[]{ 1L }, new Class[]{ Long.class }));
+    }
+
+    @Test(expected = MethodInvocationException.class)
+    public void testUnknownMethodIsRejected() {
+        subject.invokeMethod(requestCaller, new OneWayRequest("unknown", new Object[0], new Class[0]));
+    }
+
 }
@@ -0,0 +1,182 @@
+package io.joynr.dispatching.subscription;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import io.joynr.messaging.JsonMessageSerializerModule;
+import io.joynr.pubsub.SubscriptionQos;
+import joynr.BroadcastFilterParameters;
+import joynr.BroadcastSubscriptionRequest;
+import joynr.OnChangeSubscriptionQos;
+import joynr.PeriodicSubscriptionQos;
+import joynr.SubscriptionRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Multimap;
+import com.google.inject.Guice;
+
+public class FileSubscriptionRequestStorageTest {
+
+    private static final String PROVIDER_PARTICIPANT_ID = "providerParticipantId";
+    private static final String PROXY_PARTICIPANT_ID = "proxyParticipantId";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ObjectMapper objectMapper;
+    private File logFile;
+    private FileSubscriptionRequestStorage storage;
+
+    @Before
+    public void setUp() throws IOException {
+        objectMapper = Guice.createInjector(new JsonMessageSerializerModule()).getInstance(ObjectMapper.class);
+        logFile = new File(temporaryFolder.getRoot(), "subscriptionRequests");
+        storage = new FileSubscriptionRequestStorage(logFile.getPath(), objectMapper);
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    public void subscriptionRequestsAreRestoredAfterRestart() throws Exception {
+        SubscriptionRequest attributeSubscriptionRequest = new SubscriptionRequest("subscriptionId1",
+                                                                                   "location",
+                                                                                   createPeriodicQos(SubscriptionQos.NO_EXPIRY_DATE));
+        OnChangeSubscriptionQos onChangeQos = new OnChangeSubscriptionQos();
+        onChangeQos.setMinIntervalMs(0).setValidityMs(60000);
+        SubscriptionRequest broadcastSubscriptionRequest = new BroadcastSubscriptionRequest("subscriptionId2",
+                                                                                            "locationUpdate",
+                                                                                            new BroadcastFilterParameters(),
+                                                                                            onChangeQos);
+        storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, attributeSubscriptionRequest);
+        storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, broadcastSubscriptionRequest);
+
+        restart();
+
+        Multimap<String, PersistedSubscriptionRequest> savedSubscriptionRequests = storage.getSavedSubscriptionRequests();
+        assertEquals(2, savedSubscriptionRequests.size());
+        assertTrue(savedSubscriptionRequests.containsEntry(PROVIDER_PARTICIPANT_ID,
+                                                           new PersistedSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                                                            PROVIDER_PARTICIPANT_ID,
+                                                                                            attributeSubscriptionRequest)));
+        assertTrue(savedSubscriptionRequests.containsEntry(PROVIDER_PARTICIPANT_ID,
+                                                           new PersistedSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                                                            PROVIDER_PARTICIPANT_ID,
+                                                                                            broadcastSubscriptionRequest)));
+        for (PersistedSubscriptionRequest persistedSubscriptionRequest : savedSubscriptionRequests.values()) {
+            if ("subscriptionId2".equals(persistedSubscriptionRequest.getSubscriptionRequest().getSubscriptionId())) {
+                assertTrue(persistedSubscriptionRequest.getSubscriptionRequest() instanceof BroadcastSubscriptionRequest);
+            }
+        }
+    }
+
+    @Test
+    public void removedAndExpiredSubscriptionRequestsAreNotRestored() throws Exception {
+        SubscriptionRequest removedSubscriptionRequest = new SubscriptionRequest("removed",
+                                                                                 "location",
+                                                                                 createPeriodicQos(SubscriptionQos.NO_EXPIRY_DATE));
+        SubscriptionRequest expiringSubscriptionRequest = new SubscriptionRequest("expiring",
+                                                                                  "location",
+                                                                                  createPeriodicQos(System.currentTimeMillis() + 100));
+        SubscriptionRequest activeSubscriptionRequest = new SubscriptionRequest("active",
+                                                                                "location",
+                                                                                createPeriodicQos(SubscriptionQos.NO_EXPIRY_DATE));
+        storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, removedSubscriptionRequest);
+        storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, expiringSubscriptionRequest);
+        storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, activeSubscriptionRequest);
+        storage.removeSubscriptionRequest("removed");
+        Thread.sleep(150);
+
+        restart();
+
+        Multimap<String, PersistedSubscriptionRequest> savedSubscriptionRequests = storage.getSavedSubscriptionRequests();
+        assertEquals(1, savedSubscriptionRequests.size());
+        assertEquals("active", savedSubscriptionRequests.values()
+                                                        .iterator()
+                                                        .next()
+                                                        .getSubscriptionRequest()
+                                                        .getSubscriptionId());
+    }
+
+    @Test
+    public void partiallyWrittenRecordIsIgnored() throws Exception {
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest("subscriptionId",
+                                                                          "location",
+                                                                          createPeriodicQos(SubscriptionQos.NO_EXPIRY_DATE));
+        storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+        storage.shutdown();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8)) {
+            writer.write("{\"added\":{\"proxyParticipantId\":\"pro");
+        }
+
+        restart();
+
+        assertEquals(1, storage.getSavedSubscriptionRequests().size());
+    }
+
+    @Test
+    public void logIsCompacted() throws Exception {
+        for (int i = 0; i < 5000; i++) {
+            SubscriptionRequest subscriptionRequest = new SubscriptionRequest("subscriptionId" + i,
+                                                                              "location",
+                                                                              createPeriodicQos(SubscriptionQos.NO_EXPIRY_DATE));
+            storage.persistSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+            if (i % 100 != 0) {
+                storage.removeSubscriptionRequest(subscriptionRequest.getSubscriptionId());
+            }
+        }
+
+        // writes the queued records
+        storage.shutdown();
+        assertTrue(Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8).size() < 2000);
+        restart();
+        assertEquals(50, storage.getSavedSubscriptionRequests().size());
+    }
+
+    private void restart() throws IOException {
+        storage.shutdown();
+        storage = new FileSubscriptionRequestStorage(logFile.getPath(), objectMapper);
+    }
+
+    private static SubscriptionQos createPeriodicQos(long expiryDateMs) {
+        return new PeriodicSubscriptionQos().setPeriodMs(100)
+                                            .setExpiryDateMs(expiryDateMs)
+                                            .setAlertAfterIntervalMs(500)
+                                            .setPublicationTtlMs(1000);
+    }
+}
@@ -38,7 +38,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -47,17 +50,24 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.inject.Guice;
 import io.joynr.dispatching.DispatcherImpl;
 import io.joynr.dispatching.ProviderDirectory;
 import io.joynr.dispatching.RequestCaller;
 import io.joynr.dispatching.RequestCallerFactory;
+import io.joynr.dispatching.TimingWheel;
+import io.joynr.messaging.JsonMessageSerializerModule;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.provider.AbstractSubscriptionPublisher;
 import io.joynr.provider.Deferred;
 import io.joynr.provider.Promise;
 import io.joynr.provider.ProviderContainer;
 import io.joynr.pubsub.SubscriptionQos;
+import io.joynr.pubsub.publication.AttributeListener;
 import io.joynr.pubsub.publication.BroadcastFilter;
 import joynr.BroadcastFilterParameters;
 import joynr.BroadcastSubscriptionRequest;
@@ -72,8 +82,11 @@ import joynr.tests.testLocationUpdateWithSpeedSelectiveBroadcastFilter;
 import joynr.tests.testProvider;
 import joynr.types.Localisation.GpsFixEnum;
 import joynr.types.Localisation.GpsLocation;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -90,6 +103,9 @@ public class PublicationManagerTest {
 
     private static final String SUBSCRIPTION_ID = "PublicationTest_id";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     ScheduledExecutorService cleanupScheduler;
     PublicationManagerImpl publicationManager;
 
@@ -121,6 +137,8 @@ public class PublicationManagerTest {
 
     String valueToPublish = "valuePublished";
 
+    private TimingWheel timingWheel = new TimingWheel();
+
     @Before
     public void setUp() {
         Deferred<String> valueToPublishDeferred = new Deferred<String>();
@@ -131,7 +149,8 @@ public class PublicationManagerTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
 
         requestCaller = new RequestCallerFactory().create(provider);
         when(providerContainer.getRequestCaller()).thenReturn(requestCaller);
@@ -143,6 +162,11 @@ public class PublicationManagerTest {
                                                                                any(Method.class));
     }
 
+    @After
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
     @SuppressWarnings("unchecked")
     @Test(timeout = 4000)
     public void doNotDelayBroadcastPublicationBurstsForOnChangeSubscriptionsWithoutMinInterval() throws Exception {
@@ -166,7 +190,8 @@ public class PublicationManagerTest {
         PublicationManager publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                                            dispatcher,
                                                                            requestCallerDirectory,
-                                                                           cleanupScheduler);
+                                                                           cleanupScheduler,
+                                                                           timingWheel);
 
         when(requestCallerDirectory.get(eq(providerId))).thenReturn(providerContainer);
         when(requestCallerDirectory.contains(eq(providerId))).thenReturn(true);
@@ -220,7 +245,8 @@ public class PublicationManagerTest {
         PublicationManager publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                                            dispatcher,
                                                                            providerDirectory,
-                                                                           cleanupScheduler);
+                                                                           cleanupScheduler,
+                                                                           timingWheel);
 
         when(providerDirectory.get(eq(providerId))).thenReturn(providerContainer);
         when(providerDirectory.contains(eq(providerId))).thenReturn(true);
@@ -272,7 +298,8 @@ public class PublicationManagerTest {
         PublicationManager publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                                            dispatcher,
                                                                            providerDirectory,
-                                                                           cleanupScheduler);
+                                                                           cleanupScheduler,
+                                                                           timingWheel);
 
         when(providerDirectory.get(eq(providerId))).thenReturn(providerContainer);
         when(providerDirectory.contains(eq(providerId))).thenReturn(true);
@@ -300,6 +327,107 @@ public class PublicationManagerTest {
         assertFalse(onReceiveSemaphore.tryAcquire(1, Math.max(subscriptionLength, 200), TimeUnit.MILLISECONDS));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 3000)
+    public void attributePublicationBurstIsCoalescedToLatestValue() throws Exception {
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(200);
+        qos.setValidityMs(2000);
+        qos.setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+        when(providerDirectory.contains(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(true);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+        for (int i = 0; i < 5; i++) {
+            publicationManager.attributeValueChanged(SUBSCRIPTION_ID, i);
+        }
+
+        // initial value plus the latest value of the burst
+        verify(dispatcher, timeout(1000).times(2)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                               (Set<String>) argThat(contains(PROXY_PARTICIPANT_ID)),
+                                                                               sentPublication.capture(),
+                                                                               any(MessagingQos.class));
+        assertEquals(Lists.newArrayList(4), sentPublication.getValue().getResponse());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 3000)
+    public void attributeValueIsSerializedOnceForAllSubscriptions() throws Exception {
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0);
+        qos.setValidityMs(2000);
+        qos.setPublicationTtlMs(1000);
+        String subscriptionId1 = "subscriptionid_1";
+        String subscriptionId2 = "subscriptionid_2";
+
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+        when(providerDirectory.contains(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(true);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                  PROVIDER_PARTICIPANT_ID,
+                                                  new SubscriptionRequest(subscriptionId1, "location", qos));
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                  PROVIDER_PARTICIPANT_ID,
+                                                  new SubscriptionRequest(subscriptionId2, "location", qos));
+        reset(dispatcher);
+
+        // one listener is registered at the provider for all subscriptions to the attribute
+        ArgumentCaptor<AttributeListener> attributeListener = ArgumentCaptor.forClass(AttributeListener.class);
+        verify(subscriptionPublisher).registerAttributeListener(eq("location"), attributeListener.capture());
+        attributeListener.getValue().attributeValueChanged(valueToPublish);
+
+        ArgumentCaptor<SharedPublicationPayload> sharedPayload = ArgumentCaptor.forClass(SharedPublicationPayload.class);
+        ArgumentCaptor<String> subscriptionId = ArgumentCaptor.forClass(String.class);
+        verify(dispatcher, times(2)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                 (Set<String>) argThat(contains(PROXY_PARTICIPANT_ID)),
+                                                                 sharedPayload.capture(),
+                                                                 subscriptionId.capture(),
+                                                                 any(MessagingQos.class));
+        assertTrue(subscriptionId.getAllValues().containsAll(Lists.newArrayList(subscriptionId1, subscriptionId2)));
+        List<SharedPublicationPayload> payloads = sharedPayload.getAllValues();
+        assertTrue(payloads.get(0) == payloads.get(1));
+        assertEquals(valueToPublish, payloads.get(0).getValue());
+
+        // a new change of the same value object gets a new version
+        attributeListener.getValue().attributeValueChanged(valueToPublish);
+        verify(dispatcher, times(4)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                 (Set<String>) argThat(contains(PROXY_PARTICIPANT_ID)),
+                                                                 sharedPayload.capture(),
+                                                                 anyString(),
+                                                                 any(MessagingQos.class));
+        assertTrue(sharedPayload.getValue().getVersion() > payloads.get(0).getVersion());
+    }
+
+    @Test
+    public void attributeListenerIsUnregisteredWithLastSubscription() throws Exception {
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0);
+        qos.setValidityMs(60000);
+        qos.setPublicationTtlMs(1000);
+        String subscriptionId1 = "subscriptionid_1";
+        String subscriptionId2 = "subscriptionid_2";
+
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+        when(providerDirectory.contains(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(true);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                  PROVIDER_PARTICIPANT_ID,
+                                                  new SubscriptionRequest(subscriptionId1, "location", qos));
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                  PROVIDER_PARTICIPANT_ID,
+                                                  new SubscriptionRequest(subscriptionId2, "location", qos));
+        ArgumentCaptor<AttributeListener> attributeListener = ArgumentCaptor.forClass(AttributeListener.class);
+        verify(subscriptionPublisher).registerAttributeListener(eq("location"), attributeListener.capture());
+
+        publicationManager.stopPublication(subscriptionId1);
+        verify(subscriptionPublisher, never()).unregisterAttributeListener(anyString(), any(AttributeListener.class));
+
+        publicationManager.stopPublication(subscriptionId2);
+        verify(subscriptionPublisher).unregisterAttributeListener(eq("location"), eq(attributeListener.getValue()));
+    }
+
     @SuppressWarnings("unchecked")
     @Test(timeout = 3000)
     public void addPublicationWithExpiryDate() throws Exception {
@@ -467,6 +595,99 @@ public class PublicationManagerTest {
                                                                                       any(MessagingQos.class));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 3000)
+    public void restorePublicationsFromSubscriptionRequestStorage() throws Exception {
+        SubscriptionQos qos = new PeriodicSubscriptionQos().setPeriodMs(100)
+                                                           .setExpiryDateMs(SubscriptionQos.NO_EXPIRY_DATE)
+                                                           .setAlertAfterIntervalMs(500)
+                                                           .setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+        Multimap<String, PersistedSubscriptionRequest> savedSubscriptionRequests = HashMultimap.create();
+        savedSubscriptionRequests.put(PROVIDER_PARTICIPANT_ID, new PersistedSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                                                                PROVIDER_PARTICIPANT_ID,
+                                                                                                subscriptionRequest));
+        SubscriptionRequestStorage subscriptionRequestStorage = mock(SubscriptionRequestStorage.class);
+        when(subscriptionRequestStorage.getSavedSubscriptionRequests()).thenReturn(savedSubscriptionRequests);
+
+        publicationManager = new PublicationManagerImpl(attributePollInterpreter,
+                                                        dispatcher,
+                                                        providerDirectory,
+                                                        cleanupScheduler,
+                                                        timingWheel,
+                                                        subscriptionRequestStorage);
+        publicationManager.entryAdded(PROVIDER_PARTICIPANT_ID, providerContainer);
+
+        verify(dispatcher, timeout(1000).atLeast(2)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                                 (Set<String>) argThat(contains(PROXY_PARTICIPANT_ID)),
+                                                                                 any(SubscriptionPublication.class),
+                                                                                 any(MessagingQos.class));
+    }
+
+    @Test
+    public void subscriptionRequestsAreRemovedFromStorageWhenStoppedOrProviderIsUnregistered() throws Exception {
+        SubscriptionRequestStorage subscriptionRequestStorage = mock(SubscriptionRequestStorage.class);
+        when(subscriptionRequestStorage.getSavedSubscriptionRequests()).thenReturn(HashMultimap.<String, PersistedSubscriptionRequest> create());
+        publicationManager = new PublicationManagerImpl(attributePollInterpreter,
+                                                        dispatcher,
+                                                        providerDirectory,
+                                                        cleanupScheduler,
+                                                        timingWheel,
+                                                        subscriptionRequestStorage);
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0).setExpiryDateMs(SubscriptionQos.NO_EXPIRY_DATE).setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+        when(providerDirectory.contains(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(true);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+        verify(subscriptionRequestStorage).persistSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                                      PROVIDER_PARTICIPANT_ID,
+                                                                      subscriptionRequest);
+
+        publicationManager.stopPublication(SUBSCRIPTION_ID);
+        verify(subscriptionRequestStorage).removeSubscriptionRequest(SUBSCRIPTION_ID);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+        publicationManager.entryRemoved(PROVIDER_PARTICIPANT_ID);
+        verify(subscriptionRequestStorage, times(2)).removeSubscriptionRequest(SUBSCRIPTION_ID);
+    }
+
+    @Test
+    public void restoringSubscriptionRequestsDoesNotGrowTheStorageLog() throws Exception {
+        ObjectMapper objectMapper = Guice.createInjector(new JsonMessageSerializerModule())
+                                         .getInstance(ObjectMapper.class);
+        File logFile = new File(temporaryFolder.getRoot(), "subscriptionRequests");
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0).setExpiryDateMs(SubscriptionQos.NO_EXPIRY_DATE).setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+        publicationManager = new PublicationManagerImpl(attributePollInterpreter,
+                                                        dispatcher,
+                                                        providerDirectory,
+                                                        cleanupScheduler,
+                                                        timingWheel,
+                                                        new FileSubscriptionRequestStorage(logFile.getPath(),
+                                                                                           objectMapper));
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+        publicationManager.shutdown();
+        assertEquals(1, Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8).size());
+
+        for (int restart = 0; restart < 2; restart++) {
+            publicationManager = new PublicationManagerImpl(attributePollInterpreter,
+                                                            dispatcher,
+                                                            providerDirectory,
+                                                            cleanupScheduler,
+                                                            timingWheel,
+                                                            new FileSubscriptionRequestStorage(logFile.getPath(),
+                                                                                               objectMapper));
+            publicationManager.entryAdded(PROVIDER_PARTICIPANT_ID, providerContainer);
+            publicationManager.shutdown();
+            assertEquals(1, Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8).size());
+        }
+        verify(subscriptionPublisher, times(2)).registerAttributeListener(eq("location"),
+                                                                          any(AttributeListener.class));
+    }
+
     @SuppressWarnings("unchecked")
     @Test(timeout = 3000)
     public void removeQueuedSubscriptionsProperly() throws Exception {
@@ -497,7 +718,8 @@ public class PublicationManagerTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
 
         long minInterval_ms = 0;
         long ttl = 1000;
@@ -546,7 +768,8 @@ public class PublicationManagerTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
 
         long minInterval_ms = 0;
         long ttl = 1000;
@@ -604,7 +827,8 @@ public class PublicationManagerTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
 
         long minInterval_ms = 0;
         long ttl = 1000;
@@ -655,7 +879,8 @@ public class PublicationManagerTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
 
         long minInterval_ms = 0;
         long ttl = 1000;
@@ -702,7 +927,8 @@ public class PublicationManagerTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
         int period = 200;
         int testLengthMax = 3000;
         long validityMs = testLengthMax;
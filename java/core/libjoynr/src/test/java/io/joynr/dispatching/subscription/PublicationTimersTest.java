@@ -21,9 +21,13 @@ import static org.hamcrest.Matchers.contains;
  * #L%
  */
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -31,6 +35,8 @@ import static org.mockito.Mockito.when;
 import io.joynr.dispatching.Dispatcher;
 import io.joynr.dispatching.ProviderDirectory;
 import io.joynr.dispatching.RequestCaller;
+import io.joynr.dispatching.TimingWheel;
+import io.joynr.dispatching.subscription.PublicationManagerImpl.PublicationInformation;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.messaging.MessagingQos;
@@ -40,16 +46,22 @@ import io.joynr.provider.ProviderContainer;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +69,7 @@ import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 
 import io.joynr.provider.AbstractSubscriptionPublisher;
+import joynr.OnChangeSubscriptionQos;
 import joynr.PeriodicSubscriptionQos;
 import joynr.SubscriptionPublication;
 import joynr.SubscriptionReply;
@@ -85,12 +98,16 @@ public class PublicationTimersTest {
     private Dispatcher dispatcher;
     @Mock
     private AttributePollInterpreter attributePollInterpreter;
+    @Mock
+    private PublicationManager publicationManager;
 
     private ScheduledExecutorService cleanupScheduler = Executors.newSingleThreadScheduledExecutor();
 
     @Mock
     private SubscriptionTestsProviderImpl provider;
 
+    private TimingWheel timingWheel = new TimingWheel();
+
     @Before
     public void setUp() {
         when(providerContainer.getRequestCaller()).thenReturn(requestCaller);
@@ -103,6 +120,11 @@ public class PublicationTimersTest {
                                                                                       any(Method.class));
     }
 
+    @After
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
     @SuppressWarnings("unchecked")
     @Test(timeout = 4000)
     public void publicationsSentUntilExpiryDate() throws InterruptedException, JoynrSendBufferFullException,
@@ -122,7 +144,8 @@ public class PublicationTimersTest {
         PublicationManager publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                                            dispatcher,
                                                                            providerDirectory,
-                                                                           cleanupScheduler);
+                                                                           cleanupScheduler,
+                                                                           timingWheel);
 
         when(providerDirectory.get(eq(providerId))).thenReturn(providerContainer);
         when(providerDirectory.contains(eq(providerId))).thenReturn(true);
@@ -145,4 +168,57 @@ public class PublicationTimersTest {
         verifyNoMoreInteractions(dispatcher);
     }
 
+    @Test(timeout = 4000)
+    public void changeDuringSendIsPublishedAfterwards() throws Exception {
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(100).setValidityMs(60000).setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest("subscriptionId", attributeName, qos);
+        final PublicationInformation publicationInformation = new PublicationInformation("providerId",
+                                                                                         "proxyId",
+                                                                                         subscriptionRequest);
+        final PublicationTimer publicationTimer = new PublicationTimer(publicationInformation,
+                                                                       null,
+                                                                       providerContainer,
+                                                                       publicationManager,
+                                                                       attributePollInterpreter,
+                                                                       timingWheel);
+        final SubscriptionPublication publication1 = new SubscriptionPublication(Arrays.asList((Object) 1),
+                                                                                 "subscriptionId");
+        SubscriptionPublication publication2 = new SubscriptionPublication(Arrays.asList((Object) 2), "subscriptionId");
+        SubscriptionPublication publication3 = new SubscriptionPublication(Arrays.asList((Object) 3), "subscriptionId");
+
+        final CountDownLatch sendStarted = new CountDownLatch(1);
+        final CountDownLatch releaseSend = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                // the time of the last publication is updated before the send returns
+                publicationInformation.getState().updateTimeOfLastPublication();
+                sendStarted.countDown();
+                releaseSend.await();
+                return null;
+            }
+        }).when(publicationManager).sendSubscriptionPublication(eq(publication1),
+                                                                 any(PublicationInformation.class));
+
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                publicationTimer.sendPublicationNow(publication1);
+            }
+        });
+        sender.start();
+        assertTrue(sendStarted.await(1000, TimeUnit.MILLISECONDS));
+
+        // changes during the send neither block nor get lost
+        publicationTimer.sendPublicationNow(publication2);
+        publicationTimer.sendPublicationNow(publication3);
+        releaseSend.countDown();
+        sender.join();
+
+        verify(publicationManager, timeout(1000)).sendSubscriptionPublication(eq(publication3),
+                                                                               any(PublicationInformation.class));
+        verify(publicationManager, never()).sendSubscriptionPublication(eq(publication2),
+                                                                        any(PublicationInformation.class));
+    }
 }
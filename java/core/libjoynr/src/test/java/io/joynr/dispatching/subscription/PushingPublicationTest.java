@@ -32,6 +32,7 @@ import static org.mockito.Mockito.when;
 import io.joynr.dispatching.Dispatcher;
 import io.joynr.dispatching.ProviderDirectory;
 import io.joynr.dispatching.RequestCallerFactory;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.messaging.MessagingQos;
@@ -52,6 +53,7 @@ import joynr.OnChangeWithKeepAliveSubscriptionQos;
 import joynr.SubscriptionPublication;
 import joynr.SubscriptionRequest;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -99,6 +101,8 @@ public class PushingPublicationTest {
     int testAttribute = 123;
     SubscriptionPublication publication;
 
+    private TimingWheel timingWheel = new TimingWheel();
+
     @Before
     public void setUp() throws JoynrSendBufferFullException, JoynrMessageNotSentException, JsonGenerationException,
                        JsonMappingException, IOException {
@@ -107,7 +111,8 @@ public class PushingPublicationTest {
         publicationManager = new PublicationManagerImpl(attributePollInterpreter,
                                                         dispatcher,
                                                         providerDirectory,
-                                                        cleanupScheduler);
+                                                        cleanupScheduler,
+                                                        timingWheel);
         subscriptionId = "subscriptionId";
         proxyId = "proxyId";
         providerId = "providerId";
@@ -121,6 +126,11 @@ public class PushingPublicationTest {
         setupMocks();
     }
 
+    @After
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
     void setupPureOnChangedQos() {
         OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
         qos.setMinIntervalMs(SubscriptionQos.IGNORE_VALUE).setValidityMs(19000).setPublicationTtlMs(1000);
@@ -37,6 +37,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -51,6 +52,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import io.joynr.dispatching.Dispatcher;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.exceptions.SubscriptionException;
@@ -110,6 +112,8 @@ public class SubscriptionManagerTest {
     @Mock
     private Dispatcher dispatcher;
 
+    private TimingWheel timingWheel = new TimingWheel();
+
     @Before
     public void setUp() {
         subscriptionManager = new SubscriptionManagerImpl(attributeSubscriptionDirectory,
@@ -121,7 +125,8 @@ public class SubscriptionManagerTest {
                                                           subscriptionBroadcastTypes,
                                                           subscriptionFutureMap,
                                                           cleanupScheduler,
-                                                          dispatcher);
+                                                          dispatcher,
+                                                          timingWheel);
         subscriptionId = "testSubscription";
 
         attributeName = "testAttribute";
@@ -153,7 +158,8 @@ public class SubscriptionManagerTest {
                                                             alertInterval_ms,
                                                             attributeSubscriptionCallback,
                                                             subscriptionState,
-                                                            subscriptionId);
+                                                            subscriptionId,
+                                                            timingWheel);
 
         qosSettings = new MessagingQos();
         fromParticipantId = "fromParticipantId";
@@ -161,6 +167,11 @@ public class SubscriptionManagerTest {
         future = new Future<String>();
     }
 
+    @After
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void registerSubscription() throws JoynrSendBufferFullException, JoynrMessageNotSentException,
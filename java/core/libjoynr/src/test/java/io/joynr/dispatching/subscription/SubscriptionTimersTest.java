@@ -25,6 +25,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import io.joynr.dispatching.Dispatcher;
+import io.joynr.dispatching.TimingWheel;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.proxy.Future;
@@ -40,6 +41,7 @@ import java.util.concurrent.ScheduledFuture;
 import joynr.PeriodicSubscriptionQos;
 import joynr.exceptions.PublicationMissedException;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -58,6 +60,7 @@ public class SubscriptionTimersTest {
     private static final Logger LOG = LoggerFactory.getLogger(SubscriptionTimersTest.class);
 
     private SubscriptionManager subscriptionManager;
+    private TimingWheel timingWheel = new TimingWheel();
 
     private ScheduledExecutorService subscriptionEndScheduler;
     ConcurrentMap<String, MissedPublicationTimer> missedPublicationTimers;
@@ -87,13 +90,18 @@ public class SubscriptionTimersTest {
     @Before
     public void setUp() {
         subscriptionEndScheduler = Executors.newScheduledThreadPool(10);
-        subscriptionManager = new SubscriptionManagerImpl(subscriptionEndScheduler, dispatcher);
+        subscriptionManager = new SubscriptionManagerImpl(subscriptionEndScheduler, dispatcher, timingWheel);
         attributeName = "testAttribute";
         fromParticipantId = "fromParticipantId";
         toParticipantId = "toParticipantId";
         future = new Future<String>();
     }
 
+    @After
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
     @Test(timeout = 3000)
     public void missedPublicationRunnableIsStopped() throws InterruptedException, JoynrSendBufferFullException,
                                                     JoynrMessageNotSentException, JsonGenerationException,
@@ -29,6 +29,7 @@ import java.util.Set;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -39,6 +40,7 @@ import com.google.common.collect.Sets;
 import io.joynr.Async;
 import io.joynr.Sync;
 import io.joynr.arbitration.ArbitrationResult;
+import io.joynr.dispatcher.rpc.annotation.JoynrRpcCallback;
 import io.joynr.dispatching.RequestReplyManager;
 import io.joynr.dispatching.rpc.ReplyCallerDirectory;
 import io.joynr.dispatching.subscription.SubscriptionManager;
@@ -52,6 +54,7 @@ import io.joynr.pubsub.SubscriptionQos;
 import io.joynr.pubsub.subscription.AttributeSubscriptionAdapter;
 import io.joynr.pubsub.subscription.AttributeSubscriptionListener;
 import joynr.PeriodicSubscriptionQos;
+import joynr.Request;
 import joynr.system.RoutingTypes.Address;
 import joynr.types.Localisation.GpsPosition;
 import joynr.vehicle.LocalisationSubscriptionInterface;
@@ -94,6 +97,10 @@ public class ConnectorTest {
     @Async
     interface TestAsyncInterface {
         void someMethodwithoutAnnotations(Integer a, String b) throws JsonMappingException;
+
+        Future<String> someMethodWithCallback(Integer a,
+                                              @JoynrRpcCallback(deserializationType = String.class) Callback<String> callback,
+                                              String b);
     }
 
     @Test
@@ -115,6 +122,35 @@ public class ConnectorTest {
 
     }
 
+    @Test
+    public void asyncMethodCallSendsRequestWithoutCallback() throws Exception {
+        ConnectorInvocationHandler connector = createConnector();
+        Method method = TestAsyncInterface.class.getDeclaredMethod("someMethodWithCallback",
+                                                                   Integer.class,
+                                                                   Callback.class,
+                                                                   String.class);
+        @SuppressWarnings("unchecked")
+        Callback<String> callback = Mockito.mock(Callback.class);
+
+        for (int i = 0; i < 2; i++) {
+            connector.executeAsyncMethod(method, new Object[]{ i, callback, "test" + i }, new Future<String>());
+        }
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        Mockito.verify(requestReplyManager, times(2)).sendRequest(Mockito.eq(fromParticipantId),
+                                                                  Mockito.eq(toParticipantId),
+                                                                  requestCaptor.capture(),
+                                                                  Mockito.eq(qosSettings));
+        for (int i = 0; i < 2; i++) {
+            Request request = requestCaptor.getAllValues().get(i);
+            Assert.assertEquals("someMethodWithCallback", request.getMethodName());
+            Assert.assertArrayEquals(new Object[]{ i, "test" + i }, request.getParams());
+            Assert.assertArrayEquals(new String[]{ "Integer", "String" }, request.getParamDatatypes());
+        }
+        Assert.assertNotEquals(requestCaptor.getAllValues().get(0).getRequestReplyId(),
+                               requestCaptor.getAllValues().get(1).getRequestReplyId());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void subscriptionMethodCallWithNoExpiryDate() throws JoynrIllegalStateException {
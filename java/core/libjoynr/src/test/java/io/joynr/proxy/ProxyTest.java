@@ -37,6 +37,8 @@ import java.lang.reflect.Field;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -90,6 +92,7 @@ import joynr.vehicle.NavigationBroadcastInterface.LocationUpdateBroadcastListene
 import joynr.vehicle.NavigationBroadcastInterface.LocationUpdateSelectiveBroadcastFilterParameters;
 import joynr.vehicle.NavigationBroadcastInterface.LocationUpdateSelectiveBroadcastListener;
 import joynr.vehicle.NavigationProxy;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -133,6 +136,8 @@ public class ProxyTest {
 
     private ProxyBuilderFactory proxyBuilderFactory;
 
+    private ScheduledExecutorService arbitrationRetryScheduler;
+
     private enum ApplicationErrors {
         ERROR_VALUE_1, ERROR_VALUE_2, ERROR_VALUE_3
     }
@@ -159,6 +164,11 @@ public class ProxyTest {
         public static final String INTERFACE_NAME = "TestInterface";
     }
 
+    @After
+    public void tearDown() {
+        arbitrationRetryScheduler.shutdownNow();
+    }
+
     @SuppressWarnings("unchecked")
     @Before
     public void setUp() throws Exception {
@@ -257,6 +267,11 @@ public class ProxyTest {
         discoveryEntryVersionFilterField.setAccessible(true);
         discoveryEntryVersionFilterField.set(ArbitratorFactory.class, discoveryEntryVersionFilter);
 
+        arbitrationRetryScheduler = Executors.newSingleThreadScheduledExecutor();
+        Field retrySchedulerField = ArbitratorFactory.class.getDeclaredField("retryScheduler");
+        retrySchedulerField.setAccessible(true);
+        retrySchedulerField.set(ArbitratorFactory.class, arbitrationRetryScheduler);
+
         doAnswer(new Answer<Set<DiscoveryEntry>>() {
             @Override
             public Set<DiscoveryEntry> answer(InvocationOnMock invocation) throws Throwable {
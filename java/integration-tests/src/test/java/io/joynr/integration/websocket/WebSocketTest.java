@@ -90,6 +90,7 @@ public class WebSocketTest {
     private void configure(int maxMessageSize, long reconnectDelay, long websocketIdleTimeout) {
         ObjectMapper objectMapper = new ObjectMapper();
         WebSocketEndpointFactory webSocketJettyServerFactory = new WebSocketJettyServerFactory(maxMessageSize,
+                                                                                               1000,
                                                                                                objectMapper);
         ccWebSocketMessagingSkeleton = new WebSocketMessagingSkeleton(serverAddress,
                                                                       webSocketJettyServerFactory,
@@ -101,6 +102,7 @@ public class WebSocketTest {
                                                                       maxMessageSize,
                                                                       reconnectDelay,
                                                                       websocketIdleTimeout,
+                                                                      1000,
                                                                       objectMapper);
         webSocketMessagingStub = new WebSocketMessagingStub(serverAddress,
                                                             webSocketJettyClientFactory.create(serverAddress),
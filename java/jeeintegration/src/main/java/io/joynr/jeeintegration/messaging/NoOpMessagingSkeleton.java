@@ -19,10 +19,12 @@ package io.joynr.jeeintegration.messaging;
  * #L%
  */
 
+import java.util.List;
+
 import com.google.inject.Inject;
 
 import io.joynr.messaging.FailureAction;
-import io.joynr.messaging.IMessagingSkeleton;
+import io.joynr.messaging.mqtt.IMqttMessagingSkeleton;
 import io.joynr.messaging.mqtt.JoynrMqttClient;
 import io.joynr.messaging.mqtt.MqttClientFactory;
 import joynr.JoynrMessage;
@@ -32,7 +34,7 @@ import joynr.JoynrMessage;
  * for the MqttAddress type, we bind a dummy implementation in this module which simply does nothing (no operation -
  * NoOp).
  */
-public class NoOpMessagingSkeleton implements IMessagingSkeleton {
+public class NoOpMessagingSkeleton implements IMqttMessagingSkeleton {
 
     private MqttClientFactory mqttClientFactory;
     private JoynrMqttClient mqttClient;
@@ -46,10 +48,18 @@ public class NoOpMessagingSkeleton implements IMessagingSkeleton {
     public void transmit(JoynrMessage message, FailureAction failureAction) {
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
     }
 
+    @Override
+    public void transmit(byte[] serializedMessage, FailureAction failureAction) {
+    }
+
     @Override
     public void init() {
         mqttClient = mqttClientFactory.create();
@@ -21,7 +21,7 @@ package io.joynr.messaging.bounceproxy.controller;
  */
 
 import io.joynr.messaging.bounceproxy.controller.strategy.ChannelAssignmentStrategy;
-import io.joynr.messaging.bounceproxy.controller.strategy.RoundRobinAssignmentStrategy;
+import io.joynr.messaging.bounceproxy.controller.strategy.LoadAwareAssignmentStrategy;
 import io.joynr.messaging.service.ChannelService;
 import io.joynr.messaging.service.MonitoringService;
 import io.joynr.messaging.system.SystemTimeProvider;
@@ -55,7 +55,7 @@ public class BounceProxyControllerModule extends AbstractModule {
 
         bind(TimestampProvider.class).to(SystemTimeProvider.class);
 
-        bind(ChannelAssignmentStrategy.class).to(RoundRobinAssignmentStrategy.class);
+        bind(ChannelAssignmentStrategy.class).to(LoadAwareAssignmentStrategy.class);
     }
 
     @Provides
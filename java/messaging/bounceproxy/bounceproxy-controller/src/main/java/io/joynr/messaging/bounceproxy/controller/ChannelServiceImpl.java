@@ -24,6 +24,7 @@ import io.joynr.exceptions.JoynrCommunicationException;
 import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyDirectory;
 import io.joynr.messaging.bounceproxy.controller.directory.ChannelDirectory;
+import io.joynr.messaging.bounceproxy.controller.strategy.BounceProxyLoadIndex;
 import io.joynr.messaging.bounceproxy.controller.strategy.ChannelAssignmentStrategy;
 import io.joynr.messaging.info.Channel;
 import io.joynr.messaging.info.ChannelInformation;
@@ -59,6 +60,9 @@ public class ChannelServiceImpl implements ChannelService {
     @Inject
     private ChannelAssignmentStrategy strategy;
 
+    @Inject
+    private BounceProxyLoadIndex bounceProxyLoadIndex;
+
     @Inject
     RemoteBounceProxyFacade bpFacade;
 
@@ -125,6 +129,7 @@ public class ChannelServiceImpl implements ChannelService {
 
             channelDirectory.addChannel(channel);
             bounceProxyDirectory.updateChannelAssignment(ccid, bpInfo);
+            bounceProxyLoadIndex.channelAssigned(bpInfo.getId());
 
             return channel;
 
@@ -22,6 +22,7 @@ package io.joynr.messaging.bounceproxy.controller;
 
 import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyDirectory;
 import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyRecord;
+import io.joynr.messaging.bounceproxy.controller.strategy.BounceProxyLoadIndex;
 import io.joynr.messaging.info.BounceProxyStatus;
 import io.joynr.messaging.info.BounceProxyStatusInformation;
 import io.joynr.messaging.info.ControlledBounceProxyInformation;
@@ -44,6 +45,9 @@ public class MonitoringServiceImpl implements MonitoringService {
     @Inject
     private BounceProxyDirectory bounceProxyDirectory;
 
+    @Inject
+    private BounceProxyLoadIndex bounceProxyLoadIndex;
+
     @Override
     public List<BounceProxyStatusInformation> getRegisteredBounceProxies() {
         return bounceProxyDirectory.getBounceProxyStatusInformation();
@@ -68,6 +72,9 @@ public class MonitoringServiceImpl implements MonitoringService {
         bounceProxyRecord.getInfo().setLocationForBpc(URI.create(urlForBpc));
         bounceProxyRecord.setStatus(BounceProxyStatus.ALIVE);
         bounceProxyDirectory.updateBounceProxy(bounceProxyRecord);
+
+        // a bounce proxy that registers again has been restarted and lost its long polls
+        bounceProxyLoadIndex.reset(bpId);
     }
 
     @Override
@@ -77,6 +84,8 @@ public class MonitoringServiceImpl implements MonitoringService {
         bounceProxyRecord.setPerformanceMeasures(performanceMeasures);
         bounceProxyRecord.setStatus(BounceProxyStatus.ACTIVE);
         bounceProxyDirectory.updateBounceProxy(bounceProxyRecord);
+
+        bounceProxyLoadIndex.updatePerformanceMeasures(bpId, performanceMeasures);
     }
 
     @Override
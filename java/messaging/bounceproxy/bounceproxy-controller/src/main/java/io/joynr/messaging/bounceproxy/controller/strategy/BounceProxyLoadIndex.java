@@ -0,0 +1,122 @@
+package io.joynr.messaging.bounceproxy.controller.strategy;
+
+/*
+ * #%L
+ * joynr::java::messaging::bounceproxy::bounceproxy-controller
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joynr.messaging.info.PerformanceMeasures;
+import io.joynr.messaging.info.PerformanceMeasures.Key;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.inject.Singleton;
+
+/**
+ * Keeps track of the load of each bounce proxy instance.<br>
+ * 
+ * The load is the number of active long polls as last reported by the bounce
+ * proxy, or the number of assigned channels if the bounce proxy does not report
+ * long polls. Channels that were assigned after the last report are added on
+ * top, so that a burst of channel creations between two reports doesn't go to
+ * the same instance.
+ * 
+ */
+@Singleton
+public class BounceProxyLoadIndex {
+
+    private final ConcurrentMap<String, Load> loads = new ConcurrentHashMap<String, Load>();
+
+    /**
+     * Updates the reported load of a bounce proxy from its performance
+     * measures.
+     * 
+     * @param bpId
+     *            the identifier of the bounce proxy
+     * @param performanceMeasures
+     *            the performance measures as sent by the bounce proxy
+     */
+    public void updatePerformanceMeasures(String bpId, PerformanceMeasures performanceMeasures) {
+        Integer reportedLoad = performanceMeasures.getMeasures().get(Key.ACTIVE_LONGPOLL_COUNT);
+        if (reportedLoad == null) {
+            reportedLoad = performanceMeasures.getMeasures().get(Key.ASSIGNED_CHANNELS_COUNT);
+        }
+        if (reportedLoad == null) {
+            return;
+        }
+        Load load = getOrCreateLoad(bpId);
+        load.reportedLoad = reportedLoad;
+        load.assignedSinceReport.set(0);
+    }
+
+    /**
+     * Registers that a channel was assigned to a bounce proxy.
+     * 
+     * @param bpId
+     *            the identifier of the bounce proxy
+     */
+    public void channelAssigned(String bpId) {
+        getOrCreateLoad(bpId).assignedSinceReport.incrementAndGet();
+    }
+
+    /**
+     * Forgets the load of a bounce proxy, e.g. because it was restarted and
+     * doesn't handle any long polls anymore.
+     * 
+     * @param bpId
+     *            the identifier of the bounce proxy
+     */
+    public void reset(String bpId) {
+        loads.remove(bpId);
+    }
+
+    /**
+     * Returns the current load of a bounce proxy.
+     * 
+     * @param bpId
+     *            the identifier of the bounce proxy
+     * @return the estimated load or 0 if nothing is known about the bounce
+     *         proxy yet
+     */
+    public int getLoad(String bpId) {
+        Load load = loads.get(bpId);
+        if (load == null) {
+            return 0;
+        }
+        return load.reportedLoad + load.assignedSinceReport.get();
+    }
+
+    private Load getOrCreateLoad(String bpId) {
+        Load load = loads.get(bpId);
+        if (load == null) {
+            Load newLoad = new Load();
+            load = loads.putIfAbsent(bpId, newLoad);
+            if (load == null) {
+                load = newLoad;
+            }
+        }
+        return load;
+    }
+
+    private static class Load {
+        private volatile int reportedLoad = 0;
+        private final AtomicInteger assignedSinceReport = new AtomicInteger();
+    }
+}
@@ -0,0 +1,102 @@
+package io.joynr.messaging.bounceproxy.controller.strategy;
+
+/*
+ * #%L
+ * joynr::java::messaging::bounceproxy::bounceproxy-controller
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joynr.exceptions.JoynrChannelNotAssignableException;
+import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyDirectory;
+import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyRecord;
+import io.joynr.messaging.info.ControlledBounceProxyInformation;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.inject.Inject;
+
+/**
+ * Assignment strategy that assigns channels to lightly loaded bounce proxy
+ * instances.<br>
+ * 
+ * Following the "power of two choices" scheme, two assignable bounce proxies
+ * are picked at random and the channel is assigned to the one with the lower
+ * load as tracked by the {@link BounceProxyLoadIndex}. This spreads the
+ * channels evenly without having to sort all instances for every channel, and
+ * it avoids that all channels created between two performance reports go to
+ * the same instance.
+ * 
+ */
+public class LoadAwareAssignmentStrategy implements ChannelAssignmentStrategy {
+
+    private final BounceProxyDirectory bpDirectory;
+    private final BounceProxyLoadIndex loadIndex;
+    private final Random random;
+
+    @Inject
+    public LoadAwareAssignmentStrategy(BounceProxyDirectory bpDirectory, BounceProxyLoadIndex loadIndex) {
+        this(bpDirectory, loadIndex, new Random());
+    }
+
+    LoadAwareAssignmentStrategy(BounceProxyDirectory bpDirectory, BounceProxyLoadIndex loadIndex, Random random) {
+        this.bpDirectory = bpDirectory;
+        this.loadIndex = loadIndex;
+        this.random = random;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * io.joynr.messaging.bounceproxy.controller.strategy.ChannelAssignmentStrategy
+     * #calculateBounceProxy(java.lang.String)
+     */
+    @Override
+    public ControlledBounceProxyInformation calculateBounceProxy(String ccid) {
+
+        List<BounceProxyRecord> records = bpDirectory.getAssignableBounceProxies();
+
+        if (records == null || records.isEmpty()) {
+            throw new JoynrChannelNotAssignableException("No bounce proxy instances available", ccid);
+        }
+
+        if (records.size() == 1) {
+            return records.get(0).getInfo();
+        }
+
+        int firstIndex = random.nextInt(records.size());
+        int secondIndex = random.nextInt(records.size() - 1);
+        if (secondIndex >= firstIndex) {
+            secondIndex++;
+        }
+
+        BounceProxyRecord first = records.get(firstIndex);
+        BounceProxyRecord second = records.get(secondIndex);
+        return isLessLoaded(first, second) ? first.getInfo() : second.getInfo();
+    }
+
+    private boolean isLessLoaded(BounceProxyRecord first, BounceProxyRecord second) {
+        int firstLoad = loadIndex.getLoad(first.getBounceProxyId());
+        int secondLoad = loadIndex.getLoad(second.getBounceProxyId());
+        if (firstLoad != secondLoad) {
+            return firstLoad < secondLoad;
+        }
+        // same load, prefer the instance that has been waiting longer for a channel
+        return first.getLastAssignedTimestamp() <= second.getLastAssignedTimestamp();
+    }
+}
@@ -0,0 +1,182 @@
+package io.joynr.messaging.bounceproxy.controller.strategy;
+
+/*
+ * #%L
+ * joynr::java::messaging::bounceproxy::bounceproxy-controller
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joynr.exceptions.JoynrChannelNotAssignableException;
+import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyDirectory;
+import io.joynr.messaging.bounceproxy.controller.directory.BounceProxyRecord;
+import io.joynr.messaging.info.BounceProxyInformation;
+import io.joynr.messaging.info.ControlledBounceProxyInformation;
+import io.joynr.messaging.info.PerformanceMeasures;
+import io.joynr.messaging.info.PerformanceMeasures.Key;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadAwareAssignmentTest {
+
+    private LoadAwareAssignmentStrategy assignmentStrategy;
+
+    private BounceProxyLoadIndex loadIndex;
+
+    @Mock
+    private BounceProxyDirectory directoryMock;
+
+    @Before
+    public void setUp() throws Exception {
+        loadIndex = new BounceProxyLoadIndex();
+        assignmentStrategy = new LoadAwareAssignmentStrategy(directoryMock, loadIndex, new Random(42));
+    }
+
+    @Test
+    public void testAssignmentWhenBounceProxyListIsEmpty() {
+
+        Mockito.when(directoryMock.getAssignableBounceProxies()).thenReturn(new LinkedList<BounceProxyRecord>());
+
+        try {
+            assignmentStrategy.calculateBounceProxy("channel-123");
+            Assert.fail();
+        } catch (JoynrChannelNotAssignableException e) {
+            Assert.assertEquals("channel-123", e.getChannelId());
+        }
+    }
+
+    @Test
+    public void testAssignmentWithSingleBounceProxy() {
+
+        LinkedList<BounceProxyRecord> bpList = new LinkedList<BounceProxyRecord>();
+        bpList.add(createBounceProxyRecord("X.Y"));
+        loadIndex.updatePerformanceMeasures("X.Y", createPerformanceMeasures(1000));
+
+        Mockito.when(directoryMock.getAssignableBounceProxies()).thenReturn(bpList);
+
+        BounceProxyInformation bounceProxy = assignmentStrategy.calculateBounceProxy("channel-123");
+
+        Assert.assertEquals("X.Y", bounceProxy.getId());
+    }
+
+    @Test
+    public void testAssignmentToLessLoadedBounceProxy() {
+
+        LinkedList<BounceProxyRecord> bpList = new LinkedList<BounceProxyRecord>();
+        bpList.add(createBounceProxyRecord("X1.Y1"));
+        bpList.add(createBounceProxyRecord("X2.Y2"));
+        loadIndex.updatePerformanceMeasures("X1.Y1", createPerformanceMeasures(20));
+        loadIndex.updatePerformanceMeasures("X2.Y2", createPerformanceMeasures(10));
+
+        Mockito.when(directoryMock.getAssignableBounceProxies()).thenReturn(bpList);
+
+        for (int i = 0; i < 10; i++) {
+            BounceProxyInformation bounceProxy = assignmentStrategy.calculateBounceProxy("channel-" + i);
+            Assert.assertEquals("X2.Y2", bounceProxy.getId());
+            loadIndex.channelAssigned(bounceProxy.getId());
+        }
+        // both instances have the same load now
+        Assert.assertEquals(loadIndex.getLoad("X1.Y1"), loadIndex.getLoad("X2.Y2"));
+    }
+
+    @Test
+    public void testRestartedBounceProxyLosesItsLoad() {
+
+        loadIndex.updatePerformanceMeasures("X.Y", createPerformanceMeasures(50));
+        loadIndex.channelAssigned("X.Y");
+        Assert.assertEquals(51, loadIndex.getLoad("X.Y"));
+
+        loadIndex.updatePerformanceMeasures("X.Y", createPerformanceMeasures(52));
+        Assert.assertEquals(52, loadIndex.getLoad("X.Y"));
+
+        loadIndex.reset("X.Y");
+        Assert.assertEquals(0, loadIndex.getLoad("X.Y"));
+    }
+
+    /**
+     * Simulates a rolling restart: half of the bounce proxies come back
+     * without any long polls while the others still carry theirs. Channels
+     * are created in bursts with performance reports in between. At the end,
+     * every instance should handle about the same number of long polls.
+     */
+    @Test
+    public void testBalancedSpreadAfterRollingRestart() {
+
+        final int bounceProxyCount = 6;
+        final int initialLongPollsOfRunningInstances = 600;
+        final int channelsToCreate = 3600;
+        final int channelsPerReport = 200;
+
+        LinkedList<BounceProxyRecord> bpList = new LinkedList<BounceProxyRecord>();
+        Map<String, Integer> activeLongPolls = new HashMap<String, Integer>();
+        for (int i = 0; i < bounceProxyCount; i++) {
+            String bpId = "X" + i + ".Y" + i;
+            bpList.add(createBounceProxyRecord(bpId));
+            activeLongPolls.put(bpId, i % 2 == 0 ? initialLongPollsOfRunningInstances : 0);
+        }
+        Mockito.when(directoryMock.getAssignableBounceProxies()).thenReturn(bpList);
+        reportLongPolls(activeLongPolls);
+
+        for (int i = 0; i < channelsToCreate; i++) {
+            String bpId = assignmentStrategy.calculateBounceProxy("channel-" + i).getId();
+            loadIndex.channelAssigned(bpId);
+            activeLongPolls.put(bpId, activeLongPolls.get(bpId) + 1);
+            if (i % channelsPerReport == 0) {
+                reportLongPolls(activeLongPolls);
+            }
+        }
+
+        int expectedLongPolls = (channelsToCreate + bounceProxyCount / 2 * initialLongPollsOfRunningInstances)
+                / bounceProxyCount;
+        for (Map.Entry<String, Integer> longPolls : activeLongPolls.entrySet()) {
+            Assert.assertEquals("long polls of " + longPolls.getKey(),
+                                expectedLongPolls,
+                                longPolls.getValue().intValue(),
+                                expectedLongPolls * 0.02);
+        }
+    }
+
+    private void reportLongPolls(Map<String, Integer> activeLongPolls) {
+        for (Map.Entry<String, Integer> longPolls : activeLongPolls.entrySet()) {
+            loadIndex.updatePerformanceMeasures(longPolls.getKey(), createPerformanceMeasures(longPolls.getValue()));
+        }
+    }
+
+    private PerformanceMeasures createPerformanceMeasures(int activeLongPolls) {
+        PerformanceMeasures performanceMeasures = new PerformanceMeasures();
+        performanceMeasures.addMeasure(Key.ACTIVE_LONGPOLL_COUNT, activeLongPolls);
+        return performanceMeasures;
+    }
+
+    private BounceProxyRecord createBounceProxyRecord(String bpId) {
+
+        ControlledBounceProxyInformation bpInfo = new ControlledBounceProxyInformation(bpId, null);
+        BounceProxyRecord record = new BounceProxyRecord(bpInfo);
+        return record;
+    }
+}
@@ -1,8 +1,12 @@
 package io.joynr.messaging;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * #%L
@@ -25,22 +29,161 @@ import java.util.Map;
 
 import joynr.system.RoutingTypes.Address;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Creates the messaging stubs of one address type and caches them per address.
+ * <p>
+ * The cache is a concurrent map, so looking up the stub of a known address takes no lock. Stubs which have not been
+ * used for {@link ConfigurableMessagingSettings#PROPERTY_MESSAGING_STUB_IDLE_TIMEOUT_MS} are evicted, so addresses of
+ * clients and channels which are gone don't pile up. Eviction is done by the callers of {@link #create(Address)}, at
+ * most once per half idle timeout.
+ */
 abstract public class AbstractMiddlewareMessagingStubFactory<S extends IMessaging, A extends Address> {
 
-    private Map<A, S> stubMap = new HashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(AbstractMiddlewareMessagingStubFactory.class);
+    private static final long DEFAULT_STUB_IDLE_TIMEOUT_MS = 10 * 60 * 1000L;
+
+    @Inject(optional = true)
+    @Named(ConfigurableMessagingSettings.PROPERTY_MESSAGING_STUB_IDLE_TIMEOUT_MS)
+    private long stubIdleTimeoutMs = DEFAULT_STUB_IDLE_TIMEOUT_MS;
+
+    private final ConcurrentMap<A, CachedStub<S>> stubMap = new ConcurrentHashMap<>();
+    private final AtomicLong nextEvictionMs = new AtomicLong();
+    private final AtomicLong createdStubCount = new AtomicLong();
+    private final AtomicLong evictedStubCount = new AtomicLong();
 
     protected abstract  S createInternal(A address);
 
-    public synchronized IMessaging create(A address) {
-        if (!stubMap.containsKey(address)) {
-            stubMap.put(address, createInternal(address));
+    /**
+     * Called after an idle stub was evicted from the cache. Subclasses whose stubs hold transport resources of their
+     * own release them here. Resources shared by all stubs of a factory are released by {@link #shutdown()}.
+     */
+    protected void releaseInternal(S messagingStub) {
+        // nothing to do by default
+    }
+
+    public IMessaging create(A address) {
+        long now = System.currentTimeMillis();
+        evictIdleStubsIfDue(now);
+        while (true) {
+            CachedStub<S> cachedStub = stubMap.get(address);
+            if (cachedStub == null) {
+                CachedStub<S> newStub = new CachedStub<S>(createInternal(address), now);
+                cachedStub = stubMap.putIfAbsent(address, newStub);
+                if (cachedStub == null) {
+                    createdStubCount.incrementAndGet();
+                    return newStub.messagingStub;
+                }
+                // another thread created a stub for the same address first
+                releaseInternal(newStub.messagingStub);
+            }
+            if (cachedStub.markUsed(now)) {
+                return cachedStub.messagingStub;
+            }
+            // the stub has been evicted after it was looked up; the evicting thread releases it
+            stubMap.remove(address, cachedStub);
+        }
+    }
+
+    private void evictIdleStubsIfDue(long now) {
+        long due = nextEvictionMs.get();
+        if (now >= due && nextEvictionMs.compareAndSet(due, now + Math.max(1, stubIdleTimeoutMs / 2))) {
+            evictIdleStubs(now - stubIdleTimeoutMs);
+        }
+    }
+
+    /**
+     * Removes all stubs which were last used before the given time.
+     */
+    void evictIdleStubs(long unusedSinceMs) {
+        Iterator<Map.Entry<A, CachedStub<S>>> entries = stubMap.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<A, CachedStub<S>> entry = entries.next();
+            CachedStub<S> cachedStub = entry.getValue();
+            if (cachedStub.markEvicted(unusedSinceMs)) {
+                stubMap.remove(entry.getKey(), cachedStub);
+                evictedStubCount.incrementAndGet();
+                logger.debug("evicted idle messaging stub for {}", entry.getKey());
+                try {
+                    releaseInternal(cachedStub.messagingStub);
+                } catch (RuntimeException e) {
+                    logger.error("error releasing messaging stub for {}", entry.getKey(), e);
+                }
+            }
         }
-        return stubMap.get(address);
     }
 
     protected Collection<S> getAllMessagingStubs() {
-        return stubMap.values();
+        Collection<S> messagingStubs = new ArrayList<>(stubMap.size());
+        for (CachedStub<S> cachedStub : stubMap.values()) {
+            messagingStubs.add(cachedStub.messagingStub);
+        }
+        return messagingStubs;
+    }
+
+    /**
+     * @return the number of stubs currently cached
+     */
+    public int getCachedStubCount() {
+        return stubMap.size();
+    }
+
+    /**
+     * @return the number of stubs created since startup. Sampled periodically, it yields the create rate.
+     */
+    public long getCreatedStubCount() {
+        return createdStubCount.get();
+    }
+
+    /**
+     * @return the number of idle stubs evicted since startup
+     */
+    public long getEvictedStubCount() {
+        return evictedStubCount.get();
     }
 
     public abstract void shutdown();
+
+    /**
+     * A cached stub and the time it was last used. Using and evicting a stub race on that time, so a stub is either
+     * handed out or evicted, never both.
+     */
+    private static class CachedStub<S> {
+        private static final long EVICTED = -1;
+
+        private final S messagingStub;
+        private final AtomicLong lastUsedMs;
+
+        CachedStub(S messagingStub, long createdMs) {
+            this.messagingStub = messagingStub;
+            this.lastUsedMs = new AtomicLong(createdMs);
+        }
+
+        /**
+         * @return false if the stub has already been evicted and must not be used anymore
+         */
+        boolean markUsed(long now) {
+            long lastUsed;
+            do {
+                lastUsed = lastUsedMs.get();
+                if (lastUsed == EVICTED) {
+                    return false;
+                }
+            } while (!lastUsedMs.compareAndSet(lastUsed, Math.max(lastUsed, now)));
+            return true;
+        }
+
+        /**
+         * @return true if the stub was last used before the given time and has been marked as evicted by this call
+         */
+        boolean markEvicted(long unusedSinceMs) {
+            long lastUsed = lastUsedMs.get();
+            return lastUsed != EVICTED && lastUsed < unusedSinceMs && lastUsedMs.compareAndSet(lastUsed, EVICTED);
+        }
+    }
 }
@@ -51,11 +51,17 @@ public class ConfigurableMessagingSettings implements MessagingSettings {
     public static final String PROPERTY_DELETE_CHANNEL_RETRY_INTERVAL_MS = "joynr.messaging.deletechannelretryintervalms";
     public static final String PROPERTY_SEND_MSG_RETRY_INTERVAL_MS = "joynr.messaging.sendmsgretryintervalms";
     public static final String PROPERTY_LONG_POLL_RETRY_INTERVAL_MS = "joynr.messaging.longpollretryintervalms";
+    public static final String PROPERTY_LONG_POLL_RECEIVER_THREADS = "joynr.messaging.longpollreceiverthreads";
+    public static final String PROPERTY_LONG_POLL_RECEIVER_QUEUE_SIZE = "joynr.messaging.longpollreceiverqueuesize";
     public static final String PROPERTY_MAX_RETRY_COUNT = "joynr.messaging.maxretriescount";
     public static final String PROPERTY_PARTICIPANTIDS_PERSISISTENCE_FILE = "joynr.discovery.participantids_persistence_file";
     public static final String DEFAULT_PARTICIPANTIDS_PERSISTENCE_FILE = "joynr_participantIds.properties";
 
     public static final String PROPERTY_MESSAGING_MAXIMUM_PARALLEL_SENDS = "joynr.messaging.maximumparallelsends";
+    public static final String PROPERTY_MESSAGING_MAXIMUM_QUEUED_MESSAGES_PER_ADDRESS = "joynr.messaging.maximumqueuedmessagesperaddress";
+    public static final String PROPERTY_MESSAGING_MAXIMUM_PARALLEL_SENDS_PER_ADDRESS = "joynr.messaging.maximumparallelsendsperaddress";
+    public static final String PROPERTY_MESSAGING_UNRESOLVED_NEXT_HOP_CACHE_MS = "joynr.messaging.unresolvednexthopcachems";
+    public static final String PROPERTY_MESSAGING_STUB_IDLE_TIMEOUT_MS = "joynr.messaging.stubidletimeoutms";
     public static final String PROPERTY_HOSTS_FILENAME = "joynr.messaging.hostsfilename";
 
     public static final String PROPERTY_MAX_MESSAGE_SIZE = "joynr.messaging.maxmessagesize";
@@ -1,5 +1,7 @@
 package io.joynr.messaging;
 
+import java.util.List;
+
 import joynr.JoynrMessage;
 
 /*
@@ -24,6 +26,17 @@ import joynr.JoynrMessage;
 public interface IMessaging {
     public void transmit(JoynrMessage message, FailureAction failureAction);
 
+    /**
+     * Transmits several messages for the same address at once. Implementations may combine the messages into fewer
+     * network writes. Failures are reported per message through its failure action; a message which fails must not
+     * keep the other messages of the batch from being transmitted.
+     *
+     * @param messages the messages to be transmitted, in sending order
+     * @param failureActions the failure actions, failureActions.get(i) is executed if messages.get(i) could not be
+     *            transmitted
+     */
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions);
+
     public void transmit(String serializedMessage, FailureAction failureAction);
 
 }
@@ -28,4 +28,12 @@ public interface JoynrMessageSerializer {
 
     JoynrMessage deserialize(String serializedMessage) throws JoynrSerializationException;
 
+    /**
+     * Serializes the message into the wire format of this serializer. Transports which carry binary frames (e.g.
+     * MQTT) should prefer this method over {@link #serialize(JoynrMessage)}.
+     */
+    byte[] serializeToBytes(JoynrMessage message) throws JoynrSerializationException;
+
+    JoynrMessage deserialize(byte[] serializedMessage) throws JoynrSerializationException;
+
 }
@@ -23,6 +23,8 @@ import io.joynr.messaging.FailureAction;
 
 import io.joynr.messaging.IMessaging;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import joynr.JoynrMessage;
@@ -41,6 +43,11 @@ public class InProcessMessagingStub implements IMessaging {
         skeleton.transmit(message, failureAction);
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        skeleton.transmit(messages, failureActions);
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         throw new IllegalStateException("InProcess messaging should not send serialized messages");
@@ -29,12 +29,21 @@ import io.joynr.messaging.IMessaging;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.CheckForNull;
-import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import joynr.JoynrMessage;
@@ -42,10 +51,25 @@ import joynr.system.RoutingTypes.Address;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
+/**
+ * Routes messages to their next hop.
+ * <p>
+ * Outgoing messages are put into a bounded queue per resolved {@link Address}. Each queue is drained by at most
+ * {@link ConfigurableMessagingSettings#PROPERTY_MESSAGING_MAXIMUM_PARALLEL_SENDS_PER_ADDRESS} threads of the message
+ * scheduler at a time, so an unreachable address can neither occupy all scheduler threads nor delay delivery to other
+ * addresses. Address queues are removed as soon as they are empty and no drain is active. Messages which have to be
+ * retried are parked in a separate delay queue and are put back into their address queue once their retry delay has
+ * elapsed; a single sweep is scheduled for the earliest due retry.
+ */
 public class MessageRouterImpl implements MessageRouter {
     private static final long TERMINATION_TIMEOUT = 5000;
+    private static final int DEFAULT_MAXIMUM_QUEUED_MESSAGES_PER_ADDRESS = 1000;
+    private static final int DEFAULT_MAXIMUM_PARALLEL_SENDS_PER_ADDRESS = 1;
+    // maximum number of messages sent as one batch by a drain run before the queue gives its thread back
+    private static final int MAXIMUM_MESSAGES_PER_DRAIN = 32;
 
     private Logger logger = LoggerFactory.getLogger(MessageRouterImpl.class);
     private final RoutingTable routingTable;
@@ -55,6 +79,27 @@ public class MessageRouterImpl implements MessageRouter {
     private long sendMsgRetryIntervalMs;
     private MessagingStubFactory messagingStubFactory;
 
+    @Inject(optional = true)
+    @Named(ConfigurableMessagingSettings.PROPERTY_MESSAGING_MAXIMUM_QUEUED_MESSAGES_PER_ADDRESS)
+    private int maximumQueuedMessagesPerAddress = DEFAULT_MAXIMUM_QUEUED_MESSAGES_PER_ADDRESS;
+
+    @Inject(optional = true)
+    @Named(ConfigurableMessagingSettings.PROPERTY_MESSAGING_MAXIMUM_PARALLEL_SENDS_PER_ADDRESS)
+    private int maximumParallelSendsPerAddress = DEFAULT_MAXIMUM_PARALLEL_SENDS_PER_ADDRESS;
+
+    private final ConcurrentMap<Address, AddressQueue> addressQueues = new ConcurrentHashMap<>();
+    private final DelayQueue<RoutedMessage> retryQueue = new DelayQueue<>();
+    private final Runnable retrySweeper = new Runnable() {
+        @Override
+        public void run() {
+            sweepRetryQueue();
+        }
+    };
+    private final Object retrySweepLock = new Object();
+    // the pending sweep of the retry queue and the time it is due at, guarded by retrySweepLock
+    private ScheduledFuture<?> retrySweep;
+    private long retrySweepDueTimeMs;
+
     @Inject
     @Singleton
     public MessageRouterImpl(RoutingTable routingTable,
@@ -82,6 +127,27 @@ public class MessageRouterImpl implements MessageRouter {
         routingTable.put(participantId, address);
     }
 
+    /**
+     * Receives the result of an address resolution started by {@link #resolveAddress(String, AddressCallback)}.
+     */
+    protected static interface AddressCallback {
+        /**
+         * @param address the address of the next hop, or null if there is no route to the participant
+         */
+        void addressResolved(@CheckForNull Address address);
+
+        void addressResolutionFailed(Throwable error);
+    }
+
+    /**
+     * Resolves the address of a participant which is not in the routing table. Called by the message scheduler. The
+     * default implementation answers synchronously from {@link #getAddress(String)}. Subclasses which have to ask a
+     * remote router should answer later from another thread rather than block the calling thread.
+     */
+    protected void resolveAddress(String toParticipantId, AddressCallback callback) {
+        callback.addressResolved(getAddress(toParticipantId));
+    }
+
     @CheckForNull
     protected Address getAddress(String toParticipantId) {
         Address address = null;
@@ -95,7 +161,12 @@ public class MessageRouterImpl implements MessageRouter {
     @Override
     public void route(final JoynrMessage message) {
         checkExpiry(message);
-        routeInternal(message, 0, 0);
+        RoutedMessage routedMessage = new RoutedMessage(message, 0);
+        if (!routeInternal(routedMessage)) {
+            logger.error("Send buffer for messageId {} is full", message.getId());
+            throw new JoynrSendBufferFullException(new RejectedExecutionException("Too many messages queued for "
+                    + message.getTo()));
+        }
     }
 
     protected void schedule(Runnable runnable, String messageId, long delay, TimeUnit timeUnit) {
@@ -107,51 +178,206 @@ public class MessageRouterImpl implements MessageRouter {
         scheduler.schedule(runnable, delay, timeUnit);
     }
 
-    private void routeInternal(final JoynrMessage message, final long delayMs, final int retriesCount) {
+    /**
+     * Puts the message into the queue of its next hop. Addresses which are already known to the routing table are
+     * resolved in the calling thread, all other addresses are resolved by the message scheduler, as resolving them
+     * might be expensive (see {@link #resolveAddress(String, AddressCallback)}).
+     *
+     * @return false if the queue of the next hop is full, true otherwise
+     */
+    private boolean routeInternal(final RoutedMessage routedMessage) {
+        String toParticipantId = routedMessage.message.getTo();
+        Address address = toParticipantId == null ? null : routingTable.get(toParticipantId);
+        if (address != null) {
+            return enqueue(address, routedMessage);
+        }
+        scheduleAddressResolution(routedMessage);
+        return true;
+    }
+
+    private void scheduleAddressResolution(final RoutedMessage routedMessage) {
+        final JoynrMessage message = routedMessage.message;
+        logger.debug("Scheduling address resolution for {} with retries {}", message, routedMessage.retriesCount);
         try {
-            logger.debug("Scheduling {} with delay {} and retries {}", new Object[]{ message, delayMs, retriesCount });
             schedule(new Runnable() {
                 @Override
                 public void run() {
-                    logger.debug("Starting processing of message {}", message);
+                    final String toParticipantId = message.getTo();
                     try {
-                        checkExpiry(message);
-
-                        String toParticipantId = message.getTo();
-                        Address address = getAddress(toParticipantId);
-                        if (address != null) {
-                            String messageId = message.getId().substring(UUID_TAIL);
-                            logger.info(">>>>> SEND  ID:{}:{} from: {} to: {} header: {}", new String[]{ messageId,
-                                    message.getType(),
-                                    message.getHeaderValue(JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID),
-                                    message.getHeaderValue(JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID),
-                                    message.getHeader().toString() });
-                            logger.debug(">>>>> body  ID:{}:{}: {}", new String[]{ messageId, message.getType(),
-                                    message.getPayload() });
-
-                        } else {
-                            throw new JoynrMessageNotSentException("Failed to send Request: No route for given participantId: "
-                                    + toParticipantId);
-                        }
-
-                        IMessaging messagingStub = messagingStubFactory.create(address);
-                        messagingStub.transmit(message, createFailureAction(message, retriesCount));
+                        resolveAddress(toParticipantId, new AddressCallback() {
+                            @Override
+                            public void addressResolved(Address address) {
+                                try {
+                                    if (address == null) {
+                                        throw new JoynrMessageNotSentException("Failed to send Request: No route for given participantId: "
+                                                + toParticipantId);
+                                    }
+                                    if (!enqueue(address, routedMessage)) {
+                                        retry(routedMessage, sendMsgRetryIntervalMs);
+                                    }
+                                } catch (Exception error) {
+                                    addressResolutionFailed(error);
+                                }
+                            }
+
+                            @Override
+                            public void addressResolutionFailed(Throwable error) {
+                                logger.error("error in scheduled message router thread: {}", error.getMessage());
+                                createFailureAction(routedMessage).execute(error);
+                            }
+                        });
                     } catch (Exception error) {
                         logger.error("error in scheduled message router thread: {}", error.getMessage());
-                        FailureAction failureAction = createFailureAction(message, retriesCount);
-                        failureAction.execute(error);
+                        createFailureAction(routedMessage).execute(error);
                     }
                 }
-            },
-                     message.getId(),
-                     delayMs,
-                     TimeUnit.MILLISECONDS);
+            }, message.getId(), 0, TimeUnit.MILLISECONDS);
         } catch (RejectedExecutionException e) {
             logger.error("Execution rejected while scheduling SendSerializedMessageRequest ", e);
             throw new JoynrSendBufferFullException(e);
         }
     }
 
+    private boolean enqueue(Address address, RoutedMessage routedMessage) {
+        AddressQueue addressQueue;
+        OfferResult result;
+        do {
+            addressQueue = addressQueues.get(address);
+            if (addressQueue == null) {
+                AddressQueue newAddressQueue = new AddressQueue(address);
+                addressQueue = addressQueues.putIfAbsent(address, newAddressQueue);
+                if (addressQueue == null) {
+                    addressQueue = newAddressQueue;
+                }
+            }
+            // a queue which has been removed in the meantime is replaced by a new one
+            result = addressQueue.offer(routedMessage);
+        } while (result == OfferResult.REMOVED);
+        if (result == OfferResult.FULL) {
+            return false;
+        }
+        logger.debug("Queued {} for {} with retries {}",
+                     new Object[]{ routedMessage.message, address, routedMessage.retriesCount });
+        addressQueue.scheduleDrain(routedMessage.message.getId());
+        return true;
+    }
+
+    /**
+     * Sends the given messages, which all have the same next hop. If more than one message is waiting, they are
+     * handed to the messaging stub as one batch.
+     */
+    private void send(Address address, List<RoutedMessage> routedMessages) {
+        List<JoynrMessage> messages = new ArrayList<>(routedMessages.size());
+        List<FailureAction> failureActions = new ArrayList<>(routedMessages.size());
+        for (RoutedMessage routedMessage : routedMessages) {
+            JoynrMessage message = routedMessage.message;
+            logger.debug("Starting processing of message {}", message);
+            try {
+                checkExpiry(message);
+            } catch (JoynrMessageNotSentException error) {
+                createFailureAction(routedMessage).execute(error);
+                continue;
+            }
+            String messageId = message.getId().substring(UUID_TAIL);
+            logger.info(">>>>> SEND  ID:{}:{} from: {} to: {} header: {}", new String[]{ messageId, message.getType(),
+                    message.getHeaderValue(JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID),
+                    message.getHeaderValue(JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID),
+                    message.getHeader().toString() });
+            logger.debug(">>>>> body  ID:{}:{}: {}", new String[]{ messageId, message.getType(), message.getPayload() });
+            messages.add(message);
+            failureActions.add(createFailureAction(routedMessage));
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        IMessaging messagingStub;
+        try {
+            messagingStub = messagingStubFactory.create(address);
+        } catch (Exception error) {
+            logger.error("error in scheduled message router thread: {}", error.getMessage());
+            for (FailureAction failureAction : failureActions) {
+                failureAction.execute(error);
+            }
+            return;
+        }
+        if (messages.size() == 1) {
+            try {
+                messagingStub.transmit(messages.get(0), failureActions.get(0));
+            } catch (Exception error) {
+                logger.error("error in scheduled message router thread: {}", error.getMessage());
+                failureActions.get(0).execute(error);
+            }
+            return;
+        }
+        try {
+            messagingStub.transmit(messages, failureActions);
+        } catch (Exception error) {
+            // the stub reports the failures of a batch per message; some messages of the batch may already have been
+            // sent, so failing all of them would duplicate those
+            logger.error("error in scheduled message router thread while sending a batch of {} messages to {}: {}",
+                         new Object[]{ messages.size(), address, error.getMessage() });
+        }
+    }
+
+    private void retry(RoutedMessage routedMessage, long delayMs) {
+        RoutedMessage retriedMessage = new RoutedMessage(routedMessage.message,
+                                                         routedMessage.retriesCount + 1,
+                                                         System.currentTimeMillis() + delayMs);
+        retryQueue.put(retriedMessage);
+        scheduleRetrySweep(retriedMessage);
+    }
+
+    /**
+     * Makes sure that the retry queue is swept when the given message is due. There is at most one pending sweep; it
+     * is only replaced if the message is due before it.
+     */
+    private void scheduleRetrySweep(RoutedMessage dueMessage) {
+        synchronized (retrySweepLock) {
+            if (retrySweep != null && retrySweepDueTimeMs <= dueMessage.dueTimeMs) {
+                return;
+            }
+            if (scheduler.isShutdown()) {
+                throw new JoynrShutdownException("MessageScheduler is shutting down already. Unable to send message [messageId: "
+                        + dueMessage.message.getId() + "].");
+            }
+            if (retrySweep != null) {
+                retrySweep.cancel(false);
+            }
+            retrySweep = scheduler.schedule(retrySweeper,
+                                            dueMessage.getDelay(TimeUnit.MILLISECONDS),
+                                            TimeUnit.MILLISECONDS);
+            retrySweepDueTimeMs = dueMessage.dueTimeMs;
+        }
+    }
+
+    private void sweepRetryQueue() {
+        synchronized (retrySweepLock) {
+            // a cancelled sweep which started anyway must not forget the earlier sweep which replaced it
+            if (retrySweepDueTimeMs <= System.currentTimeMillis()) {
+                retrySweep = null;
+            }
+        }
+        RoutedMessage routedMessage;
+        while ((routedMessage = retryQueue.poll()) != null) {
+            try {
+                checkExpiry(routedMessage.message);
+                if (!routeInternal(routedMessage)) {
+                    logger.error("Rescheduling messageId: {} delayed {} ms because send buffer is full",
+                                 routedMessage.message.getId(),
+                                 sendMsgRetryIntervalMs);
+                    retry(routedMessage, sendMsgRetryIntervalMs);
+                }
+            } catch (Exception error) {
+                createFailureAction(routedMessage).execute(error);
+            }
+        }
+        RoutedMessage next = retryQueue.peek();
+        if (next != null) {
+            scheduleRetrySweep(next);
+        }
+    }
+
     private void checkExpiry(final JoynrMessage message) {
         long currentTimeMillis = System.currentTimeMillis();
         long ttlExpirationDateMs = message.getExpiryDate();
@@ -165,7 +391,8 @@ public class MessageRouterImpl implements MessageRouter {
         }
     }
 
-    private FailureAction createFailureAction(final JoynrMessage message, final int retriesCount) {
+    private FailureAction createFailureAction(final RoutedMessage routedMessage) {
+        final JoynrMessage message = routedMessage.message;
         final FailureAction failureAction = new FailureAction() {
             final String messageId = message.getId();
 
@@ -188,7 +415,7 @@ public class MessageRouterImpl implements MessageRouter {
                     delayMs = ((JoynrDelayMessageException) error).getDelayMs();
                 } else {
                     delayMs = sendMsgRetryIntervalMs;
-                    delayMs += exponentialBackoff(delayMs, retriesCount);
+                    delayMs += exponentialBackoff(delayMs, routedMessage.retriesCount);
                 }
 
                 try {
@@ -196,19 +423,11 @@ public class MessageRouterImpl implements MessageRouter {
                                          + " ms, new TTL expiration date: {}",
                                  messageId,
                                  DateFormatter.format(message.getExpiryDate()));
-                    routeInternal(message, delayMs, retriesCount + 1);
-                    return;
-                } catch (JoynrSendBufferFullException e) {
-                    try {
-                        logger.error("Rescheduling message: {} delayed {} ms because send buffer is full",
-                                     delayMs,
-                                     messageId);
-                        Thread.sleep(delayMs);
-                        this.execute(e);
-                    } catch (InterruptedException e1) {
-                        Thread.currentThread().interrupt();
-                        return;
-                    }
+                    retry(routedMessage, delayMs);
+                } catch (JoynrShutdownException e) {
+                    logger.warn("{}", e.getMessage());
+                } catch (RejectedExecutionException e) {
+                    logger.error("Execution rejected while rescheduling messageId: {}", messageId, e);
                 }
             }
         };
@@ -224,6 +443,15 @@ public class MessageRouterImpl implements MessageRouter {
             Thread.currentThread().interrupt();
             logger.error("Message Scheduler did not shut down in time: {}", e.getMessage());
         }
+        retryQueue.clear();
+        addressQueues.clear();
+    }
+
+    /**
+     * @return the number of addresses for which messages are queued or being sent
+     */
+    int getAddressQueueCount() {
+        return addressQueues.size();
     }
 
     private long exponentialBackoff(long delayMs, int retries) {
@@ -233,4 +461,117 @@ public class MessageRouterImpl implements MessageRouter {
         return millis;
     }
 
+    /**
+     * A message together with the number of times it has already been tried to send it. Messages waiting for a
+     * retry additionally carry the time at which the next attempt is due.
+     */
+    private static class RoutedMessage implements Delayed {
+        private final JoynrMessage message;
+        private final int retriesCount;
+        private final long dueTimeMs;
+
+        RoutedMessage(JoynrMessage message, int retriesCount) {
+            this(message, retriesCount, 0);
+        }
+
+        RoutedMessage(JoynrMessage message, int retriesCount, long dueTimeMs) {
+            this.message = message;
+            this.retriesCount = retriesCount;
+            this.dueTimeMs = dueTimeMs;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueTimeMs, ((RoutedMessage) other).dueTimeMs);
+        }
+    }
+
+    private static enum OfferResult {
+        QUEUED, FULL, REMOVED
+    }
+
+    /**
+     * Bounded queue of the messages for one address. The queue schedules its own drain runnable on the message
+     * scheduler whenever messages are waiting and less than the allowed number of drains are active. When the last
+     * drain finds the queue empty, the queue removes itself from the address queues.
+     */
+    private class AddressQueue implements Runnable {
+        private final Address address;
+        private final Queue<RoutedMessage> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger activeDrains = new AtomicInteger();
+        // guarded by this
+        private boolean removed = false;
+
+        AddressQueue(Address address) {
+            this.address = address;
+        }
+
+        synchronized OfferResult offer(RoutedMessage routedMessage) {
+            if (removed) {
+                return OfferResult.REMOVED;
+            }
+            if (size.incrementAndGet() > maximumQueuedMessagesPerAddress) {
+                size.decrementAndGet();
+                return OfferResult.FULL;
+            }
+            messages.add(routedMessage);
+            return OfferResult.QUEUED;
+        }
+
+        private synchronized void removeIfIdle() {
+            if (!removed && size.get() == 0 && activeDrains.get() == 0) {
+                removed = true;
+                addressQueues.remove(address, this);
+            }
+        }
+
+        void scheduleDrain(String messageId) {
+            int drains;
+            do {
+                drains = activeDrains.get();
+                if (drains >= maximumParallelSendsPerAddress) {
+                    return;
+                }
+            } while (!activeDrains.compareAndSet(drains, drains + 1));
+            try {
+                schedule(this, messageId, 0, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                activeDrains.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<RoutedMessage> batch = new ArrayList<>();
+                RoutedMessage routedMessage;
+                while (batch.size() < MAXIMUM_MESSAGES_PER_DRAIN && (routedMessage = messages.poll()) != null) {
+                    size.decrementAndGet();
+                    batch.add(routedMessage);
+                }
+                if (!batch.isEmpty()) {
+                    send(address, batch);
+                }
+            } finally {
+                activeDrains.decrementAndGet();
+            }
+            RoutedMessage next = messages.peek();
+            if (next == null) {
+                removeIfIdle();
+                return;
+            }
+            try {
+                scheduleDrain(next.message.getId());
+            } catch (RuntimeException e) {
+                logger.warn("Unable to continue sending messages to {}: {}", address, e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,237 @@
+package io.joynr.messaging.serialize;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.inject.Inject;
+
+import io.joynr.exceptions.JoynrSerializationException;
+import io.joynr.messaging.JoynrMessageSerializer;
+import joynr.JoynrMessage;
+
+/**
+ * Compact binary envelope for {@link JoynrMessage}s.
+ * <p>
+ * The JSON envelope carries the payload as an escaped JSON string inside a JSON object, which roughly doubles the size
+ * of every message on the wire. This format stores the envelope as a length-prefixed table instead and appends the
+ * payload as plain UTF-8, so the payload is encoded exactly once. The well-known header keys are replaced by a single
+ * byte.
+ * <pre>
+ * magic(1) version(1) type(string) headerCount(varint) [key value]* payload(string)
+ * string := varint(length + 1) utf8bytes, where a length prefix of 0 denotes null
+ * key    := varint(0) string | varint(index of well-known key + 1)
+ * </pre>
+ * Serialized data which does not start with the magic byte is handed to the {@link JsonSerializer}, so a receiver using
+ * this serializer still understands peers which send JSON. The String based methods always use JSON.
+ */
+public class BinaryMessageSerializer implements JoynrMessageSerializer {
+
+    static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // never reorder or remove entries: the index of a key is part of the wire format
+    private static final String[] WELL_KNOWN_HEADER_KEYS = { JoynrMessage.HEADER_NAME_MESSAGE_ID,
+            JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID, JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID,
+            JoynrMessage.HEADER_NAME_EXPIRY_DATE, JoynrMessage.HEADER_NAME_REPLY_CHANNELID,
+            JoynrMessage.HEADER_NAME_CONTENT_TYPE, JoynrMessage.HEADER_NAME_EFFORT,
+            JoynrMessage.HEADER_NAME_CREATOR_USER_ID };
+
+    private static final Map<String, Integer> WELL_KNOWN_HEADER_KEY_INDICES = new HashMap<>();
+    static {
+        for (int i = 0; i < WELL_KNOWN_HEADER_KEYS.length; i++) {
+            WELL_KNOWN_HEADER_KEY_INDICES.put(WELL_KNOWN_HEADER_KEYS[i], i);
+        }
+    }
+
+    private JsonSerializer jsonSerializer;
+
+    @Inject
+    public BinaryMessageSerializer(JsonSerializer jsonSerializer) {
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public String serialize(JoynrMessage message) throws JoynrSerializationException {
+        return jsonSerializer.serialize(message);
+    }
+
+    @Override
+    public JoynrMessage deserialize(String serializedMessage) throws JoynrSerializationException {
+        return jsonSerializer.deserialize(serializedMessage);
+    }
+
+    @Override
+    public byte[] serializeToBytes(JoynrMessage message) throws JoynrSerializationException {
+        byte[] payload = toBytes(message.getPayload());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + (payload == null ? 0 : payload.length));
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeString(out, message.getType());
+        Map<String, String> header = message.getHeader();
+        writeVarInt(out, header.size());
+        for (Map.Entry<String, String> entry : header.entrySet()) {
+            Integer keyIndex = WELL_KNOWN_HEADER_KEY_INDICES.get(entry.getKey());
+            if (keyIndex == null) {
+                writeVarInt(out, 0);
+                writeString(out, entry.getKey());
+            } else {
+                writeVarInt(out, keyIndex + 1);
+            }
+            writeString(out, entry.getValue());
+        }
+        writeBytes(out, payload);
+        return out.toByteArray();
+    }
+
+    @Override
+    public JoynrMessage deserialize(byte[] serializedMessage) throws JoynrSerializationException {
+        if (!isBinaryMessage(serializedMessage)) {
+            return jsonSerializer.deserialize(serializedMessage);
+        }
+        if (serializedMessage[1] != VERSION) {
+            throw new JoynrSerializationException("unsupported binary message version: " + serializedMessage[1]);
+        }
+        Reader reader = new Reader(serializedMessage, 2);
+        String type = reader.readString();
+        // every header entry takes at least two bytes: the key index and the length prefix of the value
+        int headerCount = reader.readCount(2);
+        // the header count comes from the wire, so the map is not presized with it
+        Map<String, String> header = new HashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            int keyIndex = reader.readVarInt();
+            String key;
+            if (keyIndex == 0) {
+                key = reader.readString();
+            } else if (keyIndex <= WELL_KNOWN_HEADER_KEYS.length) {
+                key = WELL_KNOWN_HEADER_KEYS[keyIndex - 1];
+            } else {
+                throw new JoynrSerializationException("unknown header key index: " + keyIndex);
+            }
+            header.put(key, reader.readString());
+        }
+        String payload = reader.readString();
+        return new JoynrMessage(type, header, payload);
+    }
+
+    /**
+     * @return true if the data has been produced by {@link #serializeToBytes(JoynrMessage)}; JSON text never starts
+     *         with the magic byte since it is not a valid leading UTF-8 byte.
+     */
+    public static boolean isBinaryMessage(byte[] serializedMessage) {
+        return serializedMessage.length >= 2 && serializedMessage[0] == MAGIC;
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(UTF8);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        writeBytes(out, toBytes(value));
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        if (bytes == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads the fields of a binary message. All lengths and counts are validated against the remaining bytes before
+     * they are used, so malformed input is rejected with a {@link JoynrSerializationException}.
+     */
+    private static class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private int remaining() {
+            return data.length - position;
+        }
+
+        /**
+         * @return a non-negative int encoded in at most five bytes
+         */
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= data.length) {
+                    throw new JoynrSerializationException("truncated binary message");
+                }
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    // the fifth byte may only carry the remaining bits of a non-negative int
+                    if (value < 0 || (shift == 28 && (b & 0x78) != 0)) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new JoynrSerializationException("malformed length prefix in binary message");
+        }
+
+        /**
+         * @param minBytesPerElement the minimum encoded size of one element
+         * @return a count of elements which the remaining bytes can hold
+         */
+        int readCount(int minBytesPerElement) {
+            int count = readVarInt();
+            if (count > remaining() / minBytesPerElement) {
+                throw new JoynrSerializationException("invalid element count in binary message: " + count);
+            }
+            return count;
+        }
+
+        String readString() {
+            int lengthPrefix = readVarInt();
+            if (lengthPrefix == 0) {
+                return null;
+            }
+            int length = lengthPrefix - 1;
+            if (length > remaining()) {
+                throw new JoynrSerializationException("truncated binary message");
+            }
+            String value = new String(data, position, length, UTF8);
+            position += length;
+            return value;
+        }
+    }
+}
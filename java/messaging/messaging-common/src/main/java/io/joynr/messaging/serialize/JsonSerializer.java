@@ -54,4 +54,22 @@ public class JsonSerializer implements JoynrMessageSerializer {
         }
     }
 
+    @Override
+    public byte[] serializeToBytes(JoynrMessage message) throws JoynrSerializationException {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new JoynrSerializationException(e.getMessage());
+        }
+    }
+
+    @Override
+    public JoynrMessage deserialize(byte[] serializedMessage) throws JoynrSerializationException {
+        try {
+            return objectMapper.readValue(serializedMessage, JoynrMessage.class);
+        } catch (Exception e) {
+            throw new JoynrSerializationException(e.getMessage());
+        }
+    }
+
 }
@@ -110,7 +110,7 @@ public class JoynrMessage implements JoynrType {
         Map<String, String> customHeaders = new HashMap<>();
         for (Map.Entry<String, String> entry : header.entrySet()) {
             if (entry.getKey().startsWith(MESSAGE_CUSTOM_HEADER_PREFIX)) {
-                String key = entry.getKey().replaceFirst("^" + MESSAGE_CUSTOM_HEADER_PREFIX, "");
+                String key = entry.getKey().substring(MESSAGE_CUSTOM_HEADER_PREFIX.length());
                 customHeaders.put(key, entry.getValue());
             }
         }
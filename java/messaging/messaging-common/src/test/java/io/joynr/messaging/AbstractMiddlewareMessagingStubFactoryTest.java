@@ -0,0 +1,168 @@
+package io.joynr.messaging;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import joynr.JoynrMessage;
+import joynr.system.RoutingTypes.ChannelAddress;
+
+/**
+ * Unit tests for the stub cache of the {@link AbstractMiddlewareMessagingStubFactory}.
+ */
+public class AbstractMiddlewareMessagingStubFactoryTest {
+
+    private TestStubFactory subject;
+
+    @Before
+    public void setUp() {
+        subject = new TestStubFactory();
+    }
+
+    @Test
+    public void stubIsCreatedOncePerAddress() {
+        IMessaging firstStub = subject.create(new ChannelAddress("http://testUrl", "channel"));
+        IMessaging secondStub = subject.create(new ChannelAddress("http://testUrl", "channel"));
+        IMessaging otherStub = subject.create(new ChannelAddress("http://testUrl", "otherChannel"));
+
+        assertSame(firstStub, secondStub);
+        assertNotSame(firstStub, otherStub);
+        assertEquals(2, subject.getCachedStubCount());
+        assertEquals(2, subject.getCreatedStubCount());
+    }
+
+    @Test
+    public void idleStubIsEvictedAndReleased() {
+        ChannelAddress address = new ChannelAddress("http://testUrl", "channel");
+        IMessaging evictedStub = subject.create(address);
+
+        subject.evictIdleStubs(System.currentTimeMillis() + 1);
+
+        assertEquals(0, subject.getCachedStubCount());
+        assertEquals(1, subject.getEvictedStubCount());
+        assertTrue(subject.releasedStubs.contains(evictedStub));
+        assertNotSame(evictedStub, subject.create(address));
+        assertEquals(2, subject.getCreatedStubCount());
+    }
+
+    @Test
+    public void recentlyUsedStubIsNotEvicted() {
+        ChannelAddress address = new ChannelAddress("http://testUrl", "channel");
+        IMessaging stub = subject.create(address);
+
+        subject.evictIdleStubs(System.currentTimeMillis() - 60000);
+
+        assertEquals(1, subject.getCachedStubCount());
+        assertTrue(subject.releasedStubs.isEmpty());
+        assertSame(stub, subject.create(address));
+    }
+
+    @Test(timeout = 10000)
+    public void stubInUseIsNotEvictedBySweepRunningConcurrently() throws Exception {
+        final int addressCount = 1000;
+        final AtomicBoolean creating = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> sweeper = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    while (creating.get()) {
+                        subject.evictIdleStubs(System.currentTimeMillis() - 60000);
+                    }
+                    return null;
+                }
+            });
+            Future<List<IMessaging>> creator = executor.submit(new Callable<List<IMessaging>>() {
+                @Override
+                public List<IMessaging> call() {
+                    List<IMessaging> stubs = new ArrayList<>();
+                    try {
+                        for (int i = 0; i < addressCount; i++) {
+                            stubs.add(subject.create(new ChannelAddress("http://testUrl", "channel" + i)));
+                        }
+                    } finally {
+                        creating.set(false);
+                    }
+                    return stubs;
+                }
+            });
+
+            List<IMessaging> stubs = creator.get();
+            sweeper.get();
+
+            assertEquals(0, subject.getEvictedStubCount());
+            assertEquals(addressCount, subject.getCachedStubCount());
+            for (IMessaging stub : stubs) {
+                assertFalse(subject.releasedStubs.contains(stub));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class TestStub implements IMessaging {
+        @Override
+        public void transmit(JoynrMessage message, FailureAction failureAction) {
+        }
+
+        @Override
+        public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        }
+
+        @Override
+        public void transmit(String serializedMessage, FailureAction failureAction) {
+        }
+    }
+
+    private static class TestStubFactory extends AbstractMiddlewareMessagingStubFactory<TestStub, ChannelAddress> {
+        private final List<TestStub> releasedStubs = Collections.synchronizedList(new ArrayList<TestStub>());
+
+        @Override
+        protected TestStub createInternal(ChannelAddress address) {
+            return new TestStub();
+        }
+
+        @Override
+        protected void releaseInternal(TestStub messagingStub) {
+            releasedStubs.add(messagingStub);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.joynr.messaging.serialize;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.joynr.exceptions.JoynrSerializationException;
+import joynr.JoynrMessage;
+
+public class BinaryMessageSerializerTest {
+
+    private static final String PAYLOAD = "{\"_typeName\":\"joynr.Request\",\"methodName\":\"m\",\"params\":[\"\\u00e4\\\"quoted\\\"\"]}";
+
+    private JsonSerializer jsonSerializer;
+    private BinaryMessageSerializer subject;
+
+    @Before
+    public void setUp() {
+        jsonSerializer = new JsonSerializer(new ObjectMapper());
+        subject = new BinaryMessageSerializer(jsonSerializer);
+    }
+
+    private JoynrMessage createMessage(String payload) {
+        Map<String, String> header = new HashMap<>();
+        header.put(JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID, "toParticipant");
+        header.put(JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID, "fromParticipant");
+        header.put(JoynrMessage.HEADER_NAME_EXPIRY_DATE, "1234567890");
+        header.put(JoynrMessage.MESSAGE_CUSTOM_HEADER_PREFIX + "key", "v\u00e4lue");
+        return new JoynrMessage(JoynrMessage.MESSAGE_TYPE_REQUEST, header, payload);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        JoynrMessage message = createMessage(PAYLOAD);
+
+        byte[] serialized = subject.serializeToBytes(message);
+
+        assertTrue(BinaryMessageSerializer.isBinaryMessage(serialized));
+        assertEquals(message, subject.deserialize(serialized));
+    }
+
+    @Test
+    public void testRoundTripWithoutPayload() {
+        JoynrMessage message = createMessage(null);
+
+        JoynrMessage deserialized = subject.deserialize(subject.serializeToBytes(message));
+
+        assertNull(deserialized.getPayload());
+        assertEquals(message.getHeader(), deserialized.getHeader());
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() {
+        JoynrMessage message = createMessage(PAYLOAD);
+
+        assertTrue(subject.serializeToBytes(message).length < jsonSerializer.serializeToBytes(message).length);
+    }
+
+    @Test
+    public void testJsonIsAcceptedOnReceive() {
+        JoynrMessage message = createMessage(PAYLOAD);
+        byte[] serializedJson = jsonSerializer.serializeToBytes(message);
+
+        assertFalse(BinaryMessageSerializer.isBinaryMessage(serializedJson));
+        assertEquals(message, subject.deserialize(serializedJson));
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testTruncatedMessageIsRejected() {
+        byte[] serialized = subject.serializeToBytes(createMessage(PAYLOAD));
+        byte[] truncated = new byte[serialized.length / 2];
+        System.arraycopy(serialized, 0, truncated, 0, truncated.length);
+
+        subject.deserialize(truncated);
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testNegativeHeaderCountIsRejected() {
+        // empty type, header count encoded as -1
+        subject.deserialize(binary(0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F));
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testHeaderCountExceedingMessageSizeIsRejected() {
+        // empty type, header count of 2^28 followed by a single header entry
+        subject.deserialize(binary(0x01, 0x80, 0x80, 0x80, 0x80, 0x01, 0x01, 0x01));
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testOverlongLengthPrefixIsRejected() {
+        subject.deserialize(binary(0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01));
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testNegativeStringLengthIsRejected() {
+        // type with a length prefix of Integer.MIN_VALUE
+        subject.deserialize(binary(0x80, 0x80, 0x80, 0x80, 0x08));
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testStringLengthExceedingMessageSizeIsRejected() {
+        // type of length 100 followed by three bytes only
+        subject.deserialize(binary(0x65, 'a', 'b', 'c'));
+    }
+
+    @Test(expected = JoynrSerializationException.class)
+    public void testMissingHeaderCountIsRejected() {
+        subject.deserialize(binary(0x01));
+    }
+
+    private byte[] binary(int... content) {
+        byte[] result = new byte[content.length + 2];
+        result[0] = BinaryMessageSerializer.MAGIC;
+        result[1] = BinaryMessageSerializer.VERSION;
+        for (int i = 0; i < content.length; i++) {
+            result[i + 2] = (byte) content[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+package io.joynr.messaging.mqtt;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.IMessagingSkeleton;
+
+/**
+ * Messaging skeleton which receives the raw MQTT payload, so that the wire format of the message is decided by the
+ * serializer of the skeleton rather than by the MQTT client.
+ */
+public interface IMqttMessagingSkeleton extends IMessagingSkeleton {
+
+    void transmit(byte[] serializedMessage, FailureAction failureAction);
+
+}
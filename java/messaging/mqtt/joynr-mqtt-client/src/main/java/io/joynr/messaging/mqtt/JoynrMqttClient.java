@@ -1,7 +1,5 @@
 package io.joynr.messaging.mqtt;
 
-import io.joynr.messaging.IMessaging;
-
 /*
  * #%L
  * %%
@@ -25,7 +23,7 @@ public interface JoynrMqttClient {
 
     public void start();
 
-    public void setMessageListener(IMessaging messaging);
+    public void setMessageListener(IMqttMessagingSkeleton messaging);
 
     public void shutdown();
 
@@ -33,6 +31,8 @@ public interface JoynrMqttClient {
 
     public void publishMessage(String topic, String serializedMessage, int qosLevel);
 
+    public void publishMessage(String topic, byte[] serializedMessage, int qosLevel);
+
     public void subscribe(String topic);
 
 }
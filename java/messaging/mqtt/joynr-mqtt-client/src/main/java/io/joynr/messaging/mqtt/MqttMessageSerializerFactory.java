@@ -19,24 +19,66 @@ package io.joynr.messaging.mqtt;
  * #L%
  */
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
+import io.joynr.exceptions.JoynrIllegalStateException;
 import io.joynr.messaging.JoynrMessageSerializer;
 import io.joynr.messaging.serialize.AbstractMiddlewareMessageSerializerFactory;
+import io.joynr.messaging.serialize.BinaryMessageSerializer;
 import io.joynr.messaging.serialize.JsonSerializer;
 import joynr.system.RoutingTypes.MqttAddress;
 
+/**
+ * Selects the wire format of messages sent via MQTT. JSON stays the default because it is the only format understood
+ * by the other joynr implementations; the binary format is opt-in via
+ * {@link MqttModule#PROPERTY_KEY_MQTT_MESSAGE_FORMAT}. A binary serializer still accepts JSON on receive, but C++ and
+ * JavaScript participants cannot decode binary messages, so it may only be enabled if all participants reachable via
+ * the broker run the Java runtime.
+ */
 public class MqttMessageSerializerFactory extends AbstractMiddlewareMessageSerializerFactory<MqttAddress> {
 
+    public static final String MESSAGE_FORMAT_JSON = "json";
+    public static final String MESSAGE_FORMAT_BINARY = "binary";
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttMessageSerializerFactory.class);
+
+    private String messageFormat = MESSAGE_FORMAT_JSON;
+
     private JsonSerializer jsonSerializer;
+    private BinaryMessageSerializer binaryMessageSerializer;
 
     @Inject
-    public MqttMessageSerializerFactory(JsonSerializer jsonSerializer) {
+    public MqttMessageSerializerFactory(JsonSerializer jsonSerializer, BinaryMessageSerializer binaryMessageSerializer) {
         this.jsonSerializer = jsonSerializer;
+        this.binaryMessageSerializer = binaryMessageSerializer;
+    }
+
+    /**
+     * @param messageFormat {@link #MESSAGE_FORMAT_JSON} or {@link #MESSAGE_FORMAT_BINARY}
+     * @throws JoynrIllegalStateException if the message format is unknown
+     */
+    @Inject(optional = true)
+    void setMessageFormat(@Named(MqttModule.PROPERTY_KEY_MQTT_MESSAGE_FORMAT) String messageFormat) {
+        if (MESSAGE_FORMAT_BINARY.equalsIgnoreCase(messageFormat)) {
+            logger.warn("MQTT messages are sent in the binary format, which can only be decoded by Java joynr runtimes. "
+                    + "C++ and JavaScript participants connected to the same broker will not receive them.");
+        } else if (!MESSAGE_FORMAT_JSON.equalsIgnoreCase(messageFormat)) {
+            throw new JoynrIllegalStateException("unknown MQTT message format \"" + messageFormat + "\" configured in "
+                    + MqttModule.PROPERTY_KEY_MQTT_MESSAGE_FORMAT + ", expected " + MESSAGE_FORMAT_JSON + " or "
+                    + MESSAGE_FORMAT_BINARY);
+        }
+        this.messageFormat = messageFormat;
     }
 
     @Override
     protected JoynrMessageSerializer createInternal(MqttAddress address) {
+        if (MESSAGE_FORMAT_BINARY.equalsIgnoreCase(messageFormat)) {
+            return binaryMessageSerializer;
+        }
         return jsonSerializer;
     }
 }
@@ -19,13 +19,14 @@ package io.joynr.messaging.mqtt;
  * #L%
  */
 
+import java.util.List;
+
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.messaging.FailureAction;
-import io.joynr.messaging.IMessagingSkeleton;
 import io.joynr.messaging.JoynrMessageSerializer;
 import io.joynr.messaging.routing.MessageRouter;
 import joynr.JoynrMessage;
@@ -35,7 +36,7 @@ import joynr.system.RoutingTypes.RoutingTypesUtil;
 /**
  * Connects to the MQTT broker
  */
-public class MqttMessagingSkeleton implements IMessagingSkeleton {
+public class MqttMessagingSkeleton implements IMqttMessagingSkeleton {
 
     private MessageRouter messageRouter;
     private JoynrMqttClient mqttClient;
@@ -89,6 +90,18 @@ public class MqttMessagingSkeleton implements IMessagingSkeleton {
         }
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                transmit(messages.get(i), failureActions.get(i));
+            } catch (RuntimeException error) {
+                // a failing message must neither stop the batch nor fail the messages sent before it
+                failureActions.get(i).execute(error);
+            }
+        }
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         JoynrMessage message = messageSerializer.deserialize(serializedMessage);
@@ -96,6 +109,12 @@ public class MqttMessagingSkeleton implements IMessagingSkeleton {
 
     }
 
+    @Override
+    public void transmit(byte[] serializedMessage, FailureAction failureAction) {
+        JoynrMessage message = messageSerializer.deserialize(serializedMessage);
+        transmit(message, failureAction);
+    }
+
     protected JoynrMqttClient getClient() {
         return mqttClient;
     }
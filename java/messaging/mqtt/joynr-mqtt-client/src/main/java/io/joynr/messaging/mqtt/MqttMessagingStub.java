@@ -19,6 +19,8 @@ package io.joynr.messaging.mqtt;
  * #L%
  */
 
+import java.util.List;
+
 import io.joynr.messaging.FailureAction;
 import io.joynr.messaging.IMessaging;
 import io.joynr.messaging.JoynrMessageSerializer;
@@ -53,21 +55,34 @@ public class MqttMessagingStub implements IMessaging {
 
     @Override
     public void transmit(JoynrMessage message, FailureAction failureAction) {
-        mqttMessageReplyToAddressCalculator.setReplyTo(message);
         String topic = address.getTopic() + PRIORITY_LOW + message.getTo();
-        String serializedMessage = messageSerializer.serialize(message);
         int qosLevel = DEFAULT_QOS_LEVEL;
         String effortHeaderValue = message.getHeaderValue(JoynrMessage.HEADER_NAME_EFFORT);
         if (effortHeaderValue != null && String.valueOf(MessagingQosEffort.BEST_EFFORT).equals(effortHeaderValue)) {
             qosLevel = BEST_EFFORT_QOS_LEVEL;
         }
         try {
+            mqttMessageReplyToAddressCalculator.setReplyTo(message);
+            byte[] serializedMessage = messageSerializer.serializeToBytes(message);
             mqttClient.publishMessage(topic, serializedMessage, qosLevel);
         } catch (Exception error) {
             failureAction.execute(error);
         }
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        // every message is published to the topic of its recipient, so they cannot share a publication
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                transmit(messages.get(i), failureActions.get(i));
+            } catch (RuntimeException error) {
+                // a failing message must neither stop the batch nor fail the messages sent before it
+                failureActions.get(i).execute(error);
+            }
+        }
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         // Unable to access participantId, so publishing to RAW topic
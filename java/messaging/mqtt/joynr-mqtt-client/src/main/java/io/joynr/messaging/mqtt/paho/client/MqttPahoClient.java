@@ -39,7 +39,7 @@ import io.joynr.exceptions.JoynrIllegalStateException;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.FailureAction;
-import io.joynr.messaging.IMessaging;
+import io.joynr.messaging.mqtt.IMqttMessagingSkeleton;
 import io.joynr.messaging.mqtt.JoynrMqttClient;
 
 public class MqttPahoClient implements JoynrMqttClient, MqttCallback {
@@ -48,7 +48,7 @@ public class MqttPahoClient implements JoynrMqttClient, MqttCallback {
 
     private static final Logger logger = LoggerFactory.getLogger(MqttPahoClient.class);
     private MqttClient mqttClient;
-    private IMessaging messagingSkeleton;
+    private IMqttMessagingSkeleton messagingSkeleton;
     private int reconnectSleepMs;
 
     private Set<String> subscribedTopics = new HashSet<>();
@@ -168,12 +168,18 @@ public class MqttPahoClient implements JoynrMqttClient, MqttCallback {
 
     @Override
     public void publishMessage(String topic, String serializedMessage, int qosLevel) {
+        publishMessage(topic, serializedMessage.getBytes(Charset.forName("UTF-8")), qosLevel);
+        logger.debug("Published message: " + serializedMessage);
+    }
+
+    @Override
+    public void publishMessage(String topic, byte[] serializedMessage, int qosLevel) {
         if (messagingSkeleton == null) {
             throw new JoynrDelayMessageException("MQTT Publish failed: messagingSkeleton has not been set yet");
         }
         try {
             MqttMessage message = new MqttMessage();
-            message.setPayload(serializedMessage.getBytes(Charset.forName("UTF-8")));
+            message.setPayload(serializedMessage);
             message.setQos(qosLevel);
             message.setRetained(false);
 
@@ -207,8 +213,6 @@ public class MqttPahoClient implements JoynrMqttClient, MqttCallback {
         } catch (Exception e) {
             throw new JoynrMessageNotSentException(e.getMessage(), e);
         }
-
-        logger.debug("Published message: " + serializedMessage);
     }
 
     @Override
@@ -245,8 +249,8 @@ public class MqttPahoClient implements JoynrMqttClient, MqttCallback {
 
     @Override
     public void messageArrived(String topic, MqttMessage mqttMessage) throws Exception {
-        String serializedMessage = new String(mqttMessage.getPayload(), Charset.forName("UTF-8"));
-        logger.debug("Received message via MQTT from topic {}:\n{}", topic, serializedMessage);
+        byte[] serializedMessage = mqttMessage.getPayload();
+        logger.debug("Received message via MQTT from topic {}: {} bytes", topic, serializedMessage.length);
         if (messagingSkeleton == null) {
             logger.error("MQTT message not processed: messagingSkeleton has not been set yet");
             return;
@@ -261,7 +265,7 @@ public class MqttPahoClient implements JoynrMqttClient, MqttCallback {
     }
 
     @Override
-    public void setMessageListener(IMessaging messaging) {
+    public void setMessageListener(IMqttMessagingSkeleton messaging) {
         this.messagingSkeleton = messaging;
 
     }
@@ -0,0 +1,72 @@
+package io.joynr.messaging.mqtt;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertSame;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+import io.joynr.messaging.serialize.BinaryMessageSerializer;
+import io.joynr.messaging.serialize.JsonSerializer;
+import joynr.system.RoutingTypes.MqttAddress;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Unit tests for {@link MqttMessageSerializerFactory}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MqttMessageSerializerFactoryTest {
+
+    @Mock
+    private JsonSerializer jsonSerializer;
+
+    @Mock
+    private BinaryMessageSerializer binaryMessageSerializer;
+
+    @Mock
+    private MqttAddress mqttAddress;
+
+    private MqttMessageSerializerFactory subject;
+
+    @Before
+    public void setUp() {
+        subject = new MqttMessageSerializerFactory(jsonSerializer, binaryMessageSerializer);
+    }
+
+    @Test
+    public void jsonIsUsedByDefault() {
+        assertSame(jsonSerializer, subject.createInternal(mqttAddress));
+    }
+
+    @Test
+    public void binaryFormatCanBeEnabled() {
+        subject.setMessageFormat("Binary");
+        assertSame(binaryMessageSerializer, subject.createInternal(mqttAddress));
+    }
+
+    @Test(expected = JoynrIllegalStateException.class)
+    public void unknownFormatIsRejected() {
+        subject.setMessageFormat("protobuf");
+    }
+}
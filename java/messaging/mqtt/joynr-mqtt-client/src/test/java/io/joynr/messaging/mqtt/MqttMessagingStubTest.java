@@ -19,11 +19,17 @@ package io.joynr.messaging.mqtt;
  * #L%
  */
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+
+import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.FailureAction;
 import io.joynr.messaging.JoynrMessageSerializer;
 import io.joynr.messaging.MessagingQosEffort;
@@ -70,6 +76,52 @@ public class MqttMessagingStubTest {
         subject.transmit(joynrMessage, failureAction);
 
         Mockito.verify(mqttClient)
-               .publishMessage(anyString(), anyString(), eq(MqttMessagingStub.BEST_EFFORT_QOS_LEVEL));
+               .publishMessage(anyString(), any(byte[].class), eq(MqttMessagingStub.BEST_EFFORT_QOS_LEVEL));
+    }
+
+    @Test
+    public void testTransmitBatchPublishesEveryMessage() {
+        JoynrMessage firstMessage = mock(JoynrMessage.class);
+        JoynrMessage secondMessage = mock(JoynrMessage.class);
+        when(firstMessage.getTo()).thenReturn("first");
+        when(secondMessage.getTo()).thenReturn("second");
+        byte[] serializedMessage = new byte[]{ 1, 2, 3 };
+        when(messageSerializer.serializeToBytes(Mockito.any(JoynrMessage.class))).thenReturn(serializedMessage);
+        FailureAction failureAction = mock(FailureAction.class);
+
+        subject.transmit(Arrays.asList(firstMessage, secondMessage), Arrays.asList(failureAction, failureAction));
+
+        Mockito.verify(mqttClient, times(2)).publishMessage(anyString(),
+                                                            eq(serializedMessage),
+                                                            eq(MqttMessagingStub.DEFAULT_QOS_LEVEL));
+    }
+
+    @Test
+    public void testMessageFailingSerializationDoesNotAffectRestOfBatch() {
+        JoynrMessage firstMessage = mock(JoynrMessage.class);
+        JoynrMessage secondMessage = mock(JoynrMessage.class);
+        JoynrMessage thirdMessage = mock(JoynrMessage.class);
+        byte[] firstSerializedMessage = new byte[]{ 1 };
+        byte[] thirdSerializedMessage = new byte[]{ 3 };
+        JoynrRuntimeException error = new JoynrRuntimeException("not serializable");
+        when(messageSerializer.serializeToBytes(firstMessage)).thenReturn(firstSerializedMessage);
+        when(messageSerializer.serializeToBytes(secondMessage)).thenThrow(error);
+        when(messageSerializer.serializeToBytes(thirdMessage)).thenReturn(thirdSerializedMessage);
+        FailureAction firstFailureAction = mock(FailureAction.class);
+        FailureAction secondFailureAction = mock(FailureAction.class);
+        FailureAction thirdFailureAction = mock(FailureAction.class);
+
+        subject.transmit(Arrays.asList(firstMessage, secondMessage, thirdMessage),
+                         Arrays.asList(firstFailureAction, secondFailureAction, thirdFailureAction));
+
+        Mockito.verify(mqttClient, times(1)).publishMessage(anyString(),
+                                                            eq(firstSerializedMessage),
+                                                            eq(MqttMessagingStub.DEFAULT_QOS_LEVEL));
+        Mockito.verify(mqttClient, times(1)).publishMessage(anyString(),
+                                                            eq(thirdSerializedMessage),
+                                                            eq(MqttMessagingStub.DEFAULT_QOS_LEVEL));
+        Mockito.verify(secondFailureAction).execute(error);
+        Mockito.verify(firstFailureAction, never()).execute(any(Throwable.class));
+        Mockito.verify(thirdFailureAction, never()).execute(any(Throwable.class));
     }
 }
@@ -19,6 +19,7 @@ package io.joynr.messaging.mqtt.paho.client;
  * #L%
  */
 
+import java.nio.charset.Charset;
 import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -39,8 +40,8 @@ import com.google.inject.name.Names;
 
 import io.joynr.common.JoynrPropertiesModule;
 import io.joynr.messaging.FailureAction;
-import io.joynr.messaging.IMessaging;
 import io.joynr.messaging.MessagingPropertyKeys;
+import io.joynr.messaging.mqtt.IMqttMessagingSkeleton;
 import io.joynr.messaging.mqtt.MqttClientFactory;
 import io.joynr.messaging.mqtt.JoynrMqttClient;
 import io.joynr.messaging.mqtt.MqttModule;
@@ -57,7 +58,7 @@ public class MqttPahoClientTest {
     private MqttClientFactory mqttClientFactory;
     private MqttAddress ownTopic;
     @Mock
-    private IMessaging mockReceiver;
+    private IMqttMessagingSkeleton mockReceiver;
     @Mock
     private MessageRouter mockMessageRouter;
     private JoynrMqttClient client;
@@ -112,7 +113,8 @@ public class MqttPahoClientTest {
         client.setMessageListener(mockReceiver);
         String serializedMessage = "test";
         client.publishMessage(ownTopic.getTopic(), serializedMessage);
-        verify(mockReceiver, timeout(100).times(1)).transmit(eq(serializedMessage), any(FailureAction.class));
+        verify(mockReceiver, timeout(100).times(1)).transmit(eq(serializedMessage.getBytes(Charset.forName("UTF-8"))),
+                                                             any(FailureAction.class));
         client.shutdown();
     }
 
@@ -1,7 +1,5 @@
 package io.joynr.messaging.websocket.jetty.client;
 
-import java.io.IOException;
-
 /*
  * #%L
  * %%
@@ -21,14 +19,23 @@ import java.io.IOException;
  * #L%
  */
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.List;
+import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
 import org.eclipse.jetty.websocket.api.WebSocketException;
@@ -40,7 +47,6 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import io.joynr.exceptions.JoynrCommunicationException;
 import io.joynr.exceptions.JoynrDelayMessageException;
 import io.joynr.exceptions.JoynrIllegalStateException;
 import io.joynr.exceptions.JoynrShutdownException;
@@ -51,39 +57,82 @@ import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.WebSocketAddress;
 import joynr.system.RoutingTypes.WebSocketClientAddress;
 
+/**
+ * WebSocket connection of a libjoynr runtime to its cluster controller.
+ *
+ * Writes never wait for the connection: while the connection is being (re)established, messages
+ * are buffered in a bounded pending-send buffer which is flushed as soon as the session has been
+ * opened. If the buffer is full, messages are rejected with a {@link JoynrDelayMessageException}
+ * so that the message router retries them later. Connecting is done by the reconnect timer thread,
+ * application threads only trigger it.
+ *
+ * The buffer is flushed by one thread at a time. While it is not empty or a flush is in progress,
+ * new messages are appended to it instead of being written directly, so that they can't overtake
+ * older messages.
+ */
 public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSocketEndpoint {
     private static final Logger logger = LoggerFactory.getLogger(JoynrWebSocketEndpoint.class);
 
-    Timer reconnectTimer = new Timer();
+    private static final long CONNECT_TIMEOUT_MS = 30000;
+
+    private enum ConnectionState {
+        DISCONNECTED, CONNECTING, OPEN, SHUTDOWN
+    }
+
+    Timer reconnectTimer = new Timer(true);
     private long reconnectDelay;
 
     private WebSocketClient jettyClient;
     private int maxMessageSize;
     private long websocketIdleTimeout;
-    Future<Session> sessionFuture;
+    private int maxPendingMessages;
     private WebSocketAddress serverAddress;
     private IMessaging messageListener;
     private ObjectMapper objectMapper;
     private WebSocketClientAddress ownAddress;
 
-    private boolean shutdown = false;
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.DISCONNECTED);
+    private volatile Session session;
+
+    private final Queue<PendingMessage> pendingMessages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingMessageCount = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+    // batches toggle the batch mode of the remote endpoint; never held while waiting
+    private final Object batchLock = new Object();
+
+    private static class PendingMessage {
+        private final String message;
+        private final long expiryDateMs;
+        private final FailureAction failureAction;
+
+        PendingMessage(String message, long expiryDateMs, FailureAction failureAction) {
+            this.message = message;
+            this.expiryDateMs = expiryDateMs;
+            this.failureAction = failureAction;
+        }
+    }
 
     public WebSocketJettyClient(WebSocketAddress serverAddress,
                                 WebSocketClientAddress ownAddress,
                                 int maxMessageSize,
                                 long reconnectDelay,
                                 long websocketIdleTimeout,
+                                int maxPendingMessages,
                                 ObjectMapper objectMapper) {
         this.serverAddress = serverAddress;
         this.ownAddress = ownAddress;
         this.maxMessageSize = maxMessageSize;
         this.reconnectDelay = reconnectDelay;
         this.websocketIdleTimeout = websocketIdleTimeout;
+        this.maxPendingMessages = maxPendingMessages;
         this.objectMapper = objectMapper;
     }
 
     @Override
     public synchronized void start() {
+        if (state.get() == ConnectionState.SHUTDOWN) {
+            return;
+        }
         if (jettyClient == null) {
             jettyClient = new WebSocketClient();
             jettyClient.getPolicy().setMaxTextMessageSize(maxMessageSize);
@@ -91,42 +140,88 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
         }
 
         try {
-            jettyClient.start();
-            sessionFuture = jettyClient.connect(this, toUrl(serverAddress));
-            sendInitializationMessage();
-        } catch (JoynrShutdownException | JoynrIllegalStateException e) {
+            if (!jettyClient.isStarted()) {
+                jettyClient.start();
+            }
+        } catch (Exception e) {
             logger.error("unrecoverable error starting WebSocket client: {}", e);
             return;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            // TODO which exceptions are recoverable? Only catch those ones
-            // JoynrCommunicationExeption is thrown if the initialization message could not be sent
-            logger.debug("error starting WebSocket client. Will retry", e);
-            if (shutdown) {
-                return;
-            }
+        }
+        if (state.compareAndSet(ConnectionState.DISCONNECTED, ConnectionState.CONNECTING)) {
+            scheduleConnect(0);
+        }
+    }
+
+    private void scheduleConnect(long delayMs) {
+        try {
             reconnectTimer.schedule(new TimerTask() {
                 @Override
                 public void run() {
-                    start();
+                    connect();
                 }
-            }, reconnectDelay);
+            }, delayMs);
+        } catch (IllegalStateException e) {
+            // timer has been cancelled during shutdown
+            logger.debug("WebSocket client is shut down, not connecting");
         }
     }
 
-    private void sendInitializationMessage() throws InterruptedException, JoynrCommunicationException  {
+    /**
+     * Runs on the reconnect timer thread while in state CONNECTING. The session is opened
+     * in {@link #onWebSocketConnect(Session)}.
+     */
+    private void connect() {
+        if (state.get() != ConnectionState.CONNECTING) {
+            return;
+        }
+        if (jettyClient == null || !jettyClient.isStarted()) {
+            // connecting is triggered again by start()
+            state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.DISCONNECTED);
+            return;
+        }
+        try {
+            Future<Session> sessionFuture = jettyClient.connect(this, toUrl(serverAddress));
+            sessionFuture.get(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (JoynrIllegalStateException e) {
+            logger.error("unrecoverable error connecting WebSocket client: {}", e);
+            state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.DISCONNECTED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ExecutionException | TimeoutException | RuntimeException e) {
+            logger.debug("error connecting WebSocket client. Will retry", e);
+            if (state.get() == ConnectionState.CONNECTING) {
+                scheduleConnect(reconnectDelay);
+            }
+        }
+    }
+
+    @Override
+    public void onWebSocketConnect(Session session) {
+        super.onWebSocketConnect(session);
         String serializedAddress;
         try {
             serializedAddress = objectMapper.writeValueAsString(ownAddress);
         } catch (JsonProcessingException e) {
             throw new JoynrIllegalStateException("unable to serialize WebSocket Client address: " + ownAddress, e);
         }
+        // the initialization message is sent before any pending message
+        session.getRemote().sendString(serializedAddress, new WriteCallback() {
+            @Override
+            public void writeSuccess() {
+                // Nothing to do
+            }
 
-        try {
-            sessionFuture.get(30, TimeUnit.SECONDS).getRemote().sendString(serializedAddress);
-        } catch (IOException | ExecutionException | TimeoutException e) {
-            throw new JoynrCommunicationException(e.getMessage(), e);
+            @Override
+            public void writeFailed(Throwable error) {
+                logger.error("error sending WebSocket initialization message: {}", error.getMessage());
+            }
+        });
+        this.session = session;
+        if (state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.OPEN)) {
+            flushPendingMessages();
+        } else {
+            // shut down in the meantime
+            session.close();
         }
     }
 
@@ -146,8 +241,15 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
 
     @Override
     public synchronized void shutdown() {
-        shutdown = true;
+        state.set(ConnectionState.SHUTDOWN);
+        reconnectTimer.cancel();
         closeSession();
+        JoynrShutdownException shutdownException = new JoynrShutdownException("WebSocket client is shut down");
+        PendingMessage pendingMessage;
+        while ((pendingMessage = pendingMessages.poll()) != null) {
+            pendingMessageCount.decrementAndGet();
+            pendingMessage.failureAction.execute(shutdownException);
+        }
         try {
             if (jettyClient != null) {
                 jettyClient.stop();
@@ -159,40 +261,30 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
     }
 
     private void closeSession() {
-        try {
-            if (sessionFuture != null) {
-                Session session = sessionFuture.get();
-                if (session != null) {
-                    session.close();
-                }
-                sessionFuture = null;
+        Session currentSession = session;
+        session = null;
+        if (currentSession != null) {
+            try {
+                currentSession.close();
+            } catch (Exception e) {
+                logger.error("Error while closing websocket connection: ", e);
             }
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error while closing websocket connection: ", e);
-        } catch (Exception e) {
-            logger.error("Error: ", e);
         }
     }
 
     @Override
-    public synchronized void reconnect() {
-
-        try {
-            if (sessionFuture != null && sessionFuture.get().isOpen()) {
-                return;
-            }
-        } catch (ExecutionException e) {
-            // continue reconnecting if there was a problem
-            logger.debug("error getting session future", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        if (shutdown) {
+    public void reconnect() {
+        Session currentSession = session;
+        if (state.get() == ConnectionState.OPEN && currentSession != null && currentSession.isOpen()) {
             return;
         }
-        closeSession();
-        start();
+        if (state.compareAndSet(ConnectionState.OPEN, ConnectionState.CONNECTING)) {
+            closeSession();
+            scheduleConnect(reconnectDelay);
+        } else if (state.compareAndSet(ConnectionState.DISCONNECTED, ConnectionState.CONNECTING)) {
+            scheduleConnect(0);
+        }
+        // CONNECTING: a connect is already scheduled; SHUTDOWN: nothing to do
     }
 
     @Override
@@ -209,54 +301,172 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
     }
 
     @Override
-    public synchronized void writeText(Address to, String message, long timeout, TimeUnit unit, final FailureAction failureAction) {
+    public void writeText(Address to, String message, long timeout, TimeUnit unit, final FailureAction failureAction) {
+        checkMessageListener();
+        Session currentSession = getOpenSession();
+        if (currentSession == null) {
+            addPendingMessage(message, timeout, unit, failureAction);
+            return;
+        }
+        try {
+            currentSession.getRemote().sendString(message, createWriteCallback(failureAction));
+        } catch (WebSocketException e) {
+            reconnect();
+            throw new JoynrDelayMessageException(10, "WebSocket write failed", e);
+        }
+    }
+
+    @Override
+    public void writeText(Address to,
+                          List<String> messages,
+                          long timeout,
+                          TimeUnit unit,
+                          List<FailureAction> failureActions) {
+        checkMessageListener();
+        Session currentSession = getOpenSession();
+        if (currentSession == null) {
+            for (int i = 0; i < messages.size(); i++) {
+                try {
+                    addPendingMessage(messages.get(i), timeout, unit, failureActions.get(i));
+                } catch (JoynrDelayMessageException e) {
+                    failureActions.get(i).execute(e);
+                }
+            }
+            return;
+        }
+        int sent = 0;
+        try {
+            synchronized (batchLock) {
+                RemoteEndpoint remote = currentSession.getRemote();
+                try {
+                    // frames are collected until a frame without batching is sent, so the messages are
+                    // written to the network together without blocking in flush
+                    remote.setBatchMode(BatchMode.ON);
+                    for (; sent < messages.size() - 1; sent++) {
+                        remote.sendString(messages.get(sent), createWriteCallback(failureActions.get(sent)));
+                    }
+                    remote.setBatchMode(BatchMode.AUTO);
+                    remote.sendString(messages.get(sent), createWriteCallback(failureActions.get(sent)));
+                    sent++;
+                } finally {
+                    remote.setBatchMode(BatchMode.AUTO);
+                }
+            }
+        } catch (WebSocketException e) {
+            reconnect();
+            // the messages which have not been handed over to Jetty yet are delayed
+            JoynrDelayMessageException delayException = new JoynrDelayMessageException(10,
+                                                                                        "WebSocket write failed",
+                                                                                        e);
+            for (; sent < messages.size(); sent++) {
+                failureActions.get(sent).execute(delayException);
+            }
+        }
+    }
+
+    private void checkMessageListener() {
         if (messageListener == null) {
             throw new JoynrDelayMessageException(20, "WebSocket write failed: receiver has not been set yet");
         }
+    }
 
-        if (sessionFuture == null) {
-            try {
+    /**
+     * @return the session if it is open and no older messages are waiting to be flushed or are being
+     * flushed, null otherwise
+     */
+    private Session getOpenSession() {
+        Session currentSession = session;
+        if (state.get() != ConnectionState.OPEN || currentSession == null || flushing.get()
+                || !pendingMessages.isEmpty()) {
+            if (state.get() != ConnectionState.OPEN) {
                 reconnect();
-            } catch (Exception e) {
-                throw new JoynrDelayMessageException(10, "WebSocket reconnect failed. Will try later", e);
             }
+            return null;
         }
+        return currentSession;
+    }
 
-        try {
-            Session session = sessionFuture.get(timeout, unit);
-            session.getRemote().sendString(message, new WriteCallback() {
+    private void addPendingMessage(String message, long timeout, TimeUnit unit, FailureAction failureAction) {
+        if (state.get() == ConnectionState.SHUTDOWN) {
+            throw new JoynrShutdownException("WebSocket client is shut down");
+        }
+        if (pendingMessageCount.incrementAndGet() > maxPendingMessages) {
+            pendingMessageCount.decrementAndGet();
+            throw new JoynrDelayMessageException(reconnectDelay, "WebSocket is not connected and "
+                    + maxPendingMessages + " messages are pending already");
+        }
+        pendingMessages.add(new PendingMessage(message, System.currentTimeMillis() + unit.toMillis(timeout), failureAction));
+        // the session might have been opened while the message was added
+        if (state.get() == ConnectionState.OPEN) {
+            flushPendingMessages();
+        }
+    }
 
-                @Override
-                public void writeSuccess() {
-                    // Nothing to do
-                }
+    /**
+     * Writes the pending messages in order. If another thread is flushing already, it also writes the
+     * messages added in the meantime; a message added after it stopped is flushed by the adding thread.
+     */
+    private void flushPendingMessages() {
+        while (state.get() == ConnectionState.OPEN && !pendingMessages.isEmpty()
+                && flushing.compareAndSet(false, true)) {
+            try {
+                drainPendingMessages();
+            } finally {
+                flushing.set(false);
+            }
+        }
+    }
 
-                @Override
-                public void writeFailed(Throwable error) {
-                    if (error instanceof WebSocketException) {
-                        reconnect();
-                        failureAction.execute(new JoynrDelayMessageException(reconnectDelay, error.getMessage()));
-                    } else {
-                        failureAction.execute(error);
-                    }
+    private void drainPendingMessages() {
+        PendingMessage pendingMessage;
+        while (state.get() == ConnectionState.OPEN && (pendingMessage = pendingMessages.poll()) != null) {
+            pendingMessageCount.decrementAndGet();
+            if (pendingMessage.expiryDateMs < System.currentTimeMillis()) {
+                pendingMessage.failureAction.execute(new JoynrDelayMessageException("WebSocket write timed out while connecting"));
+                continue;
+            }
+            Session currentSession = session;
+            try {
+                if (currentSession == null) {
+                    throw new WebSocketException("WebSocket session has been closed");
                 }
-            });
-        } catch (WebSocketException | ExecutionException e) {
-            reconnect();
-            throw new JoynrDelayMessageException(10, "WebSocket write timed out", e);
-        } catch (TimeoutException e) {
-            throw new JoynrDelayMessageException("WebSocket write timed out", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+                currentSession.getRemote().sendString(pendingMessage.message,
+                                                      createWriteCallback(pendingMessage.failureAction));
+            } catch (WebSocketException e) {
+                pendingMessage.failureAction.execute(new JoynrDelayMessageException(reconnectDelay,
+                                                                                    "WebSocket write failed"));
+                reconnect();
+            }
         }
     }
 
+    private WriteCallback createWriteCallback(final FailureAction failureAction) {
+        return new WriteCallback() {
+
+            @Override
+            public void writeSuccess() {
+                // Nothing to do
+            }
+
+            @Override
+            public void writeFailed(Throwable error) {
+                if (error instanceof WebSocketException) {
+                    reconnect();
+                    failureAction.execute(new JoynrDelayMessageException(reconnectDelay, error.getMessage()));
+                } else {
+                    failureAction.execute(error);
+                }
+            }
+        };
+    }
+
     @Override
     public void onWebSocketClose(int statusCode, String reason) {
         super.onWebSocketClose(statusCode, reason);
+        session = null;
         /* maybe the socket has been disconnected by the server, so let's retry */
-        if (!shutdown) {
-            reconnect();
+        if (state.compareAndSet(ConnectionState.OPEN, ConnectionState.CONNECTING)) {
+            scheduleConnect(reconnectDelay);
         }
     }
 }
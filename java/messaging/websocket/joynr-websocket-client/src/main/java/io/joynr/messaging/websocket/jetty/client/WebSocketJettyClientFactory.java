@@ -42,6 +42,7 @@ public class WebSocketJettyClientFactory implements WebSocketEndpointFactory {
     private int maxMessageSize;
     private long reconnectDelay;
     private long websocketIdleTimeout;
+    private int maxPendingMessages;
     private Map<WebSocketAddress, JoynrWebSocketEndpoint> jettyClientsMap = new HashMap<WebSocketAddress, JoynrWebSocketEndpoint>();
     private ObjectMapper objectMapper;
 
@@ -50,11 +51,13 @@ public class WebSocketJettyClientFactory implements WebSocketEndpointFactory {
                                        @Named(ConfigurableMessagingSettings.PROPERTY_MAX_MESSAGE_SIZE) int maxMessageSize,
                                        @Named(WebsocketModule.PROPERTY_WEBSOCKET_MESSAGING_RECONNECT_DELAY) long reconnectDelay,
                                        @Named(WebsocketModule.PROPERTY_WEBSOCKET_MESSAGING_IDLE_TIMEOUT) long websocketIdleTimeout,
+                                       @Named(WebsocketModule.PROPERTY_WEBSOCKET_MESSAGING_MAX_PENDING_MESSAGES) int maxPendingMessages,
                                        ObjectMapper objectMapper) {
         this.ownAddress = ownAddress;
         this.maxMessageSize = maxMessageSize;
         this.reconnectDelay = reconnectDelay;
         this.websocketIdleTimeout = websocketIdleTimeout;
+        this.maxPendingMessages = maxPendingMessages;
         this.objectMapper = objectMapper;
     }
 
@@ -66,6 +69,7 @@ public class WebSocketJettyClientFactory implements WebSocketEndpointFactory {
                                                                           maxMessageSize,
                                                                           reconnectDelay,
                                                                           websocketIdleTimeout,
+                                                                          maxPendingMessages,
                                                                           objectMapper);
             jettyClientsMap.put(serverAddress, jettyClient);
         }
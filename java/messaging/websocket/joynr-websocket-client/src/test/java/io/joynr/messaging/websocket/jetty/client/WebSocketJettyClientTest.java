@@ -0,0 +1,183 @@
+package io.joynr.messaging.websocket.jetty.client;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketException;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.IMessaging;
+import joynr.system.RoutingTypes.WebSocketAddress;
+import joynr.system.RoutingTypes.WebSocketClientAddress;
+import joynr.system.RoutingTypes.WebSocketProtocol;
+
+/**
+ * Unit tests for the pending-send buffer of the {@link WebSocketJettyClient}. The sessions are
+ * opened by calling {@link WebSocketJettyClient#onWebSocketConnect(Session)} directly.
+ */
+public class WebSocketJettyClientTest {
+
+    private static final int MAX_PENDING_MESSAGES = 2;
+    private static final long TIMEOUT_MS = 60000;
+
+    private WebSocketAddress serverAddress = new WebSocketAddress(WebSocketProtocol.WS, "localhost", 4242, "/test");
+    private WebSocketJettyClient subject;
+
+    @Before
+    public void setUp() {
+        subject = new WebSocketJettyClient(serverAddress,
+                                           new WebSocketClientAddress("clientId"),
+                                           100000,
+                                           100,
+                                           60000,
+                                           MAX_PENDING_MESSAGES,
+                                           new ObjectMapper());
+        subject.setMessageListener(mock(IMessaging.class));
+        // connecting is triggered by calling onWebSocketConnect in the tests
+        subject.reconnectTimer.cancel();
+    }
+
+    @After
+    public void tearDown() {
+        subject.shutdown();
+    }
+
+    @Test
+    public void pendingMessagesAreFlushedInOrderOnConnect() {
+        write("m1");
+        write("m2");
+        RemoteEndpoint remote = mock(RemoteEndpoint.class);
+
+        subject.onWebSocketConnect(createSession(remote));
+        write("m3");
+
+        InOrder inOrder = inOrder(remote);
+        // the initialization message is sent first
+        inOrder.verify(remote).sendString(anyString(), any(WriteCallback.class));
+        inOrder.verify(remote).sendString(eq("m1"), any(WriteCallback.class));
+        inOrder.verify(remote).sendString(eq("m2"), any(WriteCallback.class));
+        inOrder.verify(remote).sendString(eq("m3"), any(WriteCallback.class));
+    }
+
+    @Test
+    public void messageWrittenDuringFlushIsQueuedBehindPendingMessages() {
+        write("m1");
+        write("m2");
+        RemoteEndpoint remote = mock(RemoteEndpoint.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                write("m3");
+                return null;
+            }
+        }).when(remote).sendString(eq("m1"), any(WriteCallback.class));
+
+        subject.onWebSocketConnect(createSession(remote));
+
+        InOrder inOrder = inOrder(remote);
+        inOrder.verify(remote).sendString(eq("m1"), any(WriteCallback.class));
+        inOrder.verify(remote).sendString(eq("m2"), any(WriteCallback.class));
+        inOrder.verify(remote).sendString(eq("m3"), any(WriteCallback.class));
+        verify(remote, times(1)).sendString(eq("m3"), any(WriteCallback.class));
+    }
+
+    @Test(expected = JoynrDelayMessageException.class)
+    public void messageIsRejectedIfBufferIsFull() {
+        write("m1");
+        write("m2");
+
+        write("m3");
+    }
+
+    @Test
+    public void batchMessagesExceedingBufferAreFailed() {
+        List<FailureAction> failureActions = Arrays.asList(mock(FailureAction.class),
+                                                           mock(FailureAction.class),
+                                                           mock(FailureAction.class));
+
+        subject.writeText(null, Arrays.asList("m1", "m2", "m3"), TIMEOUT_MS, TimeUnit.MILLISECONDS, failureActions);
+
+        verify(failureActions.get(0), never()).execute(any(Throwable.class));
+        verify(failureActions.get(1), never()).execute(any(Throwable.class));
+        verify(failureActions.get(2)).execute(any(JoynrDelayMessageException.class));
+    }
+
+    @Test
+    public void messagesAreBufferedAfterWriteErrorAndFlushedAfterReconnect() {
+        RemoteEndpoint remote = mock(RemoteEndpoint.class);
+        write("m1");
+        subject.onWebSocketConnect(createSession(remote));
+        doThrow(new WebSocketException("session closed")).when(remote).sendString(eq("m2"),
+                                                                                  any(WriteCallback.class));
+
+        try {
+            write("m2");
+            fail("expected JoynrDelayMessageException");
+        } catch (JoynrDelayMessageException e) {
+            // expected, the message router retries the message
+        }
+        write("m3");
+        verify(remote, never()).sendString(eq("m3"), any(WriteCallback.class));
+
+        RemoteEndpoint newRemote = mock(RemoteEndpoint.class);
+        subject.onWebSocketConnect(createSession(newRemote));
+
+        verify(newRemote).sendString(eq("m3"), any(WriteCallback.class));
+        verify(newRemote, never()).sendString(eq("m1"), any(WriteCallback.class));
+    }
+
+    private void write(String message) {
+        subject.writeText(null, message, TIMEOUT_MS, TimeUnit.MILLISECONDS, mock(FailureAction.class));
+    }
+
+    private Session createSession(RemoteEndpoint remote) {
+        Session session = mock(Session.class);
+        when(session.getRemote()).thenReturn(remote);
+        return session;
+    }
+}
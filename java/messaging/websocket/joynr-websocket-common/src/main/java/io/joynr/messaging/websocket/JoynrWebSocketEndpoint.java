@@ -19,6 +19,7 @@ package io.joynr.messaging.websocket;
  * #L%
  */
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import io.joynr.messaging.FailureAction;
@@ -35,5 +36,20 @@ public interface JoynrWebSocketEndpoint {
 
     public void writeText(Address to, String message, long timeout, TimeUnit unit, FailureAction failureAction);
 
+    /**
+     * Writes several messages as separate text frames, but flushes them to the network together.
+     *
+     * @param to the address of the receiving endpoint
+     * @param messages the serialized messages
+     * @param timeout how long to wait for the connection to become available
+     * @param unit the unit of timeout
+     * @param failureActions failureActions.get(i) is executed if messages.get(i) could not be written
+     */
+    public void writeText(Address to,
+                          List<String> messages,
+                          long timeout,
+                          TimeUnit unit,
+                          List<FailureAction> failureActions);
+
     public void reconnect();
 }
@@ -19,6 +19,7 @@ package io.joynr.messaging.websocket;
  * #L%
  */
 
+import java.util.List;
 import java.io.IOException;
 
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
@@ -70,6 +71,13 @@ public class WebSocketMessagingSkeleton extends WebSocketAdapter implements IMes
         }
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        for (int i = 0; i < messages.size(); i++) {
+            transmit(messages.get(i), failureActions.get(i));
+        }
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         try {
@@ -19,6 +19,8 @@ package io.joynr.messaging.websocket;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -59,6 +61,33 @@ public class WebSocketMessagingStub implements IMessaging {
         }
     }
 
+    @Override
+    public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+        logger.debug("WebSocketMessagingStub.transmit with {} messages", messages.size());
+        List<String> serializedMessages = new ArrayList<>(messages.size());
+        List<FailureAction> serializedMessagesFailureActions = new ArrayList<>(messages.size());
+        long earliestExpiryDate = Long.MAX_VALUE;
+        for (int i = 0; i < messages.size(); i++) {
+            JoynrMessage message = messages.get(i);
+            try {
+                serializedMessages.add(objectMapper.writeValueAsString(message));
+                serializedMessagesFailureActions.add(failureActions.get(i));
+                earliestExpiryDate = Math.min(earliestExpiryDate, message.getExpiryDate());
+            } catch (JsonProcessingException error) {
+                failureActions.get(i).execute(error);
+            }
+        }
+        if (serializedMessages.isEmpty()) {
+            return;
+        }
+        long timeout = earliestExpiryDate - System.currentTimeMillis();
+        webSocketEndpoint.writeText(toAddress,
+                                    serializedMessages,
+                                    timeout,
+                                    TimeUnit.MILLISECONDS,
+                                    serializedMessagesFailureActions);
+    }
+
     @Override
     public void transmit(String serializedMessage, FailureAction failureAction) {
         webSocketEndpoint.writeText(toAddress, serializedMessage, 30, TimeUnit.SECONDS, failureAction);
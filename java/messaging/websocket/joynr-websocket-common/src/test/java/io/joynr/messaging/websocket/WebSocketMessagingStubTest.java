@@ -0,0 +1,160 @@
+package io.joynr.messaging.websocket;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.joynr.common.ExpiryDate;
+import io.joynr.messaging.FailureAction;
+import joynr.JoynrMessage;
+import joynr.system.RoutingTypes.WebSocketAddress;
+import joynr.system.RoutingTypes.WebSocketProtocol;
+
+/**
+ * Unit tests for the batched transmit of the {@link WebSocketMessagingStub}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WebSocketMessagingStubTest {
+
+    private WebSocketAddress toAddress = new WebSocketAddress(WebSocketProtocol.WS, "localhost", 4242, "/test");
+
+    @Mock
+    private JoynrWebSocketEndpoint webSocketEndpoint;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private FailureAction failureAction1;
+    @Mock
+    private FailureAction failureAction2;
+    @Mock
+    private FailureAction failureAction3;
+
+    private JoynrMessage message1;
+    private JoynrMessage message2;
+    private JoynrMessage message3;
+    private WebSocketMessagingStub subject;
+
+    @Before
+    public void setUp() throws Exception {
+        message1 = createMessage(60000);
+        message2 = createMessage(10000);
+        message3 = createMessage(60000);
+        when(objectMapper.writeValueAsString(message1)).thenReturn("m1");
+        when(objectMapper.writeValueAsString(message2)).thenReturn("m2");
+        when(objectMapper.writeValueAsString(message3)).thenReturn("m3");
+        subject = new WebSocketMessagingStub(toAddress, webSocketEndpoint, objectMapper);
+    }
+
+    @Test
+    public void batchIsWrittenWithOneCall() {
+        subject.transmit(Arrays.asList(message1, message2, message3),
+                         Arrays.asList(failureAction1, failureAction2, failureAction3));
+
+        ArgumentCaptor<Long> timeout = ArgumentCaptor.forClass(Long.class);
+        verify(webSocketEndpoint).writeText(eq(toAddress),
+                                            eq(Arrays.asList("m1", "m2", "m3")),
+                                            timeout.capture(),
+                                            eq(TimeUnit.MILLISECONDS),
+                                            eq(Arrays.asList(failureAction1, failureAction2, failureAction3)));
+        verify(webSocketEndpoint, never()).writeText(any(WebSocketAddress.class),
+                                                     anyString(),
+                                                     anyLong(),
+                                                     any(TimeUnit.class),
+                                                     any(FailureAction.class));
+        // the batch must not wait longer than the earliest expiring message
+        assertTrue(timeout.getValue() <= 10000);
+    }
+
+    @Test
+    public void messageFailingSerializationIsLeftOutOfBatch() throws Exception {
+        JsonMappingException error = new JsonMappingException("not serializable");
+        when(objectMapper.writeValueAsString(message2)).thenThrow(error);
+
+        subject.transmit(Arrays.asList(message1, message2, message3),
+                         Arrays.asList(failureAction1, failureAction2, failureAction3));
+
+        verify(failureAction2).execute(error);
+        verify(webSocketEndpoint).writeText(eq(toAddress),
+                                            eq(Arrays.asList("m1", "m3")),
+                                            anyLong(),
+                                            eq(TimeUnit.MILLISECONDS),
+                                            eq(Arrays.asList(failureAction1, failureAction3)));
+        verify(failureAction1, never()).execute(any(Throwable.class));
+        verify(failureAction3, never()).execute(any(Throwable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void nothingIsWrittenIfNoMessageCanBeSerialized() throws Exception {
+        JsonMappingException error = new JsonMappingException("not serializable");
+        when(objectMapper.writeValueAsString(message1)).thenThrow(error);
+
+        subject.transmit(Arrays.asList(message1), Arrays.asList(failureAction1));
+
+        verify(failureAction1).execute(error);
+        verify(webSocketEndpoint, never()).writeText(any(WebSocketAddress.class),
+                                                     (List<String>) any(List.class),
+                                                     anyLong(),
+                                                     any(TimeUnit.class),
+                                                     (List<FailureAction>) any(List.class));
+    }
+
+    @Test
+    public void singleMessageIsWrittenWithoutBatch() {
+        subject.transmit(message1, failureAction1);
+
+        ArgumentCaptor<Long> timeout = ArgumentCaptor.forClass(Long.class);
+        verify(webSocketEndpoint).writeText(eq(toAddress),
+                                            eq("m1"),
+                                            timeout.capture(),
+                                            eq(TimeUnit.MILLISECONDS),
+                                            eq(failureAction1));
+        assertEquals(60000, timeout.getValue(), 1000);
+    }
+
+    private JoynrMessage createMessage(long ttlMs) {
+        JoynrMessage message = new JoynrMessage();
+        message.setTo("toParticipantId");
+        message.setExpirationDate(ExpiryDate.fromRelativeTtl(ttlMs));
+        return message;
+    }
+}
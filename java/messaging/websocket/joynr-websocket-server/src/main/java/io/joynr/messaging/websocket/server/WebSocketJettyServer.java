@@ -21,9 +21,13 @@ package io.joynr.messaging.websocket.server;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.http.HttpVersion;
@@ -33,7 +37,6 @@ import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
-import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
 import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.eclipse.jetty.websocket.api.WriteCallback;
@@ -63,21 +66,25 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
     private Server server;
     private WebSocketAddress address;
     private int maxMessageSize;
-    private Map<String, Session> sessionMap = new HashMap<>();
-    private List<CCWebSocketMessagingSkeletonSocket> openSockets = new ArrayList<>();
+    private int maxQueuedMessagesPerSession;
+    // sessions are registered and removed by Jetty threads while messages are written by the message router
+    private ConcurrentMap<String, WebSocketSessionWriter> sessionMap = new ConcurrentHashMap<>();
+    private Set<CCWebSocketMessagingSkeletonSocket> openSockets = Collections.newSetFromMap(new ConcurrentHashMap<CCWebSocketMessagingSkeletonSocket, Boolean>());
 
     public ObjectMapper objectMapper;
 
     private IMessaging messageListener;
 
-    private boolean shutdown = false;
+    private volatile boolean shutdown = false;
 
     public WebSocketJettyServer(WebSocketAddress address,
                                 ObjectMapper objectMapper,
-                                int maxMessageSize) {
+                                int maxMessageSize,
+                                int maxQueuedMessagesPerSession) {
         this.address = address;
         this.objectMapper = objectMapper;
         this.maxMessageSize = maxMessageSize;
+        this.maxQueuedMessagesPerSession = maxQueuedMessagesPerSession;
     }
 
     @Override
@@ -150,9 +157,9 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
     @Override
     public void shutdown() {
         shutdown  = true;
-        for (Session session : sessionMap.values()) {
+        for (WebSocketSessionWriter sessionWriter : sessionMap.values()) {
             try {
-                session.disconnect();
+                sessionWriter.getSession().disconnect();
             } catch (IOException e) {
                 logger.error("Error: ", e);
             }
@@ -165,38 +172,94 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
     }
 
     @Override
-    public synchronized void writeText(Address toAddress, String message, long timeout, TimeUnit unit, final FailureAction failureAction) {
+    public void writeText(Address toAddress, String message, long timeout, TimeUnit unit, final FailureAction failureAction) {
+        WebSocketClientAddress toClientAddress = toClientAddress(toAddress);
+        WebSocketSessionWriter sessionWriter = getSessionWriter(toClientAddress);
+        try {
+            sessionWriter.write(message, createWriteCallback(failureAction));
+        } catch (WebSocketException e) {
+            // Jetty throws WebSocketException when expecting [OPEN or CONNECTED] but found a different state
+            // The client must reconnect, but the message can be queued in the mean time.
+            sessionMap.remove(toClientAddress.getId(), sessionWriter);
+            //TODO We need a delay with invalidation of the stub
+            throw new JoynrDelayMessageException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void writeText(Address toAddress,
+                          List<String> messages,
+                          long timeout,
+                          TimeUnit unit,
+                          List<FailureAction> failureActions) {
+        WebSocketClientAddress toClientAddress = toClientAddress(toAddress);
+        WebSocketSessionWriter sessionWriter = getSessionWriter(toClientAddress);
+        List<WriteCallback> callbacks = new ArrayList<>(failureActions.size());
+        for (FailureAction failureAction : failureActions) {
+            callbacks.add(createWriteCallback(failureAction));
+        }
+        int accepted = 0;
+        JoynrDelayMessageException delayException = null;
+        try {
+            accepted = sessionWriter.write(messages, callbacks);
+        } catch (WebSocketSessionWriter.PartialWriteException e) {
+            // the messages handed over to Jetty already are failed through their write callbacks
+            accepted = e.getHandedOff();
+            sessionMap.remove(toClientAddress.getId(), sessionWriter);
+            delayException = new JoynrDelayMessageException(e.getMessage(), e);
+        }
+        if (delayException == null && accepted < messages.size()) {
+            delayException = new JoynrDelayMessageException("outbound queue of WebSocketClientAddress "
+                    + toClientAddress.getId() + " is full");
+        }
+        // the messages which have not been handed over to Jetty are delayed
+        for (int i = accepted; delayException != null && i < messages.size(); i++) {
+            failureActions.get(i).execute(delayException);
+        }
+    }
+
+    /**
+     * @return the number of messages per connected libjoynr client which have been accepted
+     * for sending, but have not been written to the network yet
+     */
+    public Map<String, Integer> getSessionQueueDepths() {
+        Map<String, Integer> queueDepths = new HashMap<>();
+        for (Map.Entry<String, WebSocketSessionWriter> entry : sessionMap.entrySet()) {
+            queueDepths.put(entry.getKey(), entry.getValue().getQueueDepth());
+        }
+        return queueDepths;
+    }
+
+    private WebSocketClientAddress toClientAddress(Address toAddress) {
         if (! (toAddress instanceof WebSocketClientAddress)) {
             throw new JoynrIllegalStateException("Web Socket Server can only send to WebSocketClientAddresses");
         }
+        return (WebSocketClientAddress) toAddress;
+    }
 
-        WebSocketClientAddress toClientAddress = (WebSocketClientAddress) toAddress;
-        Session session = sessionMap.get(toClientAddress.getId());
-        if (session == null) {
+    private WebSocketSessionWriter getSessionWriter(WebSocketClientAddress toClientAddress) {
+        WebSocketSessionWriter sessionWriter = sessionMap.get(toClientAddress.getId());
+        if (sessionWriter == null) {
             //TODO We need a delay with invalidation of the stub
             throw new JoynrDelayMessageException("no active session for WebSocketClientAddress: " + toClientAddress.getId());
         }
-        try {
-            session.getRemote().sendString(message, new WriteCallback() {
-                @Override
-                public void writeSuccess() {
-                    // Nothing to do
-                }
-                @Override
-                public void writeFailed(Throwable error) {
-                    if (shutdown) {
-                        return;
-                    }
-                    failureAction.execute(error);
+        return sessionWriter;
+    }
+
+    private WriteCallback createWriteCallback(final FailureAction failureAction) {
+        return new WriteCallback() {
+            @Override
+            public void writeSuccess() {
+                // Nothing to do
+            }
+            @Override
+            public void writeFailed(Throwable error) {
+                if (shutdown) {
+                    return;
                 }
-            });
-        } catch (WebSocketException e) {
-            // Jetty throws WebSocketException when expecting [OPEN or CONNECTED] but found a different state
-            // The client must reconnect, but the message can be queued in the mean time.
-            sessionMap.remove(toClientAddress.getId());
-            //TODO We need a delay with invalidation of the stub
-            throw new JoynrDelayMessageException(e.getMessage(), e);
-        }
+                failureAction.execute(error);
+            }
+        };
     }
 
     @Override
@@ -210,6 +273,7 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
     private class CCWebSocketMessagingSkeletonSocket extends WebSocketAdapter {
 
         private WebSocketMessageArrivedListener messageArrivedListener;
+        private volatile WebSocketSessionWriter sessionWriter;
 
         public CCWebSocketMessagingSkeletonSocket(WebSocketMessageArrivedListener messageArrivedListener) {
             this.messageArrivedListener = messageArrivedListener;
@@ -222,7 +286,10 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
                     WebSocketClientAddress webSocketClientAddress = objectMapper.readValue(serializedMessage,
                                                                                            WebSocketClientAddress.class);
                     logger.debug("Registering WebSocketClientAddress: " + webSocketClientAddress);
-                    sessionMap.put(webSocketClientAddress.getId(), getSession());
+                    sessionWriter = new WebSocketSessionWriter(webSocketClientAddress.getId(),
+                                                               getSession(),
+                                                               maxQueuedMessagesPerSession);
+                    sessionMap.put(webSocketClientAddress.getId(), sessionWriter);
                 } catch (IOException e) {
                     logger.error("Error parsing WebSocketClientAddress: ", e);
                 }
@@ -234,6 +301,11 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
         @Override public void onWebSocketClose(int statusCode, String reason) {
             super.onWebSocketClose(statusCode, reason);
             openSockets.remove(CCWebSocketMessagingSkeletonSocket.this);
+            WebSocketSessionWriter closedSessionWriter = sessionWriter;
+            if (closedSessionWriter != null) {
+                // a reconnected client might already have registered a new session
+                sessionMap.values().remove(closedSessionWriter);
+            }
         }
     }
 
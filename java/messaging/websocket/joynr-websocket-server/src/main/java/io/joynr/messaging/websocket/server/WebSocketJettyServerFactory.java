@@ -28,26 +28,33 @@ import com.google.inject.Singleton;
 import io.joynr.messaging.ConfigurableMessagingSettings;
 import io.joynr.messaging.websocket.JoynrWebSocketEndpoint;
 import io.joynr.messaging.websocket.WebSocketEndpointFactory;
+import io.joynr.messaging.websocket.WebsocketModule;
 import joynr.system.RoutingTypes.WebSocketAddress;
 
 @Singleton
 public class WebSocketJettyServerFactory implements WebSocketEndpointFactory {
 
     private int maxMessageSize;
+    private int maxQueuedMessagesPerSession;
     private ObjectMapper objectMapper;
     private WebSocketJettyServer jettyServer;
 
     @Inject
     public WebSocketJettyServerFactory(@Named(ConfigurableMessagingSettings.PROPERTY_MAX_MESSAGE_SIZE) int maxMessageSize,
+                                       @Named(WebsocketModule.PROPERTY_WEBSOCKET_SERVER_SESSION_QUEUE_SIZE) int maxQueuedMessagesPerSession,
                                        ObjectMapper objectMapper) {
         this.maxMessageSize = maxMessageSize;
+        this.maxQueuedMessagesPerSession = maxQueuedMessagesPerSession;
         this.objectMapper = objectMapper;
     }
 
     @Override
     public synchronized JoynrWebSocketEndpoint create(WebSocketAddress serverAddress) {
         if (jettyServer == null) {
-            jettyServer = new WebSocketJettyServer((WebSocketAddress) serverAddress, objectMapper, maxMessageSize);
+            jettyServer = new WebSocketJettyServer((WebSocketAddress) serverAddress,
+                                                   objectMapper,
+                                                   maxMessageSize,
+                                                   maxQueuedMessagesPerSession);
         }
         return jettyServer;
     }
@@ -0,0 +1,173 @@
+package io.joynr.messaging.websocket.server;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketException;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+
+/**
+ * Writes the outbound messages of one websocket session. The writes are handed over to Jetty
+ * asynchronously, so writing to a slow client never blocks the writes to other clients.
+ * The number of pending writes (handed over to Jetty, but not yet written to the network) is
+ * bounded per session: if the bound is reached, further messages are rejected with a
+ * {@link JoynrDelayMessageException} so that the message router retries them later.
+ */
+class WebSocketSessionWriter {
+
+    private final String clientId;
+    private final Session session;
+    private final int maxPendingWrites;
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+
+    WebSocketSessionWriter(String clientId, Session session, int maxPendingWrites) {
+        this.clientId = clientId;
+        this.session = session;
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    /**
+     * @return the number of messages which have been accepted for this session, but have not been
+     * written to the network yet
+     */
+    int getQueueDepth() {
+        return pendingWrites.get();
+    }
+
+    /**
+     * @throws JoynrDelayMessageException if the outbound queue of the session is full
+     * @throws WebSocketException if the session is not open anymore
+     */
+    void write(String message, WriteCallback callback) {
+        if (reserve(1) == 0) {
+            throw new JoynrDelayMessageException("outbound queue of WebSocketClientAddress " + clientId
+                    + " is full: " + maxPendingWrites + " messages pending");
+        }
+        // the remote endpoint is not safe for concurrent use while its batch mode is changed
+        synchronized (this) {
+            try {
+                send(session.getRemote(), message, callback);
+            } catch (WebSocketException e) {
+                pendingWrites.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes as many of the messages as the outbound queue of the session accepts. The frames
+     * are batched and written to the network together.
+     *
+     * @return the number of messages which have been accepted; the remaining messages have not
+     * been written
+     * @throws PartialWriteException if the session is not open anymore; the messages which have
+     * been handed over to Jetty before are failed through their callbacks, the others have not
+     * been written
+     */
+    int write(List<String> messages, List<WriteCallback> callbacks) {
+        int accepted = reserve(messages.size());
+        if (accepted == 0) {
+            return 0;
+        }
+        int handedOff = 0;
+        synchronized (this) {
+            try {
+                RemoteEndpoint remote = session.getRemote();
+                try {
+                    // frames are collected until a frame without batching is sent, so the messages are
+                    // written to the network together without blocking in flush
+                    remote.setBatchMode(BatchMode.ON);
+                    for (; handedOff < accepted - 1; handedOff++) {
+                        send(remote, messages.get(handedOff), callbacks.get(handedOff));
+                    }
+                    remote.setBatchMode(BatchMode.AUTO);
+                    send(remote, messages.get(handedOff), callbacks.get(handedOff));
+                    handedOff++;
+                } finally {
+                    remote.setBatchMode(BatchMode.AUTO);
+                }
+            } catch (WebSocketException e) {
+                // the slots of the messages handed over to Jetty are released through their callbacks
+                pendingWrites.addAndGet(-(accepted - handedOff));
+                throw new PartialWriteException(handedOff, e);
+            }
+        }
+        return accepted;
+    }
+
+    private int reserve(int requested) {
+        while (true) {
+            int pending = pendingWrites.get();
+            int accepted = Math.min(requested, maxPendingWrites - pending);
+            if (accepted <= 0) {
+                return 0;
+            }
+            if (pendingWrites.compareAndSet(pending, pending + accepted)) {
+                return accepted;
+            }
+        }
+    }
+
+    private void send(RemoteEndpoint remote, String message, final WriteCallback callback) {
+        remote.sendString(message, new WriteCallback() {
+            @Override
+            public void writeSuccess() {
+                pendingWrites.decrementAndGet();
+                callback.writeSuccess();
+            }
+
+            @Override
+            public void writeFailed(Throwable error) {
+                pendingWrites.decrementAndGet();
+                callback.writeFailed(error);
+            }
+        });
+    }
+
+    /**
+     * Thrown if a batch write fails after some of its messages have been handed over to Jetty
+     * already. Their outcome is reported through their callbacks, so only the messages from
+     * {@link #getHandedOff()} on must be failed by the caller.
+     */
+    static class PartialWriteException extends WebSocketException {
+        private static final long serialVersionUID = 1L;
+        private final int handedOff;
+
+        PartialWriteException(int handedOff, WebSocketException cause) {
+            super(cause.getMessage(), cause);
+            this.handedOff = handedOff;
+        }
+
+        int getHandedOff() {
+            return handedOff;
+        }
+    }
+}
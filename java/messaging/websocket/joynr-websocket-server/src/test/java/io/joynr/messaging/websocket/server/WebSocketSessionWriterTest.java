@@ -0,0 +1,176 @@
+package io.joynr.messaging.websocket.server;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketException;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+
+/**
+ * Unit tests for the pending write accounting of the {@link WebSocketSessionWriter}.
+ */
+public class WebSocketSessionWriterTest {
+
+    private static final int MAX_PENDING_WRITES = 3;
+
+    private Session session;
+    private RemoteEndpoint remote;
+    private WebSocketSessionWriter subject;
+
+    @Before
+    public void setUp() {
+        session = mock(Session.class);
+        remote = mock(RemoteEndpoint.class);
+        when(session.getRemote()).thenReturn(remote);
+        subject = new WebSocketSessionWriter("clientId", session, MAX_PENDING_WRITES);
+    }
+
+    @Test
+    public void batchIsAcceptedUpToMaxPendingWrites() {
+        List<String> messages = Arrays.asList("m0", "m1", "m2", "m3");
+        List<WriteCallback> callbacks = createCallbacks(messages.size());
+
+        int accepted = subject.write(messages, callbacks);
+
+        assertEquals(MAX_PENDING_WRITES, accepted);
+        assertEquals(MAX_PENDING_WRITES, subject.getQueueDepth());
+        verify(remote).sendString(eq("m0"), any(WriteCallback.class));
+        verify(remote).sendString(eq("m2"), any(WriteCallback.class));
+        verify(remote, never()).sendString(eq("m3"), any(WriteCallback.class));
+
+        completeAllWrites(MAX_PENDING_WRITES);
+        assertEquals(0, subject.getQueueDepth());
+        verify(callbacks.get(0)).writeSuccess();
+        verify(callbacks.get(2)).writeSuccess();
+    }
+
+    @Test
+    public void batchIsRejectedIfQueueIsFull() {
+        subject.write(Arrays.asList("m0", "m1", "m2"), createCallbacks(3));
+
+        int accepted = subject.write(Arrays.asList("m3"), createCallbacks(1));
+
+        assertEquals(0, accepted);
+        assertEquals(MAX_PENDING_WRITES, subject.getQueueDepth());
+        verify(remote, times(MAX_PENDING_WRITES)).sendString(anyString(), any(WriteCallback.class));
+    }
+
+    @Test
+    public void exceptionMidBatchReportsHandedOffMessages() {
+        doNothing().doThrow(new WebSocketException("session closed"))
+                   .when(remote)
+                   .sendString(anyString(), any(WriteCallback.class));
+        List<WriteCallback> callbacks = createCallbacks(3);
+
+        try {
+            subject.write(Arrays.asList("m0", "m1", "m2"), callbacks);
+            fail("expected PartialWriteException");
+        } catch (WebSocketSessionWriter.PartialWriteException e) {
+            assertEquals(1, e.getHandedOff());
+        }
+
+        // only the slot of the message handed over to Jetty is still in use
+        assertEquals(1, subject.getQueueDepth());
+        verify(remote, never()).sendString(eq("m2"), any(WriteCallback.class));
+
+        ArgumentCaptor<WriteCallback> jettyCallback = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote).sendString(eq("m0"), jettyCallback.capture());
+        WebSocketException error = new WebSocketException("session closed");
+        jettyCallback.getValue().writeFailed(error);
+        assertEquals(0, subject.getQueueDepth());
+        verify(callbacks.get(0)).writeFailed(error);
+        verify(callbacks.get(1), never()).writeFailed(any(Throwable.class));
+        verify(callbacks.get(2), never()).writeFailed(any(Throwable.class));
+    }
+
+    @Test
+    public void closedSessionReleasesAllSlotsOfBatch() {
+        when(session.getRemote()).thenThrow(new WebSocketException("session closed"));
+
+        try {
+            subject.write(Arrays.asList("m0", "m1"), createCallbacks(2));
+            fail("expected PartialWriteException");
+        } catch (WebSocketSessionWriter.PartialWriteException e) {
+            assertEquals(0, e.getHandedOff());
+        }
+
+        assertEquals(0, subject.getQueueDepth());
+    }
+
+    @Test
+    public void singleWriteReleasesSlotOnException() {
+        doNothing().doThrow(new WebSocketException("session closed"))
+                   .when(remote)
+                   .sendString(anyString(), any(WriteCallback.class));
+        subject.write("m0", mock(WriteCallback.class));
+
+        try {
+            subject.write("m1", mock(WriteCallback.class));
+            fail("expected WebSocketException");
+        } catch (WebSocketException e) {
+            assertEquals(1, subject.getQueueDepth());
+        }
+    }
+
+    @Test(expected = JoynrDelayMessageException.class)
+    public void singleWriteIsRejectedIfQueueIsFull() {
+        subject.write(Arrays.asList("m0", "m1", "m2"), createCallbacks(3));
+
+        subject.write("m3", mock(WriteCallback.class));
+    }
+
+    private List<WriteCallback> createCallbacks(int count) {
+        List<WriteCallback> callbacks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            callbacks.add(mock(WriteCallback.class));
+        }
+        return callbacks;
+    }
+
+    private void completeAllWrites(int expectedWrites) {
+        ArgumentCaptor<WriteCallback> jettyCallbacks = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote, times(expectedWrites)).sendString(anyString(), jettyCallbacks.capture());
+        for (WriteCallback jettyCallback : jettyCallbacks.getAllValues()) {
+            jettyCallback.writeSuccess();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry point of benchmarks.jar. Behaves like the JMH main class, but writes the results as JSON to
+ * jmh-result.json unless another result format is requested with -rf, so that the results of different releases
+ * can be compared by tools.
+ */
+public class BenchmarkRunner {
+
+    private static final String RESULT_FORMAT_OPTION = "-rf";
+    private static final String DEFAULT_RESULT_FORMAT = "json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<String>(Arrays.asList(args));
+        if (!jmhArgs.contains(RESULT_FORMAT_OPTION)) {
+            jmhArgs.add(0, RESULT_FORMAT_OPTION);
+            jmhArgs.add(1, DEFAULT_RESULT_FORMAT);
+        }
+        Main.main(jmhArgs.toArray(new String[jmhArgs.size()]));
+    }
+}
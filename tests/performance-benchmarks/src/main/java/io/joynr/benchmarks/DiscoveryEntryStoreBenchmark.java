@@ -0,0 +1,99 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.joynr.arbitration.DiscoveryQos;
+import io.joynr.capabilities.DefaultCapabilitiesProvisioning;
+import io.joynr.capabilities.DiscoveryEntryStoreInMemory;
+import joynr.types.DiscoveryEntry;
+import joynr.types.ProviderQos;
+import joynr.types.Version;
+
+/**
+ * Measures the lookups of {@link DiscoveryEntryStoreInMemory}, which are done for every arbitration and for every
+ * message whose next hop is not known yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DiscoveryEntryStoreBenchmark {
+
+    private static final String INTERFACE_NAME = "tests/performance/Echo";
+    private static final int ENTRIES_PER_DOMAIN = 4;
+
+    @Param({ "100", "10000" })
+    private int storeSize;
+
+    private DiscoveryEntryStoreInMemory store;
+    private String[] domains;
+    private String participantId;
+
+    @Setup
+    public void setup() {
+        store = new DiscoveryEntryStoreInMemory(new DefaultCapabilitiesProvisioning());
+        List<DiscoveryEntry> entries = new ArrayList<DiscoveryEntry>(storeSize);
+        for (int i = 0; i < storeSize; i++) {
+            entries.add(new DiscoveryEntry(new Version(0, 1),
+                                           "domain" + (i / ENTRIES_PER_DOMAIN),
+                                           INTERFACE_NAME,
+                                           "participantId" + i,
+                                           new ProviderQos(),
+                                           System.currentTimeMillis(),
+                                           Long.MAX_VALUE,
+                                           "publicKeyId"));
+        }
+        store.add(entries);
+
+        int lastDomain = (storeSize - 1) / ENTRIES_PER_DOMAIN;
+        domains = new String[]{ "domain" + lastDomain / 2, "domain" + lastDomain };
+        participantId = "participantId" + storeSize / 2;
+    }
+
+    @Benchmark
+    public Collection<DiscoveryEntry> lookupByDomainAndInterface() {
+        return store.lookup(domains, INTERFACE_NAME, DiscoveryQos.NO_MAX_AGE);
+    }
+
+    @Benchmark
+    public DiscoveryEntry lookupByParticipantId() {
+        return store.lookup(participantId, DiscoveryQos.NO_MAX_AGE);
+    }
+}
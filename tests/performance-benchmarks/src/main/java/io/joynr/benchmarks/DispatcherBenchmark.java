@@ -0,0 +1,176 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+
+import io.joynr.dispatching.Dispatcher;
+import io.joynr.dispatching.DispatcherImpl;
+import io.joynr.dispatching.JoynrMessageFactory;
+import io.joynr.dispatching.JoynrMessageProcessor;
+import io.joynr.dispatching.RequestReplyManager;
+import io.joynr.dispatching.subscription.PublicationManager;
+import io.joynr.dispatching.subscription.SubscriptionManager;
+import io.joynr.messaging.JsonMessageSerializerModule;
+import io.joynr.messaging.MessagingQos;
+import io.joynr.messaging.routing.MessageRouter;
+import joynr.JoynrMessage;
+import joynr.OnChangeSubscriptionQos;
+import joynr.OneWayRequest;
+import joynr.Reply;
+import joynr.Request;
+import joynr.SubscriptionPublication;
+import joynr.SubscriptionReply;
+import joynr.SubscriptionRequest;
+import joynr.SubscriptionStop;
+
+/**
+ * Measures the handling of incoming messages by {@link DispatcherImpl#messageArrived(JoynrMessage)} for each message
+ * type. The managers the dispatcher hands the decoded payloads to are mocks, so the result is dominated by the
+ * payload deserialization and the dispatching itself. The mocks are recreated for every iteration, so that the
+ * invocations they record do not pile up over the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    private static final String FROM_PARTICIPANT_ID = "fromParticipantId";
+    private static final String TO_PARTICIPANT_ID = "toParticipantId";
+    private static final String SUBSCRIPTION_ID = "subscriptionId";
+    private static final long MESSAGE_TTL_MS = TimeUnit.DAYS.toMillis(1);
+
+    @Param({ JoynrMessage.MESSAGE_TYPE_REQUEST, JoynrMessage.MESSAGE_TYPE_ONE_WAY, JoynrMessage.MESSAGE_TYPE_REPLY,
+            JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REQUEST, JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REPLY,
+            JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_STOP, JoynrMessage.MESSAGE_TYPE_PUBLICATION })
+    private String messageType;
+
+    private Dispatcher dispatcher;
+    private JoynrMessage message;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final RequestReplyManager requestReplyManager = mock(RequestReplyManager.class);
+        when(requestReplyManager.hasReplyCaller(anyString())).thenReturn(true);
+        final SubscriptionManager subscriptionManager = mock(SubscriptionManager.class);
+        when(subscriptionManager.hasSubscription(anyString())).thenReturn(true);
+        doReturn(String.class).when(subscriptionManager).getAttributeType(anyString());
+
+        Injector injector = Guice.createInjector(new JsonMessageSerializerModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Dispatcher.class).to(DispatcherImpl.class);
+                bind(RequestReplyManager.class).toInstance(requestReplyManager);
+                bind(SubscriptionManager.class).toInstance(subscriptionManager);
+                bind(PublicationManager.class).toInstance(mock(PublicationManager.class));
+                bind(MessageRouter.class).toInstance(mock(MessageRouter.class));
+                Multibinder.newSetBinder(binder(), new TypeLiteral<JoynrMessageProcessor>() {
+                });
+            }
+        });
+        dispatcher = injector.getInstance(Dispatcher.class);
+        message = createMessage(injector.getInstance(JoynrMessageFactory.class));
+    }
+
+    private JoynrMessage createMessage(JoynrMessageFactory joynrMessageFactory) {
+        MessagingQos messagingQos = new MessagingQos(MESSAGE_TTL_MS);
+        switch (messageType) {
+        case JoynrMessage.MESSAGE_TYPE_REQUEST:
+            return joynrMessageFactory.createRequest(FROM_PARTICIPANT_ID,
+                                                     TO_PARTICIPANT_ID,
+                                                     new Request("echoString",
+                                                                 new Object[]{ "benchmark" },
+                                                                 new Class<?>[]{ String.class }),
+                                                     messagingQos);
+        case JoynrMessage.MESSAGE_TYPE_ONE_WAY:
+            return joynrMessageFactory.createOneWayRequest(FROM_PARTICIPANT_ID,
+                                                           TO_PARTICIPANT_ID,
+                                                           new OneWayRequest("echoString",
+                                                                             new Object[]{ "benchmark" },
+                                                                             new Class<?>[]{ String.class }),
+                                                           messagingQos);
+        case JoynrMessage.MESSAGE_TYPE_REPLY:
+            return joynrMessageFactory.createReply(TO_PARTICIPANT_ID,
+                                                   FROM_PARTICIPANT_ID,
+                                                   new Reply("requestReplyId", "benchmark"),
+                                                   messagingQos);
+        case JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REQUEST:
+            return joynrMessageFactory.createSubscriptionRequest(FROM_PARTICIPANT_ID,
+                                                                 TO_PARTICIPANT_ID,
+                                                                 new SubscriptionRequest(SUBSCRIPTION_ID,
+                                                                                         "attribute",
+                                                                                         new OnChangeSubscriptionQos()),
+                                                                 messagingQos,
+                                                                 false);
+        case JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_REPLY:
+            return joynrMessageFactory.createSubscriptionReply(TO_PARTICIPANT_ID,
+                                                               FROM_PARTICIPANT_ID,
+                                                               new SubscriptionReply(SUBSCRIPTION_ID),
+                                                               messagingQos);
+        case JoynrMessage.MESSAGE_TYPE_SUBSCRIPTION_STOP:
+            return joynrMessageFactory.createSubscriptionStop(FROM_PARTICIPANT_ID,
+                                                              TO_PARTICIPANT_ID,
+                                                              new SubscriptionStop(SUBSCRIPTION_ID),
+                                                              messagingQos);
+        case JoynrMessage.MESSAGE_TYPE_PUBLICATION:
+            return joynrMessageFactory.createPublication(TO_PARTICIPANT_ID,
+                                                         FROM_PARTICIPANT_ID,
+                                                         new SubscriptionPublication(Arrays.asList("benchmark"),
+                                                                                     SUBSCRIPTION_ID),
+                                                         messagingQos);
+        default:
+            throw new IllegalArgumentException("unsupported message type: " + messageType);
+        }
+    }
+
+    @Benchmark
+    public void messageArrived() {
+        dispatcher.messageArrived(message);
+    }
+}
@@ -0,0 +1,104 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Guice;
+
+import io.joynr.dispatching.JoynrMessageFactory;
+import io.joynr.dispatching.JoynrMessageProcessor;
+import io.joynr.messaging.JsonMessageSerializerModule;
+import io.joynr.messaging.MessagingQos;
+import joynr.JoynrMessage;
+import joynr.Reply;
+import joynr.Request;
+import joynr.tests.performance.Types.ComplexStruct;
+
+/**
+ * Measures the creation of joynr messages, which includes the serialization of the payload and the creation of
+ * the message header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class JoynrMessageFactoryBenchmark {
+
+    private static final String FROM_PARTICIPANT_ID = "fromParticipantId";
+    private static final String TO_PARTICIPANT_ID = "toParticipantId";
+
+    private JoynrMessageFactory joynrMessageFactory;
+    private MessagingQos messagingQos;
+    private Request stringRequest;
+    private Request complexStructRequest;
+    private Reply complexStructReply;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = Guice.createInjector(new JsonMessageSerializerModule())
+                                         .getInstance(ObjectMapper.class);
+        joynrMessageFactory = new JoynrMessageFactory(objectMapper, Collections.<JoynrMessageProcessor> emptySet());
+        messagingQos = new MessagingQos();
+        ComplexStruct complexStruct = new ComplexStruct(42, 4242L, new Byte[]{ 1, 2, 3, 4 }, "benchmark");
+        stringRequest = new Request("echoString", new Object[]{ "benchmark" }, new Class<?>[]{ String.class });
+        complexStructRequest = new Request("echoComplexStruct",
+                                           new Object[]{ complexStruct },
+                                           new Class<?>[]{ ComplexStruct.class });
+        complexStructReply = new Reply(complexStructRequest.getRequestReplyId(), complexStruct);
+    }
+
+    @Benchmark
+    public JoynrMessage createStringRequest() {
+        return joynrMessageFactory.createRequest(FROM_PARTICIPANT_ID, TO_PARTICIPANT_ID, stringRequest, messagingQos);
+    }
+
+    @Benchmark
+    public JoynrMessage createComplexStructRequest() {
+        return joynrMessageFactory.createRequest(FROM_PARTICIPANT_ID,
+                                                 TO_PARTICIPANT_ID,
+                                                 complexStructRequest,
+                                                 messagingQos);
+    }
+
+    @Benchmark
+    public JoynrMessage createComplexStructReply() {
+        return joynrMessageFactory.createReply(TO_PARTICIPANT_ID,
+                                               FROM_PARTICIPANT_ID,
+                                               complexStructReply,
+                                               messagingQos);
+    }
+}
@@ -0,0 +1,151 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Guice;
+
+import io.joynr.dispatching.JoynrMessageFactory;
+import io.joynr.dispatching.JoynrMessageProcessor;
+import io.joynr.messaging.AbstractMiddlewareMessagingStubFactory;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.IMessaging;
+import io.joynr.messaging.JsonMessageSerializerModule;
+import io.joynr.messaging.MessagingQos;
+import io.joynr.messaging.inprocess.InProcessAddress;
+import io.joynr.messaging.inprocess.InProcessMessagingSkeleton;
+import io.joynr.messaging.inprocess.InProcessMessagingStubFactory;
+import io.joynr.messaging.routing.MessageRouterImpl;
+import io.joynr.messaging.routing.MessagingStubFactory;
+import io.joynr.messaging.routing.RoutingTableImpl;
+import joynr.JoynrMessage;
+import joynr.Request;
+import joynr.system.RoutingTypes.Address;
+
+/**
+ * Measures the time from handing a message to {@link MessageRouterImpl#route(JoynrMessage)} until it is delivered
+ * to an in-process skeleton. This includes the next hop lookup, the queueing per address and the hand-over to the
+ * message scheduler, but no transport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MessageRouterBenchmark {
+
+    private static final String FROM_PARTICIPANT_ID = "fromParticipantId";
+    private static final String TO_PARTICIPANT_ID = "toParticipantId";
+    private static final long MESSAGE_TTL_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long SEND_MSG_RETRY_INTERVAL_MS = 1000;
+    private static final int SCHEDULER_THREADS = 2;
+
+    private final Semaphore deliveredMessages = new Semaphore(0);
+
+    private MessageRouterImpl messageRouter;
+    private JoynrMessage message;
+
+    @Setup
+    public void setup() {
+        Map<Class<? extends Address>, AbstractMiddlewareMessagingStubFactory<? extends IMessaging, ? extends Address>> stubFactories = new HashMap<>();
+        stubFactories.put(InProcessAddress.class, new InProcessMessagingStubFactory());
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(SCHEDULER_THREADS);
+        messageRouter = new MessageRouterImpl(new RoutingTableImpl(),
+                                              scheduler,
+                                              SEND_MSG_RETRY_INTERVAL_MS,
+                                              new MessagingStubFactory(stubFactories));
+        messageRouter.addNextHop(TO_PARTICIPANT_ID, new InProcessAddress(new CountingSkeleton()));
+
+        ObjectMapper objectMapper = Guice.createInjector(new JsonMessageSerializerModule())
+                                         .getInstance(ObjectMapper.class);
+        JoynrMessageFactory joynrMessageFactory = new JoynrMessageFactory(objectMapper,
+                                                                          Collections.<JoynrMessageProcessor> emptySet());
+        message = joynrMessageFactory.createRequest(FROM_PARTICIPANT_ID,
+                                                    TO_PARTICIPANT_ID,
+                                                    new Request("echoString",
+                                                                new Object[]{ "benchmark" },
+                                                                new Class<?>[]{ String.class }),
+                                                    new MessagingQos(MESSAGE_TTL_MS));
+    }
+
+    @TearDown
+    public void tearDown() {
+        messageRouter.shutdown();
+    }
+
+    @Benchmark
+    public void routeToInProcessStub() throws InterruptedException {
+        messageRouter.route(message);
+        deliveredMessages.acquire();
+    }
+
+    private class CountingSkeleton implements InProcessMessagingSkeleton {
+        @Override
+        public void transmit(JoynrMessage message) {
+            deliveredMessages.release();
+        }
+
+        @Override
+        public void transmit(JoynrMessage message, FailureAction failureAction) {
+            deliveredMessages.release();
+        }
+
+        @Override
+        public void transmit(List<JoynrMessage> messages, List<FailureAction> failureActions) {
+            deliveredMessages.release(messages.size());
+        }
+
+        @Override
+        public void transmit(String serializedMessage, FailureAction failureAction) {
+            deliveredMessages.release();
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import io.joynr.messaging.JoynrMessageSerializer;
+import io.joynr.messaging.JsonMessageSerializerModule;
+import io.joynr.messaging.serialize.BinaryMessageSerializer;
+import io.joynr.messaging.serialize.JsonSerializer;
+import joynr.JoynrMessage;
+import joynr.Request;
+
+/**
+ * Compares the JSON envelope of {@link JoynrMessage}s with the binary envelope of {@link BinaryMessageSerializer}.
+ * The payload is a request with a string parameter consisting of quotes only, which is the worst case for the
+ * escaping of the JSON envelope. The encoded size of the message is printed once per trial.
+ * <p>
+ * The string based methods are used by the WebSocket and HTTP transports; the binary serializer delegates them to the
+ * JSON serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MessageSerializerBenchmark {
+
+    @Param({ "json", "binary" })
+    private String format;
+
+    @Param({ "10", "1000", "100000" })
+    private int stringParameterLength;
+
+    private JoynrMessageSerializer serializer;
+    private JoynrMessage message;
+    private byte[] serializedMessage;
+    private String serializedMessageString;
+
+    @Setup
+    public void setup() throws Exception {
+        Injector injector = Guice.createInjector(new JsonMessageSerializerModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                requestStaticInjection(Request.class);
+            }
+        });
+        if ("binary".equals(format)) {
+            serializer = injector.getInstance(BinaryMessageSerializer.class);
+        } else {
+            serializer = injector.getInstance(JsonSerializer.class);
+        }
+
+        char[] parameter = new char[stringParameterLength];
+        Arrays.fill(parameter, '"');
+        Request request = new Request("echoString",
+                                      new Object[]{ new String(parameter) },
+                                      new Class<?>[]{ String.class });
+        String payload = injector.getInstance(ObjectMapper.class).writeValueAsString(request);
+
+        Map<String, String> header = new HashMap<>();
+        header.put(JoynrMessage.HEADER_NAME_TO_PARTICIPANT_ID, "0a5d2b5c-1ac7-4a80-9ed4-c4f7b5d5c1a9");
+        header.put(JoynrMessage.HEADER_NAME_FROM_PARTICIPANT_ID, "4f8e6a3b-8f34-4c35-a3b2-6a8e7c1d0e21");
+        header.put(JoynrMessage.HEADER_NAME_EXPIRY_DATE, String.valueOf(System.currentTimeMillis() + 60000));
+        header.put(JoynrMessage.HEADER_NAME_CONTENT_TYPE, JoynrMessage.CONTENT_TYPE_APPLICATION_JSON);
+        header.put(JoynrMessage.HEADER_NAME_REPLY_CHANNELID, "{\"_typeName\":\"joynr.system.RoutingTypes.MqttAddress\","
+                + "\"brokerUri\":\"tcp://localhost:1883\",\"topic\":\"replyTopic\"}");
+        message = new JoynrMessage(JoynrMessage.MESSAGE_TYPE_REQUEST, header, payload);
+        serializedMessage = serializer.serializeToBytes(message);
+        serializedMessageString = serializer.serialize(message);
+
+        System.out.println(String.format("%s envelope, %d characters: %d bytes",
+                                         format,
+                                         stringParameterLength,
+                                         serializedMessage.length));
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serializeToBytes(message);
+    }
+
+    @Benchmark
+    public JoynrMessage deserialize() {
+        return serializer.deserialize(serializedMessage);
+    }
+
+    @Benchmark
+    public JoynrMessage roundTrip() {
+        return serializer.deserialize(serializer.serializeToBytes(message));
+    }
+
+    @Benchmark
+    public String serializeToString() {
+        return serializer.serialize(message);
+    }
+
+    @Benchmark
+    public JoynrMessage deserializeString() {
+        return serializer.deserialize(serializedMessageString);
+    }
+}
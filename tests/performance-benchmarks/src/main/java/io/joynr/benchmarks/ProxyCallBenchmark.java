@@ -0,0 +1,124 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.joynr.arbitration.ArbitrationStrategy;
+import io.joynr.arbitration.DiscoveryQos;
+import io.joynr.arbitration.DiscoveryScope;
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.integration.util.DummyJoynrApplication;
+import io.joynr.performance.EchoProviderImpl;
+import io.joynr.proxy.Callback;
+import io.joynr.proxy.Future;
+import io.joynr.runtime.CCInProcessRuntimeModule;
+import io.joynr.runtime.JoynrInjectorFactory;
+import io.joynr.runtime.JoynrRuntime;
+import joynr.exceptions.ApplicationException;
+import joynr.tests.performance.EchoProxy;
+import joynr.tests.performance.Types.ComplexStruct;
+import joynr.types.ProviderQos;
+import joynr.types.ProviderScope;
+
+/**
+ * Measures the overhead of a proxy call against a provider registered in the same in-process runtime.
+ * No transport is involved, so the result is dominated by the proxy, dispatching and provider-side
+ * invocation code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ProxyCallBenchmark {
+
+    private static final String DOMAIN = "benchmarks";
+    private static final long DISCOVERY_TIMEOUT_MS = 30000;
+
+    private JoynrRuntime runtime;
+    private EchoProxy echoProxy;
+    private ComplexStruct complexStruct;
+
+    private final Callback<String> echoStringCallback = new Callback<String>() {
+        @Override
+        public void onSuccess(String result) {
+        }
+
+        @Override
+        public void onFailure(JoynrRuntimeException runtimeException) {
+        }
+    };
+
+    @Setup
+    public void setup() {
+        Properties joynrConfig = new Properties();
+        DummyJoynrApplication application = (DummyJoynrApplication) new JoynrInjectorFactory(joynrConfig,
+                                                                                              new CCInProcessRuntimeModule()).createApplication(DummyJoynrApplication.class);
+        runtime = application.getRuntime();
+
+        ProviderQos providerQos = new ProviderQos();
+        providerQos.setPriority(System.currentTimeMillis());
+        providerQos.setScope(ProviderScope.LOCAL);
+        runtime.registerProvider(DOMAIN, new EchoProviderImpl(), providerQos);
+
+        DiscoveryQos discoveryQos = new DiscoveryQos(DISCOVERY_TIMEOUT_MS,
+                                                     ArbitrationStrategy.HighestPriority,
+                                                     DiscoveryQos.NO_MAX_AGE,
+                                                     DiscoveryScope.LOCAL_ONLY);
+        echoProxy = runtime.getProxyBuilder(DOMAIN, EchoProxy.class).setDiscoveryQos(discoveryQos).build();
+        complexStruct = new ComplexStruct(42, 4242L, new Byte[]{ 1, 2, 3, 4 }, "benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        runtime.shutdown(true);
+    }
+
+    @Benchmark
+    public String syncEchoString() {
+        return echoProxy.echoString("benchmark");
+    }
+
+    @Benchmark
+    public ComplexStruct syncEchoComplexStruct() {
+        return echoProxy.echoComplexStruct(complexStruct);
+    }
+
+    @Benchmark
+    public String asyncEchoString() throws InterruptedException, ApplicationException {
+        Future<String> future = echoProxy.echoString(echoStringCallback, "benchmark");
+        return future.get();
+    }
+}
@@ -0,0 +1,93 @@
+package io.joynr.benchmarks;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Provider;
+
+import io.joynr.context.JoynrMessageScope;
+import io.joynr.dispatching.RequestCaller;
+import io.joynr.dispatching.RequestCallerFactory;
+import io.joynr.dispatching.rpc.RequestInterpreter;
+import io.joynr.messaging.JoynrMessageCreator;
+import io.joynr.performance.EchoProviderImpl;
+import joynr.Request;
+import joynr.tests.performance.Types.ComplexStruct;
+
+/**
+ * Measures the provider side invocation of a method through {@link RequestInterpreter#invokeMethod}, i.e. the
+ * lookup of the method in the dispatch table, the activation of the message scope and the reflective call of the
+ * provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class RequestInterpreterBenchmark {
+
+    private RequestInterpreter requestInterpreter;
+    private RequestCaller requestCaller;
+    private Request stringRequest;
+    private Request complexStructRequest;
+
+    @Setup
+    public void setup() {
+        final JoynrMessageCreator joynrMessageCreator = new JoynrMessageCreator();
+        requestInterpreter = new RequestInterpreter(new JoynrMessageScope(), new Provider<JoynrMessageCreator>() {
+            @Override
+            public JoynrMessageCreator get() {
+                return joynrMessageCreator;
+            }
+        });
+        requestCaller = new RequestCallerFactory().create(new EchoProviderImpl());
+        requestInterpreter.registerRequestCaller(requestCaller);
+
+        stringRequest = new Request("echoString", new Object[]{ "benchmark" }, new Class<?>[]{ String.class });
+        ComplexStruct complexStruct = new ComplexStruct(42, 4242L, new Byte[]{ 1, 2, 3, 4 }, "benchmark");
+        complexStructRequest = new Request("echoComplexStruct",
+                                           new Object[]{ complexStruct },
+                                           new Class<?>[]{ ComplexStruct.class });
+    }
+
+    @Benchmark
+    public Object invokeEchoString() {
+        return requestInterpreter.invokeMethod(requestCaller, stringRequest);
+    }
+
+    @Benchmark
+    public Object invokeEchoComplexStruct() {
+        return requestInterpreter.invokeMethod(requestCaller, complexStructRequest);
+    }
+}
@@ -0,0 +1,94 @@
+package io.joynr.performance;
+
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2011 - 2016 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.joynr.dispatching.TimingWheel;
+import io.joynr.dispatching.subscription.MissedPublicationTimer;
+import io.joynr.dispatching.subscription.PubSubState;
+import io.joynr.pubsub.SubscriptionQos;
+import io.joynr.pubsub.subscription.AttributeSubscriptionAdapter;
+
+/**
+ * Checks the number of threads used by the timers of a large number of subscriptions. Each
+ * {@link MissedPublicationTimer} used to own a java.util.Timer, i.e. one thread per subscription; with the shared
+ * {@link TimingWheel} the thread count must stay constant.
+ */
+public class SubscriptionTimerPerformanceTest {
+
+    private final static int NUM_SUBSCRIPTIONS = 100000;
+    private final static long EXPECTED_INTERVAL_MS = 60000;
+    private final static long ALERT_AFTER_INTERVAL_MS = 120000;
+    // tolerates threads started concurrently by other code running in the same JVM
+    private final static int MAX_ADDITIONAL_THREADS = 5;
+
+    private TimingWheel timingWheel;
+    private List<MissedPublicationTimer> timers;
+
+    @Before
+    public void setUp() {
+        timingWheel = new TimingWheel();
+        timers = new ArrayList<MissedPublicationTimer>(NUM_SUBSCRIPTIONS);
+    }
+
+    @After
+    public void tearDown() {
+        for (MissedPublicationTimer timer : timers) {
+            timer.cancel();
+        }
+        timingWheel.stop();
+    }
+
+    @Test
+    public void missedPublicationTimersFor100kSubscriptionsDoNotStartThreads() {
+        AttributeSubscriptionAdapter<Integer> listener = new AttributeSubscriptionAdapter<Integer>();
+        // start the wheel before taking the baseline
+        timingWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 0);
+        int threadsBefore = Thread.activeCount();
+
+        for (int i = 0; i < NUM_SUBSCRIPTIONS; i++) {
+            PubSubState state = new PubSubState();
+            state.updateTimeOfLastPublication();
+            timers.add(new MissedPublicationTimer(SubscriptionQos.NO_EXPIRY_DATE,
+                                                  EXPECTED_INTERVAL_MS,
+                                                  ALERT_AFTER_INTERVAL_MS,
+                                                  listener,
+                                                  state,
+                                                  "subscription-" + i,
+                                                  timingWheel));
+        }
+
+        int threadsAfter = Thread.activeCount();
+        assertTrue("threads before: " + threadsBefore + ", after: " + threadsAfter,
+                   threadsAfter <= threadsBefore + MAX_ADDITIONAL_THREADS);
+    }
+}